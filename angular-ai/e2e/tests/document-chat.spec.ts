@@ -10,7 +10,7 @@ function sseBody(answerDeltas: string[], sources: unknown[]): string {
     .map(delta => `event: answer\ndata: ${JSON.stringify(delta)}\n\n`)
     .join('');
   const sourcesFrame = `event: sources\ndata: ${JSON.stringify(sources)}\n\n`;
-  return answerFrames + sourcesFrame;
+  return sourcesFrame + answerFrames;
 }
 
 test.describe('Chat with Documents - Upload Flow', () => {
@@ -5,7 +5,7 @@ import { of, Subject, throwError } from 'rxjs';
 
 import { DocumentChat } from './document-chat';
 import { RagService } from './rag.service';
-import { DocumentMetadata, RagStreamEvent } from './rag.model';
+import { DocumentMetadata, DocumentPage, RagStreamEvent } from './rag.model';
 
 const readyDocument: DocumentMetadata = {
   id: 'doc-1',
@@ -25,6 +25,10 @@ const otherDocument: DocumentMetadata = {
   status: 'READY'
 };
 
+function page(documents: DocumentMetadata[], nextCursor: string | null = null): DocumentPage {
+  return { documents, nextCursor, total: documents.length, totalExact: true };
+}
+
 class MockRagService {
   uploadDocument() {
     return of(readyDocument);
@@ -33,10 +37,10 @@ class MockRagService {
     return of(readyDocument);
   }
   askQuestionStream() {
-    return of({ type: 'answer', content: 'Mocked answer' }, { type: 'sources', sources: [] });
+    return of({ type: 'sources', sources: [] }, { type: 'answer', content: 'Mocked answer' });
   }
   listDocuments() {
-    return of([]);
+    return of(page([]));
   }
   deleteDocument() {
     return of(undefined);
@@ -199,9 +203,9 @@ describe('DocumentChat', () => {
 
   it('should send a question and render the answer with sources', () => {
     const events: RagStreamEvent[] = [
+      { type: 'sources', sources: [{ content: 'snippet from doc', filename: 'test.pdf', metadata: {} }] },
       { type: 'answer', content: 'The ' },
-      { type: 'answer', content: 'answer' },
-      { type: 'sources', sources: [{ content: 'snippet from doc', filename: 'test.pdf', metadata: {} }] }
+      { type: 'answer', content: 'answer' }
     ];
     vi.spyOn(ragService, 'askQuestionStream').mockReturnValue(of(...events));
 
@@ -222,8 +226,8 @@ describe('DocumentChat', () => {
 
   it('should not render a sources section when the answer has no sources', () => {
     const events: RagStreamEvent[] = [
-      { type: 'answer', content: 'No sources answer' },
-      { type: 'sources', sources: [] }
+      { type: 'sources', sources: [] },
+      { type: 'answer', content: 'No sources answer' }
     ];
     vi.spyOn(ragService, 'askQuestionStream').mockReturnValue(of(...events));
 
@@ -235,6 +239,26 @@ describe('DocumentChat', () => {
     expect(fixture.nativeElement.querySelector('.sources')).toBeNull();
   });
 
+  it('should render sources before the answer arrives and remove them when they are retracted', () => {
+    const response$ = new Subject<RagStreamEvent>();
+    vi.spyOn(ragService, 'askQuestionStream').mockReturnValue(response$);
+
+    selectFile('test.pdf', 'application/pdf');
+    typeQuestion('off-topic question');
+    clickSend();
+
+    response$.next({ type: 'sources', sources: [{ content: 'snippet from doc', filename: 'test.pdf', metadata: {} }] });
+    fixture.detectChanges();
+    expect(fixture.nativeElement.querySelector('.sources').textContent).toContain('test.pdf');
+
+    response$.next({ type: 'answer', content: 'I cannot answer that.' });
+    response$.next({ type: 'sources', sources: [] });
+    response$.complete();
+    fixture.detectChanges();
+
+    expect(fixture.nativeElement.querySelector('.sources')).toBeNull();
+  });
+
   it('should show the typing indicator while waiting for the answer', () => {
     const response$ = new Subject<RagStreamEvent>();
     vi.spyOn(ragService, 'askQuestionStream').mockReturnValue(response$);
@@ -245,8 +269,8 @@ describe('DocumentChat', () => {
 
     expect(fixture.nativeElement.querySelector('.typing')).toBeTruthy();
 
-    response$.next({ type: 'answer', content: 'Done' });
     response$.next({ type: 'sources', sources: [] });
+    response$.next({ type: 'answer', content: 'Done' });
     response$.complete();
     fixture.detectChanges();
 
@@ -268,8 +292,8 @@ describe('DocumentChat', () => {
 
   it('should sanitize HTML and script tags before sending', () => {
     const events: RagStreamEvent[] = [
-      { type: 'answer', content: 'Answer' },
-      { type: 'sources', sources: [] }
+      { type: 'sources', sources: [] },
+      { type: 'answer', content: 'Answer' }
     ];
     vi.spyOn(ragService, 'askQuestionStream').mockReturnValue(of(...events));
 
@@ -307,13 +331,28 @@ describe('DocumentChat', () => {
     });
 
     it('should populate the document list from the backend', () => {
-      vi.spyOn(ragService, 'listDocuments').mockReturnValue(of([readyDocument, otherDocument]));
+      vi.spyOn(ragService, 'listDocuments').mockReturnValue(of(page([readyDocument, otherDocument])));
 
       component['loadDocuments']();
 
       expect(component['documents']()).toEqual([readyDocument, otherDocument]);
     });
 
+    it('should append the next page when loading more documents', () => {
+      const listDocuments = vi.spyOn(ragService, 'listDocuments')
+        .mockReturnValueOnce(of(page([readyDocument], 'cursor-1')))
+        .mockReturnValueOnce(of(page([otherDocument])));
+
+      component['loadDocuments']();
+      expect(component['hasMoreDocuments']()).toBe(true);
+
+      component['loadMoreDocuments']();
+
+      expect(listDocuments).toHaveBeenLastCalledWith({ cursor: 'cursor-1' });
+      expect(component['documents']()).toEqual([readyDocument, otherDocument]);
+      expect(component['hasMoreDocuments']()).toBe(false);
+    });
+
     it('should select a ready document, switching the active document immediately', () => {
       component['documents'].set([readyDocument, otherDocument]);
 
@@ -334,7 +373,7 @@ describe('DocumentChat', () => {
     });
 
     it('should refresh the document list once an uploaded document settles', () => {
-      vi.spyOn(ragService, 'listDocuments').mockReturnValue(of([readyDocument]));
+      vi.spyOn(ragService, 'listDocuments').mockReturnValue(of(page([readyDocument])));
 
       selectFile('test.pdf', 'application/pdf');
 
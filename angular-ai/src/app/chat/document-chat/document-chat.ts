@@ -14,7 +14,7 @@ import { catchError, EMPTY, interval, of, switchMap, takeWhile } from 'rxjs';
 import { ConfirmDialog } from '../../shared/confirm-dialog/confirm-dialog';
 import { LoggingService } from '../../shared/logging.service';
 import { MarkdownToHtmlPipe } from '../../shared/markdown-to-html.pipe';
-import { DocumentMetadata, RagChatMessage, RagStreamEvent, Source } from './rag.model';
+import { DocumentMetadata, DocumentPage, DocumentSummary, RagChatMessage, RagStreamEvent, Source } from './rag.model';
 import { RagService } from './rag.service';
 
 const MAX_MESSAGE_LENGTH = 2000;
@@ -48,7 +48,10 @@ export class DocumentChat {
   private isUploading = signal(false);
 
   protected document = signal<DocumentMetadata | null>(null);
-  protected documents = signal<DocumentMetadata[]>([]);
+  protected documents = signal<DocumentSummary[]>([]);
+  protected documentsTotal = signal<{ total: number; exact: boolean }>({ total: 0, exact: true });
+  private nextCursor = signal<string | null>(null);
+  protected readonly hasMoreDocuments = computed(() => this.nextCursor() !== null);
 
   protected messages = signal<RagChatMessage[]>([
     { message: 'Upload a PDF document and I will answer questions about it.', isBot: true },
@@ -157,25 +160,57 @@ export class DocumentChat {
     this.loadDocuments();
   }
 
+  /**
+   * Loads the first page of documents, replacing the list.
+   */
   private loadDocuments(): void {
-    this.ragService.listDocuments()
+    this.fetchDocuments().subscribe(page => {
+      if (page) {
+        this.documents.set(page.documents);
+        this.onDocumentPageLoaded(page);
+      }
+    });
+  }
+
+  /**
+   * Appends the next page of documents to the list.
+   */
+  protected loadMoreDocuments(): void {
+    const cursor = this.nextCursor();
+    if (!cursor) {
+      return;
+    }
+    this.fetchDocuments(cursor).subscribe(page => {
+      if (page) {
+        this.documents.update(documents => [...documents, ...page.documents]);
+        this.onDocumentPageLoaded(page);
+      }
+    });
+  }
+
+  private fetchDocuments(cursor?: string) {
+    return this.ragService.listDocuments({ cursor })
       .pipe(
         catchError(() => {
           this.logger.error('Failed to load documents');
-          return of<DocumentMetadata[]>([]);
+          return of(null);
         })
-      )
-      .subscribe(documents => this.documents.set(documents));
+      );
+  }
+
+  private onDocumentPageLoaded(page: DocumentPage): void {
+    this.nextCursor.set(page.nextCursor);
+    this.documentsTotal.set({ total: page.total, exact: page.totalExact });
   }
 
-  protected selectDocument(doc: DocumentMetadata): void {
+  protected selectDocument(doc: DocumentSummary): void {
     if (doc.status !== 'READY') {
       return;
     }
     this.document.set(doc);
   }
 
-  protected confirmDeleteDocument(doc: DocumentMetadata): void {
+  protected confirmDeleteDocument(doc: DocumentSummary): void {
     this.dialog.open(ConfirmDialog, {
       data: {
         title: 'Delete document',
@@ -188,7 +223,7 @@ export class DocumentChat {
     });
   }
 
-  private deleteDocument(doc: DocumentMetadata): void {
+  private deleteDocument(doc: DocumentSummary): void {
     this.ragService.deleteDocument(doc.id)
       .pipe(
         catchError(() => {
@@ -198,6 +233,7 @@ export class DocumentChat {
       )
       .subscribe(() => {
         this.documents.update(documents => documents.filter(d => d.id !== doc.id));
+        this.documentsTotal.update(({ total, exact }) => ({ total: Math.max(total - 1, 0), exact }));
         if (this.document()?.id === doc.id) {
           this.document.set(null);
         }
@@ -10,6 +10,35 @@ export interface DocumentMetadata {
   errorMessage?: string;
 }
 
+/**
+ * A document as listed by `GET /api/rag/documents`, without its error message.
+ */
+export type DocumentSummary = Omit<DocumentMetadata, 'errorMessage'>;
+
+/**
+ * A page of documents, most recently uploaded first.
+ *
+ * - `nextCursor` is passed back as `cursor` to get the next page, and is null on the last page.
+ * - `total` is the number of matching documents; when `totalExact` is false it is an
+ *   estimate (large tables) or a lower bound (large filtered results).
+ */
+export interface DocumentPage {
+  documents: DocumentSummary[];
+  nextCursor: string | null;
+  total: number;
+  totalExact: boolean;
+}
+
+/**
+ * Filters and position of a document listing. All fields are optional.
+ */
+export interface DocumentListQuery {
+  status?: DocumentStatus;
+  filenamePrefix?: string;
+  cursor?: string;
+  limit?: number;
+}
+
 export interface Source {
   content: string;
   filename: string;
@@ -35,9 +64,10 @@ export interface RagChatMessage {
 /**
  * A single event emitted while streaming a RAG answer.
  *
+ * - `sources` is the first event, emitted before the answer starts, carrying
+ *   the source citations retrieved for the question. If the answer turns out
+ *   to be a refusal, a second `sources` event with no sources replaces them.
  * - `answer` events carry an incremental text chunk (delta) of the answer.
- * - `sources` event is emitted once, after the answer is complete, carrying
- *   the source citations used to generate it.
  */
 export type RagStreamEvent =
   | { type: 'answer'; content: string }
@@ -4,7 +4,7 @@ import { provideHttpClient } from '@angular/common/http';
 import { provideHttpClientTesting, HttpTestingController } from '@angular/common/http/testing';
 
 import { RagService } from './rag.service';
-import { DocumentMetadata, RagResponse } from './rag.model';
+import { DocumentMetadata, DocumentPage, RagResponse } from './rag.model';
 
 describe('RagService', () => {
   let service: RagService;
@@ -83,16 +83,31 @@ describe('RagService', () => {
   });
 
   describe('listDocuments', () => {
-    it('should list all documents', () => {
-      const documents = [mockDocument, { ...mockDocument, id: 'doc-2', status: 'READY' as const }];
+    it('should request the first page of documents', () => {
+      const page: DocumentPage = {
+        documents: [mockDocument, { ...mockDocument, id: 'doc-2', status: 'READY' as const }],
+        nextCursor: 'next',
+        total: 3,
+        totalExact: true
+      };
 
       service.listDocuments().subscribe(response => {
-        expect(response).toEqual(documents);
+        expect(response).toEqual(page);
       });
 
       const req = httpMock.expectOne(`${service.API}/documents`);
       expect(req.request.method).toBe('GET');
-      req.flush(documents);
+      req.flush(page);
+    });
+
+    it('should pass the cursor and filters as query parameters, skipping empty ones', () => {
+      service.listDocuments({ cursor: 'next', status: 'READY', filenamePrefix: '' }).subscribe();
+
+      const req = httpMock.expectOne(r => r.url === `${service.API}/documents`);
+      expect(req.request.params.get('cursor')).toBe('next');
+      expect(req.request.params.get('status')).toBe('READY');
+      expect(req.request.params.has('filenamePrefix')).toBe(false);
+      req.flush({ documents: [], nextCursor: null, total: 0, totalExact: true });
     });
   });
 
@@ -150,7 +165,7 @@ describe('RagService', () => {
   });
 
   describe('askQuestionStream', () => {
-    it('should POST to the stream endpoint and emit answer deltas followed by sources', () => {
+    it('should POST to the stream endpoint and emit sources followed by answer deltas', () => {
       const events: unknown[] = [];
       let completed = false;
       service.askQuestionStream('What is this about?', 'doc-1').subscribe({
@@ -162,14 +177,14 @@ describe('RagService', () => {
       expect(req.request.method).toBe('POST');
       expect(req.request.body).toEqual({ question: 'What is this about?', documentId: 'doc-1' });
       // Real wire format: raw unquoted answer deltas, no padding after "data:"
-      req.flush('event:answer\ndata:The \n\n'
-        + 'event:answer\ndata:answer\n\n'
-        + 'event:sources\ndata:[{"content":"snippet","filename":"test.pdf","metadata":{}}]\n\n');
+      req.flush('event:sources\ndata:[{"content":"snippet","filename":"test.pdf","metadata":{}}]\n\n'
+        + 'event:answer\ndata:The \n\n'
+        + 'event:answer\ndata:answer\n\n');
 
       expect(events).toEqual([
+        { type: 'sources', sources: [{ content: 'snippet', filename: 'test.pdf', metadata: {} }] },
         { type: 'answer', content: 'The ' },
-        { type: 'answer', content: 'answer' },
-        { type: 'sources', sources: [{ content: 'snippet', filename: 'test.pdf', metadata: {} }] }
+        { type: 'answer', content: 'answer' }
       ]);
       expect(completed).toBe(true);
     });
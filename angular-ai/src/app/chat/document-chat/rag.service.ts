@@ -1,9 +1,9 @@
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { inject, Injectable } from '@angular/core';
 import { Observable } from 'rxjs';
 import { map } from 'rxjs/operators';
 import { SseClient } from '../../shared/sse-client';
-import { DocumentMetadata, RagResponse, RagStreamEvent, Source } from './rag.model';
+import { DocumentListQuery, DocumentMetadata, DocumentPage, RagResponse, RagStreamEvent, Source } from './rag.model';
 
 /**
  * RAG (Retrieval-Augmented Generation) Service
@@ -13,6 +13,7 @@ import { DocumentMetadata, RagResponse, RagStreamEvent, Source } from './rag.mod
  * **Responsibilities:**
  * - Upload PDF documents for ingestion into the vector store
  * - Poll document processing status
+ * - List uploaded documents a page at a time
  * - Ask questions scoped to a single uploaded document
  *
  * The backend answers questions using only the content of the uploaded
@@ -53,10 +54,17 @@ export class RagService {
   }
 
   /**
-   * List all previously uploaded documents, most recently uploaded first.
+   * List a page of previously uploaded documents, most recently uploaded first.
+   * Pass the returned `nextCursor` as `cursor` to get the following page.
    */
-  listDocuments(): Observable<DocumentMetadata[]> {
-    return this.http.get<DocumentMetadata[]>(`${this.API}/documents`);
+  listDocuments(query: DocumentListQuery = {}): Observable<DocumentPage> {
+    let params = new HttpParams();
+    for (const [key, value] of Object.entries(query)) {
+      if (value !== undefined && value !== null && value !== '') {
+        params = params.set(key, value);
+      }
+    }
+    return this.http.get<DocumentPage>(`${this.API}/documents`, { params });
   }
 
   /**
@@ -78,9 +86,10 @@ export class RagService {
    * Ask a question scoped to a single uploaded document, streaming the answer
    * as it is generated.
    *
-   * Emits a sequence of `{ type: 'answer', content }` events with incremental
-   * text chunks, followed by a single terminal `{ type: 'sources', sources }`
-   * event once the answer is complete.
+   * Emits a `{ type: 'sources', sources }` event first, so citations can be
+   * shown right away, followed by `{ type: 'answer', content }` events with
+   * incremental text chunks. A later `sources` event replaces the citations
+   * (with none, when the answer is a refusal).
    */
   askQuestionStream(question: string, documentId: string): Observable<RagStreamEvent> {
     return this.sseClient.post<string | Source[]>(`${this.API}/ask/stream`, { question, documentId })
@@ -10,12 +10,16 @@ import org.springframework.stereotype.Repository;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import com.loiane.api_ai.rag.model.DocumentMetadata;
+import com.loiane.api_ai.rag.model.DocumentPage;
 import com.loiane.api_ai.rag.model.DocumentStatus;
+import com.loiane.api_ai.rag.model.DocumentSummary;
 
 /**
  * Repository for managing document metadata in the RAG system.
@@ -53,14 +57,16 @@ public class DocumentRepository {
         String id = document.id() != null ? document.id() : UUID.randomUUID().toString();
         
         String sql = """
-            INSERT INTO documents (id, filename, content_type, file_size, upload_date, status, error_message)
-            VALUES (?::uuid, ?, ?, ?, ?, ?::VARCHAR, ?)
+            INSERT INTO documents (id, filename, content_type, file_size, upload_date, status, error_message,
+                                   content_hash)
+            VALUES (?::uuid, ?, ?, ?, ?, ?::VARCHAR, ?, ?)
             ON CONFLICT (id) DO UPDATE SET
                 filename = EXCLUDED.filename,
                 content_type = EXCLUDED.content_type,
                 file_size = EXCLUDED.file_size,
                 status = EXCLUDED.status,
                 error_message = EXCLUDED.error_message,
+                content_hash = EXCLUDED.content_hash,
                 updated_at = CURRENT_TIMESTAMP
             """;
 
@@ -71,7 +77,8 @@ public class DocumentRepository {
                 document.fileSize(),
                 Timestamp.valueOf(document.uploadDate()),
                 document.status().name(),
-                document.errorMessage()
+                document.errorMessage(),
+                document.contentHash()
         );
 
         log.debug("Saved document: id={}, filename={}, status={}", id, document.filename(), document.status());
@@ -83,7 +90,8 @@ public class DocumentRepository {
                 document.fileSize(),
                 document.uploadDate(),
                 document.status(),
-                document.errorMessage()
+                document.errorMessage(),
+                document.contentHash()
         );
     }
 
@@ -107,15 +115,118 @@ public class DocumentRepository {
     }
 
     /**
-     * Finds all documents ordered by upload date.
-     * 
-     * @return List of all documents
+     * Finds the earliest uploaded document whose file has the given hash.
+     *
+     * <p>Failed documents are ignored, so uploading their file again creates a new document.
+     *
+     * @param contentHash Hex SHA-256 of the file
+     * @return Optional containing the document if found, empty otherwise
      */
-    public List<DocumentMetadata> findAll() {
-        String sql = "SELECT * FROM documents ORDER BY upload_date DESC";
-        List<DocumentMetadata> documents = jdbcTemplate.query(sql, documentRowMapper);
-        log.debug("Found {} documents", documents.size());
-        return documents;
+    public Optional<DocumentMetadata> findByContentHash(String contentHash) {
+        String sql = """
+            SELECT * FROM documents
+            WHERE content_hash = ? AND status <> 'ERROR'
+            ORDER BY upload_date
+            LIMIT 1
+            """;
+        return jdbcTemplate.query(sql, documentRowMapper, contentHash).stream().findFirst();
+    }
+
+    /**
+     * Counts the documents whose file has the given hash, whatever their status.
+     *
+     * @param contentHash Hex SHA-256 of the file
+     * @return Number of documents referencing the file
+     */
+    public long countByContentHash(String contentHash) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM documents WHERE content_hash = ?",
+                Long.class, contentHash);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Finds a page of documents, most recently uploaded first.
+     *
+     * <p>Pages are read by keyset: the page after a cursor starts right below its
+     * {@code (upload_date, id)} instead of skipping the previous rows with OFFSET,
+     * so a deep page costs the same as the first one and rows inserted meanwhile
+     * do not shift pages. The rows come in the order of
+     * {@code idx_documents_upload_date_id}, whose scan starts at the cursor
+     * without a sort; {@code id} breaks ties between documents uploaded at the
+     * same instant.
+     *
+     * @param status         Document status, or null for any
+     * @param filenamePrefix Start of the filename, or null for any
+     * @param after          Cursor of the previous page, or null for the first page
+     * @param limit          Maximum number of documents
+     * @return The documents, without their error message
+     */
+    public List<DocumentSummary> findPage(DocumentStatus status, String filenamePrefix,
+                                          DocumentPage.Cursor after, int limit) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT id, filename, content_type, file_size, upload_date, status
+            FROM documents
+            WHERE true
+            """);
+        List<Object> args = new ArrayList<>();
+        appendListingFilters(sql, args, status, filenamePrefix);
+        if (after != null) {
+            sql.append(" AND upload_date <= ? AND (upload_date < ? OR id < ?::uuid)");
+            args.add(Timestamp.valueOf(after.uploadDate()));
+            args.add(Timestamp.valueOf(after.uploadDate()));
+            args.add(after.id());
+        }
+        sql.append(" ORDER BY upload_date DESC, id DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), (rs, _) -> new DocumentSummary(
+                rs.getString("id"),
+                rs.getString("filename"),
+                rs.getString("content_type"),
+                rs.getLong("file_size"),
+                rs.getTimestamp("upload_date").toLocalDateTime(),
+                DocumentStatus.valueOf(rs.getString("status"))
+        ), args.toArray());
+    }
+
+    /**
+     * Counts the documents matching the filters, stopping at {@code limit}.
+     *
+     * @param status         Document status, or null for any
+     * @param filenamePrefix Start of the filename, or null for any
+     * @param limit          Number of matching documents after which counting stops
+     * @return The number of matching documents, at most {@code limit}
+     */
+    public long countUpTo(DocumentStatus status, String filenamePrefix, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM (SELECT 1 FROM documents WHERE true");
+        List<Object> args = new ArrayList<>();
+        appendListingFilters(sql, args, status, filenamePrefix);
+        sql.append(" LIMIT ?) AS matching");
+        args.add(limit);
+        Long count = jdbcTemplate.queryForObject(sql.toString(), Long.class, args.toArray());
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Estimates the number of documents from the planner statistics, without scanning the table.
+     *
+     * @return The estimate as of the last ANALYZE, or -1 if the table was never analyzed
+     */
+    public long estimateCount() {
+        Long estimate = jdbcTemplate.queryForObject(
+                "SELECT reltuples::bigint FROM pg_class WHERE oid = 'documents'::regclass", Long.class);
+        return estimate != null ? estimate : -1L;
+    }
+
+    private static void appendListingFilters(StringBuilder sql, List<Object> args, DocumentStatus status,
+                                             String filenamePrefix) {
+        if (status != null) {
+            sql.append(" AND status = ?::VARCHAR");
+            args.add(status.name());
+        }
+        if (filenamePrefix != null && !filenamePrefix.isEmpty()) {
+            sql.append(" AND filename LIKE ? ESCAPE '\\'");
+            args.add(filenamePrefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%");
+        }
     }
 
     /**
@@ -151,6 +262,27 @@ public class DocumentRepository {
         }
     }
 
+    /**
+     * Marks a document READY once its chunks are stored, recording how many there are.
+     *
+     * @param id The document ID
+     * @param chunkCount The number of chunks stored, 0 for a PDF without text
+     */
+    public void markReady(String id, int chunkCount) {
+        String sql = """
+            UPDATE documents
+            SET status = 'READY', error_message = NULL, chunk_count = ?, updated_at = CURRENT_TIMESTAMP
+            WHERE id = ?::uuid
+            """;
+        int rowsAffected = jdbcTemplate.update(sql, chunkCount, id);
+
+        if (rowsAffected > 0) {
+            log.debug("Marked document ready: id={}, chunks={}", id, chunkCount);
+        } else {
+            log.warn("Attempted to mark non-existent document ready: id={}", id);
+        }
+    }
+
     /**
      * Updates the status and error message of a document.
      * 
@@ -169,6 +301,42 @@ public class DocumentRepository {
         }
     }
 
+    /**
+     * Marks a document PROCESSING unless it already is, in a single statement,
+     * so only one of several concurrent callers claims it.
+     *
+     * @param id The document ID
+     * @return true if the document was claimed, false if it does not exist or is already PROCESSING
+     */
+    public boolean claimForProcessing(String id) {
+        String sql = """
+            UPDATE documents
+            SET status = 'PROCESSING', updated_at = CURRENT_TIMESTAMP
+            WHERE id = ?::uuid AND status <> 'PROCESSING'
+            """;
+        return jdbcTemplate.update(sql, id) == 1;
+    }
+
+    /**
+     * Points a document at a replacement file and marks it PROCESSING.
+     *
+     * @param id The document ID
+     * @param filename Filename of the replacement file
+     * @param contentType MIME type of the replacement file
+     * @param fileSize Size of the replacement file in bytes
+     * @param contentHash Hex SHA-256 of the replacement file
+     */
+    public void replaceFile(String id, String filename, String contentType, long fileSize, String contentHash) {
+        String sql = """
+            UPDATE documents
+            SET filename = ?, content_type = ?, file_size = ?, status = 'PROCESSING', error_message = NULL,
+                content_hash = ?, updated_at = CURRENT_TIMESTAMP
+            WHERE id = ?::uuid
+            """;
+        jdbcTemplate.update(sql, filename, contentType, fileSize, contentHash, id);
+        log.debug("Replaced document file: id={}, filename={}", id, filename);
+    }
+
     /**
      * Finds all documents with a specific status.
      * 
@@ -182,6 +350,57 @@ public class DocumentRepository {
         return documents;
     }
 
+    /**
+     * Finds the documents matching all of the given criteria.
+     *
+     * @param ids            Document IDs, or null for any
+     * @param status         Document status, or null for any
+     * @param uploadedBefore Upload date the documents are older than, or null for any
+     * @return The matching documents, oldest first
+     * @throws IllegalArgumentException if an ID is not a UUID
+     */
+    public List<DocumentMetadata> findForDeletion(List<String> ids, DocumentStatus status,
+                                                  LocalDateTime uploadedBefore) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM documents WHERE true");
+        List<Object> args = new ArrayList<>();
+        if (ids != null && !ids.isEmpty()) {
+            sql.append(" AND id = ANY(?)");
+            args.add(ids.stream().map(UUID::fromString).toArray(UUID[]::new));
+        }
+        if (status != null) {
+            sql.append(" AND status = ?::VARCHAR");
+            args.add(status.name());
+        }
+        if (uploadedBefore != null) {
+            sql.append(" AND upload_date < ?");
+            args.add(Timestamp.valueOf(uploadedBefore));
+        }
+        sql.append(" ORDER BY upload_date");
+        List<DocumentMetadata> documents = jdbcTemplate.query(sql.toString(), ps -> {
+            for (int i = 0; i < args.size(); i++) {
+                if (args.get(i) instanceof UUID[] uuids) {
+                    ps.setArray(i + 1, ps.getConnection().createArrayOf("uuid", uuids));
+                } else {
+                    ps.setObject(i + 1, args.get(i));
+                }
+            }
+        }, documentRowMapper);
+        log.debug("Found {} documents to delete", documents.size());
+        return documents;
+    }
+
+    /**
+     * Deletes documents by their IDs.
+     *
+     * @param ids The document IDs
+     * @return Number of documents deleted
+     */
+    public int deleteByIds(List<String> ids) {
+        UUID[] uuids = ids.stream().map(UUID::fromString).toArray(UUID[]::new);
+        return jdbcTemplate.update("DELETE FROM documents WHERE id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", uuids)));
+    }
+
     /**
      * Counts the total number of documents.
      * 
@@ -206,7 +425,8 @@ public class DocumentRepository {
                     rs.getLong("file_size"),
                     rs.getTimestamp("upload_date").toLocalDateTime(),
                     DocumentStatus.valueOf(rs.getString("status")),
-                    rs.getString("error_message")
+                    rs.getString("error_message"),
+                    rs.getString("content_hash")
             );
         }
     }
@@ -3,44 +3,54 @@ package com.loiane.api_ai.rag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.reader.ExtractedTextFormatter;
-import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
-import org.springframework.ai.reader.pdf.config.PdfDocumentReaderConfig;
-import org.springframework.ai.transformer.splitter.TokenTextSplitter;
-import org.springframework.ai.vectorstore.VectorStore;
-import org.springframework.ai.vectorstore.filter.Filter;
-import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.event.DocumentChangedEvent;
 import com.loiane.api_ai.rag.exception.DocumentNotFoundException;
+import com.loiane.api_ai.rag.exception.DocumentNotResumableException;
+import com.loiane.api_ai.rag.exception.DocumentNotUpdatableException;
 import com.loiane.api_ai.rag.exception.DocumentProcessingException;
+import com.loiane.api_ai.rag.exception.IngestionQueueFullException;
+import com.loiane.api_ai.rag.exception.UploadTooLargeException;
+import com.loiane.api_ai.rag.ingestion.DocumentIngestionService;
+import com.loiane.api_ai.rag.maintenance.DocumentDeletionService;
 import com.loiane.api_ai.rag.model.DocumentMetadata;
+import com.loiane.api_ai.rag.model.DocumentPage;
 import com.loiane.api_ai.rag.model.DocumentStatus;
+import com.loiane.api_ai.rag.model.DocumentSummary;
+import com.loiane.api_ai.rag.model.UploadResult;
+import com.loiane.api_ai.rag.storage.BlobStore;
+import com.loiane.api_ai.rag.storage.DocumentBlobs;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * Service for managing document upload, processing, and retrieval in the RAG system.
  * 
  * <p>This service handles the complete document lifecycle:
  * <ol>
- *   <li>File upload and validation</li>
- *   <li>PDF text extraction</li>
- *   <li>Text chunking for optimal retrieval</li>
- *   <li>Embedding generation</li>
- *   <li>Vector storage in pgvector</li>
- *   <li>Document metadata management</li>
+ *   <li>File upload and validation, either as a multipart file or streamed
+ *       straight to disk, stored once per content hash ({@link DocumentBlobs})</li>
+ *   <li>Queuing for asynchronous ingestion (PDF text extraction, chunking,
+ *       embedding generation, and vector storage in pgvector are performed
+ *       by {@link DocumentIngestionService})</li>
+ *   <li>Resuming ingestion of documents that failed, from their last checkpoint</li>
+ *   <li>Replacing the PDF of a document, re-embedding only the chunks that changed</li>
+ *   <li>Document metadata management and paginated listing</li>
  *   <li>Document deletion with cascade</li>
  * </ol>
  * 
@@ -59,232 +69,295 @@ public class DocumentService {
     private static final Logger log = LoggerFactory.getLogger(DocumentService.class);
 
     private final DocumentRepository documentRepository;
-    private final VectorStore vectorStore;
+    private final DocumentBlobs documentBlobs;
+    private final DocumentDeletionService deletionService;
     private final DocumentProperties documentProperties;
+    private final DocumentIngestionService ingestionService;
 
     public DocumentService(DocumentRepository documentRepository, 
-                          VectorStore vectorStore,
-                          DocumentProperties documentProperties) {
+                          DocumentBlobs documentBlobs,
+                          DocumentDeletionService deletionService,
+                          DocumentProperties documentProperties,
+                          DocumentIngestionService ingestionService) {
         this.documentRepository = documentRepository;
-        this.vectorStore = vectorStore;
+        this.documentBlobs = documentBlobs;
+        this.deletionService = deletionService;
         this.documentProperties = documentProperties;
+        this.ingestionService = ingestionService;
     }
 
     /**
-     * Processes an uploaded document through the RAG pipeline.
+     * Accepts an uploaded document for asynchronous processing through the RAG pipeline.
      * 
-     * <p>Processing steps:
+     * <p>This method only performs the fast steps on the request thread:
      * <ol>
-     *   <li>Save file to disk</li>
+     *   <li>Store the file, keyed by its SHA-256</li>
      *   <li>Create document metadata record with PROCESSING status</li>
-     *   <li>Extract text from PDF using PagePdfDocumentReader</li>
-     *   <li>Split text into chunks using TokenTextSplitter</li>
-     *   <li>Generate embeddings and store in vector database</li>
-     *   <li>Update document status to READY</li>
+     *   <li>Queue the document in the {@link DocumentIngestionService}</li>
      * </ol>
      * 
-     * <p>If any step fails, the document status is updated to ERROR with an error message.
+     * <p>Text extraction, chunking, and embedding run in the background; the document
+     * status is updated to READY or ERROR once they complete. If a document with the
+     * same content exists, it is returned instead and nothing is processed.
      * 
      * @param file The uploaded PDF file
-     * @return The processed document with metadata
+     * @return The queued document with PROCESSING status, or the existing one with the same content
      * @throws IOException if file operations fail
+     * @throws IllegalArgumentException if the file has no name
+     * @throws IngestionQueueFullException if the ingestion queue is at capacity
      */
-    public DocumentMetadata processDocument(MultipartFile file) throws IOException {
-        log.info("Starting document processing: filename={}, size={}", 
+    public UploadResult processDocument(MultipartFile file) throws IOException {
+        log.info("Accepting document for processing: filename={}, size={}", 
                 file.getOriginalFilename(), file.getSize());
 
-        Path filePath = saveFileToDisk(file);
-        DocumentMetadata documentMetadata = createDocumentMetadata(file);
-
-        try {
-            List<Document> documents = extractTextFromPdf(filePath, documentMetadata.id());
-            List<Document> chunks = splitIntoChunks(documents);
-            storeVectors(chunks, documentMetadata.id());
-            
-            documentRepository.updateStatus(documentMetadata.id(), DocumentStatus.READY);
-            log.info("Document processing completed successfully: id={}", documentMetadata.id());
-
-            return new DocumentMetadata(
-                    documentMetadata.id(),
-                    documentMetadata.filename(),
-                    documentMetadata.contentType(),
-                    documentMetadata.fileSize(),
-                    documentMetadata.uploadDate(),
-                    DocumentStatus.READY,
-                    null
-            );
-
-        } catch (Exception e) {
-            handleProcessingError(documentMetadata, filePath, e);
-            throw new DocumentProcessingException("Failed to process document: " + file.getOriginalFilename(), e);
+        String filename = sanitizeFilename(file.getOriginalFilename());
+        try (InputStream content = file.getInputStream()) {
+            return accept(content, filename, file.getContentType(), Long.MAX_VALUE);
         }
     }
 
     /**
-     * Saves the uploaded file to disk.
-     * 
-     * @param file The uploaded file
-     * @return The path where the file was saved
-     * @throws IOException if file operations fail
+     * Stores a PDF sent as a raw request body and queues it for processing.
+     *
+     * <p>The body is copied once, straight into temporary file storage, with a
+     * fixed-size buffer, so the heap does not grow with the file size; it is
+     * hashed (SHA-256) as it is written. If a document with the same hash
+     * exists, the copy is discarded and that document is returned without
+     * queuing anything.
+     *
+     * @param body The request body
+     * @param originalFilename The client-side filename; only its last path element is used
+     * @param contentType The MIME type of the body
+     * @return The queued document, or the existing one with the same content
+     * @throws IOException if the body cannot be read or the file written
+     * @throws IllegalArgumentException if the filename is empty
+     * @throws UploadTooLargeException if the body exceeds {@code app.documents.ingestion.max-streamed-upload-size}
+     * @throws IngestionQueueFullException if the ingestion queue is at capacity
      */
-    private Path saveFileToDisk(MultipartFile file) throws IOException {
-        Path uploadDir = Paths.get(documentProperties.getUploadDir());
-        if (!Files.exists(uploadDir)) {
-            Files.createDirectories(uploadDir);
-            log.info("Created upload directory: {}", uploadDir.toAbsolutePath());
-        }
-
-        String filename = file.getOriginalFilename();
-        Path filePath = uploadDir.resolve(filename);
-        file.transferTo(filePath);
-        log.debug("Saved file to disk: {}", filePath.toAbsolutePath());
-        
-        return filePath;
+    public UploadResult processDocumentStream(InputStream body, String originalFilename, String contentType)
+            throws IOException {
+        String filename = sanitizeFilename(originalFilename);
+        log.info("Accepting streamed document for processing: filename={}", filename);
+        return accept(body, filename, contentType != null ? contentType : "application/pdf",
+                documentProperties.getIngestion().getMaxStreamedUploadSize().toBytes());
     }
 
     /**
-     * Creates and saves document metadata with PROCESSING status.
-     * 
-     * @param file The uploaded file
-     * @return The saved document metadata
+     * Stores an upload and queues it, unless its content was already uploaded.
+     *
+     * <p>If the queue is full, the document is marked ERROR and keeps its file,
+     * so it can be resumed.
      */
-    private DocumentMetadata createDocumentMetadata(MultipartFile file) {
-        DocumentMetadata documentMetadata = new DocumentMetadata(
-                null, // ID will be generated
-                file.getOriginalFilename(),
-                file.getContentType(),
-                file.getSize(),
-                LocalDateTime.now(),
-                DocumentStatus.PROCESSING
-        );
-        
-        documentMetadata = documentRepository.save(documentMetadata);
+    private UploadResult accept(InputStream content, String filename, String contentType, long maxBytes)
+            throws IOException {
+        BlobStore.StagedBlob blob = documentBlobs.stage(content, maxBytes);
+        UploadResult result;
+        try {
+            result = documentBlobs.store(blob, new DocumentMetadata(null, filename, contentType, blob.size(),
+                    LocalDateTime.now(), DocumentStatus.PROCESSING));
+        } catch (IOException | RuntimeException e) {
+            documentBlobs.discard(blob);
+            throw e;
+        }
+        if (result.duplicate()) {
+            log.info("Upload is identical to document {}, not re-ingesting: filename={}",
+                    result.document().id(), filename);
+            return result;
+        }
+
+        DocumentMetadata documentMetadata = result.document();
         log.info("Created document record: id={}, status=PROCESSING", documentMetadata.id());
-        
-        return documentMetadata;
+        try {
+            ingestionService.submit(documentMetadata, documentBlobs.locate(documentMetadata));
+            return result;
+        } catch (IngestionQueueFullException e) {
+            log.warn("Rejected document, ingestion queue is full: id={}", documentMetadata.id());
+            documentRepository.updateStatusWithError(documentMetadata.id(), DocumentStatus.ERROR, e.getMessage());
+            throw e;
+        }
     }
 
     /**
-     * Extracts text from a PDF file and adds metadata to each page.
-     * 
-     * @param filePath Path to the PDF file
-     * @param documentId The document ID for metadata
-     * @return List of Document objects with extracted text
+     * Re-queues a failed document, continuing from its last ingestion checkpoint.
+     *
+     * <p>Chunks that were stored before the failure are not embedded again.
+     *
+     * @param documentId The document ID
+     * @return The re-queued document with PROCESSING status
+     * @throws DocumentNotFoundException if the document does not exist
+     * @throws DocumentNotResumableException if the document is not in ERROR state or its file is gone
+     * @throws IngestionQueueFullException if the ingestion queue is at capacity
      */
-    private List<Document> extractTextFromPdf(Path filePath, String documentId) {
-        log.debug("Extracting text from PDF: {}", filePath.getFileName());
-        
-        PagePdfDocumentReader pdfReader = new PagePdfDocumentReader(
-                new FileSystemResource(filePath),
-                PdfDocumentReaderConfig.builder()
-                        .withPageTopMargin(0)
-                        .withPageExtractedTextFormatter(ExtractedTextFormatter.builder()
-                                .withNumberOfTopTextLinesToDelete(0)
-                                .build())
-                        .withPagesPerDocument(1)
-                        .build()
-        );
-        
-        List<Document> documents = pdfReader.read();
-        log.info("Extracted {} pages from PDF: {}", documents.size(), filePath.getFileName());
+    public DocumentMetadata resumeDocument(String documentId) {
+        DocumentMetadata document = documentRepository.findById(documentId)
+                .orElseThrow(() -> new DocumentNotFoundException("Document not found: " + documentId));
+        if (document.status() != DocumentStatus.ERROR) {
+            throw new DocumentNotResumableException(
+                    "Only failed documents can be resumed, document " + documentId + " is " + document.status());
+        }
 
-        // Add metadata to each document
-        for (Document doc : documents) {
-            Map<String, Object> metadata = new HashMap<>(doc.getMetadata());
-            metadata.put("document_id", documentId);
-            metadata.put("filename", filePath.getFileName().toString());
-            doc.getMetadata().putAll(metadata);
+        Path filePath = documentBlobs.locate(document);
+        if (!Files.exists(filePath)) {
+            throw new DocumentNotResumableException("The uploaded file is no longer available: " + document.filename());
         }
-        
-        return documents;
-    }
 
-    /**
-     * Splits documents into smaller chunks for better retrieval.
-     * 
-     * @param documents The documents to split
-     * @return List of document chunks
-     */
-    private List<Document> splitIntoChunks(List<Document> documents) {
-        log.debug("Splitting text into chunks: chunkSize={}, overlap={}", 
-                documentProperties.getChunkSize(), documentProperties.getChunkOverlap());
-        
-        TokenTextSplitter textSplitter = TokenTextSplitter.builder()
-                .withChunkSize(documentProperties.getChunkSize())
-                .withMinChunkSizeChars(documentProperties.getChunkOverlap())
-                .withMinChunkLengthToEmbed(documentProperties.getMinChunkSize())
-                .withMaxNumChunks(10000)
-                .withKeepSeparator(true)
-                .build();
-        
-        List<Document> chunks = textSplitter.apply(documents);
-        log.info("Split into {} chunks", chunks.size());
-        
-        return chunks;
+        log.info("Resuming document processing: id={}", documentId);
+        documentRepository.updateStatusWithError(documentId, DocumentStatus.PROCESSING, null);
+        DocumentMetadata resumed = new DocumentMetadata(document.id(), document.filename(), document.contentType(),
+                document.fileSize(), document.uploadDate(), DocumentStatus.PROCESSING, null, document.contentHash());
+        try {
+            ingestionService.submit(resumed, filePath);
+            return resumed;
+        } catch (IngestionQueueFullException e) {
+            documentRepository.updateStatusWithError(documentId, DocumentStatus.ERROR, e.getMessage());
+            throw e;
+        }
     }
 
     /**
-     * Generates embeddings and stores document chunks in the vector database.
-     * 
-     * @param documents The document chunks to store
-     * @param documentId The document ID for logging
+     * Replaces the PDF of a document and queues it for incremental re-ingestion.
+     *
+     * <p>Chunks whose text is unchanged keep their embedding; only new or
+     * changed chunks are embedded. The previous version stays searchable
+     * until the new one replaces it at once. If the queue is full, the
+     * document is marked ERROR and can be resumed, which ingests the new PDF in full.
+     *
+     * @param documentId The document ID
+     * @param file The new PDF file
+     * @return The queued document with PROCESSING status
+     * @throws IOException if file operations fail
+     * @throws IllegalArgumentException if the file has no name
+     * @throws DocumentNotFoundException if the document does not exist
+     * @throws DocumentNotUpdatableException if the document is still being processed,
+     *         including by a concurrent update
+     * @throws IngestionQueueFullException if the ingestion queue is at capacity
      */
-    private void storeVectors(List<Document> documents, String documentId) {
-        log.debug("Generating embeddings and storing in vector database");
-        vectorStore.add(documents);
-        log.info("Successfully stored {} vectors for document: {}", documents.size(), documentId);
+    public DocumentMetadata updateDocument(String documentId, MultipartFile file) throws IOException {
+        String filename = sanitizeFilename(file.getOriginalFilename());
+        DocumentMetadata previous = documentRepository.findById(documentId)
+                .orElseThrow(() -> new DocumentNotFoundException("Document not found: " + documentId));
+        if (!documentRepository.claimForProcessing(documentId)) {
+            throw new DocumentNotUpdatableException("Document " + documentId + " is still being processed");
+        }
+
+        log.info("Accepting new version of document: id={}, filename={}, size={}", documentId,
+                filename, file.getSize());
+        BlobStore.StagedBlob blob = null;
+        try {
+            // Read again once claimed: an update that completed since the first read may have replaced the file
+            DocumentMetadata document = documentRepository.findById(documentId)
+                    .orElseThrow(() -> new DocumentNotFoundException("Document not found: " + documentId));
+            try (InputStream content = file.getInputStream()) {
+                blob = documentBlobs.stage(content, Long.MAX_VALUE);
+            }
+            documentBlobs.replace(document, blob, filename, file.getContentType());
+        } catch (IOException | RuntimeException e) {
+            if (blob != null) {
+                documentBlobs.discard(blob);
+            }
+            documentRepository.updateStatusWithError(documentId, previous.status(), previous.errorMessage());
+            throw e;
+        }
+
+        DocumentMetadata updated = new DocumentMetadata(documentId, filename, file.getContentType(),
+                blob.size(), previous.uploadDate(), DocumentStatus.PROCESSING, null, blob.hash());
+        try {
+            ingestionService.submitUpdate(updated, documentBlobs.locate(updated));
+            return updated;
+        } catch (IngestionQueueFullException e) {
+            log.warn("Rejected document update, ingestion queue is full: id={}", documentId);
+            documentRepository.updateStatusWithError(documentId, DocumentStatus.ERROR, e.getMessage());
+            throw e;
+        }
     }
 
     /**
-     * Handles errors during document processing.
-     * 
-     * @param documentMetadata The document metadata
-     * @param filePath The file path for cleanup
-     * @param e The exception that occurred
+     * Streams the status of a document until its processing completes.
+     *
+     * <p>Emits the current metadata immediately, then again every time the
+     * status changes, completing once the document is READY or ERROR.
+     *
+     * @param documentId The document ID
+     * @return A Flux of document metadata snapshots
      */
-    private void handleProcessingError(DocumentMetadata documentMetadata, Path filePath, Exception e) {
-        log.error("Error processing document: id={}, error={}", documentMetadata.id(), e.getMessage(), e);
-        
-        String errorMessage = "Processing failed: " + e.getMessage();
-        documentRepository.updateStatusWithError(documentMetadata.id(), DocumentStatus.ERROR, errorMessage);
-        
-        cleanupFailedDocument(filePath);
+    public Flux<DocumentMetadata> watchDocumentStatus(String documentId) {
+        return Flux.interval(Duration.ZERO, documentProperties.getIngestion().getStatusPollInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> Mono.fromCallable(() -> documentRepository.findById(documentId)
+                                .orElseThrow(() -> new DocumentNotFoundException("Document not found: " + documentId)))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .distinctUntilChanged(DocumentMetadata::status)
+                .takeUntil(document -> document.status() != DocumentStatus.PROCESSING);
     }
 
     /**
-     * Cleans up a document file after processing failure.
-     * 
-     * @param filePath The path to the file to delete
+     * Keeps only the last path element of a client-side filename.
+     *
+     * @param originalFilename The filename sent by the client
+     * @return The filename
+     * @throws IllegalArgumentException if the filename is empty
      */
-    private void cleanupFailedDocument(Path filePath) {
-        try {
-            Files.deleteIfExists(filePath);
-            log.debug("Deleted failed document file: {}", filePath);
-        } catch (IOException cleanupError) {
-            log.warn("Failed to delete file after error: {}", filePath, cleanupError);
+    private static String sanitizeFilename(String originalFilename) {
+        Path name = originalFilename != null && !originalFilename.isBlank()
+                ? Paths.get(originalFilename).getFileName() : null;
+        if (name == null || name.toString().isBlank()) {
+            throw new IllegalArgumentException("A filename is required");
         }
+        return name.toString();
     }
 
     /**
-     * Retrieves all documents.
-     * 
-     * @return List of all documents
+     * Lists a page of documents, most recently uploaded first.
+     *
+     * <p>The total is counted exactly up to {@code app.documents.listing.exact-count-limit}
+     * documents. Above it, the unfiltered total is the table's row estimate, and
+     * a filtered total is that limit, flagged as inexact, so a listing never
+     * counts a large table row by row.
+     *
+     * @param status         Document status, or null for any
+     * @param filenamePrefix Start of the filename, or null for any
+     * @param cursor         {@code nextCursor} of the previous page, or null for the first page
+     * @param limit          Page size, or null for the default
+     * @return The page
+     * @throws IllegalArgumentException if the cursor is malformed or the limit is not positive
      */
-    public List<DocumentMetadata> getAllDocuments() {
-        log.debug("Retrieving all documents");
-        List<DocumentMetadata> documents = documentRepository.findAll();
-        log.info("Found {} documents", documents.size());
-        return documents;
+    public DocumentPage listDocuments(DocumentStatus status, String filenamePrefix, String cursor, Integer limit) {
+        DocumentProperties.Listing settings = documentProperties.getListing();
+        int pageSize = limit != null ? limit : settings.getDefaultPageSize();
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("The limit must be positive: " + pageSize);
+        }
+        pageSize = Math.min(pageSize, settings.getMaxPageSize());
+        DocumentPage.Cursor after = cursor != null && !cursor.isBlank() ? DocumentPage.Cursor.decode(cursor) : null;
+
+        // One extra row tells whether there is a next page
+        List<DocumentSummary> documents = documentRepository.findPage(status, filenamePrefix, after, pageSize + 1);
+        String nextCursor = null;
+        if (documents.size() > pageSize) {
+            documents = documents.subList(0, pageSize);
+            nextCursor = DocumentPage.Cursor.after(documents.getLast()).encode();
+        }
+
+        int exactCountLimit = settings.getExactCountLimit();
+        long counted = documentRepository.countUpTo(status, filenamePrefix, exactCountLimit + 1);
+        if (counted <= exactCountLimit) {
+            return new DocumentPage(documents, nextCursor, counted, true);
+        }
+        boolean filtered = status != null || (filenamePrefix != null && !filenamePrefix.isEmpty());
+        long total = filtered ? exactCountLimit : Math.max(documentRepository.estimateCount(), counted);
+        log.debug("Estimated document total: total={}, filtered={}", total, filtered);
+        return new DocumentPage(documents, nextCursor, total, false);
     }
 
     /**
-     * Deletes a document from disk, the vector store, and the database.
+     * Deletes a document from the vector store, the database, and disk.
      *
-     * <p>This performs the following cleanup operations:
+     * <p>The cleanup is done by {@link DocumentDeletionService}:
      * <ol>
-     *   <li>Delete file from disk</li>
-     *   <li>Delete the document's chunks from the vector store</li>
+     *   <li>Delete the document's chunks from the vector store, in batches by document ID</li>
      *   <li>Delete document metadata from database</li>
+     *   <li>Delete its file, unless another document has the same content</li>
+     *   <li>Publish a {@link DocumentChangedEvent} so cached answers are dropped</li>
      * </ol>
      *
      * @param documentId The ID of the document to delete
@@ -299,42 +372,15 @@ public class DocumentService {
             throw new DocumentNotFoundException("Document not found: " + documentId);
         }
 
-        DocumentMetadata documentMetadata = documentOpt.get();
-
         try {
-            // Delete file from disk
-            deleteDocumentFile(documentMetadata.filename());
-
-            // Delete the document's chunks from the vector store
-            Filter.Expression filter = new FilterExpressionBuilder().eq("document_id", documentId).build();
-            vectorStore.delete(filter);
-            log.info("Deleted vectors for document: id={}", documentId);
-
-            // Delete document metadata
-            documentRepository.deleteById(documentId);
-            log.info("Successfully deleted document metadata: id={}", documentId);
-
+            long vectors = deletionService.delete(List.of(documentOpt.get()));
+            log.info("Successfully deleted document: id={}, vectors={}", documentId, vectors);
         } catch (Exception e) {
             log.error("Error deleting document: id={}, error={}", documentId, e.getMessage(), e);
             throw new DocumentProcessingException("Failed to delete document: " + documentId, e);
         }
     }
 
-    /**
-     * Deletes a document file from disk.
-     * 
-     * @param filename The filename to delete
-     */
-    private void deleteDocumentFile(String filename) {
-        Path filePath = Paths.get(documentProperties.getUploadDir()).resolve(filename);
-        try {
-            Files.deleteIfExists(filePath);
-            log.debug("Deleted document file: {}", filePath);
-        } catch (IOException e) {
-            log.warn("Failed to delete document file: {}", filePath, e);
-        }
-    }
-
     /**
      * Retrieves a document by its ID.
      * 
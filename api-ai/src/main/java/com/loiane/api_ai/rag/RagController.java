@@ -10,12 +10,24 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.List;
+import java.io.InputStream;
 
 import com.loiane.api_ai.rag.exception.DocumentNotFoundException;
+import com.loiane.api_ai.rag.exception.DocumentNotResumableException;
+import com.loiane.api_ai.rag.exception.DocumentNotUpdatableException;
+import com.loiane.api_ai.rag.exception.IngestionQueueFullException;
+import com.loiane.api_ai.rag.exception.UploadTooLargeException;
+import com.loiane.api_ai.rag.ingestion.IncrementalReingestion;
+import com.loiane.api_ai.rag.maintenance.DocumentDeletionService;
+import com.loiane.api_ai.rag.model.BulkDeleteRequest;
+import com.loiane.api_ai.rag.model.DeletionJob;
 import com.loiane.api_ai.rag.model.DocumentMetadata;
+import com.loiane.api_ai.rag.model.DocumentPage;
+import com.loiane.api_ai.rag.model.DocumentStatus;
+import com.loiane.api_ai.rag.model.DocumentUpdateReport;
 import com.loiane.api_ai.rag.model.RagRequest;
 import com.loiane.api_ai.rag.model.RagResponse;
+import com.loiane.api_ai.rag.model.UploadResult;
 
 import reactor.core.publisher.Flux;
 
@@ -27,17 +39,52 @@ public class RagController {
 
     private final DocumentService documentService;
     private final RagService ragService;
+    private final DocumentDeletionService deletionService;
+    private final IncrementalReingestion reingestion;
 
-    public RagController(DocumentService documentService, RagService ragService) {
+    public RagController(DocumentService documentService, RagService ragService,
+                         DocumentDeletionService deletionService, IncrementalReingestion reingestion) {
         this.documentService = documentService;
         this.ragService = ragService;
+        this.deletionService = deletionService;
+        this.reingestion = reingestion;
     }
 
     @PostMapping("/upload")
     public ResponseEntity<DocumentMetadata> upload(@RequestParam("file") MultipartFile file) {
         try {
-            DocumentMetadata saved = documentService.processDocument(file);
-            return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+            UploadResult result = documentService.processDocument(file);
+            return ResponseEntity.status(result.duplicate() ? HttpStatus.OK : HttpStatus.ACCEPTED)
+                    .body(result.document());
+        } catch (IllegalArgumentException e) {
+            log.warn("Upload rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IngestionQueueFullException e) {
+            log.warn("Upload rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (IOException e) {
+            log.error("Upload failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping(value = "/upload/stream", consumes = MediaType.APPLICATION_PDF_VALUE)
+    public ResponseEntity<DocumentMetadata> uploadStream(@RequestParam("filename") String filename,
+                                                         InputStream body) {
+        try {
+            UploadResult result =
+                    documentService.processDocumentStream(body, filename, MediaType.APPLICATION_PDF_VALUE);
+            return ResponseEntity.status(result.duplicate() ? HttpStatus.OK : HttpStatus.ACCEPTED)
+                    .body(result.document());
+        } catch (IllegalArgumentException e) {
+            log.warn("Upload rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (UploadTooLargeException e) {
+            log.warn("Upload rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).build();
+        } catch (IngestionQueueFullException e) {
+            log.warn("Upload rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (IOException e) {
             log.error("Upload failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -45,8 +92,17 @@ public class RagController {
     }
 
     @GetMapping("/documents")
-    public List<DocumentMetadata> listDocuments() {
-        return documentService.getAllDocuments();
+    public ResponseEntity<DocumentPage> listDocuments(
+            @RequestParam(required = false) DocumentStatus status,
+            @RequestParam(required = false) String filenamePrefix,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(documentService.listDocuments(status, filenamePrefix, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            log.warn("Listing rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/documents/{id}")
@@ -56,6 +112,63 @@ public class RagController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/documents/{id}/status", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<DocumentMetadata>>> streamDocumentStatus(@PathVariable String id) {
+        if (documentService.getDocumentById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(documentService.watchDocumentStatus(id)
+                .map(document -> ServerSentEvent.builder(document)
+                        .event("status")
+                        .build()));
+    }
+
+    @PostMapping("/documents/{id}/resume")
+    public ResponseEntity<DocumentMetadata> resumeDocument(@PathVariable String id) {
+        try {
+            DocumentMetadata queued = documentService.resumeDocument(id);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(queued);
+        } catch (DocumentNotFoundException _) {
+            return ResponseEntity.notFound().build();
+        } catch (DocumentNotResumableException e) {
+            log.warn("Resume rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IngestionQueueFullException e) {
+            log.warn("Resume rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @PutMapping("/documents/{id}")
+    public ResponseEntity<DocumentMetadata> updateDocument(@PathVariable String id,
+                                                           @RequestParam("file") MultipartFile file) {
+        try {
+            DocumentMetadata queued = documentService.updateDocument(id, file);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(queued);
+        } catch (DocumentNotFoundException _) {
+            return ResponseEntity.notFound().build();
+        } catch (DocumentNotUpdatableException e) {
+            log.warn("Update rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Update rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IngestionQueueFullException e) {
+            log.warn("Update rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (IOException e) {
+            log.error("Update failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/documents/{id}/update")
+    public ResponseEntity<DocumentUpdateReport> getUpdateReport(@PathVariable String id) {
+        return reingestion.findReport(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @DeleteMapping("/documents/{id}")
     public ResponseEntity<Void> deleteDocument(@PathVariable String id) {
         try {
@@ -66,9 +179,26 @@ public class RagController {
         }
     }
 
+    @PostMapping("/documents/bulk-delete")
+    public ResponseEntity<DeletionJob> bulkDelete(@RequestBody BulkDeleteRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(deletionService.submit(request));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected bulk delete: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/documents/bulk-delete/{jobId}")
+    public ResponseEntity<DeletionJob> getDeletionJob(@PathVariable String jobId) {
+        return deletionService.findJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/ask")
     public ResponseEntity<RagResponse> ask(@RequestBody RagRequest request) {
-        RagResponse response = ragService.askQuestion(request.question(), request.documentId());
+        RagResponse response = ragService.askQuestion(request.question(), request.documentId(), request.evaluate());
         return ResponseEntity.ok(response);
     }
 
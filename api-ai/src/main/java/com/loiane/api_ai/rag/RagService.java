@@ -4,29 +4,26 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
-import org.springframework.ai.chat.evaluation.RelevancyEvaluator;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.evaluation.EvaluationRequest;
-import org.springframework.ai.evaluation.EvaluationResponse;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
-import org.springframework.ai.vectorstore.filter.Filter;
-import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
 import org.springframework.stereotype.Service;
 
-import io.micrometer.core.instrument.MeterRegistry;
-
-import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.cache.SemanticAnswerCache;
+import com.loiane.api_ai.rag.evaluation.RelevancyEvaluationService;
 import com.loiane.api_ai.rag.model.RagResponse;
 import com.loiane.api_ai.rag.model.RagStreamEvent;
 import com.loiane.api_ai.rag.model.Source;
+import com.loiane.api_ai.rag.retrieval.ContextAssembler;
+import com.loiane.api_ai.rag.retrieval.RagRetriever;
+import com.loiane.api_ai.rag.retrieval.RetrievalContext;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
@@ -36,9 +33,12 @@ import reactor.core.scheduler.Schedulers;
  * 
  * <p>This service implements the RAG pipeline:
  * <ol>
- *   <li>Query vector store for relevant document chunks</li>
- *   <li>Use ChatClient with QuestionAnswerAdvisor to generate answer</li>
- *   <li>Extract sources from document metadata for citations</li>
+ *   <li>Return the cached answer of an equivalent earlier question, if any</li>
+ *   <li>Query vector store for relevant document chunks (once per question), reranked when enabled</li>
+ *   <li>Fit the chunks into the context token budget (see {@link ContextAssembler})</li>
+ *   <li>Use ChatClient with a grounded prompt built from those chunks to generate answer</li>
+ *   <li>Extract sources from the same chunks' metadata for citations</li>
+ *   <li>Evaluate answer relevancy in the background for a sample of answers</li>
  * </ol>
  * 
  * @author Loiane Groner
@@ -68,31 +68,31 @@ public class RagService {
             """.formatted(REFUSAL_MESSAGE));
 
     private final ChatClient chatClient;
-    private final VectorStore vectorStore;
-    private final DocumentProperties documentProperties;
-    private final RelevancyEvaluator relevancyEvaluator;
-    private final MeterRegistry meterRegistry;
-
-    public RagService(ChatClient.Builder chatClientBuilder, VectorStore vectorStore,
-                      DocumentProperties documentProperties, RelevancyEvaluator relevancyEvaluator,
-                      MeterRegistry meterRegistry) {
-        this.vectorStore = vectorStore;
-        this.documentProperties = documentProperties;
-        this.relevancyEvaluator = relevancyEvaluator;
-        this.meterRegistry = meterRegistry;
-
-        // Configure ChatClient with QuestionAnswerAdvisor as a default advisor,
-        // using a grounded prompt that restricts answers to the retrieved context
-        this.chatClient = chatClientBuilder
-                .defaultAdvisors(
-                        QuestionAnswerAdvisor.builder(vectorStore)
-                                .promptTemplate(QA_PROMPT)
-                                .searchRequest(SearchRequest.builder()
-                                        .topK(documentProperties.getTopK())
-                                        .build())
-                                .build()
-                )
-                .build();
+    private final RagRetriever ragRetriever;
+    private final ContextAssembler contextAssembler;
+    private final SemanticAnswerCache answerCache;
+    private final RelevancyEvaluationService evaluationService;
+    private final Timer firstTokenLatency;
+    private final Timer interTokenLatency;
+
+    public RagService(ChatClient.Builder chatClientBuilder, RagRetriever ragRetriever,
+                      ContextAssembler contextAssembler, SemanticAnswerCache answerCache,
+                      RelevancyEvaluationService evaluationService, MeterRegistry meterRegistry) {
+        this.ragRetriever = ragRetriever;
+        this.contextAssembler = contextAssembler;
+        this.answerCache = answerCache;
+        this.evaluationService = evaluationService;
+        this.firstTokenLatency = Timer.builder("rag.stream.first.token.latency")
+                .description("Time from a streaming question to its first answer chunk")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.interTokenLatency = Timer.builder("rag.stream.inter.token.latency")
+                .description("Time between consecutive answer chunks of a streamed answer")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        // Retrieval happens explicitly in RagRetriever, so the same chunks feed
+        // both the prompt and the source citations
+        this.chatClient = chatClientBuilder.build();
     }
 
     /**
@@ -100,9 +100,12 @@ public class RagService {
      * 
      * <p>This method:
      * <ol>
-     *   <li>Uses QuestionAnswerAdvisor to retrieve relevant chunks from vector store</li>
+     *   <li>Returns the cached response if an equivalent question was already answered</li>
+     *   <li>Retrieves relevant chunks from the vector store with a single search</li>
+     *   <li>Fits the chunks into the context token budget</li>
      *   <li>Generates an answer using ChatClient with the retrieved context</li>
-     *   <li>Extracts source information from the document metadata</li>
+     *   <li>Extracts source information from the same chunks' metadata</li>
+     *   <li>Schedules a sampled background relevancy evaluation</li>
      * </ol>
      * 
      * @param question The question to ask
@@ -110,34 +113,52 @@ public class RagService {
      * @return A RagResponse with the answer and source citations
      */
     public RagResponse askQuestion(String question, String documentId) {
+        return askQuestion(question, documentId, false);
+    }
+
+    /**
+     * Ask a question using the RAG pipeline, optionally evaluating relevancy
+     * before responding.
+     *
+     * @param question The question to ask
+     * @param documentId Optional document id to scope retrieval to a single document
+     * @param evaluate Whether to evaluate relevancy synchronously and return it in {@code relevant}
+     * @return A RagResponse with the answer and source citations
+     */
+    public RagResponse askQuestion(String question, String documentId, boolean evaluate) {
         log.info("Processing RAG question: {} (documentId: {})", question, documentId);
 
         try {
-            Filter.Expression filter = buildDocumentFilter(documentId);
+            SemanticAnswerCache.Lookup lookup = answerCache.lookup(question, documentId);
+            if (lookup.hit() && (!evaluate || lookup.cached().relevant() != null)) {
+                log.info("Answered from the semantic answer cache");
+                return lookup.cached();
+            }
+
+            RetrievalContext context = contextAssembler.assemble(ragRetriever.retrieve(question, documentId));
 
-            // QuestionAnswerAdvisor automatically retrieves relevant documents
-            // and injects them as context for the LLM
-            String answer = buildPrompt(question, documentId).call().content();
+            String answer = buildPrompt(context).call().content();
 
             if (answer != null && answer.contains(REFUSAL_MESSAGE)) {
-                return new RagResponse(REFUSAL_MESSAGE, List.of());
+                RagResponse refusal = new RagResponse(REFUSAL_MESSAGE, List.of());
+                answerCache.put(lookup, refusal);
+                return refusal;
             }
 
-            // Retrieve documents separately for source attribution
-            SearchRequest searchRequest = SearchRequest.builder()
-                    .query(question)
-                    .topK(documentProperties.getTopK())
-                    .filterExpression(filter)
-                    .build();
-            List<Document> relevantDocs = vectorStore.similaritySearch(searchRequest);
-
             // Extract unique sources from document metadata
-            List<Source> sources = extractSources(relevantDocs);
+            List<Source> sources = extractSources(context.documents());
 
-            boolean relevant = evaluateRelevancy(question, relevantDocs, answer);
+            Boolean relevant = null;
+            if (evaluate) {
+                relevant = evaluationService.evaluate(question, documentId, context.documents(), answer);
+            } else {
+                evaluationService.submit(question, documentId, context.documents(), answer);
+            }
 
             log.info("Generated answer with {} sources", sources.size());
-            return new RagResponse(answer, sources, relevant);
+            RagResponse response = new RagResponse(answer, sources, relevant);
+            answerCache.put(lookup, response);
+            return response;
 
         } catch (Exception e) {
             log.error("Error processing RAG question: {}", question, e);
@@ -151,96 +172,97 @@ public class RagService {
     /**
      * Ask a question using the RAG pipeline, streaming the answer as it is generated.
      *
-     * <p>Emits a sequence of "answer" events with incremental content chunks,
-     * followed by a single terminal "sources" event once the answer is complete.
+     * <p>Retrieval runs once, up front, and its sources are emitted as the first
+     * "sources" event, before the model is called, so citations can be shown
+     * while the answer streams in. Then "answer" events carry incremental content
+     * chunks. If the answer turns out to be the refusal sentence, a second
+     * "sources" event with no sources retracts the first one. A cached answer is
+     * replayed as its "sources" event followed by a single "answer" event.
+     *
+     * <p>Time to the first answer chunk and the gaps between chunks are recorded
+     * in {@code rag.stream.first.token.latency} and {@code rag.stream.inter.token.latency}.
      *
      * @param question   The question to ask
      * @param documentId Optional document id to scope retrieval to a single document
-     * @return A Flux of RagStreamEvent, ending with a "sources" event
+     * @return A Flux of RagStreamEvent, starting with a "sources" event
      */
     public Flux<RagStreamEvent> askQuestionStream(String question, String documentId) {
         log.info("Processing streaming RAG question: {} (documentId: {})", question, documentId);
 
-        Filter.Expression filter = buildDocumentFilter(documentId);
+        return Flux.defer(() -> {
+            long startedAt = System.nanoTime();
+            return Mono.fromCallable(() -> answerCache.lookup(question, documentId))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMapMany(lookup -> lookup.hit()
+                            ? replayCachedAnswer(lookup.cached())
+                            : streamAnswer(contextAssembler.assemble(ragRetriever.retrieve(question, documentId)),
+                                    lookup, startedAt));
+        }).onErrorResume(e -> {
+            log.error("Error processing streaming RAG question: {}", question, e);
+            return Flux.just(RagStreamEvent.answer(
+                    "Sorry, I encountered an error while processing your question. Please try again."),
+                    RagStreamEvent.sources(List.of()));
+        });
+    }
 
+    private Flux<RagStreamEvent> streamAnswer(RetrievalContext context, SemanticAnswerCache.Lookup lookup,
+                                              long startedAt) {
+        List<Source> sources = extractSources(context.documents());
+        RefusalDetector refusal = new RefusalDetector(REFUSAL_MESSAGE);
+        // Kept for the answer cache and the relevancy evaluation once the stream completes
         StringBuilder answerBuilder = new StringBuilder();
-
-        Flux<RagStreamEvent> answerFlux = buildPrompt(question, documentId).stream().content()
-                .doOnNext(answerBuilder::append)
-                .map(RagStreamEvent::answer);
-
-        Mono<RagStreamEvent> sourcesMono = Mono.fromCallable(() -> resolveSources(question, filter, answerBuilder.toString()))
-                .subscribeOn(Schedulers.boundedElastic());
-
-        return Flux.concat(answerFlux, sourcesMono)
-                .onErrorResume(e -> {
-                    log.error("Error processing streaming RAG question: {}", question, e);
-                    return Flux.just(RagStreamEvent.answer(
-                            "Sorry, I encountered an error while processing your question. Please try again."),
-                            RagStreamEvent.sources(List.of()));
+        long[] lastChunkAt = {0L};
+
+        Flux<RagStreamEvent> answerFlux = buildPrompt(context).stream().content()
+                .concatMap(delta -> {
+                    long now = System.nanoTime();
+                    if (lastChunkAt[0] == 0L) {
+                        firstTokenLatency.record(now - startedAt, TimeUnit.NANOSECONDS);
+                    } else {
+                        interTokenLatency.record(now - lastChunkAt[0], TimeUnit.NANOSECONDS);
+                    }
+                    lastChunkAt[0] = now;
+                    answerBuilder.append(delta);
+
+                    RefusalDetector.Outcome before = refusal.outcome();
+                    boolean refused = refusal.accept(delta) == RefusalDetector.Outcome.REFUSAL
+                            && before == RefusalDetector.Outcome.PENDING;
+                    return refused && !sources.isEmpty()
+                            ? Flux.just(RagStreamEvent.answer(delta), RagStreamEvent.sources(List.of()))
+                            : Flux.just(RagStreamEvent.answer(delta));
                 });
-    }
 
-    private RagStreamEvent resolveSources(String question, Filter.Expression filter, String answer) {
-        if (answer != null && answer.contains(REFUSAL_MESSAGE)) {
-            return RagStreamEvent.sources(List.of());
-        }
-
-        SearchRequest searchRequest = SearchRequest.builder()
-                .query(question)
-                .topK(documentProperties.getTopK())
-                .filterExpression(filter)
-                .build();
-        List<Document> relevantDocs = vectorStore.similaritySearch(searchRequest);
-        List<Source> sources = extractSources(relevantDocs);
+        Mono<RagStreamEvent> completion = Mono.fromRunnable(() -> {
+            String answer = answerBuilder.toString();
+            if (refusal.outcome() == RefusalDetector.Outcome.REFUSAL) {
+                answerCache.put(lookup, new RagResponse(REFUSAL_MESSAGE, List.of()));
+                return;
+            }
+            if (!sources.isEmpty()) {
+                evaluationService.submit(context.question(), context.documentId(), context.documents(), answer);
+            }
+            log.info("Streamed answer with {} sources", sources.size());
+            answerCache.put(lookup, new RagResponse(answer, sources));
+        });
 
-        log.info("Streamed answer with {} sources", sources.size());
-        return RagStreamEvent.sources(sources);
+        return Flux.concat(Mono.just(RagStreamEvent.sources(sources)), answerFlux, completion);
     }
 
-    /**
-     * Builds the prompt spec for a question, scoping the QuestionAnswerAdvisor
-     * retrieval to a single document when a documentId is provided.
-     */
-    private ChatClient.ChatClientRequestSpec buildPrompt(String question, String documentId) {
-        var promptSpec = chatClient.prompt().user(question);
-        if (documentId != null && !documentId.isBlank()) {
-            // The advisor param expects a filter expression string, not a Filter.Expression
-            promptSpec = promptSpec.advisors(a ->
-                    a.param(QuestionAnswerAdvisor.FILTER_EXPRESSION,
-                            "document_id == '" + documentId + "'"));
-        }
-        return promptSpec;
+    private Flux<RagStreamEvent> replayCachedAnswer(RagResponse cached) {
+        log.info("Streaming answer from the semantic answer cache");
+        return Flux.just(RagStreamEvent.sources(cached.sources()), RagStreamEvent.answer(cached.answer()));
     }
 
     /**
-     * Evaluates whether the generated answer is relevant to the question given the
-     * retrieved context, and records the result as a Micrometer counter.
-     *
-     * @param question The original question
-     * @param context The documents retrieved for context
-     * @param answer The generated answer
-     * @return true if the answer passed relevancy evaluation
+     * Builds the prompt spec for a question, injecting the retrieved chunks into
+     * the grounded Q&A prompt, and records the prompt's token count.
      */
-    private boolean evaluateRelevancy(String question, List<Document> context, String answer) {
-        EvaluationRequest evaluationRequest = new EvaluationRequest(question, context, answer);
-        EvaluationResponse evaluationResponse = relevancyEvaluator.evaluate(evaluationRequest);
-        boolean pass = evaluationResponse.isPass();
-
-        if (!pass) {
-            log.warn("RAG answer failed relevancy evaluation for question: {} (feedback: {})",
-                    question, evaluationResponse.getFeedback());
-        }
-
-        meterRegistry.counter("rag.evaluation.result", "result", pass ? "pass" : "fail").increment();
-        return pass;
-    }
-
-    private Filter.Expression buildDocumentFilter(String documentId) {
-        if (documentId == null || documentId.isBlank()) {
-            return null;
-        }
-        return new FilterExpressionBuilder().eq("document_id", documentId).build();
+    private ChatClient.ChatClientRequestSpec buildPrompt(RetrievalContext context) {
+        String prompt = QA_PROMPT.render(Map.of(
+                "query", context.question(),
+                "question_answer_context", context.contextText()));
+        contextAssembler.recordPrompt(prompt);
+        return chatClient.prompt().user(prompt);
     }
 
     /**
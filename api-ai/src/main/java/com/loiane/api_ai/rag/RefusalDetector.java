@@ -0,0 +1,64 @@
+package com.loiane.api_ai.rag;
+
+/**
+ * Detects, while an answer is streamed, whether it is the refusal sentence.
+ *
+ * <p>The grounded prompt asks the model to reply with exactly the refusal
+ * sentence, so only the start of the answer has to be checked. Deltas are
+ * buffered until the buffer either starts with the refusal sentence or stops
+ * being a prefix of it, after which the outcome is fixed and further deltas
+ * are ignored. At most the length of the refusal sentence is ever buffered.
+ * Leading whitespace and quotes are skipped.
+ *
+ * <p>Not thread-safe; one instance per streamed answer.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+class RefusalDetector {
+
+    enum Outcome { PENDING, REFUSAL, ANSWER }
+
+    private final String refusal;
+    private final StringBuilder prefix = new StringBuilder();
+    private Outcome outcome = Outcome.PENDING;
+
+    RefusalDetector(String refusal) {
+        this.refusal = refusal;
+    }
+
+    /**
+     * Feeds the next delta of the answer.
+     *
+     * @param delta The next piece of answer text
+     * @return The outcome after this delta
+     */
+    Outcome accept(String delta) {
+        if (outcome != Outcome.PENDING || delta == null) {
+            return outcome;
+        }
+        for (int i = 0; i < delta.length() && prefix.length() < refusal.length(); i++) {
+            char c = delta.charAt(i);
+            if (prefix.isEmpty() && (Character.isWhitespace(c) || c == '"' || c == '“')) {
+                continue;
+            }
+            if (c != refusal.charAt(prefix.length())) {
+                outcome = Outcome.ANSWER;
+                return outcome;
+            }
+            prefix.append(c);
+        }
+        if (prefix.length() == refusal.length()) {
+            outcome = Outcome.REFUSAL;
+        }
+        return outcome;
+    }
+
+    /**
+     * @return The outcome so far; {@code PENDING} means the answer so far is a
+     *         strict prefix of the refusal sentence
+     */
+    Outcome outcome() {
+        return outcome;
+    }
+}
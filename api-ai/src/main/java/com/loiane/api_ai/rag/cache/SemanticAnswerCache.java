@@ -0,0 +1,255 @@
+package com.loiane.api_ai.rag.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.embedding.QueryEmbeddingCache;
+import com.loiane.api_ai.rag.event.CorpusChangedEvent;
+import com.loiane.api_ai.rag.event.DocumentChangedEvent;
+import com.loiane.api_ai.rag.model.RagResponse;
+import com.loiane.api_ai.rag.model.Source;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache of RAG answers keyed by the meaning of the question.
+ *
+ * <p>A question whose embedding is within {@code app.documents.answer-cache.max-distance}
+ * (cosine distance) of a previously answered question with the same document
+ * scope gets the cached {@link RagResponse} back, without calling the chat
+ * model or the relevancy evaluator. Question embeddings come from the
+ * {@link QueryEmbeddingCache}, so checking this cache does not cost an extra
+ * embedding call when retrieval runs afterwards.
+ *
+ * <p>Entries are invalidated by {@link DocumentChangedEvent}: answers scoped to
+ * the changed document and answers searched across all documents are dropped.
+ * {@link CorpusChangedEvent} only drops answers searched across all documents.
+ * Memory is bounded by an estimate of each entry's size
+ * ({@code app.documents.answer-cache.max-memory}), evicting the least recently
+ * used answers first.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Component
+public class SemanticAnswerCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticAnswerCache.class);
+
+    private static final String ALL_DOCUMENTS = "*";
+    private static final long ENTRY_OVERHEAD_BYTES = 256;
+
+    /**
+     * Result of a cache lookup, carried through the request so the answer can be
+     * stored afterwards without embedding the question again.
+     *
+     * @param scope      The document scope the question was asked in
+     * @param embedding  The normalized question embedding, or {@code null} when the cache is disabled
+     * @param generation The invalidation generation observed before the lookup
+     * @param cached     The cached response, or {@code null} on a miss
+     */
+    public record Lookup(String scope, float[] embedding, long generation, RagResponse cached) {
+
+        public boolean hit() {
+            return cached != null;
+        }
+    }
+
+    private record Entry(String scope, float[] embedding, RagResponse response, long bytes) {
+    }
+
+    private final EmbeddingModel embeddingModel;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final boolean enabled;
+    private final double maxDistance;
+    private final long maxBytes;
+
+    private final Map<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong generation = new AtomicLong();
+    private long nextId;
+    private long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter invalidations;
+
+    public SemanticAnswerCache(EmbeddingModel embeddingModel, QueryEmbeddingCache queryEmbeddingCache,
+                               DocumentProperties documentProperties, MeterRegistry meterRegistry) {
+        this.embeddingModel = embeddingModel;
+        this.queryEmbeddingCache = queryEmbeddingCache;
+        DocumentProperties.AnswerCache settings = documentProperties.getAnswerCache();
+        this.enabled = settings.isEnabled();
+        this.maxDistance = settings.getMaxDistance();
+        this.maxBytes = settings.getMaxMemory().toBytes();
+
+        this.hits = meterRegistry.counter("rag.answer.cache.lookups", "result", "hit");
+        this.misses = meterRegistry.counter("rag.answer.cache.lookups", "result", "miss");
+        this.sizeEvictions = meterRegistry.counter("rag.answer.cache.evictions", "reason", "size");
+        this.invalidations = meterRegistry.counter("rag.answer.cache.evictions", "reason", "invalidated");
+        Gauge.builder("rag.answer.cache.entries", this, SemanticAnswerCache::size)
+                .description("Answers currently cached")
+                .register(meterRegistry);
+        Gauge.builder("rag.answer.cache.bytes", this, SemanticAnswerCache::estimatedBytes)
+                .description("Estimated memory used by cached answers")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Looks for a cached answer to a semantically equivalent question.
+     *
+     * @param question   The question text
+     * @param documentId Optional document id the question is scoped to
+     * @return The lookup result, to be passed to {@link #put} on a miss
+     */
+    public Lookup lookup(String question, String documentId) {
+        String scope = scopeOf(documentId);
+        long observedGeneration = generation.get();
+        if (!enabled) {
+            return new Lookup(scope, null, observedGeneration, null);
+        }
+
+        float[] embedding = normalize(queryEmbeddingCache.get(question, embeddingModel::embed));
+        RagResponse cached = findClosest(scope, embedding);
+        (cached != null ? hits : misses).increment();
+        return new Lookup(scope, embedding, observedGeneration, cached);
+    }
+
+    /**
+     * Caches the answer produced after a miss.
+     *
+     * <p>The answer is discarded if any document changed while it was being
+     * generated, since it may be based on content that no longer exists.
+     *
+     * @param lookup   The lookup that missed
+     * @param response The generated response
+     */
+    public synchronized void put(Lookup lookup, RagResponse response) {
+        if (lookup.embedding() == null || lookup.hit() || generation.get() != lookup.generation()) {
+            return;
+        }
+
+        Entry entry = new Entry(lookup.scope(), lookup.embedding(), response, estimateBytes(lookup.embedding(), response));
+        if (entry.bytes() > maxBytes) {
+            return;
+        }
+        entries.put(nextId++, entry);
+        totalBytes += entry.bytes();
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().bytes();
+            eldest.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    /**
+     * Drops every answer that may depend on the changed document.
+     */
+    @EventListener
+    public void onDocumentChanged(DocumentChangedEvent event) {
+        int removed = invalidate(event.documentId());
+        log.debug("Invalidated {} cached answers for document {}", removed, event.documentId());
+    }
+
+    /**
+     * Drops every answer searched across all documents, which may depend on
+     * chunks of the changed source.
+     */
+    @EventListener
+    public void onCorpusChanged(CorpusChangedEvent event) {
+        int removed = invalidate(ALL_DOCUMENTS);
+        log.debug("Invalidated {} cached answers for {}", removed, event.source());
+    }
+
+    /**
+     * Drops the answers of a scope and the answers searched across all documents.
+     *
+     * @return The number of answers dropped
+     */
+    private synchronized int invalidate(String scope) {
+        generation.incrementAndGet();
+
+        int removed = 0;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.scope().equals(ALL_DOCUMENTS) || entry.scope().equals(scope)) {
+                totalBytes -= entry.bytes();
+                iterator.remove();
+                removed++;
+            }
+        }
+        invalidations.increment(removed);
+        return removed;
+    }
+
+    private synchronized RagResponse findClosest(String scope, float[] embedding) {
+        Long bestId = null;
+        double bestDistance = maxDistance;
+        for (Map.Entry<Long, Entry> candidate : entries.entrySet()) {
+            Entry entry = candidate.getValue();
+            if (!entry.scope().equals(scope) || entry.embedding().length != embedding.length) {
+                continue;
+            }
+            double distance = 1.0 - dot(entry.embedding(), embedding);
+            if (distance <= bestDistance) {
+                bestDistance = distance;
+                bestId = candidate.getKey();
+            }
+        }
+        // get() refreshes the entry's position in the LRU order
+        return bestId == null ? null : entries.get(bestId).response();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long estimatedBytes() {
+        return totalBytes;
+    }
+
+    private static String scopeOf(String documentId) {
+        return documentId == null || documentId.isBlank() ? ALL_DOCUMENTS : documentId;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = Math.sqrt(dot(vector, vector));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = norm == 0 ? 0f : (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private static long estimateBytes(float[] embedding, RagResponse response) {
+        long chars = response.answer() == null ? 0 : response.answer().length();
+        for (Source source : response.sources()) {
+            chars += source.content() == null ? 0 : source.content().length();
+            chars += source.filename() == null ? 0 : source.filename().length();
+        }
+        return ENTRY_OVERHEAD_BYTES + (long) embedding.length * Float.BYTES + chars * Character.BYTES;
+    }
+}
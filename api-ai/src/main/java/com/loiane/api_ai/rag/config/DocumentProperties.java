@@ -1,7 +1,12 @@
 package com.loiane.api_ai.rag.config;
 
+import java.time.Duration;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.loiane.api_ai.rag.retrieval.VectorSearchMode;
 
 /**
  * Configuration properties for document processing and RAG functionality.
@@ -45,6 +50,56 @@ public class DocumentProperties {
      */
     private int topK = 5;
 
+    /**
+     * Settings for the asynchronous document ingestion pipeline.
+     */
+    private final Ingestion ingestion = new Ingestion();
+
+    /**
+     * Settings for batching chunks into embedding requests.
+     */
+    private final Embedding embedding = new Embedding();
+
+    /**
+     * Settings for reusing answers to semantically equivalent questions.
+     */
+    private final AnswerCache answerCache = new AnswerCache();
+
+    /**
+     * Settings for background relevancy evaluation of answers.
+     */
+    private final Evaluation evaluation = new Evaluation();
+
+    /**
+     * Settings for retrieving the chunks used as context for answers.
+     */
+    private final Retrieval retrieval = new Retrieval();
+
+    /**
+     * Settings for assembling the retrieved chunks into the prompt context.
+     */
+    private final Context context = new Context();
+
+    /**
+     * Settings for the in-process vector store of the "rag" profile.
+     */
+    private final LocalStore localStore = new LocalStore();
+
+    /**
+     * Settings for bulk deletion and vector store maintenance.
+     */
+    private final Maintenance maintenance = new Maintenance();
+
+    /**
+     * Settings for the content-addressed store of uploaded files.
+     */
+    private final Storage storage = new Storage();
+
+    /**
+     * Settings for listing documents.
+     */
+    private final Listing listing = new Listing();
+
     // Getters and Setters
 
     public String getUploadDir() {
@@ -87,6 +142,46 @@ public class DocumentProperties {
         this.topK = topK;
     }
 
+    public Ingestion getIngestion() {
+        return ingestion;
+    }
+
+    public Embedding getEmbedding() {
+        return embedding;
+    }
+
+    public AnswerCache getAnswerCache() {
+        return answerCache;
+    }
+
+    public Evaluation getEvaluation() {
+        return evaluation;
+    }
+
+    public Retrieval getRetrieval() {
+        return retrieval;
+    }
+
+    public Context getContext() {
+        return context;
+    }
+
+    public LocalStore getLocalStore() {
+        return localStore;
+    }
+
+    public Maintenance getMaintenance() {
+        return maintenance;
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public Listing getListing() {
+        return listing;
+    }
+
     @Override
     public String toString() {
         return "DocumentProperties{" +
@@ -95,6 +190,1008 @@ public class DocumentProperties {
                 ", minChunkSize=" + minChunkSize +
                 ", chunkOverlap=" + chunkOverlap +
                 ", topK=" + topK +
+                ", ingestion=" + ingestion +
+                ", embedding=" + embedding +
+                ", answerCache=" + answerCache +
+                ", evaluation=" + evaluation +
+                ", retrieval=" + retrieval +
+                ", context=" + context +
+                ", localStore=" + localStore +
+                ", maintenance=" + maintenance +
+                ", storage=" + storage +
+                ", listing=" + listing +
                 '}';
     }
+
+    /**
+     * Configuration for the ingestion queue and its worker pools.
+     * Maps properties with prefix "app.documents.ingestion".
+     */
+    public static class Ingestion {
+
+        /**
+         * Maximum number of uploaded documents waiting for extraction.
+         * Uploads beyond this limit are rejected instead of queued.
+         * Default: 100 documents
+         */
+        private int queueCapacity = 100;
+
+        /**
+         * Number of documents streamed through extraction, chunking and embedding concurrently.
+         * Default: 2 workers
+         */
+        private int extractionWorkers = 2;
+
+        /**
+         * How often the status stream checks for processing progress.
+         * Default: 1 second
+         */
+        private Duration statusPollInterval = Duration.ofSeconds(1);
+
+        /**
+         * Threads extracting PDF page ranges in parallel, shared by all documents.
+         * Zero uses one thread per available processor.
+         * Default: 0 (number of cores)
+         */
+        private int pdfParallelism = 0;
+
+        /**
+         * Number of consecutive pages extracted by a single task.
+         * Default: 8 pages
+         */
+        private int pdfPagesPerRange = 8;
+
+        /**
+         * Maximum extracted pages buffered per document ahead of the chunker.
+         * Default: 64 pages
+         */
+        private int pdfMaxBufferedPages = 64;
+
+        /**
+         * Chunks of the bundled reference PDF stored per batch while warming up
+         * after startup; each batch is searchable as soon as it is stored.
+         * Default: 100 chunks
+         */
+        private int bootstrapBatchSize = 100;
+
+        /**
+         * Maximum size of a PDF uploaded as a raw request body, which is streamed
+         * to disk instead of being buffered as a multipart file.
+         * Default: 1 GB
+         */
+        private DataSize maxStreamedUploadSize = DataSize.ofGigabytes(1);
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getExtractionWorkers() {
+            return extractionWorkers;
+        }
+
+        public void setExtractionWorkers(int extractionWorkers) {
+            this.extractionWorkers = extractionWorkers;
+        }
+
+        public Duration getStatusPollInterval() {
+            return statusPollInterval;
+        }
+
+        public void setStatusPollInterval(Duration statusPollInterval) {
+            this.statusPollInterval = statusPollInterval;
+        }
+
+        public int getPdfParallelism() {
+            return pdfParallelism;
+        }
+
+        public void setPdfParallelism(int pdfParallelism) {
+            this.pdfParallelism = pdfParallelism;
+        }
+
+        public int getPdfPagesPerRange() {
+            return pdfPagesPerRange;
+        }
+
+        public void setPdfPagesPerRange(int pdfPagesPerRange) {
+            this.pdfPagesPerRange = pdfPagesPerRange;
+        }
+
+        public int getPdfMaxBufferedPages() {
+            return pdfMaxBufferedPages;
+        }
+
+        public void setPdfMaxBufferedPages(int pdfMaxBufferedPages) {
+            this.pdfMaxBufferedPages = pdfMaxBufferedPages;
+        }
+
+        public int getBootstrapBatchSize() {
+            return bootstrapBatchSize;
+        }
+
+        public void setBootstrapBatchSize(int bootstrapBatchSize) {
+            this.bootstrapBatchSize = bootstrapBatchSize;
+        }
+
+        public DataSize getMaxStreamedUploadSize() {
+            return maxStreamedUploadSize;
+        }
+
+        public void setMaxStreamedUploadSize(DataSize maxStreamedUploadSize) {
+            this.maxStreamedUploadSize = maxStreamedUploadSize;
+        }
+
+        @Override
+        public String toString() {
+            return "Ingestion{" +
+                    "queueCapacity=" + queueCapacity +
+                    ", extractionWorkers=" + extractionWorkers +
+                    ", statusPollInterval=" + statusPollInterval +
+                    ", pdfParallelism=" + pdfParallelism +
+                    ", pdfPagesPerRange=" + pdfPagesPerRange +
+                    ", pdfMaxBufferedPages=" + pdfMaxBufferedPages +
+                    ", bootstrapBatchSize=" + bootstrapBatchSize +
+                    ", maxStreamedUploadSize=" + maxStreamedUploadSize +
+                    '}';
+        }
+    }
+
+    /**
+     * Configuration for packing chunks into embedding requests.
+     * Maps properties with prefix "app.documents.embedding".
+     */
+    public static class Embedding {
+
+        /**
+         * Maximum estimated tokens sent in a single embedding request.
+         * OpenAI accepts up to 300,000 tokens per request.
+         * Default: 100,000 tokens
+         */
+        private int maxTokensPerBatch = 100_000;
+
+        /**
+         * Maximum number of chunks sent in a single embedding request.
+         * OpenAI accepts up to 2,048 inputs per request.
+         * Default: 512 chunks
+         */
+        private int maxChunksPerBatch = 512;
+
+        /**
+         * Number of embedding requests allowed in flight at the same time.
+         * Default: 4 requests
+         */
+        private int concurrency = 4;
+
+        /**
+         * Attempts per batch before the document is marked as failed.
+         * Default: 3 attempts
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * Delay before retrying a failed batch, multiplied by the attempt number.
+         * Default: 1 second
+         */
+        private Duration retryBackoff = Duration.ofSeconds(1);
+
+        /**
+         * Whether chunk embeddings are cached by content hash, so unchanged
+         * chunks are never embedded twice.
+         * Default: true
+         */
+        private boolean cacheEnabled = true;
+
+        /**
+         * Number of embeddings kept in the in-process LRU tier in front of
+         * the PostgreSQL cache table.
+         * Default: 10,000 embeddings
+         */
+        private int cacheMemoryEntries = 10_000;
+
+        /**
+         * Number of question embeddings kept for reuse across requests.
+         * Default: 1,000 questions
+         */
+        private int queryCacheMaxEntries = 1_000;
+
+        /**
+         * How long a question embedding is reused before it is recomputed.
+         * Default: 30 minutes
+         */
+        private Duration queryCacheTtl = Duration.ofMinutes(30);
+
+        public int getMaxTokensPerBatch() {
+            return maxTokensPerBatch;
+        }
+
+        public void setMaxTokensPerBatch(int maxTokensPerBatch) {
+            this.maxTokensPerBatch = maxTokensPerBatch;
+        }
+
+        public int getMaxChunksPerBatch() {
+            return maxChunksPerBatch;
+        }
+
+        public void setMaxChunksPerBatch(int maxChunksPerBatch) {
+            this.maxChunksPerBatch = maxChunksPerBatch;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public void setRetryBackoff(Duration retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+
+        public boolean isCacheEnabled() {
+            return cacheEnabled;
+        }
+
+        public void setCacheEnabled(boolean cacheEnabled) {
+            this.cacheEnabled = cacheEnabled;
+        }
+
+        public int getCacheMemoryEntries() {
+            return cacheMemoryEntries;
+        }
+
+        public void setCacheMemoryEntries(int cacheMemoryEntries) {
+            this.cacheMemoryEntries = cacheMemoryEntries;
+        }
+
+        public int getQueryCacheMaxEntries() {
+            return queryCacheMaxEntries;
+        }
+
+        public void setQueryCacheMaxEntries(int queryCacheMaxEntries) {
+            this.queryCacheMaxEntries = queryCacheMaxEntries;
+        }
+
+        public Duration getQueryCacheTtl() {
+            return queryCacheTtl;
+        }
+
+        public void setQueryCacheTtl(Duration queryCacheTtl) {
+            this.queryCacheTtl = queryCacheTtl;
+        }
+
+        @Override
+        public String toString() {
+            return "Embedding{" +
+                    "maxTokensPerBatch=" + maxTokensPerBatch +
+                    ", maxChunksPerBatch=" + maxChunksPerBatch +
+                    ", concurrency=" + concurrency +
+                    ", maxAttempts=" + maxAttempts +
+                    ", retryBackoff=" + retryBackoff +
+                    ", cacheEnabled=" + cacheEnabled +
+                    ", cacheMemoryEntries=" + cacheMemoryEntries +
+                    ", queryCacheMaxEntries=" + queryCacheMaxEntries +
+                    ", queryCacheTtl=" + queryCacheTtl +
+                    '}';
+        }
+    }
+
+    /**
+     * Configuration for the semantic answer cache.
+     * Maps properties with prefix "app.documents.answer-cache".
+     */
+    public static class AnswerCache {
+
+        /**
+         * Whether answers are reused for semantically equivalent questions.
+         * Default: true
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum cosine distance between two questions for the cached answer to be reused.
+         * Lower values only match near-identical phrasings.
+         * Default: 0.05
+         */
+        private double maxDistance = 0.05;
+
+        /**
+         * Approximate memory budget for cached answers, sources and question embeddings.
+         * Least recently used answers are evicted first.
+         * Default: 16MB
+         */
+        private DataSize maxMemory = DataSize.ofMegabytes(16);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getMaxDistance() {
+            return maxDistance;
+        }
+
+        public void setMaxDistance(double maxDistance) {
+            this.maxDistance = maxDistance;
+        }
+
+        public DataSize getMaxMemory() {
+            return maxMemory;
+        }
+
+        public void setMaxMemory(DataSize maxMemory) {
+            this.maxMemory = maxMemory;
+        }
+
+        @Override
+        public String toString() {
+            return "AnswerCache{" +
+                    "enabled=" + enabled +
+                    ", maxDistance=" + maxDistance +
+                    ", maxMemory=" + maxMemory +
+                    '}';
+        }
+    }
+
+    /**
+     * Configuration for background relevancy evaluation.
+     * Maps properties with prefix "app.documents.evaluation".
+     */
+    public static class Evaluation {
+
+        /**
+         * Fraction of answers evaluated in the background, between 0.0 and 1.0.
+         * Default: 0.1 (one answer in ten)
+         */
+        private double samplingRate = 0.1;
+
+        /**
+         * Threads running background evaluations.
+         * Default: 1
+         */
+        private int workers = 1;
+
+        /**
+         * Maximum evaluations waiting for a worker; further ones are dropped.
+         * Default: 100
+         */
+        private int queueCapacity = 100;
+
+        public double getSamplingRate() {
+            return samplingRate;
+        }
+
+        public void setSamplingRate(double samplingRate) {
+            this.samplingRate = samplingRate;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        @Override
+        public String toString() {
+            return "Evaluation{" +
+                    "samplingRate=" + samplingRate +
+                    ", workers=" + workers +
+                    ", queueCapacity=" + queueCapacity +
+                    '}';
+        }
+    }
+
+    /**
+     * Configuration for context retrieval.
+     * Maps properties with prefix "app.documents.retrieval".
+     */
+    public static class Retrieval {
+
+        /**
+         * Whether full-text search results are fused with the vector search results.
+         * Default: true
+         */
+        private boolean hybrid = true;
+
+        /**
+         * Candidates fetched from each of the vector and full-text searches before fusion.
+         * Default: 20 chunks
+         */
+        private int candidates = 20;
+
+        /**
+         * Rank constant of reciprocal rank fusion; higher values flatten the weight of top ranks.
+         * Default: 60
+         */
+        private int rrfK = 60;
+
+        /**
+         * PostgreSQL text search configuration used to index and query chunk content.
+         * Must match the configuration of the full-text index in schema.sql.
+         * Default: english
+         */
+        private String textSearchConfig = "english";
+
+        /**
+         * Threads running full-text searches concurrently with the vector search.
+         * Default: 4
+         */
+        private int lexicalWorkers = 4;
+
+        /**
+         * Largest document, in chunks, searched exactly instead of through the HNSW index
+         * when a question is scoped to it.
+         * Default: 5000 chunks
+         */
+        private int exactSearchMaxChunks = 5000;
+
+        /**
+         * Whether retrieved chunks are over-fetched, rescored by the reranker and
+         * deduplicated before the top-K are kept.
+         * Default: true
+         */
+        private boolean rerank = true;
+
+        /**
+         * Chunks fetched for the reranker to choose the top-K from.
+         * Default: 50 chunks
+         */
+        private int rerankCandidates = 50;
+
+        /**
+         * Reranker scoring the candidates: "lexical" (local term overlap) or "model"
+         * (the chat model rates each candidate; one extra model call per question).
+         * Default: lexical
+         */
+        private String reranker = "lexical";
+
+        /**
+         * Weight of the question term overlap in the lexical reranker's score,
+         * the rest being the retrieval rank (0 keeps the retrieval order).
+         * Default: 0.5
+         */
+        private double rerankLexicalWeight = 0.5;
+
+        /**
+         * Share of a chunk's text that may repeat an adjacent, better ranked chunk of
+         * the same document before it is dropped as a duplicate.
+         * Default: 0.5
+         */
+        private double dedupThreshold = 0.5;
+
+        /**
+         * Index searched by unfiltered vector searches: "full" (full-precision vectors),
+         * "halfvec" or "binary" (quantized index) or "matryoshka" (index of the leading
+         * {@code matryoshkaDimensions} of each embedding). The compact modes rescore their
+         * candidates with the full embeddings; their index is built at startup.
+         * Default: full
+         */
+        private VectorSearchMode vectorSearchMode = VectorSearchMode.FULL;
+
+        /**
+         * Candidates fetched from the quantized index and rescored at full precision.
+         * Default: 100 chunks
+         */
+        private int rescoreCandidates = 100;
+
+        /**
+         * Leading embedding dimensions indexed by the "matryoshka" vector search mode,
+         * fewer than spring.ai.vectorstore.pgvector.dimensions.
+         * Default: 256
+         */
+        private int matryoshkaDimensions = 256;
+
+        public boolean isHybrid() {
+            return hybrid;
+        }
+
+        public void setHybrid(boolean hybrid) {
+            this.hybrid = hybrid;
+        }
+
+        public int getCandidates() {
+            return candidates;
+        }
+
+        public void setCandidates(int candidates) {
+            this.candidates = candidates;
+        }
+
+        public int getRrfK() {
+            return rrfK;
+        }
+
+        public void setRrfK(int rrfK) {
+            this.rrfK = rrfK;
+        }
+
+        public String getTextSearchConfig() {
+            return textSearchConfig;
+        }
+
+        public void setTextSearchConfig(String textSearchConfig) {
+            this.textSearchConfig = textSearchConfig;
+        }
+
+        public int getLexicalWorkers() {
+            return lexicalWorkers;
+        }
+
+        public void setLexicalWorkers(int lexicalWorkers) {
+            this.lexicalWorkers = lexicalWorkers;
+        }
+
+        public int getExactSearchMaxChunks() {
+            return exactSearchMaxChunks;
+        }
+
+        public void setExactSearchMaxChunks(int exactSearchMaxChunks) {
+            this.exactSearchMaxChunks = exactSearchMaxChunks;
+        }
+
+        public boolean isRerank() {
+            return rerank;
+        }
+
+        public void setRerank(boolean rerank) {
+            this.rerank = rerank;
+        }
+
+        public int getRerankCandidates() {
+            return rerankCandidates;
+        }
+
+        public void setRerankCandidates(int rerankCandidates) {
+            this.rerankCandidates = rerankCandidates;
+        }
+
+        public String getReranker() {
+            return reranker;
+        }
+
+        public void setReranker(String reranker) {
+            this.reranker = reranker;
+        }
+
+        public double getRerankLexicalWeight() {
+            return rerankLexicalWeight;
+        }
+
+        public void setRerankLexicalWeight(double rerankLexicalWeight) {
+            this.rerankLexicalWeight = rerankLexicalWeight;
+        }
+
+        public double getDedupThreshold() {
+            return dedupThreshold;
+        }
+
+        public void setDedupThreshold(double dedupThreshold) {
+            this.dedupThreshold = dedupThreshold;
+        }
+
+        public VectorSearchMode getVectorSearchMode() {
+            return vectorSearchMode;
+        }
+
+        public void setVectorSearchMode(VectorSearchMode vectorSearchMode) {
+            this.vectorSearchMode = vectorSearchMode;
+        }
+
+        public int getRescoreCandidates() {
+            return rescoreCandidates;
+        }
+
+        public void setRescoreCandidates(int rescoreCandidates) {
+            this.rescoreCandidates = rescoreCandidates;
+        }
+
+        public int getMatryoshkaDimensions() {
+            return matryoshkaDimensions;
+        }
+
+        public void setMatryoshkaDimensions(int matryoshkaDimensions) {
+            this.matryoshkaDimensions = matryoshkaDimensions;
+        }
+
+        @Override
+        public String toString() {
+            return "Retrieval{" +
+                    "hybrid=" + hybrid +
+                    ", candidates=" + candidates +
+                    ", rrfK=" + rrfK +
+                    ", textSearchConfig='" + textSearchConfig + '\'' +
+                    ", lexicalWorkers=" + lexicalWorkers +
+                    ", exactSearchMaxChunks=" + exactSearchMaxChunks +
+                    ", rerank=" + rerank +
+                    ", rerankCandidates=" + rerankCandidates +
+                    ", reranker='" + reranker + '\'' +
+                    ", rerankLexicalWeight=" + rerankLexicalWeight +
+                    ", dedupThreshold=" + dedupThreshold +
+                    ", vectorSearchMode=" + vectorSearchMode +
+                    ", rescoreCandidates=" + rescoreCandidates +
+                    ", matryoshkaDimensions=" + matryoshkaDimensions +
+                    '}';
+        }
+    }
+
+    /**
+     * Configuration for assembling retrieved chunks into the prompt context.
+     * Maps properties with prefix "app.documents.context".
+     */
+    public static class Context {
+
+        /**
+         * Token budget of the retrieved context injected into the prompt.
+         * Chunks beyond the budget are truncated or left out, lowest ranked first.
+         * Default: 3000 tokens
+         */
+        private int maxTokens = 3000;
+
+        /**
+         * Smallest truncated chunk worth including; a chunk that would be cut
+         * shorter than this is left out instead.
+         * Default: 64 tokens
+         */
+        private int minChunkTokens = 64;
+
+        /**
+         * Whether consecutive chunks of the same page are merged into one passage,
+         * without repeating their overlap.
+         * Default: true
+         */
+        private boolean mergeAdjacent = true;
+
+        public int getMaxTokens() {
+            return maxTokens;
+        }
+
+        public void setMaxTokens(int maxTokens) {
+            this.maxTokens = maxTokens;
+        }
+
+        public int getMinChunkTokens() {
+            return minChunkTokens;
+        }
+
+        public void setMinChunkTokens(int minChunkTokens) {
+            this.minChunkTokens = minChunkTokens;
+        }
+
+        public boolean isMergeAdjacent() {
+            return mergeAdjacent;
+        }
+
+        public void setMergeAdjacent(boolean mergeAdjacent) {
+            this.mergeAdjacent = mergeAdjacent;
+        }
+
+        @Override
+        public String toString() {
+            return "Context{" +
+                    "maxTokens=" + maxTokens +
+                    ", minChunkTokens=" + minChunkTokens +
+                    ", mergeAdjacent=" + mergeAdjacent +
+                    '}';
+        }
+    }
+
+    /**
+     * Configuration for the in-process vector store used by the "rag" profile.
+     * Maps properties with prefix "app.documents.local-store".
+     */
+    public static class LocalStore {
+
+        /**
+         * Whether embeddings added at runtime are kept outside the Java heap.
+         * Required for matrices above 2 GB (e.g. 350k chunks of 1536 dimensions).
+         * Default: false
+         */
+        private boolean offHeap = false;
+
+        /**
+         * Partitions searched in parallel on the common fork-join pool
+         * (0 uses one per available processor).
+         * Default: 0
+         */
+        private int searchParallelism = 0;
+
+        /**
+         * Smallest number of chunks searched in parallel partitions; smaller
+         * stores are searched on the calling thread.
+         * Default: 50000 chunks
+         */
+        private int parallelSearchMinChunks = 50_000;
+
+        /**
+         * Index of the "rag" profile store: "hnsw" for an approximate nearest
+         * neighbour graph that also accepts adds and deletes, or "flat" for exact
+         * search over the read-only memory-mapped snapshot.
+         * Default: hnsw
+         */
+        private String index = "hnsw";
+
+        /**
+         * Neighbours linked per node on the upper HNSW layers (twice as many on
+         * the bottom layer). Changing it rebuilds the saved graph.
+         * Default: 16
+         */
+        private int hnswM = 16;
+
+        /**
+         * Candidates considered when linking a new node into the HNSW graph;
+         * higher builds a better graph, more slowly.
+         * Default: 100
+         */
+        private int hnswEfConstruction = 100;
+
+        /**
+         * Candidates kept while searching the HNSW graph (at least topK); higher
+         * improves recall at the cost of latency.
+         * Default: 64
+         */
+        private int hnswEfSearch = 64;
+
+        public boolean isOffHeap() {
+            return offHeap;
+        }
+
+        public void setOffHeap(boolean offHeap) {
+            this.offHeap = offHeap;
+        }
+
+        public int getSearchParallelism() {
+            return searchParallelism;
+        }
+
+        public void setSearchParallelism(int searchParallelism) {
+            this.searchParallelism = searchParallelism;
+        }
+
+        public int getParallelSearchMinChunks() {
+            return parallelSearchMinChunks;
+        }
+
+        public void setParallelSearchMinChunks(int parallelSearchMinChunks) {
+            this.parallelSearchMinChunks = parallelSearchMinChunks;
+        }
+
+        public String getIndex() {
+            return index;
+        }
+
+        public void setIndex(String index) {
+            this.index = index;
+        }
+
+        public int getHnswM() {
+            return hnswM;
+        }
+
+        public void setHnswM(int hnswM) {
+            this.hnswM = hnswM;
+        }
+
+        public int getHnswEfConstruction() {
+            return hnswEfConstruction;
+        }
+
+        public void setHnswEfConstruction(int hnswEfConstruction) {
+            this.hnswEfConstruction = hnswEfConstruction;
+        }
+
+        public int getHnswEfSearch() {
+            return hnswEfSearch;
+        }
+
+        public void setHnswEfSearch(int hnswEfSearch) {
+            this.hnswEfSearch = hnswEfSearch;
+        }
+
+        @Override
+        public String toString() {
+            return "LocalStore{" +
+                    "offHeap=" + offHeap +
+                    ", searchParallelism=" + searchParallelism +
+                    ", parallelSearchMinChunks=" + parallelSearchMinChunks +
+                    ", index='" + index + '\'' +
+                    ", hnswM=" + hnswM +
+                    ", hnswEfConstruction=" + hnswEfConstruction +
+                    ", hnswEfSearch=" + hnswEfSearch +
+                    '}';
+        }
+    }
+
+    /**
+     * Configuration for bulk document deletion and vector store maintenance.
+     * Maps properties with prefix "app.documents.maintenance".
+     */
+    public static class Maintenance {
+
+        /**
+         * Vectors removed per DELETE statement, so a large delete never holds
+         * locks on, or writes WAL for, the whole set at once.
+         * Default: 1000 vectors
+         */
+        private int deleteBatchSize = 1000;
+
+        /**
+         * How often orphaned vectors are collected and vector_store is vacuumed
+         * (zero disables the scheduled run).
+         * Default: 6 hours
+         */
+        private Duration interval = Duration.ofHours(6);
+
+        /**
+         * Rows deleted from vector_store since the last rebuild that trigger a
+         * REINDEX CONCURRENTLY, reclaiming the space HNSW indexes keep after deletes.
+         * Default: 50000 rows
+         */
+        private long reindexMinDeletedRows = 50_000;
+
+        public int getDeleteBatchSize() {
+            return deleteBatchSize;
+        }
+
+        public void setDeleteBatchSize(int deleteBatchSize) {
+            this.deleteBatchSize = deleteBatchSize;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public long getReindexMinDeletedRows() {
+            return reindexMinDeletedRows;
+        }
+
+        public void setReindexMinDeletedRows(long reindexMinDeletedRows) {
+            this.reindexMinDeletedRows = reindexMinDeletedRows;
+        }
+
+        @Override
+        public String toString() {
+            return "Maintenance{" +
+                    "deleteBatchSize=" + deleteBatchSize +
+                    ", interval=" + interval +
+                    ", reindexMinDeletedRows=" + reindexMinDeletedRows +
+                    '}';
+        }
+    }
+
+    /**
+     * Configuration for the store of uploaded files.
+     * Maps properties with prefix "app.documents.storage".
+     */
+    public static class Storage {
+
+        /**
+         * Backend that stores the files: "local" (a directory on this machine).
+         * Default: local
+         */
+        private String backend = "local";
+
+        /**
+         * Root directory of the "local" backend; files are stored under it by
+         * SHA-256, in two levels of subdirectories named after the hash prefix.
+         * Default: ./documents/blobs
+         */
+        private String localDir = "./documents/blobs";
+
+        public String getBackend() {
+            return backend;
+        }
+
+        public void setBackend(String backend) {
+            this.backend = backend;
+        }
+
+        public String getLocalDir() {
+            return localDir;
+        }
+
+        public void setLocalDir(String localDir) {
+            this.localDir = localDir;
+        }
+
+        @Override
+        public String toString() {
+            return "Storage{" +
+                    "backend='" + backend + '\'' +
+                    ", localDir='" + localDir + '\'' +
+                    '}';
+        }
+    }
+
+    /**
+     * Configuration for GET /api/rag/documents.
+     * Maps properties with prefix "app.documents.listing".
+     */
+    public static class Listing {
+
+        /**
+         * Documents per page when the request does not set a limit.
+         * Default: 50 documents
+         */
+        private int defaultPageSize = 50;
+
+        /**
+         * Largest page a request may ask for.
+         * Default: 200 documents
+         */
+        private int maxPageSize = 200;
+
+        /**
+         * Totals up to this many documents are counted exactly; above it, the
+         * unfiltered total is the planner's row estimate and filtered totals
+         * stop counting at this limit.
+         * Default: 10000 documents
+         */
+        private int exactCountLimit = 10_000;
+
+        public int getDefaultPageSize() {
+            return defaultPageSize;
+        }
+
+        public void setDefaultPageSize(int defaultPageSize) {
+            this.defaultPageSize = defaultPageSize;
+        }
+
+        public int getMaxPageSize() {
+            return maxPageSize;
+        }
+
+        public void setMaxPageSize(int maxPageSize) {
+            this.maxPageSize = maxPageSize;
+        }
+
+        public int getExactCountLimit() {
+            return exactCountLimit;
+        }
+
+        public void setExactCountLimit(int exactCountLimit) {
+            this.exactCountLimit = exactCountLimit;
+        }
+
+        @Override
+        public String toString() {
+            return "Listing{" +
+                    "defaultPageSize=" + defaultPageSize +
+                    ", maxPageSize=" + maxPageSize +
+                    ", exactCountLimit=" + exactCountLimit +
+                    '}';
+        }
+    }
 }
@@ -2,14 +2,7 @@ package com.loiane.api_ai.rag.config;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.ai.document.Document;
 import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.ai.reader.ExtractedTextFormatter;
-import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
-import org.springframework.ai.reader.pdf.config.PdfDocumentReaderConfig;
-import org.springframework.ai.transformer.splitter.TextSplitter;
-import org.springframework.ai.transformer.splitter.TokenTextSplitter;
-import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -17,11 +10,42 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.Resource;
 
+import com.loiane.api_ai.rag.embedding.CachingEmbeddingModel;
+import com.loiane.api_ai.rag.embedding.EmbeddingCache;
+import com.loiane.api_ai.rag.ingestion.BootstrapIngestion;
+import com.loiane.api_ai.rag.ingestion.BootstrapManifest;
+import com.loiane.api_ai.rag.vectorstore.HnswVectorStore;
+import com.loiane.api_ai.rag.vectorstore.MappedVectorStore;
+import com.loiane.api_ai.rag.vectorstore.VectorSnapshot;
+import com.loiane.api_ai.rag.vectorstore.VectorSnapshotConverter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
 
+/**
+ * In-memory vector store of the Spring AI reference PDF for the "rag" profile.
+ *
+ * <p>The store is kept in a binary snapshot ({@code vectorStore.bin}). When the
+ * snapshot is missing or older than a {@code SimpleVectorStore} JSON file, it is
+ * converted from the JSON file. When neither exists, startup does not wait for
+ * the PDF to be embedded: the store starts as an empty {@link HnswVectorStore}
+ * that {@link BootstrapIngestion} fills in the background, and it is saved as
+ * the snapshot once the whole PDF is indexed.
+ *
+ * <p>With {@code app.documents.local-store.index=hnsw} the snapshot is loaded
+ * into an {@link HnswVectorStore}, whose graph is saved next to it
+ * ({@code vectorStore.hnsw}); with {@code flat} it is memory-mapped and searched
+ * exactly by a read-only {@link MappedVectorStore}.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
 @Configuration
 @Profile("rag")
 public class RagPDFReader {
@@ -29,38 +53,53 @@ public class RagPDFReader {
     private static final Logger log = LoggerFactory.getLogger(RagPDFReader.class);
 
     private String vectorStoreName = "vectorStore.json";
+    private String snapshotName = "vectorStore.bin";
+    private String graphName = "vectorStore.hnsw";
 
     @Value("classpath:/docs/SpringAIReference.pdf")
     private Resource pdfResource;
 
     @Bean
-    public VectorStore simpleVectorStore(EmbeddingModel embeddingModel) {
-        SimpleVectorStore simpleVectorStore = SimpleVectorStore.builder(embeddingModel).build();
+    public VectorStore simpleVectorStore(EmbeddingModel embeddingModel, EmbeddingCache embeddingCache,
+                                         MeterRegistry meterRegistry, BootstrapIngestion bootstrapIngestion,
+                                         JsonMapper jsonMapper, DocumentProperties documentProperties) {
+        // Re-creating the store from the PDF reuses embeddings cached by content hash
+        EmbeddingModel cachingEmbeddingModel = new CachingEmbeddingModel(embeddingModel, embeddingCache, meterRegistry);
         File vectorStoreFile = getVectorStoreFile();
-        if (vectorStoreFile.exists()) {
-            log.info("Loading vector store from file: {}", vectorStoreFile.getAbsolutePath());
-            simpleVectorStore.load(vectorStoreFile);
-        } else {
-            log.info("Vector store file not found, creating a new one.");
-            List<Document> documents = getDocsFromPdf();
-            TextSplitter textSplitter = TokenTextSplitter.builder().build();
-            List<Document> splitDocuments = textSplitter.apply(documents);
-            simpleVectorStore.add(splitDocuments);
-            simpleVectorStore.save(vectorStoreFile);
+        File snapshotFile = new File(vectorStoreFile.getParentFile(), snapshotName);
+        File graphFile = new File(vectorStoreFile.getParentFile(), graphName);
+        try {
+            // Also re-converts after the JSON file was replaced
+            if (vectorStoreFile.exists() && (!snapshotFile.exists()
+                    || vectorStoreFile.lastModified() > snapshotFile.lastModified())) {
+                int chunks = VectorSnapshotConverter.convert(vectorStoreFile.toPath(), snapshotFile.toPath(), jsonMapper);
+                log.info("Converted {} chunks from {} to {}", chunks, vectorStoreFile.getName(), snapshotFile.getName());
+            } else if (!snapshotFile.exists()) {
+                // Searched as an HNSW store whatever the index setting, until the snapshot exists
+                log.info("Vector store file not found, indexing the PDF in the background.");
+                HnswVectorStore vectorStore = new HnswVectorStore(cachingEmbeddingModel, jsonMapper, documentProperties);
+                bootstrapIngestion.submit("local", pdfResource, vectorStore,
+                        new SnapshotManifest(vectorStore, snapshotFile.toPath(), graphFile.toPath()));
+                return vectorStore;
+            }
+            String index = documentProperties.getLocalStore().getIndex();
+            return switch (index) {
+                case "hnsw" -> {
+                    log.info("Loading vector store snapshot with HNSW index: {}", snapshotFile.getAbsolutePath());
+                    yield HnswVectorStore.load(snapshotFile.toPath(), graphFile.toPath(),
+                            cachingEmbeddingModel, jsonMapper, documentProperties);
+                }
+                case "flat" -> {
+                    log.info("Mapping vector store snapshot: {}", snapshotFile.getAbsolutePath());
+                    yield new MappedVectorStore(VectorSnapshot.open(snapshotFile.toPath()), cachingEmbeddingModel,
+                            jsonMapper, documentProperties);
+                }
+                default -> throw new IllegalArgumentException(
+                        "Unknown local store index '" + index + "', expected 'hnsw' or 'flat'");
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load vector store snapshot " + snapshotFile, e);
         }
-        return simpleVectorStore;
-    }
-
-    private List<Document> getDocsFromPdf() {
-        PagePdfDocumentReader pdfReader = new PagePdfDocumentReader(pdfResource,
-                PdfDocumentReaderConfig.builder()
-                        .withPageTopMargin(0)
-                        .withPageExtractedTextFormatter(ExtractedTextFormatter.builder()
-                                .withNumberOfTopTextLinesToDelete(0)
-                                .build())
-                        .withPagesPerDocument(1)
-                        .build());
-        return pdfReader.read();
     }
 
     private File getVectorStoreFile() {
@@ -68,5 +107,26 @@ public class RagPDFReader {
         return new File(path.toFile(), vectorStoreName);
     }
 
+    /**
+     * Manifest of a store indexed from scratch: it is only complete once saved,
+     * so an interrupted warm-up starts over on the next startup.
+     */
+    private record SnapshotManifest(HnswVectorStore vectorStore, Path snapshotPath, Path graphPath)
+            implements BootstrapManifest {
+
+        @Override
+        public boolean isIndexed(String source, String contentHash) {
+            return false;
+        }
+
+        @Override
+        public void markIndexed(String source, String contentHash, int chunks) {
+            try {
+                vectorStore.save(snapshotPath, graphPath);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not save vector store snapshot " + snapshotPath, e);
+            }
+        }
+    }
 
 }
@@ -1,20 +1,14 @@
 package com.loiane.api_ai.rag.config;
 
-import org.springframework.ai.document.Document;
-import org.springframework.ai.reader.ExtractedTextFormatter;
-import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
-import org.springframework.ai.reader.pdf.config.PdfDocumentReaderConfig;
-import org.springframework.ai.transformer.splitter.TextSplitter;
-import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.Resource;
-import org.springframework.jdbc.core.JdbcTemplate;
 
-import java.util.List;
+import com.loiane.api_ai.rag.ingestion.BootstrapIngestion;
+import com.loiane.api_ai.rag.ingestion.BootstrapManifestRepository;
 
 @Profile("rag")
 @Configuration
@@ -24,30 +18,10 @@ public class RagReader {
     private Resource pdfResource;
 
     @Bean
-    VectorStore ragVectorStore(VectorStore vectorStore, JdbcTemplate jdbcTemplate) {
-
-        // check if the document is already in the vector store
-        Integer count = jdbcTemplate.queryForObject("select count(*) from vector_store", Integer.class);
-
-        if (count != null && count > 0) {
-            return vectorStore;
-        }
-        List<Document> documents = getDocsFromPdf();
-        TextSplitter textSplitter = TokenTextSplitter.builder().build();
-        List<Document> splitDocuments = textSplitter.apply(documents);
-        vectorStore.add(splitDocuments);
+    VectorStore ragVectorStore(VectorStore vectorStore, BootstrapIngestion bootstrapIngestion,
+                               BootstrapManifestRepository bootstrapManifest) {
+        // Indexed in the background after startup, unless the manifest lists this version of the PDF
+        bootstrapIngestion.submit("pgvector", pdfResource, vectorStore, bootstrapManifest);
         return vectorStore;
     }
-
-    private List<Document> getDocsFromPdf() {
-        PagePdfDocumentReader pdfReader = new PagePdfDocumentReader(pdfResource,
-                PdfDocumentReaderConfig.builder()
-                        .withPageTopMargin(0)
-                        .withPageExtractedTextFormatter(ExtractedTextFormatter.builder()
-                                .withNumberOfTopTextLinesToDelete(0)
-                                .build())
-                        .withPagesPerDocument(1)
-                        .build());
-        return pdfReader.read();
-    }
 }
@@ -0,0 +1,30 @@
+package com.loiane.api_ai.rag.config;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.loiane.api_ai.rag.retrieval.ChatModelReranker;
+import com.loiane.api_ai.rag.retrieval.LexicalReranker;
+import com.loiane.api_ai.rag.retrieval.Reranker;
+
+/**
+ * Configuration of the reranker selected by {@code app.documents.retrieval.reranker}.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Configuration
+public class RerankConfig {
+
+    @Bean
+    public Reranker reranker(DocumentProperties documentProperties, ChatClient.Builder chatClientBuilder) {
+        DocumentProperties.Retrieval settings = documentProperties.getRetrieval();
+        return switch (settings.getReranker()) {
+            case "lexical" -> new LexicalReranker(settings.getRerankLexicalWeight());
+            case "model" -> new ChatModelReranker(chatClientBuilder);
+            default -> throw new IllegalArgumentException(
+                    "Unknown reranker '" + settings.getReranker() + "', expected 'lexical' or 'model'");
+        };
+    }
+}
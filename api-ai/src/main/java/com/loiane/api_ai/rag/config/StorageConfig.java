@@ -0,0 +1,29 @@
+package com.loiane.api_ai.rag.config;
+
+import java.nio.file.Paths;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.loiane.api_ai.rag.storage.BlobStore;
+import com.loiane.api_ai.rag.storage.LocalBlobStore;
+
+/**
+ * Configuration of the file store selected by {@code app.documents.storage.backend}.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    public BlobStore blobStore(DocumentProperties documentProperties) {
+        DocumentProperties.Storage settings = documentProperties.getStorage();
+        return switch (settings.getBackend()) {
+            case "local" -> new LocalBlobStore(Paths.get(settings.getLocalDir()));
+            default -> throw new IllegalArgumentException(
+                    "Unknown storage backend '" + settings.getBackend() + "', expected 'local'");
+        };
+    }
+}
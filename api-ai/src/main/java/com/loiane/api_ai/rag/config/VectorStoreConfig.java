@@ -9,6 +9,18 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import com.loiane.api_ai.rag.embedding.CachingEmbeddingModel;
+import com.loiane.api_ai.rag.embedding.EmbeddingCache;
+import com.loiane.api_ai.rag.embedding.QueryEmbeddingCache;
+import com.loiane.api_ai.rag.retrieval.DocumentScopedSearch;
+import com.loiane.api_ai.rag.retrieval.DocumentScopedVectorStore;
+import com.loiane.api_ai.rag.retrieval.QuantizedVectorSearch;
+import com.loiane.api_ai.rag.retrieval.QuantizedVectorStore;
+import com.loiane.api_ai.rag.retrieval.VectorIndexJob;
+import com.loiane.api_ai.rag.retrieval.VectorSearchMode;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * Configuration class for the PgVectorStore used in RAG (Retrieval-Augmented Generation).
  * 
@@ -22,6 +34,12 @@ import org.springframework.jdbc.core.JdbcTemplate;
  *   <li>Cosine distance for similarity search</li>
  *   <li>HNSW index for optimal performance</li>
  *   <li>Persistent storage (no table dropping on restart)</li>
+ *   <li>Embeddings served from the {@link EmbeddingCache} when the same text was embedded before</li>
+ *   <li>Recently asked questions reuse their embedding via the {@link QueryEmbeddingCache}</li>
+ *   <li>Searches scoped to one document are planned by document size ({@link DocumentScopedVectorStore})</li>
+ *   <li>Optionally, unfiltered searches use a halfvec, binary-quantized or reduced-dimension
+ *       (Matryoshka) index and rescore the candidates with the full embeddings
+ *       ({@link QuantizedVectorStore}); the index is built by the {@link VectorIndexJob}</li>
  * </ul>
  * 
  * @author Loiane Groner
@@ -65,17 +83,34 @@ public class VectorStoreConfig {
      * 
      * @param jdbcTemplate JDBC template for database operations
      * @param embeddingModel The embedding model (OpenAI) for generating vectors
-     * @return Configured PgVectorStore instance
+     * @param embeddingCache Cache consulted before calling the embedding model
+     * @param queryEmbeddingCache Short-lived cache of similarity search query embeddings
+     * @param meterRegistry Registry for the cache savings metrics
+     * @param documentScopedSearch Search used for questions scoped to a single document
+     * @param quantizedVectorSearch Search used for unfiltered questions in a compact vector search mode
+     * @param vectorIndexJob Builds the index of the compact vector search mode
+     * @param documentProperties Selects the vector search mode
+     * @return Configured PgVectorStore instance, with document-scoped and quantized searches routed separately
      */
     @Bean
     @Primary
-    public VectorStore vectorStore(JdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel) {
-        return PgVectorStore.builder(jdbcTemplate, embeddingModel)
+    public VectorStore vectorStore(JdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel,
+                                   EmbeddingCache embeddingCache, QueryEmbeddingCache queryEmbeddingCache,
+                                   MeterRegistry meterRegistry, DocumentScopedSearch documentScopedSearch,
+                                   QuantizedVectorSearch quantizedVectorSearch, VectorIndexJob vectorIndexJob,
+                                   DocumentProperties documentProperties) {
+        var cachingEmbeddingModel = new CachingEmbeddingModel(embeddingModel, embeddingCache, queryEmbeddingCache, meterRegistry);
+        var pgVectorStore = PgVectorStore.builder(jdbcTemplate, cachingEmbeddingModel)
                 .dimensions(dimensions)
                 .distanceType(PgVectorStore.PgDistanceType.valueOf(distanceType))
                 .removeExistingVectorStoreTable(removeExistingVectorStoreTable)
                 .indexType(PgVectorStore.PgIndexType.valueOf(indexType))
                 .initializeSchema(initializeSchema)
                 .build();
+        VectorStore vectorStore = new DocumentScopedVectorStore(pgVectorStore, documentScopedSearch);
+        if (documentProperties.getRetrieval().getVectorSearchMode() != VectorSearchMode.FULL) {
+            vectorStore = new QuantizedVectorStore(vectorStore, quantizedVectorSearch, vectorIndexJob);
+        }
+        return vectorStore;
     }
 }
@@ -0,0 +1,114 @@
+package com.loiane.api_ai.rag.embedding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * {@link EmbeddingModel} decorator that consults an {@link EmbeddingCache}
+ * before calling the underlying model.
+ *
+ * <p>Only the inputs missing from the cache are sent to the delegate, and a
+ * request whose inputs are all cached never reaches the provider. Freshly
+ * computed embeddings are written back to the cache. Every component that
+ * embeds document text (the ingestion batcher and the vector stores) wraps its
+ * model with this class, so the cache is checked before any embedding call.
+ *
+ * <p>Single-text embeddings ({@link #embed(String)}), which is how the vector
+ * stores embed a similarity search query, go through the optional
+ * {@link QueryEmbeddingCache} instead, so questions are reused for a while but
+ * never persisted alongside document chunks.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final EmbeddingCache embeddingCache;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final Counter savedInputs;
+    private final Counter savedCalls;
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, EmbeddingCache embeddingCache, MeterRegistry meterRegistry) {
+        this(delegate, embeddingCache, null, meterRegistry);
+    }
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, EmbeddingCache embeddingCache,
+                                 QueryEmbeddingCache queryEmbeddingCache, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.embeddingCache = embeddingCache;
+        this.queryEmbeddingCache = queryEmbeddingCache;
+        this.savedInputs = meterRegistry.counter("rag.embedding.cache.saved", "unit", "inputs");
+        this.savedCalls = meterRegistry.counter("rag.embedding.cache.saved", "unit", "calls");
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> inputs = request.getInstructions();
+        List<float[]> cached = embeddingCache.lookup(inputs);
+
+        List<Integer> missingIndexes = new ArrayList<>();
+        List<String> missingInputs = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            if (cached.get(i) == null) {
+                missingIndexes.add(i);
+                missingInputs.add(inputs.get(i));
+            }
+        }
+
+        savedInputs.increment(inputs.size() - missingInputs.size());
+        if (missingInputs.isEmpty()) {
+            savedCalls.increment();
+            return toResponse(cached);
+        }
+
+        EmbeddingResponse response = delegate.call(new EmbeddingRequest(missingInputs, request.getOptions()));
+        List<float[]> computed = new ArrayList<>(missingInputs.size());
+        for (Embedding embedding : response.getResults()) {
+            computed.add(embedding.getOutput());
+        }
+        embeddingCache.putAll(missingInputs, computed);
+
+        List<float[]> merged = new ArrayList<>(cached);
+        for (int i = 0; i < missingIndexes.size(); i++) {
+            merged.set(missingIndexes.get(i), computed.get(i));
+        }
+        return toResponse(merged);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        if (queryEmbeddingCache == null) {
+            return EmbeddingModel.super.embed(text);
+        }
+        return queryEmbeddingCache.get(text, delegate::embed);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        // Document text belongs in the content-addressed cache, not the query cache
+        return embed(List.of(document.getText())).getFirst();
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    private static EmbeddingResponse toResponse(List<float[]> embeddings) {
+        List<Embedding> results = new ArrayList<>(embeddings.size());
+        for (int i = 0; i < embeddings.size(); i++) {
+            results.add(new Embedding(embeddings.get(i), i));
+        }
+        return new EmbeddingResponse(results);
+    }
+}
@@ -0,0 +1,211 @@
+package com.loiane.api_ai.rag.embedding;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Content-addressed cache of text embeddings.
+ *
+ * <p>Entries are keyed by the SHA-256 of the normalized text (Unicode NFC,
+ * whitespace collapsed) together with the embedding model name and dimensions,
+ * so changing {@code spring.ai.openai.embedding.model} or {@code dimensions}
+ * never serves a stale vector. Two tiers are consulted in order:
+ * <ol>
+ *   <li>an in-process LRU map ({@code app.documents.embedding.cache-memory-entries})</li>
+ *   <li>the {@code embedding_cache} table in PostgreSQL, shared across restarts and instances</li>
+ * </ol>
+ *
+ * <p>The database tier is best effort: if it is unavailable, lookups count as
+ * misses and the caller embeds as usual.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Component
+public class EmbeddingCache {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingCache.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String modelName;
+    private final int dimensions;
+    private final boolean enabled;
+    private final Map<String, float[]> memoryTier;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter cacheMisses;
+
+    public EmbeddingCache(JdbcTemplate jdbcTemplate,
+                          DocumentProperties documentProperties,
+                          MeterRegistry meterRegistry,
+                          @Value("${spring.ai.openai.embedding.model:text-embedding-3-small}") String modelName,
+                          @Value("${spring.ai.openai.embedding.dimensions:1536}") int dimensions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.modelName = modelName;
+        this.dimensions = dimensions;
+        this.enabled = documentProperties.getEmbedding().isCacheEnabled();
+
+        int capacity = documentProperties.getEmbedding().getCacheMemoryEntries();
+        this.memoryTier = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > capacity;
+            }
+        });
+
+        this.memoryHits = meterRegistry.counter("rag.embedding.cache.lookups", "tier", "memory", "result", "hit");
+        this.databaseHits = meterRegistry.counter("rag.embedding.cache.lookups", "tier", "database", "result", "hit");
+        this.cacheMisses = meterRegistry.counter("rag.embedding.cache.lookups", "tier", "database", "result", "miss");
+        Gauge.builder("rag.embedding.cache.hit.ratio", this, EmbeddingCache::hitRatio)
+                .description("Share of embedding lookups served from the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Looks up the cached embedding of each text.
+     *
+     * @param texts The texts to look up
+     * @return A list of the same size, with the cached embedding or {@code null} for a miss
+     */
+    public List<float[]> lookup(List<String> texts) {
+        float[][] found = new float[texts.size()][];
+        if (!enabled || texts.isEmpty()) {
+            return Arrays.asList(found);
+        }
+
+        List<String> hashes = texts.stream().map(EmbeddingCache::contentHash).toList();
+        Map<String, List<Integer>> databaseLookups = new HashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            float[] cached = memoryTier.get(hashes.get(i));
+            if (cached != null) {
+                found[i] = cached;
+                memoryHits.increment();
+            } else {
+                databaseLookups.computeIfAbsent(hashes.get(i), hash -> new ArrayList<>()).add(i);
+            }
+        }
+
+        if (!databaseLookups.isEmpty()) {
+            Map<String, float[]> stored = findInDatabase(databaseLookups.keySet());
+            databaseLookups.forEach((hash, indexes) -> {
+                float[] embedding = stored.get(hash);
+                if (embedding != null) {
+                    memoryTier.put(hash, embedding);
+                    indexes.forEach(i -> found[i] = embedding);
+                    databaseHits.increment(indexes.size());
+                } else {
+                    cacheMisses.increment(indexes.size());
+                }
+            });
+        }
+
+        long hitCount = Arrays.stream(found).filter(embedding -> embedding != null).count();
+        hits.addAndGet(hitCount);
+        misses.addAndGet(texts.size() - hitCount);
+        return Arrays.asList(found);
+    }
+
+    /**
+     * Stores freshly computed embeddings in both cache tiers.
+     *
+     * @param texts The embedded texts
+     * @param embeddings The embedding of each text, in the same order
+     */
+    public void putAll(List<String> texts, List<float[]> embeddings) {
+        if (!enabled || texts.isEmpty()) {
+            return;
+        }
+
+        Map<String, float[]> entries = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            entries.put(contentHash(texts.get(i)), embeddings.get(i));
+        }
+        memoryTier.putAll(entries);
+
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO embedding_cache (content_hash, model, dimensions, embedding) VALUES ");
+        List<Object> args = new ArrayList<>(entries.size() * 4);
+        entries.forEach((hash, embedding) -> {
+            sql.append(args.isEmpty() ? "" : ", ").append("(?, ?, ?, ?::vector)");
+            args.add(hash);
+            args.add(modelName);
+            args.add(dimensions);
+            args.add(PgVectorFormat.toLiteral(embedding));
+        });
+        sql.append(" ON CONFLICT (content_hash, model, dimensions) DO NOTHING");
+
+        try {
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        } catch (DataAccessException e) {
+            log.warn("Failed to persist {} embeddings to the embedding cache: {}", entries.size(), e.getMessage());
+        }
+    }
+
+    private Map<String, float[]> findInDatabase(Iterable<String> hashes) {
+        List<Object> args = new ArrayList<>();
+        args.add(modelName);
+        args.add(dimensions);
+        StringBuilder placeholders = new StringBuilder();
+        for (String hash : hashes) {
+            placeholders.append(placeholders.isEmpty() ? "?" : ", ?");
+            args.add(hash);
+        }
+
+        String sql = "SELECT content_hash, embedding::text AS embedding FROM embedding_cache "
+                + "WHERE model = ? AND dimensions = ? AND content_hash IN (" + placeholders + ")";
+        Map<String, float[]> stored = new HashMap<>();
+        try {
+            jdbcTemplate.query(sql, rs -> {
+                stored.put(rs.getString("content_hash"), PgVectorFormat.parse(rs.getString("embedding")));
+            }, args.toArray());
+        } catch (DataAccessException e) {
+            log.warn("Embedding cache lookup failed, embedding without cache: {}", e.getMessage());
+        }
+        return stored;
+    }
+
+    private double hitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+
+    /**
+     * Computes the cache key of a text: the hex SHA-256 of its normalized form.
+     */
+    static String contentHash(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC).strip().replaceAll("\\s+", " ");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.loiane.api_ai.rag.embedding;
+
+/**
+ * Conversions between {@code float[]} embeddings and pgvector's text
+ * representation (e.g. {@code [0.1,0.2,0.3]}), used when binding vectors as
+ * {@code ?::vector} parameters and reading them back as {@code embedding::text}.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public final class PgVectorFormat {
+
+    private PgVectorFormat() {
+    }
+
+    /**
+     * Formats an embedding as a pgvector literal.
+     *
+     * @param embedding The embedding
+     * @return The literal, e.g. {@code [0.1,0.2]}
+     */
+    public static String toLiteral(float[] embedding) {
+        StringBuilder literal = new StringBuilder(embedding.length * 12).append('[');
+        for (int i = 0; i < embedding.length; i++) {
+            if (i > 0) {
+                literal.append(',');
+            }
+            literal.append(embedding[i]);
+        }
+        return literal.append(']').toString();
+    }
+
+    /**
+     * Parses a pgvector literal back into an embedding.
+     *
+     * @param literal The literal, e.g. {@code [0.1,0.2]}
+     * @return The embedding
+     */
+    public static float[] parse(String literal) {
+        String body = literal.substring(literal.indexOf('[') + 1, literal.lastIndexOf(']')).trim();
+        if (body.isEmpty()) {
+            return new float[0];
+        }
+        String[] values = body.split(",");
+        float[] embedding = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            embedding[i] = Float.parseFloat(values[i].trim());
+        }
+        return embedding;
+    }
+}
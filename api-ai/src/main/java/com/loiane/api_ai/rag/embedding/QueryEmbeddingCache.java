@@ -0,0 +1,91 @@
+package com.loiane.api_ai.rag.embedding;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded, time-limited in-memory cache of question embeddings.
+ *
+ * <p>Users tend to ask the same questions repeatedly, so the embedding of a
+ * question is kept for {@code app.documents.embedding.query-cache-ttl} and at
+ * most {@code query-cache-max-entries} questions are retained (least recently
+ * used first out). Unlike the {@link EmbeddingCache}, questions are never
+ * written to the database.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Component
+public class QueryEmbeddingCache {
+
+    private record Entry(float[] embedding, long expiresAt) {
+    }
+
+    private final Map<String, Entry> entries;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Counter hits;
+    private final Counter misses;
+
+    public QueryEmbeddingCache(DocumentProperties documentProperties, MeterRegistry meterRegistry) {
+        this(documentProperties, meterRegistry, Clock.systemUTC());
+    }
+
+    QueryEmbeddingCache(DocumentProperties documentProperties, MeterRegistry meterRegistry, Clock clock) {
+        int capacity = documentProperties.getEmbedding().getQueryCacheMaxEntries();
+        Duration ttl = documentProperties.getEmbedding().getQueryCacheTtl();
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        });
+
+        this.hits = meterRegistry.counter("rag.embedding.query.cache", "result", "hit");
+        this.misses = meterRegistry.counter("rag.embedding.query.cache", "result", "miss");
+        Gauge.builder("rag.embedding.query.cache.size", entries, Map::size)
+                .description("Question embeddings currently cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached embedding of a question, computing and caching it on a
+     * miss or when the cached entry has expired.
+     *
+     * @param question The question text
+     * @param embedder Computes the embedding on a miss
+     * @return The question embedding
+     */
+    public float[] get(String question, Function<String, float[]> embedder) {
+        if (ttlMillis <= 0) {
+            return embedder.apply(question);
+        }
+
+        String key = EmbeddingCache.contentHash(question);
+        long now = clock.millis();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt() > now) {
+            hits.increment();
+            return entry.embedding();
+        }
+
+        misses.increment();
+        float[] embedding = embedder.apply(question);
+        entries.put(key, new Entry(embedding, now + ttlMillis));
+        return embedding;
+    }
+}
@@ -0,0 +1,19 @@
+package com.loiane.api_ai.rag.evaluation;
+
+/**
+ * How a RAG answer came to be evaluated.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public enum EvaluationMode {
+    /**
+     * The caller asked for the relevancy result in the response.
+     */
+    SYNC,
+
+    /**
+     * The answer was picked by sampling and evaluated in the background.
+     */
+    SAMPLED
+}
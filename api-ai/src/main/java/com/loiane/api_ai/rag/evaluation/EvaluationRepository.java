@@ -0,0 +1,40 @@
+package com.loiane.api_ai.rag.evaluation;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for relevancy evaluation results, stored in the
+ * {@code rag_evaluations} table.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Repository
+public class EvaluationRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EvaluationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Records the result of evaluating one answer.
+     *
+     * @param question The question that was asked
+     * @param documentId The document retrieval was scoped to, or null
+     * @param answer The evaluated answer
+     * @param passed Whether the answer passed relevancy evaluation
+     * @param feedback The evaluator's feedback, if any
+     * @param mode Whether the evaluation was requested or sampled
+     */
+    public void save(String question, String documentId, String answer, boolean passed,
+                     String feedback, EvaluationMode mode) {
+        String sql = """
+            INSERT INTO rag_evaluations (question, document_id, answer, passed, feedback, mode)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+        jdbcTemplate.update(sql, question, documentId, answer, passed, feedback, mode.name());
+    }
+}
@@ -0,0 +1,144 @@
+package com.loiane.api_ai.rag.evaluation;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.evaluation.RelevancyEvaluator;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.evaluation.EvaluationRequest;
+import org.springframework.ai.evaluation.EvaluationResponse;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Evaluates the relevancy of RAG answers, off the response path by default.
+ *
+ * <p>{@link #submit} samples answers at {@code app.documents.evaluation.sampling-rate}
+ * and evaluates them on a small bounded worker pool. When the queue is full the
+ * evaluation is dropped (and counted) rather than queued without limit, so a
+ * slow evaluator never builds up memory or delays answers. {@link #evaluate}
+ * runs the evaluation on the caller's thread, for requests that opt in to
+ * receiving the result.
+ *
+ * <p>Every result is persisted to {@code rag_evaluations} and counted in
+ * {@code rag.evaluation.result}.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Service
+public class RelevancyEvaluationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RelevancyEvaluationService.class);
+
+    private final RelevancyEvaluator relevancyEvaluator;
+    private final EvaluationRepository evaluationRepository;
+    private final MeterRegistry meterRegistry;
+    private final double samplingRate;
+
+    private final ThreadPoolExecutor executor;
+    private final Counter dropped;
+
+    public RelevancyEvaluationService(RelevancyEvaluator relevancyEvaluator,
+                                      EvaluationRepository evaluationRepository,
+                                      DocumentProperties documentProperties,
+                                      MeterRegistry meterRegistry) {
+        this.relevancyEvaluator = relevancyEvaluator;
+        this.evaluationRepository = evaluationRepository;
+        this.meterRegistry = meterRegistry;
+
+        DocumentProperties.Evaluation settings = documentProperties.getEvaluation();
+        this.samplingRate = settings.getSamplingRate();
+        this.executor = new ThreadPoolExecutor(
+                settings.getWorkers(), settings.getWorkers(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(settings.getQueueCapacity()),
+                Thread.ofPlatform().name("rag-eval-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.dropped = meterRegistry.counter("rag.evaluation.dropped");
+        Gauge.builder("rag.evaluation.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Sampled answers waiting for relevancy evaluation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Evaluates an answer on the caller's thread.
+     *
+     * @param question The original question
+     * @param documentId The document retrieval was scoped to, or null
+     * @param context The documents retrieved for context
+     * @param answer The generated answer
+     * @return true if the answer passed relevancy evaluation
+     */
+    public boolean evaluate(String question, String documentId, List<Document> context, String answer) {
+        return runEvaluation(question, documentId, context, answer, EvaluationMode.SYNC);
+    }
+
+    /**
+     * Schedules a background evaluation of the answer if it is picked by sampling.
+     *
+     * <p>Returns immediately. The evaluation is skipped when the answer is not
+     * sampled, and dropped when the evaluation queue is full.
+     *
+     * @param question The original question
+     * @param documentId The document retrieval was scoped to, or null
+     * @param context The documents retrieved for context
+     * @param answer The generated answer
+     */
+    public void submit(String question, String documentId, List<Document> context, String answer) {
+        if (samplingRate <= 0 || ThreadLocalRandom.current().nextDouble() >= samplingRate) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    runEvaluation(question, documentId, context, answer, EvaluationMode.SAMPLED);
+                } catch (Exception e) {
+                    log.warn("Background relevancy evaluation failed for question: {}", question, e);
+                }
+            });
+        } catch (RejectedExecutionException _) {
+            dropped.increment();
+            log.debug("Relevancy evaluation queue is full, skipping evaluation for question: {}", question);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private boolean runEvaluation(String question, String documentId, List<Document> context,
+                                  String answer, EvaluationMode mode) {
+        EvaluationRequest evaluationRequest = new EvaluationRequest(question, context, answer);
+        EvaluationResponse evaluationResponse = relevancyEvaluator.evaluate(evaluationRequest);
+        boolean pass = evaluationResponse.isPass();
+
+        if (!pass) {
+            log.warn("RAG answer failed relevancy evaluation for question: {} (feedback: {})",
+                    question, evaluationResponse.getFeedback());
+        }
+
+        meterRegistry.counter("rag.evaluation.result", "result", pass ? "pass" : "fail").increment();
+        try {
+            evaluationRepository.save(question, documentId, answer, pass, evaluationResponse.getFeedback(), mode);
+        } catch (DataAccessException e) {
+            log.warn("Failed to persist relevancy evaluation: {}", e.getMessage());
+        }
+        return pass;
+    }
+}
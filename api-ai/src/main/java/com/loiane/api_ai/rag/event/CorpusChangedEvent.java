@@ -0,0 +1,17 @@
+package com.loiane.api_ai.rag.event;
+
+/**
+ * Application event published whenever chunks that belong to no uploaded
+ * document become searchable, such as a batch of a bundled PDF indexed at
+ * startup.
+ *
+ * <p>Only searches across all documents can see these chunks, so listeners
+ * drop what was derived from those searches, such as cached unscoped answers.
+ *
+ * @param source The bundled source that changed, e.g. {@code pgvector:SpringAIReference.pdf}
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public record CorpusChangedEvent(String source) {
+}
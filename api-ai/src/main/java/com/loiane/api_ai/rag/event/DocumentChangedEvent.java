@@ -0,0 +1,16 @@
+package com.loiane.api_ai.rag.event;
+
+/**
+ * Application event published whenever the content searchable for a document
+ * changes: when it finishes ingestion or when it is deleted.
+ *
+ * <p>Listeners use it to drop anything derived from the previous content, such
+ * as cached answers.
+ *
+ * @param documentId The id of the document that changed
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public record DocumentChangedEvent(String documentId) {
+}
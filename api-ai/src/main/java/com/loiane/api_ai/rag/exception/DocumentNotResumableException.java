@@ -0,0 +1,30 @@
+package com.loiane.api_ai.rag.exception;
+
+/**
+ * Exception thrown when ingestion of a document cannot be resumed, because it
+ * did not fail or its uploaded file is no longer available.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public class DocumentNotResumableException extends RuntimeException {
+
+    /**
+     * Creates a new DocumentNotResumableException with the specified message.
+     *
+     * @param message The exception message
+     */
+    public DocumentNotResumableException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates a new DocumentNotResumableException with the specified message and cause.
+     *
+     * @param message The exception message
+     * @param cause The underlying cause
+     */
+    public DocumentNotResumableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,30 @@
+package com.loiane.api_ai.rag.exception;
+
+/**
+ * Exception thrown when a document cannot be replaced with a new version,
+ * because it is still being processed.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public class DocumentNotUpdatableException extends RuntimeException {
+
+    /**
+     * Creates a new DocumentNotUpdatableException with the specified message.
+     *
+     * @param message The exception message
+     */
+    public DocumentNotUpdatableException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates a new DocumentNotUpdatableException with the specified message and cause.
+     *
+     * @param message The exception message
+     * @param cause The underlying cause
+     */
+    public DocumentNotUpdatableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,30 @@
+package com.loiane.api_ai.rag.exception;
+
+/**
+ * Exception thrown when an uploaded document cannot be accepted because the
+ * ingestion queue has reached its configured capacity.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public class IngestionQueueFullException extends RuntimeException {
+
+    /**
+     * Creates a new IngestionQueueFullException with the specified message.
+     *
+     * @param message The exception message
+     */
+    public IngestionQueueFullException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates a new IngestionQueueFullException with the specified message and cause.
+     *
+     * @param message The exception message
+     * @param cause The underlying cause
+     */
+    public IngestionQueueFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,29 @@
+package com.loiane.api_ai.rag.exception;
+
+/**
+ * Exception thrown when a streamed upload exceeds the configured maximum size.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public class UploadTooLargeException extends RuntimeException {
+
+    /**
+     * Creates a new UploadTooLargeException with the specified message.
+     *
+     * @param message The exception message
+     */
+    public UploadTooLargeException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates a new UploadTooLargeException with the specified message and cause.
+     *
+     * @param message The exception message
+     * @param cause The underlying cause
+     */
+    public UploadTooLargeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
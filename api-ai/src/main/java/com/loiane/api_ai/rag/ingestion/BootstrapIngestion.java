@@ -0,0 +1,201 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.event.CorpusChangedEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Indexes bundled PDFs, such as the reference PDF of the "rag" profile, in the
+ * background once the application has started.
+ *
+ * <p>Vector store beans register their bundled PDF here instead of embedding it
+ * while the context starts, so startup no longer waits for the whole PDF to be
+ * embedded. After {@link ApplicationReadyEvent}, each source is looked up in its
+ * {@link BootstrapManifest} by content hash; a source that is not indexed yet
+ * has any chunks left by an interrupted run removed, and is then split and
+ * stored in batches. Each stored batch is searchable immediately, so questions
+ * asked while warming up are answered from the chunks indexed so far, and
+ * unscoped answers cached meanwhile are invalidated as batches arrive.
+ *
+ * <p>As a health indicator, it reports {@code WARMING} while a source is being
+ * indexed, with the progress of each source keyed by store and file name
+ * (e.g. {@code pgvector:SpringAIReference.pdf}), {@code DOWN} when indexing failed,
+ * and {@code UP} otherwise. It is part of the readiness group, where
+ * {@code WARMING} maps to HTTP 200.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Component
+public class BootstrapIngestion implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(BootstrapIngestion.class);
+
+    static final Status WARMING = new Status("WARMING", "Indexing bundled documents; searches cover the chunks indexed so far");
+
+    /**
+     * Indexing progress of one source.
+     *
+     * @param state   WARMING, READY or FAILED
+     * @param indexed Number of chunks stored so far
+     * @param total   Number of chunks of the source, 0 until it is split
+     * @param error   Why indexing failed, or null
+     */
+    public record Progress(String state, int indexed, int total, String error) {
+    }
+
+    private record Task(String key, Resource pdf, VectorStore vectorStore, BootstrapManifest manifest) {
+    }
+
+    private final ParallelPdfExtractor pdfExtractor;
+    private final DocumentProperties documentProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Progress> progress = new ConcurrentHashMap<>();
+    private final List<Task> pending = new ArrayList<>();
+    private boolean started;
+
+    public BootstrapIngestion(ParallelPdfExtractor pdfExtractor, DocumentProperties documentProperties,
+                              ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        this.pdfExtractor = pdfExtractor;
+        this.documentProperties = documentProperties;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Indexes a PDF into a vector store once the application is ready, unless the
+     * manifest already lists its current content.
+     *
+     * @param store       Name of the vector store, which tells apart the progress of
+     *                    the same PDF indexed into several stores
+     * @param pdf         The PDF; its file name identifies the source in the manifest
+     * @param vectorStore The vector store to fill
+     * @param manifest    Where indexed sources are recorded
+     */
+    public synchronized void submit(String store, Resource pdf, VectorStore vectorStore, BootstrapManifest manifest) {
+        String key = store + ":" + pdf.getFilename();
+        progress.put(key, new Progress("WARMING", 0, 0, null));
+        Task task = new Task(key, pdf, vectorStore, manifest);
+        if (started) {
+            run(List.of(task));
+        } else {
+            pending.add(task);
+        }
+    }
+
+    /**
+     * Starts indexing the submitted sources on a background thread.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        started = true;
+        if (!pending.isEmpty()) {
+            run(List.copyOf(pending));
+            pending.clear();
+        }
+    }
+
+    @Override
+    public Health health() {
+        Status status = Status.UP;
+        for (Progress source : progress.values()) {
+            if (source.state().equals("FAILED")) {
+                status = Status.DOWN;
+            } else if (source.state().equals("WARMING") && status == Status.UP) {
+                status = WARMING;
+            }
+        }
+        return Health.status(status).withDetails(progress).build();
+    }
+
+    private void run(List<Task> tasks) {
+        Thread.ofPlatform().name("rag-bootstrap").daemon(true)
+                .start(() -> tasks.forEach(this::index));
+    }
+
+    /**
+     * Indexes one source unless it is already indexed.
+     */
+    private void index(Task task) {
+        String key = task.key();
+        String source = task.pdf().getFilename();
+        long startedAt = System.nanoTime();
+        try {
+            String contentHash = contentHash(task.pdf());
+            if (task.manifest().isIndexed(source, contentHash)) {
+                progress.put(key, new Progress("READY", 0, 0, null));
+                log.info("{} is already indexed", key);
+                return;
+            }
+
+            log.info("Indexing {} in the background; searches cover the chunks indexed so far", key);
+            // Chunks of an interrupted run, or of an earlier version of the file
+            task.vectorStore().delete(new FilterExpressionBuilder()
+                    .eq(PagePdfDocumentReader.METADATA_FILE_NAME, source).build());
+            List<Document> chunks = TokenTextSplitter.builder().build().apply(pdfExtractor.readAll(task.pdf()));
+            int batchSize = Math.max(1, documentProperties.getIngestion().getBootstrapBatchSize());
+            for (int from = 0; from < chunks.size(); from += batchSize) {
+                int to = Math.min(from + batchSize, chunks.size());
+                task.vectorStore().add(chunks.subList(from, to));
+                progress.put(key, new Progress("WARMING", to, chunks.size(), null));
+                eventPublisher.publishEvent(new CorpusChangedEvent(key));
+            }
+            task.manifest().markIndexed(source, contentHash, chunks.size());
+            progress.put(key, new Progress("READY", chunks.size(), chunks.size(), null));
+            meterRegistry.timer("rag.bootstrap.duration", "result", "indexed")
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            log.info("Indexed {} chunks of {} in {} s", chunks.size(), key,
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt));
+        } catch (Exception e) {
+            Progress current = progress.get(key);
+            progress.put(key, new Progress("FAILED", current.indexed(), current.total(), e.getMessage()));
+            meterRegistry.timer("rag.bootstrap.duration", "result", "error")
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            log.error("Could not index {}; searches cover the chunks indexed so far", key, e);
+        }
+    }
+
+    /**
+     * @return The hex SHA-256 of the resource content
+     */
+    private static String contentHash(Resource resource) throws IOException {
+        try (DigestInputStream in = new DigestInputStream(resource.getInputStream(),
+                MessageDigest.getInstance("SHA-256"))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.loiane.api_ai.rag.ingestion;
+
+/**
+ * Records which bundled sources are fully indexed in a vector store, so startup
+ * only has to look a source up instead of inspecting the store.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public interface BootstrapManifest {
+
+    /**
+     * @param source      The source name, e.g. the PDF file name
+     * @param contentHash The hex SHA-256 of the source content
+     * @return Whether this content of the source is fully indexed
+     */
+    boolean isIndexed(String source, String contentHash);
+
+    /**
+     * Records that every chunk of the source is stored.
+     *
+     * @param source      The source name
+     * @param contentHash The hex SHA-256 of the source content
+     * @param chunks      Number of chunks stored
+     */
+    void markIndexed(String source, String contentHash, int chunks);
+}
@@ -0,0 +1,43 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link BootstrapManifest} of the pgvector store, in the {@code bootstrap_manifest} table.
+ *
+ * <p>A source is looked up by its primary key, which stays cheap however many
+ * chunks {@code vector_store} holds.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Repository
+public class BootstrapManifestRepository implements BootstrapManifest {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BootstrapManifestRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean isIndexed(String source, String contentHash) {
+        String sql = "SELECT count(*) FROM bootstrap_manifest WHERE source = ? AND content_hash = ?";
+        Integer found = jdbcTemplate.queryForObject(sql, Integer.class, source, contentHash);
+        return found != null && found > 0;
+    }
+
+    @Override
+    public void markIndexed(String source, String contentHash, int chunks) {
+        String sql = """
+            INSERT INTO bootstrap_manifest (source, content_hash, chunks)
+            VALUES (?, ?, ?)
+            ON CONFLICT (source) DO UPDATE SET
+                content_hash = EXCLUDED.content_hash,
+                chunks = EXCLUDED.chunks,
+                indexed_at = CURRENT_TIMESTAMP
+            """;
+        jdbcTemplate.update(sql, source, contentHash, chunks);
+    }
+}
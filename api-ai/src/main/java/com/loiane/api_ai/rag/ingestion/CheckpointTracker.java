@@ -0,0 +1,121 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
+
+/**
+ * Numbers the chunks of one document and checkpoints how many of them are stored.
+ *
+ * <p>Every chunk gets a deterministic id derived from the document id and its
+ * position, so writing the same chunk again (after a crash or a resume)
+ * overwrites the existing vector instead of adding a duplicate. Batches are
+ * stored concurrently and may complete out of order; the checkpoint only
+ * advances over the contiguous prefix of stored chunks, so every chunk before
+ * the checkpoint is guaranteed to be in the vector store.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+class CheckpointTracker {
+
+    static final String CHUNK_INDEX = "chunk_index";
+
+    private record StoredRange(int end, Integer lastPage) {
+    }
+
+    private final String documentId;
+    private final String chunking;
+    private final IngestionCheckpointRepository checkpointRepository;
+    private final TreeMap<Integer, StoredRange> storedRanges = new TreeMap<>();
+    private int committed;
+
+    CheckpointTracker(String documentId, int committed, String chunking,
+                      IngestionCheckpointRepository checkpointRepository) {
+        this.documentId = documentId;
+        this.committed = committed;
+        this.chunking = chunking;
+        this.checkpointRepository = checkpointRepository;
+    }
+
+    /**
+     * Deterministic id of the chunk at the given position of a document.
+     */
+    static String chunkId(String documentId, int index) {
+        return UUID.nameUUIDFromBytes((documentId + ":" + index).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * Numbers the chunks of the document and skips the ones already committed.
+     *
+     * @param chunks All chunks of the document, in order
+     * @return The chunks still to be stored, with their ids and {@code chunk_index} metadata set
+     */
+    Iterator<Document> pending(Iterator<Document> chunks) {
+        int alreadyCommitted = committed();
+        return new Iterator<>() {
+
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                while (index < alreadyCommitted && chunks.hasNext()) {
+                    chunks.next();
+                    index++;
+                }
+                return chunks.hasNext();
+            }
+
+            @Override
+            public Document next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Document chunk = chunks.next();
+                Map<String, Object> metadata = new HashMap<>(chunk.getMetadata());
+                metadata.put(CHUNK_INDEX, index);
+                return new Document(chunkId(documentId, index++), chunk.getText(), metadata);
+            }
+        };
+    }
+
+    /**
+     * Records a stored batch and advances the checkpoint if the stored prefix grew.
+     *
+     * @param batch A batch of chunks produced by {@link #pending}, now in the vector store
+     */
+    synchronized void onBatchStored(List<Document> batch) {
+        int first = (int) batch.getFirst().getMetadata().get(CHUNK_INDEX);
+        int end = (int) batch.getLast().getMetadata().get(CHUNK_INDEX) + 1;
+        storedRanges.put(first, new StoredRange(end, lastPage(batch.getLast())));
+
+        StoredRange advancedTo = null;
+        StoredRange next;
+        while ((next = storedRanges.remove(committed)) != null) {
+            committed = next.end();
+            advancedTo = next;
+        }
+        if (advancedTo != null) {
+            checkpointRepository.save(documentId,
+                    new IngestionCheckpointRepository.Checkpoint(committed, advancedTo.lastPage(), chunking));
+        }
+    }
+
+    synchronized int committed() {
+        return committed;
+    }
+
+    private static Integer lastPage(Document chunk) {
+        Object page = chunk.getMetadata().getOrDefault(PagePdfDocumentReader.METADATA_END_PAGE_NUMBER,
+                chunk.getMetadata().get(PagePdfDocumentReader.METADATA_START_PAGE_NUMBER));
+        return page instanceof Integer number ? number : null;
+    }
+}
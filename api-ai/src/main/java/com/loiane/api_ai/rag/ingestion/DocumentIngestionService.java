@@ -0,0 +1,315 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.loiane.api_ai.rag.DocumentRepository;
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.event.DocumentChangedEvent;
+import com.loiane.api_ai.rag.exception.IngestionQueueFullException;
+import com.loiane.api_ai.rag.maintenance.VectorMaintenanceRepository;
+import com.loiane.api_ai.rag.model.DocumentMetadata;
+import com.loiane.api_ai.rag.model.DocumentStatus;
+import com.loiane.api_ai.rag.model.DocumentUpdateReport;
+import com.loiane.api_ai.rag.storage.DocumentBlobs;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Asynchronous ingestion pipeline for uploaded documents.
+ *
+ * <p>Uploaded documents are queued here instead of being processed on the
+ * request thread, and each document is processed by one worker of a bounded
+ * pool as a streaming pipeline:
+ * <ol>
+ *   <li><strong>Extraction</strong> - PDF pages are extracted in parallel page ranges, in page order</li>
+ *   <li><strong>Chunking</strong> - pages are split into token chunks as they arrive, with overlap
+ *       carried across page boundaries ({@link StreamingTokenChunker})</li>
+ *   <li><strong>Embedding</strong> - chunks are embedded and stored in batches as soon as a batch is full</li>
+ * </ol>
+ * Each stage pulls from the previous one, so a slow embedding provider slows
+ * extraction down instead of buffering chunks: memory stays flat regardless of
+ * the document size, and the first vectors are stored while later pages are
+ * still being extracted.
+ *
+ * <p>The queue is backed by the {@code documents} table: every queued document
+ * has a {@code PROCESSING} row, and documents left in that state by a shutdown
+ * or crash are re-queued when the application starts.
+ *
+ * <p>Progress is checkpointed in {@code ingestion_checkpoints} as batches are
+ * stored, and chunk ids are derived from the document id and chunk position.
+ * Processing a document again (after a restart, or through
+ * {@code POST /api/rag/documents/{id}/resume} after a failure) skips the chunks
+ * before the checkpoint instead of embedding them again, and any chunk written
+ * twice overwrites its earlier vector rather than duplicating it.
+ *
+ * <p>Documents whose PDF was replaced go through the same queue, but are
+ * re-ingested incrementally by {@link IncrementalReingestion}: only changed
+ * chunks are embedded, and the previous version stays searchable until the
+ * new one replaces it. An update interrupted by a restart is re-queued like
+ * any PROCESSING document and ingested again in full from the new PDF.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Service
+public class DocumentIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentIngestionService.class);
+
+    private final DocumentRepository documentRepository;
+    private final VectorMaintenanceRepository vectorMaintenanceRepository;
+    private final IngestionCheckpointRepository checkpointRepository;
+    private final EmbeddingBatcher embeddingBatcher;
+    private final ParallelPdfExtractor pdfExtractor;
+    private final IncrementalReingestion reingestion;
+    private final DocumentBlobs documentBlobs;
+    private final DocumentProperties documentProperties;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ThreadPoolExecutor extractionExecutor;
+    private final Timer queueLatency;
+
+    public DocumentIngestionService(DocumentRepository documentRepository,
+                                    VectorMaintenanceRepository vectorMaintenanceRepository,
+                                    IngestionCheckpointRepository checkpointRepository,
+                                    EmbeddingBatcher embeddingBatcher,
+                                    ParallelPdfExtractor pdfExtractor,
+                                    IncrementalReingestion reingestion,
+                                    DocumentBlobs documentBlobs,
+                                    DocumentProperties documentProperties,
+                                    MeterRegistry meterRegistry,
+                                    ApplicationEventPublisher eventPublisher) {
+        this.documentRepository = documentRepository;
+        this.vectorMaintenanceRepository = vectorMaintenanceRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.embeddingBatcher = embeddingBatcher;
+        this.pdfExtractor = pdfExtractor;
+        this.reingestion = reingestion;
+        this.documentBlobs = documentBlobs;
+        this.documentProperties = documentProperties;
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+
+        DocumentProperties.Ingestion ingestion = documentProperties.getIngestion();
+        this.extractionExecutor = new ThreadPoolExecutor(
+                ingestion.getExtractionWorkers(), ingestion.getExtractionWorkers(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(ingestion.getQueueCapacity()),
+                Thread.ofPlatform().name("rag-extract-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("rag.ingestion.queue.depth", extractionExecutor, executor -> executor.getQueue().size())
+                .description("Documents waiting to be processed")
+                .register(meterRegistry);
+        Gauge.builder("rag.ingestion.active", extractionExecutor, ThreadPoolExecutor::getActiveCount)
+                .description("Documents currently being processed")
+                .register(meterRegistry);
+        this.queueLatency = Timer.builder("rag.ingestion.queue.latency")
+                .description("Time a document waits in the queue before processing starts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a document for asynchronous processing.
+     *
+     * <p>The document must already have a {@code PROCESSING} metadata record and
+     * its file must be on disk. The document status is updated to READY or ERROR
+     * once processing completes. If an earlier attempt checkpointed any progress,
+     * processing continues from the checkpoint.
+     *
+     * @param document The document metadata
+     * @param filePath Path to the uploaded PDF file
+     * @throws IngestionQueueFullException if the queue is at capacity
+     */
+    public void submit(DocumentMetadata document, Path filePath) {
+        long enqueuedAt = System.nanoTime();
+        enqueue(document, () -> processDocument(document, filePath, enqueuedAt));
+    }
+
+    /**
+     * Queues a document whose PDF was replaced for incremental re-ingestion.
+     *
+     * <p>The document must already be in {@code PROCESSING} status with the
+     * new file on disk. Its current chunks stay searchable until the new
+     * version replaces them, then the status is updated to READY; if the
+     * update fails, the status is updated to ERROR and the current chunks are kept.
+     *
+     * @param document The document metadata
+     * @param filePath Path to the new PDF file
+     * @throws IngestionQueueFullException if the queue is at capacity
+     */
+    public void submitUpdate(DocumentMetadata document, Path filePath) {
+        long enqueuedAt = System.nanoTime();
+        enqueue(document, () -> processUpdate(document, filePath, enqueuedAt));
+    }
+
+    private void enqueue(DocumentMetadata document, Runnable task) {
+        try {
+            extractionExecutor.execute(task);
+            log.info("Queued document for ingestion: id={}, queueDepth={}",
+                    document.id(), extractionExecutor.getQueue().size());
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("rag.ingestion.documents", "result", "rejected").increment();
+            throw new IngestionQueueFullException(
+                    "Ingestion queue is full, please retry later: " + document.filename(), e);
+        }
+    }
+
+    /**
+     * Re-queues documents left in PROCESSING state by a previous run.
+     *
+     * <p>Processing continues from each document's last checkpoint.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingDocuments() {
+        List<DocumentMetadata> pending = documentRepository.findByStatus(DocumentStatus.PROCESSING);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        log.info("Re-queuing {} documents left in PROCESSING state", pending.size());
+        for (DocumentMetadata document : pending) {
+            Path filePath = documentBlobs.locate(document);
+            if (!Files.exists(filePath)) {
+                documentRepository.updateStatusWithError(document.id(), DocumentStatus.ERROR,
+                        "Processing interrupted and the uploaded file is no longer available");
+                continue;
+            }
+            try {
+                submit(document, filePath);
+            } catch (Exception e) {
+                handleProcessingError(document, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Documents still in flight keep their PROCESSING status and are re-queued on next startup
+        extractionExecutor.shutdownNow();
+    }
+
+    private void processDocument(DocumentMetadata document, Path filePath, long enqueuedAt) {
+        queueLatency.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+        try {
+            int stored = meterRegistry.timer("rag.ingestion.stage.duration", "stage", "pipeline")
+                    .record(() -> extractAndStore(document, filePath));
+            documentRepository.markReady(document.id(), stored);
+            checkpointRepository.deleteByDocumentId(document.id());
+            eventPublisher.publishEvent(new DocumentChangedEvent(document.id()));
+            meterRegistry.counter("rag.ingestion.documents", "result", "ready").increment();
+            meterRegistry.timer("rag.ingestion.duration")
+                    .record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            log.info("Document processing completed successfully: id={}, chunks={}", document.id(), stored);
+        } catch (Exception e) {
+            handleProcessingError(document, e);
+        }
+    }
+
+    private void processUpdate(DocumentMetadata document, Path filePath, long enqueuedAt) {
+        queueLatency.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+        try {
+            DocumentUpdateReport report = meterRegistry.timer("rag.ingestion.stage.duration", "stage", "update")
+                    .record(() -> reingestion.reingest(document, filePath));
+            documentRepository.markReady(document.id(), report.chunksReused() + report.chunksEmbedded());
+            eventPublisher.publishEvent(new DocumentChangedEvent(document.id()));
+            meterRegistry.counter("rag.ingestion.documents", "result", "updated").increment();
+            meterRegistry.timer("rag.ingestion.duration")
+                    .record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            log.info("Document update completed successfully: id={}, reused={}, embedded={}", document.id(),
+                    report.chunksReused(), report.chunksEmbedded());
+        } catch (Exception e) {
+            handleProcessingError(document, e);
+        }
+    }
+
+    /**
+     * Streams a PDF through extraction, chunking, embedding and vector storage.
+     *
+     * <p>Pages are extracted in parallel by the {@link ParallelPdfExtractor},
+     * chunked by a {@link StreamingTokenChunker} and consumed lazily by the
+     * {@link EmbeddingBatcher}, so only the pages and batches in flight are in
+     * memory at any time. Chunks before the document's checkpoint are chunked
+     * again (which is cheap) but not embedded or stored again.
+     *
+     * @param document The document, whose ID and filename are added to every chunk
+     * @param filePath Path to the PDF file
+     * @return The number of chunks stored
+     */
+    private int extractAndStore(DocumentMetadata document, Path filePath) {
+        String documentId = document.id();
+        log.debug("Streaming PDF into the vector store: {} (chunkSize={}, overlap={})", document.filename(),
+                documentProperties.getChunkSize(), documentProperties.getChunkOverlap());
+
+        try (ParallelPdfExtractor.Pages pages = pdfExtractor.extract(document, filePath)) {
+            StreamingTokenChunker chunker = new StreamingTokenChunker(pages,
+                    documentProperties.getChunkSize(),
+                    documentProperties.getChunkOverlap(),
+                    documentProperties.getMinChunkSize());
+            CheckpointTracker tracker = startTracking(documentId);
+            int stored = embeddingBatcher.embedAndStore(documentId, () -> tracker.pending(chunker),
+                    tracker::onBatchStored);
+            log.info("Stored {} chunks from {} pages of PDF {}", stored, pages.pageCount(), document.filename());
+            return stored;
+        }
+    }
+
+    /**
+     * Starts tracking progress from the document's checkpoint.
+     *
+     * <p>Without a usable checkpoint, vectors left by an earlier attempt are
+     * removed first, in batches through the indexed {@code document_id} column:
+     * they were produced before any batch was committed, or with chunking
+     * settings whose chunk positions no longer match.
+     */
+    private CheckpointTracker startTracking(String documentId) {
+        String chunking = documentProperties.getChunkSize() + "/" + documentProperties.getChunkOverlap()
+                + "/" + documentProperties.getMinChunkSize();
+        int committed = checkpointRepository.findByDocumentId(documentId)
+                .filter(checkpoint -> checkpoint.chunking().equals(chunking))
+                .map(IngestionCheckpointRepository.Checkpoint::chunksCommitted)
+                .orElse(0);
+
+        if (committed > 0) {
+            meterRegistry.counter("rag.ingestion.resumed.chunks").increment(committed);
+            log.info("Resuming document {} from checkpoint: {} chunks already stored", documentId, committed);
+        } else {
+            vectorMaintenanceRepository.deleteByDocumentIds(List.of(documentId),
+                    documentProperties.getMaintenance().getDeleteBatchSize());
+        }
+        return new CheckpointTracker(documentId, committed, chunking, checkpointRepository);
+    }
+
+    /**
+     * Marks a document as failed.
+     *
+     * <p>The uploaded file and the checkpoint are kept, so processing can be
+     * resumed without paying again for the chunks that were already embedded.
+     *
+     * @param document The document metadata
+     * @param e The exception that occurred
+     */
+    private void handleProcessingError(DocumentMetadata document, Exception e) {
+        log.error("Error processing document: id={}, error={}", document.id(), e.getMessage(), e);
+        meterRegistry.counter("rag.ingestion.documents", "result", "error").increment();
+
+        String errorMessage = "Processing failed: " + e.getMessage();
+        documentRepository.updateStatusWithError(document.id(), DocumentStatus.ERROR, errorMessage);
+    }
+}
@@ -0,0 +1,277 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.stereotype.Component;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.embedding.CachingEmbeddingModel;
+import com.loiane.api_ai.rag.embedding.EmbeddingCache;
+import com.loiane.api_ai.rag.exception.DocumentProcessingException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Embeds document chunks in token-budgeted batches and writes each batch to
+ * pgvector as soon as it is embedded.
+ *
+ * <p>Chunks are packed into embedding requests until either the estimated token
+ * budget ({@code app.documents.embedding.max-tokens-per-batch}) or the input
+ * limit ({@code max-chunks-per-batch}) would be exceeded. Up to
+ * {@code concurrency} batches are embedded in parallel, and a batch that fails
+ * is retried on its own, without redoing the batches that already succeeded.
+ * Once a batch has failed every attempt, no further chunks are consumed and
+ * batches that have not started yet are skipped, so a failed document does not
+ * keep calling the provider.
+ * Chunks whose embedding is already in the {@link EmbeddingCache} are not sent
+ * to the provider.
+ *
+ * <p>Exposes batch size, batch tokens, in-flight batches, chunk/token
+ * counters (whose rates give chunks/sec and tokens/sec) and the time until the
+ * first batch of a document is stored via Micrometer.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Component
+public class EmbeddingBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingBatcher.class);
+
+    private final EmbeddingModel embeddingModel;
+    private final PgVectorBatchWriter batchWriter;
+    private final DocumentProperties.Embedding settings;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+    private final ExecutorService executor;
+    private final AtomicInteger inFlightBatches = new AtomicInteger();
+
+    private final DistributionSummary batchSize;
+    private final DistributionSummary batchTokens;
+    private final Timer embedDuration;
+    private final Timer writeDuration;
+    private final Timer firstBatchLatency;
+    private final Counter chunksEmbedded;
+    private final Counter tokensEmbedded;
+    private final Counter batchRetries;
+
+    public EmbeddingBatcher(EmbeddingModel embeddingModel, EmbeddingCache embeddingCache,
+                            PgVectorBatchWriter batchWriter, DocumentProperties documentProperties,
+                            MeterRegistry meterRegistry) {
+        this.embeddingModel = new CachingEmbeddingModel(embeddingModel, embeddingCache, meterRegistry);
+        this.batchWriter = batchWriter;
+        this.settings = documentProperties.getEmbedding();
+        this.executor = Executors.newFixedThreadPool(settings.getConcurrency(),
+                Thread.ofPlatform().name("rag-embed-batch-", 0).factory());
+
+        this.batchSize = DistributionSummary.builder("rag.embedding.batch.size")
+                .description("Chunks per embedding request")
+                .register(meterRegistry);
+        this.batchTokens = DistributionSummary.builder("rag.embedding.batch.tokens")
+                .description("Estimated tokens per embedding request")
+                .register(meterRegistry);
+        this.embedDuration = Timer.builder("rag.embedding.batch.duration")
+                .tag("phase", "embed")
+                .register(meterRegistry);
+        this.writeDuration = Timer.builder("rag.embedding.batch.duration")
+                .tag("phase", "write")
+                .register(meterRegistry);
+        this.firstBatchLatency = Timer.builder("rag.embedding.first.batch.latency")
+                .description("Time from the start of a document until its first batch of vectors is stored")
+                .register(meterRegistry);
+        this.chunksEmbedded = meterRegistry.counter("rag.embedding.chunks");
+        this.tokensEmbedded = meterRegistry.counter("rag.embedding.tokens");
+        this.batchRetries = meterRegistry.counter("rag.embedding.batch.retries");
+        Gauge.builder("rag.embedding.batches.inflight", inFlightBatches, AtomicInteger::get)
+                .description("Embedding requests currently in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Embeds and stores the given chunks, returning once every batch is written.
+     *
+     * <p>Chunks are consumed lazily, so at most {@code concurrency} batches are
+     * buffered at any time regardless of how many chunks the source produces.
+     *
+     * @param documentId The document the chunks belong to, for logging
+     * @param chunks The chunks to embed
+     * @return The number of chunks stored
+     * @throws DocumentProcessingException if a batch still fails after all retry attempts
+     */
+    public int embedAndStore(String documentId, Iterable<Document> chunks) {
+        return embedAndStore(documentId, chunks, batch -> { });
+    }
+
+    /**
+     * Embeds and stores the given chunks, notifying the caller as each batch is written.
+     *
+     * <p>Batches are written concurrently, so {@code onBatchStored} may be called
+     * from several threads and out of order.
+     *
+     * @param documentId The document the chunks belong to, for logging
+     * @param chunks The chunks to embed
+     * @param onBatchStored Called with each batch once it is in the vector store
+     * @return The number of chunks stored
+     * @throws DocumentProcessingException if a batch still fails after all retry attempts
+     */
+    public int embedAndStore(String documentId, Iterable<Document> chunks, Consumer<List<Document>> onBatchStored) {
+        return embedAndWrite(documentId, chunks, batchWriter::write, onBatchStored);
+    }
+
+    /**
+     * Embeds the given chunks and stages them in {@code vector_store_staging},
+     * where searches do not see them, returning once every batch is written.
+     *
+     * @param documentId The document the chunks belong to, for logging
+     * @param chunks The chunks to embed
+     * @return The number of chunks staged
+     * @throws DocumentProcessingException if a batch still fails after all retry attempts
+     */
+    public int embedAndStage(String documentId, Iterable<Document> chunks) {
+        return embedAndWrite(documentId, chunks, batchWriter::stage, batch -> { });
+    }
+
+    private int embedAndWrite(String documentId, Iterable<Document> chunks,
+                              BiConsumer<List<Document>, List<float[]>> writer,
+                              Consumer<List<Document>> onBatchStored) {
+        long startedAt = System.nanoTime();
+        Semaphore permits = new Semaphore(settings.getConcurrency());
+        AtomicBoolean firstBatchStored = new AtomicBoolean();
+        Consumer<List<Document>> onStored = batch -> {
+            if (firstBatchStored.compareAndSet(false, true)) {
+                firstBatchLatency.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+            onBatchStored.accept(batch);
+        };
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+        List<Document> batch = new ArrayList<>();
+        int batchTokenCount = 0;
+        int totalChunks = 0;
+        long totalTokens = 0;
+
+        for (Document chunk : chunks) {
+            if (failure.get() != null) {
+                break;
+            }
+            int tokens = tokenCountEstimator.estimate(chunk.getText());
+            boolean full = batch.size() >= settings.getMaxChunksPerBatch()
+                    || batchTokenCount + tokens > settings.getMaxTokensPerBatch();
+            if (full && !batch.isEmpty()) {
+                pending.add(submit(documentId, batch, batchTokenCount, writer, permits, onStored, failure));
+                batch = new ArrayList<>();
+                batchTokenCount = 0;
+            }
+            batch.add(chunk);
+            batchTokenCount += tokens;
+            totalChunks++;
+            totalTokens += tokens;
+        }
+        if (!batch.isEmpty() && failure.get() == null) {
+            pending.add(submit(documentId, batch, batchTokenCount, writer, permits, onStored, failure));
+        }
+
+        // Wait for the batches in flight even after a failure, so none is still writing once this returns
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).exceptionally(_ -> null).join();
+        if (failure.get() != null) {
+            throw new DocumentProcessingException("Failed to embed chunks for document: " + documentId, failure.get());
+        }
+
+        double seconds = Math.max((System.nanoTime() - startedAt) / 1e9, 1e-9);
+        log.info("Embedded {} chunks ({} tokens) in {} batches for document {}: {} chunks/sec, {} tokens/sec",
+                totalChunks, totalTokens, pending.size(), documentId,
+                Math.round(totalChunks / seconds), Math.round(totalTokens / seconds));
+        return totalChunks;
+    }
+
+    private CompletableFuture<Void> submit(String documentId, List<Document> batch, int tokens,
+                                           BiConsumer<List<Document>, List<float[]>> writer,
+                                           Semaphore permits, Consumer<List<Document>> onStored,
+                                           AtomicReference<RuntimeException> failure) {
+        // Blocks the producer while `concurrency` batches are already in flight
+        permits.acquireUninterruptibly();
+        if (failure.get() != null) {
+            permits.release();
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+            inFlightBatches.incrementAndGet();
+            try {
+                if (failure.get() == null) {
+                    embedAndWriteWithRetry(documentId, batch, tokens, writer, failure);
+                    onStored.accept(batch);
+                }
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+                throw e;
+            } finally {
+                inFlightBatches.decrementAndGet();
+                permits.release();
+            }
+        }, executor);
+    }
+
+    private void embedAndWriteWithRetry(String documentId, List<Document> batch, int tokens,
+                                        BiConsumer<List<Document>, List<float[]>> writer,
+                                        AtomicReference<RuntimeException> failure) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                List<String> texts = batch.stream().map(Document::getText).toList();
+                List<float[]> embeddings = embedDuration.record(() -> embeddingModel.embed(texts));
+                writeDuration.record(() -> writer.accept(batch, embeddings));
+
+                batchSize.record(batch.size());
+                batchTokens.record(tokens);
+                chunksEmbedded.increment(batch.size());
+                tokensEmbedded.increment(tokens);
+                return;
+            } catch (RuntimeException e) {
+                // No point retrying once another batch of the document has failed for good
+                if (attempt >= settings.getMaxAttempts() || failure.get() != null) {
+                    throw e;
+                }
+                batchRetries.increment();
+                log.warn("Embedding batch of {} chunks failed for document {} (attempt {}/{}): {}",
+                        batch.size(), documentId, attempt, settings.getMaxAttempts(), e.getMessage());
+                sleep(settings.getRetryBackoff().toMillis() * attempt);
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DocumentProcessingException("Interrupted while waiting to retry an embedding batch", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
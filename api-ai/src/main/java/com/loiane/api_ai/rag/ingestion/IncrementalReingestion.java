@@ -0,0 +1,215 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
+import org.springframework.stereotype.Component;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.model.DocumentMetadata;
+import com.loiane.api_ai.rag.model.DocumentUpdateReport;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Re-ingests a document whose PDF was replaced, embedding only the chunks
+ * that changed.
+ *
+ * <p>The new PDF is extracted and chunked as in a first ingestion, and each
+ * chunk is hashed. A chunk whose text hash matches a stored chunk of the
+ * document keeps that chunk's row and embedding, with its metadata updated
+ * if its position or pages moved; every other chunk is embedded and staged.
+ * Chunks are the unit of comparison rather than pages, because chunks carry
+ * overlap across page boundaries: an edit on one page only re-embeds the
+ * chunks covering it. Once all new chunks are staged, the stored chunks that
+ * were not matched are deleted and the staged ones published in one
+ * transaction ({@link StagedChunkRepository}), so searches switch from the old
+ * version to the new one at once.
+ *
+ * <p>The report of the latest update of recent documents is kept in memory
+ * and counted in {@code rag.ingestion.update.chunks}.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Component
+public class IncrementalReingestion {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalReingestion.class);
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+    };
+    private static final int MAX_RETAINED_REPORTS = 100;
+
+    private final ParallelPdfExtractor pdfExtractor;
+    private final EmbeddingBatcher embeddingBatcher;
+    private final StagedChunkRepository stagedChunkRepository;
+    private final DocumentProperties documentProperties;
+    private final JsonMapper jsonMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, DocumentUpdateReport> reports = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, DocumentUpdateReport> eldest) {
+                    return size() > MAX_RETAINED_REPORTS;
+                }
+            });
+
+    public IncrementalReingestion(ParallelPdfExtractor pdfExtractor, EmbeddingBatcher embeddingBatcher,
+                                  StagedChunkRepository stagedChunkRepository, DocumentProperties documentProperties,
+                                  JsonMapper jsonMapper, MeterRegistry meterRegistry) {
+        this.pdfExtractor = pdfExtractor;
+        this.embeddingBatcher = embeddingBatcher;
+        this.stagedChunkRepository = stagedChunkRepository;
+        this.documentProperties = documentProperties;
+        this.jsonMapper = jsonMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Replaces the stored chunks of a document with those of a new PDF.
+     *
+     * @param document The document, with the filename of the new PDF
+     * @param filePath Path to the new PDF
+     * @return How many chunks were reused, embedded and deleted
+     * @throws com.loiane.api_ai.rag.exception.DocumentProcessingException if extraction or embedding fails,
+     *         in which case the previous version stays searchable
+     */
+    public DocumentUpdateReport reingest(DocumentMetadata document, Path filePath) {
+        try (ParallelPdfExtractor.Pages pages = pdfExtractor.extract(document, filePath)) {
+            return reingest(document.id(), pages);
+        }
+    }
+
+    /**
+     * @param documentId The document ID
+     * @return The report of the document's latest update, if it is one of the most recent ones
+     */
+    public Optional<DocumentUpdateReport> findReport(String documentId) {
+        return Optional.ofNullable(reports.get(documentId));
+    }
+
+    DocumentUpdateReport reingest(String documentId, Iterator<Document> pages) {
+        stagedChunkRepository.clearStaged(documentId);
+        Map<String, Deque<StagedChunkRepository.StoredChunk>> storedByHash = new HashMap<>();
+        List<StagedChunkRepository.StoredChunk> stored = stagedChunkRepository.findChunks(documentId);
+        for (StagedChunkRepository.StoredChunk chunk : stored) {
+            storedByHash.computeIfAbsent(chunk.contentHash(), _ -> new ArrayDeque<>()).add(chunk);
+        }
+
+        ChangedChunks changed = new ChangedChunks(documentId, new StreamingTokenChunker(pages,
+                documentProperties.getChunkSize(),
+                documentProperties.getChunkOverlap(),
+                documentProperties.getMinChunkSize()), storedByHash);
+        try {
+            int embedded = embeddingBatcher.embedAndStage(documentId, () -> changed);
+            List<String> removed = new ArrayList<>();
+            storedByHash.values().forEach(chunks -> chunks.forEach(chunk -> removed.add(chunk.id())));
+            stagedChunkRepository.publish(documentId, removed, changed.keptMetadata);
+
+            DocumentUpdateReport report = new DocumentUpdateReport(documentId, changed.reused, embedded,
+                    removed.size(), changed.pagesReembedded.size(), LocalDateTime.now());
+            reports.put(documentId, report);
+            meterRegistry.counter("rag.ingestion.update.chunks", "result", "reused").increment(report.chunksReused());
+            meterRegistry.counter("rag.ingestion.update.chunks", "result", "embedded").increment(embedded);
+            meterRegistry.counter("rag.ingestion.update.chunks", "result", "deleted").increment(removed.size());
+            log.info("Updated document {}: {} chunks reused, {} embedded, {} deleted", documentId,
+                    report.chunksReused(), embedded, removed.size());
+            return report;
+        } catch (RuntimeException e) {
+            stagedChunkRepository.clearStaged(documentId);
+            throw e;
+        }
+    }
+
+    /**
+     * Numbers the chunks of the new version and passes on only those that no
+     * stored chunk has the text of, recording the stored chunks it reuses.
+     */
+    private final class ChangedChunks implements Iterator<Document> {
+
+        private final String documentId;
+        private final Iterator<Document> chunks;
+        private final Map<String, Deque<StagedChunkRepository.StoredChunk>> storedByHash;
+        private final MessageDigest digest;
+        private final Map<String, String> keptMetadata = new HashMap<>();
+        private final Set<Object> pagesReembedded = new HashSet<>();
+        private int index;
+        private int reused;
+        private Document next;
+
+        ChangedChunks(String documentId, Iterator<Document> chunks,
+                      Map<String, Deque<StagedChunkRepository.StoredChunk>> storedByHash) {
+            this.documentId = documentId;
+            this.chunks = chunks;
+            this.storedByHash = storedByHash;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && chunks.hasNext()) {
+                Document chunk = chunks.next();
+                Map<String, Object> metadata = new HashMap<>(chunk.getMetadata());
+                metadata.put(CheckpointTracker.CHUNK_INDEX, index++);
+
+                String hash = HexFormat.of().formatHex(digest.digest(chunk.getText().getBytes(StandardCharsets.UTF_8)));
+                Deque<StagedChunkRepository.StoredChunk> matches = storedByHash.get(hash);
+                StagedChunkRepository.StoredChunk match = matches != null ? matches.poll() : null;
+                if (match != null) {
+                    if (matches.isEmpty()) {
+                        storedByHash.remove(hash);
+                    }
+                    if (!metadata.equals(jsonMapper.readValue(match.metadata(), METADATA_TYPE))) {
+                        keptMetadata.put(match.id(), jsonMapper.writeValueAsString(metadata));
+                    }
+                    reused++;
+                } else {
+                    pagesReembedded.add(metadata.get(PagePdfDocumentReader.METADATA_START_PAGE_NUMBER));
+                    // A fresh id: the positional id may still belong to a chunk of the old version
+                    next = new Document(UUID.randomUUID().toString(), chunk.getText(), metadata);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Document next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Document chunk = next;
+            next = null;
+            return chunk;
+        }
+    }
+}
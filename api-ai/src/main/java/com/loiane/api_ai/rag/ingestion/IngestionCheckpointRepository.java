@@ -0,0 +1,86 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for ingestion progress, stored in the {@code ingestion_checkpoints} table.
+ *
+ * <p>A checkpoint records how many chunks of a document, counted from the first
+ * chunk, are known to be stored in the vector store, together with the chunking
+ * settings that produced them. Chunk numbering is only stable for the same
+ * settings, so a checkpoint written with different settings must not be reused.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Repository
+public class IngestionCheckpointRepository {
+
+    /**
+     * Ingestion progress of one document.
+     *
+     * @param chunksCommitted Number of leading chunks stored in the vector store
+     * @param lastPage        Last page covered by the committed chunks, or null if unknown
+     * @param chunking        The chunking settings the chunks were produced with
+     */
+    public record Checkpoint(int chunksCommitted, Integer lastPage, String chunking) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IngestionCheckpointRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Finds the checkpoint of a document.
+     *
+     * @param documentId The document ID
+     * @return The checkpoint, or empty if no chunk has been committed yet
+     */
+    public Optional<Checkpoint> findByDocumentId(String documentId) {
+        String sql = """
+            SELECT chunks_committed, last_page, chunking
+            FROM ingestion_checkpoints
+            WHERE document_id = ?::uuid
+            """;
+        List<Checkpoint> checkpoints = jdbcTemplate.query(sql, (rs, rowNum) -> new Checkpoint(
+                rs.getInt("chunks_committed"),
+                rs.getObject("last_page", Integer.class),
+                rs.getString("chunking")), documentId);
+        return checkpoints.stream().findFirst();
+    }
+
+    /**
+     * Records that the first {@code chunksCommitted} chunks of a document are stored.
+     *
+     * @param documentId The document ID
+     * @param checkpoint The new checkpoint
+     */
+    public void save(String documentId, Checkpoint checkpoint) {
+        String sql = """
+            INSERT INTO ingestion_checkpoints (document_id, chunks_committed, last_page, chunking)
+            VALUES (?::uuid, ?, ?, ?)
+            ON CONFLICT (document_id) DO UPDATE SET
+                chunks_committed = EXCLUDED.chunks_committed,
+                last_page = EXCLUDED.last_page,
+                chunking = EXCLUDED.chunking,
+                updated_at = CURRENT_TIMESTAMP
+            """;
+        jdbcTemplate.update(sql, documentId, checkpoint.chunksCommitted(), checkpoint.lastPage(),
+                checkpoint.chunking());
+    }
+
+    /**
+     * Removes the checkpoint of a document, once it is fully ingested.
+     *
+     * @param documentId The document ID
+     */
+    public void deleteByDocumentId(String documentId) {
+        jdbcTemplate.update("DELETE FROM ingestion_checkpoints WHERE document_id = ?::uuid", documentId);
+    }
+}
@@ -0,0 +1,300 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.ExtractedTextFormatter;
+import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
+import org.springframework.ai.reader.pdf.layout.PDFLayoutTextStripperByArea;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.exception.DocumentProcessingException;
+import com.loiane.api_ai.rag.model.DocumentMetadata;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Extracts the text of a PDF one page per {@link Document}, using all cores.
+ *
+ * <p>The PDF is split into ranges of {@code app.documents.ingestion.pdf-pages-per-range}
+ * pages, and each range is extracted by a separate task that opens its own
+ * {@link PDDocument} (PDFBox documents are not thread-safe). Tasks run on a
+ * shared pool of {@code pdf-parallelism} threads. Pages are returned in page
+ * order through {@link Pages}, an iterator that keeps at most
+ * {@code pdf-max-buffered-pages} pages extracted ahead of the consumer, so
+ * memory stays bounded regardless of the PDF size.
+ *
+ * <p>Pages are extracted the same way as {@link PagePdfDocumentReader} with one
+ * page per document and no top margin, and carry the same {@code page_number}
+ * and {@code file_name} metadata. The file name is given by the caller rather
+ * than read from the path, since uploads are stored under their content hash.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Component
+public class ParallelPdfExtractor {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelPdfExtractor.class);
+
+    private static final ExtractedTextFormatter TEXT_FORMATTER = ExtractedTextFormatter.builder()
+            .withNumberOfTopTextLinesToDelete(0)
+            .build();
+
+    private final ExecutorService executor;
+    private final int pagesPerRange;
+    private final int maxRangesInFlight;
+    private final Counter pagesExtracted;
+
+    public ParallelPdfExtractor(DocumentProperties documentProperties, MeterRegistry meterRegistry) {
+        DocumentProperties.Ingestion settings = documentProperties.getIngestion();
+        int parallelism = settings.getPdfParallelism() > 0
+                ? settings.getPdfParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("rag-pdf-", 0).factory());
+        this.pagesPerRange = Math.max(1, settings.getPdfPagesPerRange());
+        this.maxRangesInFlight = Math.max(1, settings.getPdfMaxBufferedPages() / pagesPerRange);
+        this.pagesExtracted = meterRegistry.counter("rag.pdf.pages");
+    }
+
+    /**
+     * Starts extracting the PDF of an uploaded document.
+     *
+     * <p>Every page carries the document's {@code document_id} and its uploaded
+     * {@code filename}, which become the chunk metadata cited as sources.
+     *
+     * @param document The document
+     * @param filePath The document's PDF file
+     * @return The pages, extracted in parallel ahead of iteration
+     * @throws DocumentProcessingException if the PDF cannot be opened
+     */
+    public Pages extract(DocumentMetadata document, Path filePath) {
+        return extract(filePath, document.filename(), chunkMetadata(document));
+    }
+
+    /**
+     * @param document The document
+     * @return The metadata every chunk of the document carries
+     */
+    public static Map<String, Object> chunkMetadata(DocumentMetadata document) {
+        return Map.of(
+                "document_id", document.id(),
+                "filename", document.filename());
+    }
+
+    /**
+     * Starts extracting a PDF file and returns its pages in page order.
+     *
+     * <p>The returned iterator must be closed, which cancels any extraction still
+     * running if the consumer stops early.
+     *
+     * @param filePath The PDF file
+     * @param fileName The name pages carry as {@code file_name}
+     * @param metadata Additional metadata added to every page
+     * @return The pages, extracted in parallel ahead of iteration
+     * @throws DocumentProcessingException if the PDF cannot be opened
+     */
+    public Pages extract(Path filePath, String fileName, Map<String, Object> metadata) {
+        int pageCount;
+        try (PDDocument document = Loader.loadPDF(filePath.toFile())) {
+            pageCount = document.getNumberOfPages();
+        } catch (IOException e) {
+            throw new DocumentProcessingException("Failed to open PDF: " + fileName, e);
+        }
+        log.debug("Extracting {} pages from {} in ranges of {}", pageCount, fileName, pagesPerRange);
+        return new Pages(filePath, fileName, pageCount, metadata);
+    }
+
+    /**
+     * Extracts every page of a PDF resource, such as a PDF bundled on the classpath.
+     *
+     * @param resource The PDF resource
+     * @return All pages, in page order
+     * @throws DocumentProcessingException if the PDF cannot be read
+     */
+    public List<Document> readAll(Resource resource) {
+        Path temporaryCopy = null;
+        try {
+            Path filePath;
+            if (resource.isFile()) {
+                filePath = resource.getFile().toPath();
+            } else {
+                temporaryCopy = Files.createTempFile("rag-pdf-", ".pdf");
+                try (InputStream inputStream = resource.getInputStream()) {
+                    Files.copy(inputStream, temporaryCopy, StandardCopyOption.REPLACE_EXISTING);
+                }
+                filePath = temporaryCopy;
+            }
+
+            List<Document> documents = new ArrayList<>();
+            String fileName = resource.getFilename() != null
+                    ? resource.getFilename()
+                    : filePath.getFileName().toString();
+            try (Pages pages = extract(filePath, fileName, Map.of())) {
+                pages.forEachRemaining(documents::add);
+            }
+            return documents;
+        } catch (IOException e) {
+            throw new DocumentProcessingException("Failed to read PDF: " + resource.getFilename(), e);
+        } finally {
+            deleteQuietly(temporaryCopy);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private List<Document> extractRange(Path filePath, String fileName, int firstPage, int lastPage,
+                                        Map<String, Object> metadata) throws IOException {
+        List<Document> pages = new ArrayList<>(lastPage - firstPage + 1);
+
+        try (PDDocument document = Loader.loadPDF(filePath.toFile())) {
+            for (int pageNumber = firstPage; pageNumber <= lastPage; pageNumber++) {
+                PDPage page = document.getPage(pageNumber - 1);
+                String text = TEXT_FORMATTER.format(extractPageText(page), pageNumber);
+                if (!StringUtils.hasText(text)) {
+                    continue;
+                }
+                Document pageDocument = new Document(text);
+                pageDocument.getMetadata().put(PagePdfDocumentReader.METADATA_START_PAGE_NUMBER, pageNumber);
+                pageDocument.getMetadata().put(PagePdfDocumentReader.METADATA_FILE_NAME, fileName);
+                pageDocument.getMetadata().putAll(metadata);
+                pages.add(pageDocument);
+            }
+        }
+        pagesExtracted.increment(lastPage - firstPage + 1);
+        return pages;
+    }
+
+    private static String extractPageText(PDPage page) throws IOException {
+        PDFLayoutTextStripperByArea stripper = new PDFLayoutTextStripperByArea();
+        stripper.setSortByPosition(true);
+
+        int width = (int) page.getMediaBox().getWidth();
+        int height = (int) page.getMediaBox().getHeight();
+        stripper.addRegion("page", new Rectangle(0, 0, width, height));
+        stripper.extractRegions(page);
+        return stripper.getTextForRegion("page");
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary PDF copy: {}", path, e);
+        }
+    }
+
+    /**
+     * The pages of a PDF being extracted, in page order.
+     *
+     * <p>Page ranges are submitted to the extraction pool as a sliding window:
+     * each time the consumer finishes a range, the next one is submitted.
+     */
+    public final class Pages implements Iterator<Document>, AutoCloseable {
+
+        private final Path filePath;
+        private final String fileName;
+        private final int pageCount;
+        private final Map<String, Object> metadata;
+        private final Deque<Future<List<Document>>> inFlight = new ArrayDeque<>();
+        private int nextRangeStart = 1;
+        private Iterator<Document> current;
+
+        private Pages(Path filePath, String fileName, int pageCount, Map<String, Object> metadata) {
+            this.filePath = filePath;
+            this.fileName = fileName;
+            this.pageCount = pageCount;
+            this.metadata = Map.copyOf(metadata);
+            submitRanges();
+        }
+
+        /**
+         * @return The total number of pages in the PDF, including blank pages that are skipped
+         */
+        public int pageCount() {
+            return pageCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (current == null || !current.hasNext()) {
+                Future<List<Document>> next = inFlight.poll();
+                if (next == null) {
+                    return false;
+                }
+                current = await(next).iterator();
+                submitRanges();
+            }
+            return true;
+        }
+
+        @Override
+        public Document next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        @Override
+        public void close() {
+            inFlight.forEach(future -> future.cancel(true));
+            inFlight.clear();
+        }
+
+        private void submitRanges() {
+            while (inFlight.size() < maxRangesInFlight && nextRangeStart <= pageCount) {
+                int firstPage = nextRangeStart;
+                int lastPage = Math.min(pageCount, firstPage + pagesPerRange - 1);
+                inFlight.add(executor.submit(() -> extractRange(filePath, fileName, firstPage, lastPage, metadata)));
+                nextRangeStart = lastPage + 1;
+            }
+        }
+
+        private List<Document> await(Future<List<Document>> future) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new DocumentProcessingException("Interrupted while extracting PDF: " + fileName, e);
+            } catch (ExecutionException e) {
+                close();
+                throw new DocumentProcessingException("Failed to extract PDF: " + fileName, e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.ai.document.Document;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.loiane.api_ai.rag.embedding.PgVectorFormat;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Writes embedded chunks to the pgvector {@code vector_store} table.
+ *
+ * <p>Each batch is written with a single multi-row {@code INSERT}, so a batch
+ * of hundreds of chunks costs one round trip instead of one per chunk. Rows are
+ * upserted by id, matching the behavior of {@code PgVectorStore.add}.
+ *
+ * <p>Chunks of a document update are staged in {@code vector_store_staging}
+ * instead, which searches do not read, until {@link StagedChunkRepository}
+ * moves them into {@code vector_store}.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Component
+public class PgVectorBatchWriter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonMapper jsonMapper;
+
+    public PgVectorBatchWriter(JdbcTemplate jdbcTemplate, JsonMapper jsonMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * Inserts or updates a batch of chunks together with their embeddings.
+     *
+     * @param chunks The document chunks
+     * @param embeddings The embedding of each chunk, in the same order
+     */
+    public void write(List<Document> chunks, List<float[]> embeddings) {
+        insert("vector_store", chunks, embeddings);
+    }
+
+    /**
+     * Inserts or updates a batch of chunks in the staging table.
+     *
+     * @param chunks The document chunks
+     * @param embeddings The embedding of each chunk, in the same order
+     */
+    public void stage(List<Document> chunks, List<float[]> embeddings) {
+        insert("vector_store_staging", chunks, embeddings);
+    }
+
+    private void insert(String table, List<Document> chunks, List<float[]> embeddings) {
+        if (chunks.size() != embeddings.size()) {
+            throw new IllegalArgumentException("Expected " + chunks.size() + " embeddings but got " + embeddings.size());
+        }
+        if (chunks.isEmpty()) {
+            return;
+        }
+
+        StringBuilder sql = new StringBuilder("INSERT INTO " + table + " (id, content, metadata, embedding) VALUES ");
+        List<Object> args = new ArrayList<>(chunks.size() * 4);
+        for (int i = 0; i < chunks.size(); i++) {
+            Document chunk = chunks.get(i);
+            sql.append(i == 0 ? "" : ", ").append("(?::uuid, ?, ?::json, ?::vector)");
+            args.add(chunk.getId());
+            args.add(chunk.getText());
+            args.add(jsonMapper.writeValueAsString(chunk.getMetadata()));
+            args.add(PgVectorFormat.toLiteral(embeddings.get(i)));
+        }
+        sql.append("""
+                 ON CONFLICT (id) DO UPDATE SET
+                    content = EXCLUDED.content,
+                    metadata = EXCLUDED.metadata,
+                    embedding = EXCLUDED.embedding
+                """);
+
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+}
@@ -0,0 +1,91 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reads the stored chunks of a document and publishes a new version of it.
+ *
+ * <p>Chunks embedded for a document update are written to
+ * {@code vector_store_staging} first. {@link #publish} then moves them into
+ * {@code vector_store}, deletes the chunks the new version no longer has and
+ * updates the metadata of the chunks it kept, all in one transaction, so
+ * searches see either the old or the new version of the document, never a mix.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Repository
+public class StagedChunkRepository {
+
+    /**
+     * A chunk of a document in {@code vector_store}.
+     *
+     * @param id          The chunk id
+     * @param contentHash Hex SHA-256 of the chunk text
+     * @param metadata    The chunk metadata, as JSON
+     */
+    public record StoredChunk(String id, String contentHash, String metadata) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public StagedChunkRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @param documentId The document ID
+     * @return The chunks of the document, with the hash of their text
+     */
+    public List<StoredChunk> findChunks(String documentId) {
+        String sql = """
+            SELECT id, encode(sha256(convert_to(content, 'UTF8')), 'hex') AS content_hash, metadata::text AS metadata
+            FROM vector_store
+            WHERE document_id = ?::uuid
+            """;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new StoredChunk(rs.getString("id"),
+                rs.getString("content_hash"), rs.getString("metadata")), documentId);
+    }
+
+    /**
+     * Deletes the chunks staged for a document by an update that did not complete.
+     *
+     * @param documentId The document ID
+     */
+    public void clearStaged(String documentId) {
+        jdbcTemplate.update("DELETE FROM vector_store_staging WHERE document_id = ?::uuid", documentId);
+    }
+
+    /**
+     * Replaces the visible version of a document in one transaction.
+     *
+     * @param documentId      The document ID
+     * @param removedChunkIds Chunks of the old version to delete
+     * @param keptMetadata    New JSON metadata of kept chunks whose position or pages changed, by chunk id
+     */
+    public void publish(String documentId, List<String> removedChunkIds, Map<String, String> keptMetadata) {
+        UUID[] removed = removedChunkIds.stream().map(UUID::fromString).toArray(UUID[]::new);
+        List<Object[]> metadataUpdates = keptMetadata.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM vector_store WHERE id = ANY(?)",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", removed)));
+            jdbcTemplate.batchUpdate("UPDATE vector_store SET metadata = ?::json WHERE id = ?::uuid", metadataUpdates);
+            jdbcTemplate.update("""
+                INSERT INTO vector_store (id, content, metadata, embedding)
+                SELECT id, content, metadata, embedding FROM vector_store_staging WHERE document_id = ?::uuid
+                """, documentId);
+            clearStaged(documentId);
+        });
+    }
+}
@@ -0,0 +1,216 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import com.knuddels.jtokkit.api.IntArrayList;
+
+/**
+ * Splits a stream of pages into token-sized chunks, one chunk at a time.
+ *
+ * <p>Unlike {@code TokenTextSplitter}, which splits each page on its own and
+ * needs every page up front, this chunker keeps a rolling token buffer across
+ * pages: text left over at the end of a page is continued on the next page
+ * instead of becoming a tiny chunk, and consecutive chunks share
+ * {@code overlapTokens} tokens even when they straddle a page boundary. Only
+ * the current page and a partial chunk are held in memory.
+ *
+ * <p>Like {@code TokenTextSplitter}, a chunk is cut at the last sentence or line
+ * break after {@code minChunkChars} characters, when there is one. Each chunk
+ * inherits the metadata of the page it starts on, plus
+ * {@code end_page_number} when it continues onto later pages.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public class StreamingTokenChunker implements Iterator<Document> {
+
+    private static final Encoding ENCODING = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+
+    private record PageMarker(int offset, Map<String, Object> metadata) {
+    }
+
+    private final Iterator<Document> pages;
+    private final int chunkSize;
+    private final int overlapTokens;
+    private final int minChunkChars;
+
+    private final Deque<PageMarker> pageMarkers = new ArrayDeque<>();
+    private final Deque<Document> ready = new ArrayDeque<>();
+    private int[] tokens = new int[4096];
+    private int length;
+    private int start;
+    private int consumedEnd;
+    private boolean finished;
+
+    /**
+     * @param pages         The pages to chunk, in page order
+     * @param chunkSize     Maximum tokens per chunk
+     * @param overlapTokens Tokens repeated at the start of the next chunk
+     * @param minChunkChars Minimum characters before a chunk may be cut at a sentence boundary
+     */
+    public StreamingTokenChunker(Iterator<Document> pages, int chunkSize, int overlapTokens, int minChunkChars) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.pages = pages;
+        this.chunkSize = chunkSize;
+        this.overlapTokens = Math.clamp(overlapTokens, 0, chunkSize - 1);
+        this.minChunkChars = minChunkChars;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (ready.isEmpty() && !finished) {
+            if (pages.hasNext()) {
+                append(pages.next());
+                while (length - start >= chunkSize) {
+                    emitChunk(start + chunkSize, true);
+                }
+            } else {
+                while (length > consumedEnd) {
+                    boolean fullWindow = length - start >= chunkSize;
+                    emitChunk(fullWindow ? start + chunkSize : length, fullWindow);
+                }
+                finished = true;
+            }
+        }
+        return !ready.isEmpty();
+    }
+
+    @Override
+    public Document next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return ready.poll();
+    }
+
+    private void append(Document page) {
+        String text = page.getText();
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        if (!Character.isWhitespace(text.charAt(text.length() - 1))) {
+            text = text + "\n";
+        }
+
+        compact();
+        IntArrayList encoded = ENCODING.encode(text);
+        ensureCapacity(length + encoded.size());
+        pageMarkers.addLast(new PageMarker(length, page.getMetadata()));
+        for (int i = 0; i < encoded.size(); i++) {
+            tokens[length++] = encoded.get(i);
+        }
+    }
+
+    /**
+     * Emits the chunk starting at {@code start} and ending at most at {@code windowEnd}.
+     */
+    private void emitChunk(int windowEnd, boolean cutAtBoundary) {
+        String windowText = decode(start, windowEnd);
+        String chunkText = windowText;
+        int chunkEnd = windowEnd;
+
+        if (cutAtBoundary) {
+            int boundary = lastBoundary(windowText);
+            if (boundary > minChunkChars) {
+                String cut = windowText.substring(0, boundary + 1);
+                int cutEnd = start + ENCODING.countTokens(cut);
+                if (cutEnd > consumedEnd && cutEnd < windowEnd) {
+                    chunkText = cut;
+                    chunkEnd = cutEnd;
+                }
+            }
+        }
+
+        String content = chunkText.strip();
+        if (!content.isEmpty()) {
+            ready.add(new Document(content, chunkMetadata(start, chunkEnd)));
+        }
+
+        consumedEnd = chunkEnd;
+        start = chunkEnd >= length ? chunkEnd : Math.max(chunkEnd - overlapTokens, start + 1);
+    }
+
+    private Map<String, Object> chunkMetadata(int chunkStart, int chunkEnd) {
+        PageMarker first = null;
+        PageMarker last = null;
+        for (PageMarker marker : pageMarkers) {
+            if (marker.offset() <= chunkStart || first == null) {
+                first = marker;
+            }
+            if (marker.offset() < chunkEnd) {
+                last = marker;
+            }
+        }
+
+        Map<String, Object> metadata = new HashMap<>(first.metadata());
+        Object endPage = last.metadata().get(PagePdfDocumentReader.METADATA_START_PAGE_NUMBER);
+        if (endPage != null && !endPage.equals(metadata.get(PagePdfDocumentReader.METADATA_START_PAGE_NUMBER))) {
+            metadata.put(PagePdfDocumentReader.METADATA_END_PAGE_NUMBER, endPage);
+        }
+        return metadata;
+    }
+
+    private String decode(int from, int to) {
+        IntArrayList window = new IntArrayList(to - from);
+        for (int i = from; i < to; i++) {
+            window.add(tokens[i]);
+        }
+        return ENCODING.decode(window);
+    }
+
+    private static int lastBoundary(String text) {
+        return Math.max(
+                Math.max(text.lastIndexOf('.'), text.lastIndexOf('?')),
+                Math.max(text.lastIndexOf('!'), text.lastIndexOf('\n')));
+    }
+
+    /**
+     * Drops tokens and page markers that no future chunk can reach.
+     */
+    private void compact() {
+        if (start == 0) {
+            return;
+        }
+        while (pageMarkers.size() > 1 && secondMarkerOffset() <= start) {
+            pageMarkers.removeFirst();
+        }
+
+        int shift = start;
+        System.arraycopy(tokens, shift, tokens, 0, length - shift);
+        length -= shift;
+        start = 0;
+        consumedEnd = Math.max(0, consumedEnd - shift);
+
+        int markers = pageMarkers.size();
+        for (int i = 0; i < markers; i++) {
+            PageMarker marker = pageMarkers.removeFirst();
+            pageMarkers.addLast(new PageMarker(Math.max(0, marker.offset() - shift), marker.metadata()));
+        }
+    }
+
+    private int secondMarkerOffset() {
+        Iterator<PageMarker> iterator = pageMarkers.iterator();
+        iterator.next();
+        return iterator.next().offset();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > tokens.length) {
+            tokens = Arrays.copyOf(tokens, Math.max(capacity, tokens.length * 2));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.loiane.api_ai.rag.maintenance;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import com.loiane.api_ai.rag.DocumentRepository;
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.event.DocumentChangedEvent;
+import com.loiane.api_ai.rag.model.BulkDeleteRequest;
+import com.loiane.api_ai.rag.model.DeletionJob;
+import com.loiane.api_ai.rag.model.DocumentMetadata;
+import com.loiane.api_ai.rag.storage.DocumentBlobs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Deletes documents together with their vectors and uploaded files.
+ *
+ * <p>Vectors are deleted through the indexed {@code document_id} column in
+ * batches ({@link VectorMaintenanceRepository}), then the metadata rows, then
+ * the files no other document shares ({@link DocumentBlobs}). A document whose vectors could not all be deleted keeps its
+ * metadata row, so the delete can be retried; vectors left behind by an
+ * interrupted delete are collected by the {@link VectorMaintenanceJob}.
+ *
+ * <p>Bulk deletes select the documents when submitted and run as a
+ * {@link DeletionJob} on a single background thread, a group of documents at
+ * a time. Jobs are kept in memory for status lookups: all unfinished jobs, and
+ * the most recent finished ones.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Service
+public class DocumentDeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentDeletionService.class);
+
+    // Documents deleted per group; their metadata rows are deleted in one statement
+    private static final int DOCUMENTS_PER_GROUP = 100;
+    private static final int MAX_RETAINED_JOBS = 100;
+
+    private final DocumentRepository documentRepository;
+    private final VectorMaintenanceRepository vectorMaintenanceRepository;
+    private final DocumentBlobs documentBlobs;
+    private final DocumentProperties documentProperties;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("rag-delete").daemon(true).factory());
+    // In submission order, so the oldest finished jobs are evicted first
+    private final Map<String, DeletionJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    public DocumentDeletionService(DocumentRepository documentRepository,
+                                   VectorMaintenanceRepository vectorMaintenanceRepository,
+                                   DocumentBlobs documentBlobs,
+                                   DocumentProperties documentProperties,
+                                   MeterRegistry meterRegistry,
+                                   ApplicationEventPublisher eventPublisher) {
+        this.documentRepository = documentRepository;
+        this.vectorMaintenanceRepository = vectorMaintenanceRepository;
+        this.documentBlobs = documentBlobs;
+        this.documentProperties = documentProperties;
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Starts deleting the documents matching the request in the background.
+     *
+     * @param request The criteria the documents must all match
+     * @return The queued job
+     * @throws IllegalArgumentException if the request has no criteria or an ID is not a UUID
+     */
+    public DeletionJob submit(BulkDeleteRequest request) {
+        if (request.isEmpty()) {
+            throw new IllegalArgumentException("A bulk delete needs ids, a status or an upload date");
+        }
+        List<DocumentMetadata> documents = documentRepository.findForDeletion(request.ids(), request.status(),
+                request.uploadedBefore());
+        DeletionJob job = new DeletionJob(UUID.randomUUID().toString(), DeletionJob.Status.QUEUED,
+                documents.size(), 0, 0, LocalDateTime.now(), null, null);
+        track(job);
+        executor.execute(() -> run(job.id(), documents));
+        log.info("Queued bulk delete: job={}, documents={}", job.id(), documents.size());
+        return job;
+    }
+
+    /**
+     * @param jobId The job ID
+     * @return The job, if it is unfinished or one of the most recent finished ones
+     */
+    public Optional<DeletionJob> findJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Deletes documents with their vectors and files on the calling thread.
+     *
+     * @param documents The documents
+     * @return Number of vectors deleted
+     */
+    public long delete(List<DocumentMetadata> documents) {
+        List<String> ids = documents.stream().map(DocumentMetadata::id).toList();
+        long vectors = vectorMaintenanceRepository.deleteByDocumentIds(ids,
+                documentProperties.getMaintenance().getDeleteBatchSize());
+        documentRepository.deleteByIds(ids);
+        for (DocumentMetadata document : documents) {
+            documentBlobs.release(document);
+            eventPublisher.publishEvent(new DocumentChangedEvent(document.id()));
+        }
+        meterRegistry.counter("rag.maintenance.vectors.deleted", "reason", "delete").increment(vectors);
+        meterRegistry.counter("rag.maintenance.documents.deleted").increment(documents.size());
+        log.info("Deleted {} documents and {} vectors", documents.size(), vectors);
+        return vectors;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Documents not deleted yet keep their rows; vectors already deleted are gone for good
+        executor.shutdownNow();
+    }
+
+    /**
+     * Adds a job, then evicts the oldest finished jobs beyond {@code MAX_RETAINED_JOBS}.
+     * Unfinished jobs are never evicted, so their status stays available.
+     */
+    private void track(DeletionJob job) {
+        synchronized (jobs) {
+            jobs.put(job.id(), job);
+            Iterator<DeletionJob> oldest = jobs.values().iterator();
+            while (jobs.size() > MAX_RETAINED_JOBS && oldest.hasNext()) {
+                if (oldest.next().finishedAt() != null) {
+                    oldest.remove();
+                }
+            }
+        }
+    }
+
+    private void run(String jobId, List<DocumentMetadata> documents) {
+        jobs.computeIfPresent(jobId, (_, job) -> job.progressed(0, 0));
+        try {
+            for (int from = 0; from < documents.size(); from += DOCUMENTS_PER_GROUP) {
+                List<DocumentMetadata> group = documents.subList(from,
+                        Math.min(from + DOCUMENTS_PER_GROUP, documents.size()));
+                long vectors = delete(group);
+                jobs.computeIfPresent(jobId, (_, job) -> job.progressed(group.size(), vectors));
+            }
+            jobs.computeIfPresent(jobId, (_, job) -> job.finished(DeletionJob.Status.COMPLETED, null));
+        } catch (Exception e) {
+            log.error("Bulk delete failed: job={}, error={}", jobId, e.getMessage(), e);
+            jobs.computeIfPresent(jobId, (_, job) -> job.finished(DeletionJob.Status.FAILED, e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.loiane.api_ai.rag.maintenance;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.loiane.api_ai.rag.DocumentRepository;
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.model.DocumentStatus;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Periodically reconciles {@code vector_store} with {@code documents} and
+ * reclaims the space of deleted vectors.
+ *
+ * <p>Each run, every {@code app.documents.maintenance.interval}:
+ * <ol>
+ *   <li>Deletes orphaned vectors, whose document no longer exists, and vectors
+ *       staged by document updates that were interrupted</li>
+ *   <li>Marks READY documents that have lost their vectors as ERROR, so they can be
+ *       resumed; documents whose PDF yielded no chunks are left READY</li>
+ *   <li>Runs {@code VACUUM (ANALYZE)} on {@code vector_store}</li>
+ *   <li>Rebuilds its indexes with {@code REINDEX CONCURRENTLY} once at least
+ *       {@code app.documents.maintenance.reindex-min-deleted-rows} rows were
+ *       deleted since the last rebuild, as HNSW indexes degrade with deletes</li>
+ * </ol>
+ *
+ * <p>Reclaimed vectors and bytes are reported as the
+ * {@code rag.maintenance.vectors.deleted}, {@code rag.maintenance.documents.orphaned}
+ * and {@code rag.maintenance.bytes.reclaimed} counters.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Component
+public class VectorMaintenanceJob {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorMaintenanceJob.class);
+
+    static final String MISSING_VECTORS_MESSAGE = "No vectors found for this document; resume it to re-ingest";
+
+    /**
+     * Outcome of one maintenance run.
+     *
+     * @param orphanedVectorsDeleted Vectors deleted because their document no longer exists
+     * @param stagedVectorsDeleted   Staged vectors deleted because their document update was interrupted
+     * @param documentsWithoutVectors READY documents marked ERROR because they have no vectors
+     * @param reindexed              Whether the indexes were rebuilt
+     * @param bytesReclaimed         Decrease in the size of {@code vector_store} on disk, 0 if it grew
+     */
+    public record MaintenanceReport(long orphanedVectorsDeleted, int stagedVectorsDeleted,
+                                    int documentsWithoutVectors, boolean reindexed, long bytesReclaimed) {
+    }
+
+    private final VectorMaintenanceRepository vectorMaintenanceRepository;
+    private final DocumentRepository documentRepository;
+    private final DocumentProperties documentProperties;
+    private final MeterRegistry meterRegistry;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("rag-maintenance").daemon(true).factory());
+    // Deleted rows reported by PostgreSQL when the indexes were last rebuilt by this instance
+    private long deletedRowsAtLastReindex;
+
+    public VectorMaintenanceJob(VectorMaintenanceRepository vectorMaintenanceRepository,
+                                DocumentRepository documentRepository, DocumentProperties documentProperties,
+                                MeterRegistry meterRegistry) {
+        this.vectorMaintenanceRepository = vectorMaintenanceRepository;
+        this.documentRepository = documentRepository;
+        this.documentProperties = documentProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Schedules the runs, the first one interval after startup, unless the interval is zero.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Duration interval = documentProperties.getMaintenance().getInterval();
+        if (interval.isZero() || interval.isNegative()) {
+            log.info("Vector store maintenance is disabled");
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                run();
+            } catch (Exception e) {
+                // A failed run must not cancel the next ones
+                log.error("Vector store maintenance failed: {}", e.getMessage(), e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs the maintenance once on the calling thread.
+     *
+     * @return What was cleaned up
+     */
+    public synchronized MaintenanceReport run() {
+        long startedAt = System.nanoTime();
+        long bytesBefore = vectorMaintenanceRepository.totalBytes();
+
+        List<String> orphanedDocumentIds = vectorMaintenanceRepository.findOrphanedDocumentIds();
+        long orphanedVectors = vectorMaintenanceRepository.deleteByDocumentIds(orphanedDocumentIds,
+                documentProperties.getMaintenance().getDeleteBatchSize());
+        int stagedVectors = vectorMaintenanceRepository.deleteAbandonedStagedVectors();
+
+        List<String> documentsWithoutVectors = vectorMaintenanceRepository.findReadyDocumentsWithoutVectors();
+        for (String documentId : documentsWithoutVectors) {
+            documentRepository.updateStatusWithError(documentId, DocumentStatus.ERROR, MISSING_VECTORS_MESSAGE);
+        }
+
+        vectorMaintenanceRepository.vacuum();
+        boolean reindexed = false;
+        long deletedRows = vectorMaintenanceRepository.deletedRows();
+        if (deletedRows - deletedRowsAtLastReindex >= documentProperties.getMaintenance().getReindexMinDeletedRows()) {
+            vectorMaintenanceRepository.reindex();
+            deletedRowsAtLastReindex = deletedRows;
+            reindexed = true;
+        }
+        long bytesReclaimed = Math.max(0, bytesBefore - vectorMaintenanceRepository.totalBytes());
+
+        meterRegistry.counter("rag.maintenance.vectors.deleted", "reason", "orphan").increment(orphanedVectors);
+        meterRegistry.counter("rag.maintenance.vectors.deleted", "reason", "staged").increment(stagedVectors);
+        meterRegistry.counter("rag.maintenance.documents.orphaned").increment(documentsWithoutVectors.size());
+        meterRegistry.counter("rag.maintenance.bytes.reclaimed").increment(bytesReclaimed);
+        meterRegistry.timer("rag.maintenance.duration").record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        log.info("Vector store maintenance: orphanedVectors={}, stagedVectors={}, documentsWithoutVectors={}, "
+                        + "reindexed={}, bytesReclaimed={}", orphanedVectors, stagedVectors,
+                documentsWithoutVectors.size(), reindexed, bytesReclaimed);
+        return new MaintenanceReport(orphanedVectors, stagedVectors, documentsWithoutVectors.size(), reindexed,
+                bytesReclaimed);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,135 @@
+package com.loiane.api_ai.rag.maintenance;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Bulk deletes and maintenance statements on the {@code vector_store} table.
+ *
+ * <p>Deletes go through the indexed {@code document_id} column rather than a
+ * filter over the JSON {@code metadata}, and remove at most a batch of rows per
+ * statement, so each statement is short and a large delete never holds its
+ * locks for long.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Repository
+public class VectorMaintenanceRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public VectorMaintenanceRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Deletes every vector of the documents, one batch per statement.
+     *
+     * @param documentIds The document IDs
+     * @param batchSize   Maximum vectors deleted per statement
+     * @return Number of vectors deleted
+     */
+    public long deleteByDocumentIds(List<String> documentIds, int batchSize) {
+        if (documentIds.isEmpty()) {
+            return 0;
+        }
+        String sql = """
+            DELETE FROM vector_store
+            WHERE id IN (SELECT id FROM vector_store WHERE document_id = ANY(?) LIMIT ?)
+            """;
+        UUID[] uuids = documentIds.stream().map(UUID::fromString).toArray(UUID[]::new);
+        long deleted = 0;
+        int batch;
+        do {
+            batch = jdbcTemplate.update(sql, ps -> {
+                ps.setArray(1, ps.getConnection().createArrayOf("uuid", uuids));
+                ps.setInt(2, batchSize);
+            });
+            deleted += batch;
+        } while (batch == batchSize);
+        return deleted;
+    }
+
+    /**
+     * @return IDs of documents that still have vectors but no {@code documents} row,
+     *         left by a delete that failed half-way or a document deleted while being ingested
+     */
+    public List<String> findOrphanedDocumentIds() {
+        String sql = """
+            SELECT DISTINCT v.document_id
+            FROM vector_store v
+            WHERE v.document_id IS NOT NULL
+              AND NOT EXISTS (SELECT 1 FROM documents d WHERE d.id = v.document_id)
+            """;
+        return jdbcTemplate.queryForList(sql, String.class);
+    }
+
+    /**
+     * Deletes the vectors staged by document updates that are no longer running,
+     * left behind by a restart during an update.
+     *
+     * @return Number of staged vectors deleted
+     */
+    public int deleteAbandonedStagedVectors() {
+        String sql = """
+            DELETE FROM vector_store_staging s
+            WHERE NOT EXISTS (SELECT 1 FROM documents d WHERE d.id = s.document_id AND d.status = 'PROCESSING')
+            """;
+        return jdbcTemplate.update(sql);
+    }
+
+    /**
+     * Documents whose PDF yielded no chunks, such as scanned pages without text,
+     * are READY with a chunk count of 0 and are not returned. Documents ingested
+     * before chunk counts were recorded have none and are checked.
+     *
+     * @return IDs of READY documents that have lost their vectors, so cannot be searched
+     */
+    public List<String> findReadyDocumentsWithoutVectors() {
+        String sql = """
+            SELECT d.id
+            FROM documents d
+            WHERE d.status = 'READY'
+              AND (d.chunk_count IS NULL OR d.chunk_count > 0)
+              AND NOT EXISTS (SELECT 1 FROM vector_store v WHERE v.document_id = d.id)
+            """;
+        return jdbcTemplate.queryForList(sql, String.class);
+    }
+
+    /**
+     * @return Size of {@code vector_store} on disk, including its indexes and TOAST data
+     */
+    public long totalBytes() {
+        Long bytes = jdbcTemplate.queryForObject("SELECT pg_total_relation_size('vector_store')", Long.class);
+        return bytes != null ? bytes : 0L;
+    }
+
+    /**
+     * @return Rows deleted from {@code vector_store} since the statistics were last reset
+     */
+    public long deletedRows() {
+        Long rows = jdbcTemplate.queryForObject(
+                "SELECT coalesce(sum(n_tup_del), 0) FROM pg_stat_user_tables WHERE relname = 'vector_store'",
+                Long.class);
+        return rows != null ? rows : 0L;
+    }
+
+    /**
+     * Marks the space of deleted rows reusable and refreshes the planner statistics.
+     */
+    public void vacuum() {
+        jdbcTemplate.execute("VACUUM (ANALYZE) vector_store");
+    }
+
+    /**
+     * Rebuilds every index of {@code vector_store} without blocking writes,
+     * dropping the entries of deleted rows that HNSW indexes otherwise keep.
+     */
+    public void reindex() {
+        jdbcTemplate.execute("REINDEX TABLE CONCURRENTLY vector_store");
+    }
+}
@@ -0,0 +1,22 @@
+package com.loiane.api_ai.rag.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Request payload for deleting many documents at once. The criteria that are
+ * set are combined, so a document must match all of them; at least one is required.
+ *
+ * @param ids            optional ids of the documents to delete
+ * @param status         optional status of the documents to delete, e.g. ERROR
+ * @param uploadedBefore optional upload date the documents to delete are older than
+ */
+public record BulkDeleteRequest(List<String> ids, DocumentStatus status, LocalDateTime uploadedBefore) {
+
+    /**
+     * @return Whether no criterion is set, which would match every document
+     */
+    public boolean isEmpty() {
+        return (ids == null || ids.isEmpty()) && status == null && uploadedBefore == null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.loiane.api_ai.rag.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk document deletion running in the background.
+ *
+ * @param id               the job id
+ * @param status           QUEUED, RUNNING, COMPLETED or FAILED
+ * @param documents        number of documents matched by the request
+ * @param documentsDeleted number of documents deleted so far
+ * @param vectorsDeleted   number of chunk vectors deleted so far
+ * @param createdAt        when the job was submitted
+ * @param finishedAt       when the job completed or failed, null while it runs
+ * @param errorMessage     why the job failed, null otherwise
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public record DeletionJob(
+    String id,
+    Status status,
+    int documents,
+    int documentsDeleted,
+    long vectorsDeleted,
+    LocalDateTime createdAt,
+    LocalDateTime finishedAt,
+    String errorMessage
+) {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * @return This job with more documents and vectors deleted
+     */
+    public DeletionJob progressed(int documentsDeleted, long vectorsDeleted) {
+        return new DeletionJob(id, Status.RUNNING, documents, this.documentsDeleted + documentsDeleted,
+                this.vectorsDeleted + vectorsDeleted, createdAt, null, null);
+    }
+
+    /**
+     * @return This job finished with the given status
+     */
+    public DeletionJob finished(Status status, String errorMessage) {
+        return new DeletionJob(id, status, documents, documentsDeleted, vectorsDeleted, createdAt,
+                LocalDateTime.now(), errorMessage);
+    }
+}
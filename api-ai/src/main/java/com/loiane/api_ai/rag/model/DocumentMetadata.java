@@ -16,6 +16,8 @@ import java.time.LocalDateTime;
  * @param uploadDate Timestamp when the document was uploaded
  * @param status Current processing status of the document
  * @param errorMessage Error message if status is ERROR, null otherwise
+ * @param contentHash Hex SHA-256 of the file, which is also its storage key; null for
+ *                    documents uploaded before files were content-addressed
  * 
  * @author Loiane Groner
  * @since 1.0
@@ -27,8 +29,26 @@ public record DocumentMetadata(
     Long fileSize,
     LocalDateTime uploadDate,
     DocumentStatus status,
-    String errorMessage
+    String errorMessage,
+    String contentHash
 ) {
+    /**
+     * Creates a new DocumentMetadata without a content hash.
+     *
+     * @param id Unique identifier
+     * @param filename Original filename
+     * @param contentType MIME type
+     * @param fileSize Size in bytes
+     * @param uploadDate Upload timestamp
+     * @param status Processing status
+     * @param errorMessage Error message, or null
+     */
+    public DocumentMetadata(String id, String filename, String contentType,
+                   Long fileSize, LocalDateTime uploadDate,
+                   DocumentStatus status, String errorMessage) {
+        this(id, filename, contentType, fileSize, uploadDate, status, errorMessage, null);
+    }
+
     /**
      * Creates a new DocumentMetadata without an error message.
      * Convenience constructor for successful documents.
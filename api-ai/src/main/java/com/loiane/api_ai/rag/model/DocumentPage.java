@@ -0,0 +1,74 @@
+package com.loiane.api_ai.rag.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A page of documents, most recently uploaded first.
+ *
+ * @param documents  the documents of this page
+ * @param nextCursor cursor of the next page, null on the last page
+ * @param total      number of documents matching the filters
+ * @param totalExact whether {@code total} was counted, rather than estimated
+ *                   (for large tables) or capped (for large filtered results)
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public record DocumentPage(
+    List<DocumentSummary> documents,
+    String nextCursor,
+    long total,
+    boolean totalExact
+) {
+
+    /**
+     * Position after the last document of a page, in {@code (upload_date, id)} order.
+     *
+     * @param uploadDate upload date of the last document
+     * @param id         id of the last document
+     */
+    public record Cursor(LocalDateTime uploadDate, String id) {
+
+        /**
+         * @return The cursor of the page after the given document
+         */
+        public static Cursor after(DocumentSummary document) {
+            return new Cursor(document.uploadDate(), document.id());
+        }
+
+        /**
+         * Decodes a cursor returned as {@code nextCursor}.
+         *
+         * @param encoded The encoded cursor
+         * @return The cursor
+         * @throws IllegalArgumentException if the cursor is malformed
+         */
+        public static Cursor decode(String encoded) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+                int separator = decoded.indexOf('|');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Malformed cursor: " + encoded);
+                }
+                String id = decoded.substring(separator + 1);
+                UUID.fromString(id);
+                return new Cursor(LocalDateTime.parse(decoded.substring(0, separator)), id);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Malformed cursor: " + encoded, e);
+            }
+        }
+
+        /**
+         * @return The cursor as an opaque, URL-safe string
+         */
+        public String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((uploadDate + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
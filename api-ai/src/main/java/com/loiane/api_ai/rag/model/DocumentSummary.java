@@ -0,0 +1,27 @@
+package com.loiane.api_ai.rag.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A document as listed by {@code GET /api/rag/documents}: the columns needed to
+ * show and select it, without its error message or content hash.
+ *
+ * @param id          the document id
+ * @param filename    original filename of the uploaded document
+ * @param contentType MIME type of the document
+ * @param fileSize    size of the file in bytes
+ * @param uploadDate  when the document was uploaded
+ * @param status      current processing status
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public record DocumentSummary(
+    String id,
+    String filename,
+    String contentType,
+    Long fileSize,
+    LocalDateTime uploadDate,
+    DocumentStatus status
+) {
+}
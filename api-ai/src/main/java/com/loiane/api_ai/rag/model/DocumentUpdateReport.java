@@ -0,0 +1,26 @@
+package com.loiane.api_ai.rag.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of re-ingesting a document after its PDF was replaced.
+ *
+ * @param documentId      the document id
+ * @param chunksReused    chunks whose text was unchanged, kept with their stored embedding
+ * @param chunksEmbedded  new or changed chunks that were embedded
+ * @param chunksDeleted   chunks of the previous version that are gone
+ * @param pagesReembedded pages with at least one embedded chunk
+ * @param finishedAt      when the new version became searchable
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public record DocumentUpdateReport(
+    String documentId,
+    int chunksReused,
+    int chunksEmbedded,
+    int chunksDeleted,
+    int pagesReembedded,
+    LocalDateTime finishedAt
+) {
+}
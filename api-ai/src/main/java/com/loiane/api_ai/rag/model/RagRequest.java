@@ -5,6 +5,12 @@ package com.loiane.api_ai.rag.model;
  *
  * @param question   the question to ask
  * @param documentId optional document id to scope retrieval to a single document
+ * @param evaluate   when true, relevancy is evaluated before responding and returned in
+ *                   {@link RagResponse#relevant()}; otherwise it is sampled in the background
  */
-public record RagRequest(String question, String documentId) {
+public record RagRequest(String question, String documentId, boolean evaluate) {
+
+    public RagRequest(String question, String documentId) {
+        this(question, documentId, false);
+    }
 }
@@ -0,0 +1,13 @@
+package com.loiane.api_ai.rag.model;
+
+/**
+ * Result of an upload.
+ *
+ * @param document  The queued document, or the existing document with the same content
+ * @param duplicate Whether an identical file was already uploaded, so nothing was queued
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public record UploadResult(DocumentMetadata document, boolean duplicate) {
+}
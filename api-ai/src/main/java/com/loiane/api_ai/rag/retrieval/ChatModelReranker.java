@@ -0,0 +1,105 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.document.Document;
+
+/**
+ * Reranker that asks the chat model to rate each candidate's relevance.
+ *
+ * <p>All candidates are rated in a single call, each shortened to
+ * {@value #MAX_PASSAGE_CHARS} characters. The model replies with one
+ * {@code <passage>: <score>} line per passage, on a 0 to 10 scale; passages it
+ * does not rate score 0. If the call fails or no score can be parsed, the
+ * candidates are returned in their retrieval order, so reranking never fails
+ * a question.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public class ChatModelReranker implements Reranker {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatModelReranker.class);
+
+    static final int MAX_PASSAGE_CHARS = 1000;
+
+    private static final Pattern SCORE_LINE = Pattern.compile("(?m)^\\s*\\[?(\\d{1,4})]?\\s*[:=-]\\s*(\\d+(?:\\.\\d+)?)");
+
+    private static final String PROMPT = """
+            Rate how relevant each passage below is to answering the question, from 0 (irrelevant)
+            to 10 (answers it directly). Reply with one line per passage in the form
+            "<passage number>: <score>" and nothing else.
+
+            Question: %s
+
+            %s
+            """;
+
+    private final ChatClient chatClient;
+
+    public ChatModelReranker(ChatClient.Builder chatClientBuilder) {
+        this.chatClient = chatClientBuilder.build();
+    }
+
+    @Override
+    public List<Document> rerank(String question, List<Document> candidates) {
+        if (candidates.size() < 2) {
+            return candidates;
+        }
+
+        StringBuilder passages = new StringBuilder();
+        for (int i = 0; i < candidates.size(); i++) {
+            String text = candidates.get(i).getText();
+            if (text.length() > MAX_PASSAGE_CHARS) {
+                text = text.substring(0, MAX_PASSAGE_CHARS);
+            }
+            passages.append("[").append(i + 1).append("] ").append(text).append("\n\n");
+        }
+
+        String reply;
+        try {
+            reply = chatClient.prompt().user(PROMPT.formatted(question, passages)).call().content();
+        } catch (RuntimeException e) {
+            log.warn("Reranking failed, keeping the retrieval order: {}", e.getMessage());
+            return candidates;
+        }
+
+        double[] scores = parseScores(reply, candidates.size());
+        if (scores == null) {
+            log.warn("Could not parse reranking scores, keeping the retrieval order");
+            return candidates;
+        }
+
+        List<Document> reranked = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            reranked.add(candidates.get(i).mutate().score(scores[i]).build());
+        }
+        // List.sort is stable, so equal scores keep the retrieval order
+        reranked.sort(Comparator.comparing(Document::getScore, Comparator.reverseOrder()));
+        return reranked;
+    }
+
+    private static double[] parseScores(String reply, int passages) {
+        if (reply == null) {
+            return null;
+        }
+        double[] scores = new double[passages];
+        boolean parsed = false;
+        Matcher matcher = SCORE_LINE.matcher(reply);
+        while (matcher.find()) {
+            int passage = Integer.parseInt(matcher.group(1)) - 1;
+            if (passage >= 0 && passage < passages) {
+                scores[passage] = Double.parseDouble(matcher.group(2));
+                parsed = true;
+            }
+        }
+        return parsed ? scores : null;
+    }
+}
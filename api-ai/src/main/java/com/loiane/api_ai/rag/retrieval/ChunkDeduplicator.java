@@ -0,0 +1,126 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.ai.document.Document;
+
+/**
+ * Drops retrieved chunks that mostly repeat a better ranked chunk.
+ *
+ * <p>Consecutive chunks of a document share their overlap tokens, and a page
+ * split across chunks can yield two chunks covering nearly the same text.
+ * A chunk is dropped when a better ranked chunk of the same document is
+ * adjacent to it (consecutive {@code chunk_index}, or when chunks have no index,
+ * the same or an adjacent {@code page_number}) and the share of its word
+ * trigrams found in that chunk reaches the threshold. Chunks with identical
+ * text are always dropped.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public final class ChunkDeduplicator {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int SHINGLE_WORDS = 3;
+
+    private ChunkDeduplicator() {
+    }
+
+    /**
+     * Removes near-duplicate adjacent chunks, keeping the better ranked one.
+     *
+     * @param ranked    The chunks, best first
+     * @param threshold Share of a chunk's trigrams repeated from an adjacent chunk at which it is dropped
+     * @return The remaining chunks, in their original order
+     */
+    public static List<Document> dedupe(List<Document> ranked, double threshold) {
+        List<Document> kept = new ArrayList<>(ranked.size());
+        List<Set<String>> keptShingles = new ArrayList<>(ranked.size());
+        Set<String> keptTexts = new HashSet<>();
+
+        for (Document candidate : ranked) {
+            String text = Objects.requireNonNullElse(candidate.getText(), "");
+            if (keptTexts.contains(text)) {
+                continue;
+            }
+            Set<String> shingles = shingles(text);
+            boolean duplicate = false;
+            for (int i = 0; i < kept.size() && !duplicate; i++) {
+                duplicate = adjacent(kept.get(i), candidate)
+                        && repeatedShare(shingles, keptShingles.get(i)) >= threshold;
+            }
+            if (!duplicate) {
+                kept.add(candidate);
+                keptShingles.add(shingles);
+                keptTexts.add(text);
+            }
+        }
+        return kept;
+    }
+
+    private static boolean adjacent(Document a, Document b) {
+        Object documentId = a.getMetadata().get("document_id");
+        if (documentId == null || !documentId.equals(b.getMetadata().get("document_id"))) {
+            return false;
+        }
+        Integer chunkA = intMetadata(a, "chunk_index");
+        Integer chunkB = intMetadata(b, "chunk_index");
+        if (chunkA != null && chunkB != null) {
+            return Math.abs(chunkA - chunkB) <= 1;
+        }
+        Integer pageA = intMetadata(a, "page_number");
+        Integer pageB = intMetadata(b, "page_number");
+        return pageA != null && pageB != null && Math.abs(pageA - pageB) <= 1;
+    }
+
+    static Integer intMetadata(Document document, String key) {
+        Object value = document.getMetadata().get(key);
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        if (value instanceof String string) {
+            try {
+                return Integer.valueOf(string);
+            } catch (NumberFormatException _) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static double repeatedShare(Set<String> candidate, Set<String> kept) {
+        if (candidate.isEmpty()) {
+            return 1.0;
+        }
+        int repeated = 0;
+        for (String shingle : candidate) {
+            if (kept.contains(shingle)) {
+                repeated++;
+            }
+        }
+        return (double) repeated / candidate.size();
+    }
+
+    private static Set<String> shingles(String text) {
+        String stripped = text.toLowerCase(Locale.ROOT).strip();
+        Set<String> shingles = new HashSet<>();
+        if (stripped.isEmpty()) {
+            return shingles;
+        }
+        List<String> words = List.of(WHITESPACE.split(stripped));
+        if (words.size() < SHINGLE_WORDS) {
+            shingles.add(String.join(" ", words));
+            return shingles;
+        }
+        for (int i = 0; i + SHINGLE_WORDS <= words.size(); i++) {
+            shingles.add(String.join(" ", words.subList(i, i + SHINGLE_WORDS)));
+        }
+        return shingles;
+    }
+}
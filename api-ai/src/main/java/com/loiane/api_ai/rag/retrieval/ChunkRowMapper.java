@@ -0,0 +1,42 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.springframework.ai.document.Document;
+import org.springframework.jdbc.core.RowMapper;
+
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Maps {@code vector_store} rows ({@code id}, {@code content}, {@code metadata})
+ * to chunks, with a score taken from a query-specific column.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+class ChunkRowMapper implements RowMapper<Document> {
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+    };
+
+    private final JsonMapper jsonMapper;
+    private final String scoreColumn;
+
+    ChunkRowMapper(JsonMapper jsonMapper, String scoreColumn) {
+        this.jsonMapper = jsonMapper;
+        this.scoreColumn = scoreColumn;
+    }
+
+    @Override
+    public Document mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return Document.builder()
+                .id(rs.getString("id"))
+                .text(rs.getString("content"))
+                .metadata(jsonMapper.readValue(rs.getString("metadata"), METADATA_TYPE))
+                .score(rs.getDouble(scoreColumn))
+                .build();
+    }
+}
@@ -0,0 +1,179 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Component;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Fits the retrieved chunks into the prompt's context token budget.
+ *
+ * <p>Chunks are taken in rank order until {@code app.documents.context.max-tokens}
+ * is reached. The chunk that crosses the budget is cut at the last sentence end
+ * within it, or left out when less than {@code min-chunk-tokens} would remain,
+ * and lower ranked chunks are dropped. Before that, consecutive chunks of the
+ * same page are merged into a single passage, at the rank of the better one,
+ * so their overlap is not sent twice.
+ *
+ * <p>The token count of every rendered prompt is recorded in the
+ * {@code rag.prompt.tokens} distribution summary.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Component
+public class ContextAssembler {
+
+    private static final Encoding ENCODING = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+
+    // Bounds of the overlap looked for between two consecutive chunks; shorter matches are coincidental
+    private static final int MIN_OVERLAP_CHARS = 20;
+    private static final int MAX_OVERLAP_CHARS = 4000;
+
+    private final DocumentProperties documentProperties;
+    private final DistributionSummary promptTokens;
+
+    public ContextAssembler(DocumentProperties documentProperties, MeterRegistry meterRegistry) {
+        this.documentProperties = documentProperties;
+        this.promptTokens = DistributionSummary.builder("rag.prompt.tokens")
+                .description("Tokens in the prompt sent to the chat model per question")
+                .baseUnit("tokens")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the retrieval context with its chunks merged and fitted to the token budget.
+     *
+     * @param context The retrieved chunks, best first
+     * @return A context whose chunks fit the budget, best first
+     */
+    public RetrievalContext assemble(RetrievalContext context) {
+        DocumentProperties.Context settings = documentProperties.getContext();
+        List<Document> passages = settings.isMergeAdjacent()
+                ? mergeAdjacent(context.documents())
+                : context.documents();
+
+        List<Document> fitted = new ArrayList<>(passages.size());
+        int remaining = settings.getMaxTokens();
+        for (Document passage : passages) {
+            String text = Objects.requireNonNullElse(passage.getText(), "");
+            int tokens = ENCODING.countTokens(text);
+            if (tokens <= remaining) {
+                fitted.add(passage);
+                remaining -= tokens;
+                continue;
+            }
+            if (remaining >= settings.getMinChunkTokens()) {
+                String truncated = truncate(text, remaining);
+                if (!truncated.isBlank()) {
+                    fitted.add(passage.mutate().text(truncated).build());
+                }
+            }
+            break;
+        }
+        return new RetrievalContext(context.question(), context.documentId(), fitted);
+    }
+
+    /**
+     * Records the token count of a rendered prompt.
+     *
+     * @param prompt The prompt sent to the chat model
+     * @return The number of tokens in the prompt
+     */
+    public int recordPrompt(String prompt) {
+        int tokens = ENCODING.countTokens(prompt);
+        promptTokens.record(tokens);
+        return tokens;
+    }
+
+    /**
+     * Merges chunks with consecutive {@code chunk_index} from the same page of the
+     * same document, keeping the rank and id of the best ranked one.
+     */
+    static List<Document> mergeAdjacent(List<Document> ranked) {
+        List<List<Document>> groups = new ArrayList<>();
+        for (Document chunk : ranked) {
+            List<Document> group = groups.stream()
+                    .filter(candidate -> candidate.stream().anyMatch(member -> adjacent(member, chunk)))
+                    .findFirst()
+                    .orElse(null);
+            if (group == null) {
+                groups.add(new ArrayList<>(List.of(chunk)));
+            } else {
+                group.add(chunk);
+            }
+        }
+
+        List<Document> merged = new ArrayList<>(groups.size());
+        for (List<Document> group : groups) {
+            if (group.size() == 1) {
+                merged.add(group.getFirst());
+                continue;
+            }
+            Document best = group.getFirst();
+            List<Document> inOrder = new ArrayList<>(group);
+            inOrder.sort(Comparator.comparing(ContextAssembler::chunkIndex));
+            StringBuilder text = new StringBuilder(inOrder.getFirst().getText());
+            for (int i = 1; i < inOrder.size(); i++) {
+                appendWithoutOverlap(text, inOrder.get(i).getText());
+            }
+            merged.add(best.mutate()
+                    .text(text.toString())
+                    .metadata(inOrder.getFirst().getMetadata())
+                    .build());
+        }
+        return merged;
+    }
+
+    private static boolean adjacent(Document a, Document b) {
+        Object documentId = a.getMetadata().get("document_id");
+        Object page = a.getMetadata().get("page_number");
+        Integer indexA = chunkIndex(a);
+        Integer indexB = chunkIndex(b);
+        return documentId != null && documentId.equals(b.getMetadata().get("document_id"))
+                && page != null && page.toString().equals(String.valueOf(b.getMetadata().get("page_number")))
+                && indexA != null && indexB != null && Math.abs(indexA - indexB) == 1;
+    }
+
+    private static Integer chunkIndex(Document document) {
+        return ChunkDeduplicator.intMetadata(document, "chunk_index");
+    }
+
+    /**
+     * Appends the next chunk, skipping its start when it repeats the end of the text.
+     */
+    private static void appendWithoutOverlap(StringBuilder text, String next) {
+        String current = text.toString();
+        int max = Math.min(Math.min(current.length(), next.length()), MAX_OVERLAP_CHARS);
+        for (int overlap = max; overlap >= MIN_OVERLAP_CHARS; overlap--) {
+            if (current.regionMatches(current.length() - overlap, next, 0, overlap)) {
+                text.append(next, overlap, next.length());
+                return;
+            }
+        }
+        text.append(System.lineSeparator()).append(next);
+    }
+
+    /**
+     * Cuts the text to at most {@code maxTokens} tokens, at the last sentence end
+     * when there is one in the second half of the cut.
+     */
+    private static String truncate(String text, int maxTokens) {
+        String cut = ENCODING.decode(ENCODING.encode(text, maxTokens).getTokens());
+        int sentenceEnd = Math.max(Math.max(cut.lastIndexOf(". "), cut.lastIndexOf(".\n")),
+                Math.max(cut.lastIndexOf("? "), cut.lastIndexOf("! ")));
+        return sentenceEnd >= cut.length() / 2 ? cut.substring(0, sentenceEnd + 1) : cut.strip();
+    }
+}
@@ -0,0 +1,136 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.embedding.PgVectorFormat;
+import com.loiane.api_ai.rag.embedding.QueryEmbeddingCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Vector search within a single document, planned by the document's size.
+ *
+ * <p>Filtering the global HNSW index by document after the fact returns fewer
+ * than K chunks when the document's chunks are a small fraction of the index.
+ * Instead, this search uses the typed, B-tree indexed {@code document_id}
+ * column of {@code vector_store}:
+ * <ul>
+ *   <li>Documents with at most {@code app.documents.retrieval.exact-search-max-chunks}
+ *       chunks are searched exactly: their chunks are fetched through the B-tree
+ *       index and sorted by distance, which is both faster and exact at that size.</li>
+ *   <li>Larger documents use the HNSW index with pgvector's iterative index scan,
+ *       which keeps scanning the graph until K chunks pass the filter.</li>
+ * </ul>
+ * Distances are cosine distances, matching the HNSW index in {@code pgvector.sql}.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Component
+public class DocumentScopedSearch {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentScopedSearch.class);
+
+    private static final String COUNT_SQL = """
+        SELECT count(*) FROM (
+            SELECT 1 FROM vector_store WHERE document_id = ?::uuid LIMIT ?
+        ) chunks
+        """;
+
+    // MATERIALIZED keeps the planner from ordering by distance through the HNSW index
+    private static final String EXACT_SQL = """
+        WITH chunks AS MATERIALIZED (
+            SELECT id, content, metadata, embedding FROM vector_store WHERE document_id = ?::uuid
+        )
+        SELECT id, content, metadata, 1 - (embedding <=> ?::vector) AS similarity
+        FROM chunks
+        ORDER BY embedding <=> ?::vector
+        LIMIT ?
+        """;
+
+    private static final String INDEXED_SQL = """
+        SELECT id, content, metadata, 1 - (embedding <=> ?::vector) AS similarity
+        FROM vector_store
+        WHERE document_id = ?::uuid
+        ORDER BY embedding <=> ?::vector
+        LIMIT ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EmbeddingModel embeddingModel;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final DocumentProperties documentProperties;
+    private final ChunkRowMapper rowMapper;
+    private final Counter exactPlans;
+    private final Counter indexedPlans;
+
+    public DocumentScopedSearch(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                EmbeddingModel embeddingModel, QueryEmbeddingCache queryEmbeddingCache,
+                                JsonMapper jsonMapper, DocumentProperties documentProperties,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.embeddingModel = embeddingModel;
+        this.queryEmbeddingCache = queryEmbeddingCache;
+        this.documentProperties = documentProperties;
+        this.rowMapper = new ChunkRowMapper(jsonMapper, "similarity");
+        this.exactPlans = meterRegistry.counter("rag.retrieval.plan", "plan", "exact");
+        this.indexedPlans = meterRegistry.counter("rag.retrieval.plan", "plan", "hnsw");
+    }
+
+    /**
+     * Finds the chunks of one document most similar to the question.
+     *
+     * @param question   The question text
+     * @param documentId The document to search
+     * @param topK       Maximum number of chunks to return
+     * @return The most similar chunks, most similar first, with cosine similarity as score
+     */
+    public List<Document> search(String question, String documentId, int topK) {
+        if (!isUuid(documentId)) {
+            return List.of();
+        }
+        String embedding = PgVectorFormat.toLiteral(queryEmbeddingCache.get(question, embeddingModel::embed));
+
+        int maxExact = documentProperties.getRetrieval().getExactSearchMaxChunks();
+        Integer chunks = jdbcTemplate.queryForObject(COUNT_SQL, Integer.class, documentId, maxExact + 1);
+        if (chunks != null && chunks <= maxExact) {
+            exactPlans.increment();
+            log.debug("Exact search over {} chunks of document {}", chunks, documentId);
+            return jdbcTemplate.query(EXACT_SQL, rowMapper, documentId, embedding, embedding, topK);
+        }
+
+        indexedPlans.increment();
+        log.debug("HNSW iterative scan over more than {} chunks of document {}", maxExact, documentId);
+        return transactionTemplate.execute(status -> {
+            // Transaction-scoped; unknown to pgvector < 0.8.0, where it is ignored
+            jdbcTemplate.queryForObject("SELECT set_config('hnsw.iterative_scan', 'strict_order', true)",
+                    String.class);
+            return jdbcTemplate.query(INDEXED_SQL, rowMapper, embedding, documentId, embedding, topK);
+        });
+    }
+
+    private static boolean isUuid(String value) {
+        try {
+            UUID.fromString(value);
+            return true;
+        } catch (IllegalArgumentException _) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+/**
+ * {@link VectorStore} that routes searches filtered to a single document to the
+ * {@link DocumentScopedSearch}.
+ *
+ * <p>A search whose filter is exactly {@code document_id == '<id>'} is planned
+ * by document size against the typed {@code document_id} column, instead of
+ * post-filtering the global HNSW index on the JSON metadata. Every other
+ * operation, including searches with any other filter, goes to the delegate.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public class DocumentScopedVectorStore extends ForwardingVectorStore {
+
+    private static final String DOCUMENT_ID = "document_id";
+
+    private final DocumentScopedSearch documentScopedSearch;
+
+    public DocumentScopedVectorStore(VectorStore delegate, DocumentScopedSearch documentScopedSearch) {
+        super(delegate);
+        this.documentScopedSearch = documentScopedSearch;
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        Optional<String> documentId = singleDocumentId(request.getFilterExpression());
+        if (documentId.isEmpty()) {
+            return super.similaritySearch(request);
+        }
+        return applyThreshold(
+                documentScopedSearch.search(request.getQuery(), documentId.get(), request.getTopK()), request);
+    }
+
+    private static Optional<String> singleDocumentId(Filter.Expression expression) {
+        if (expression != null
+                && expression.type() == Filter.ExpressionType.EQ
+                && expression.left() instanceof Filter.Key(String key) && DOCUMENT_ID.equals(key)
+                && expression.right() instanceof Filter.Value(Object value) && value instanceof String id) {
+            return Optional.of(id);
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,79 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * {@link VectorStore} that forwards every operation to a delegate, for
+ * decorators that reroute some searches.
+ *
+ * <p>Subclasses override {@link #similaritySearch(SearchRequest)} and call
+ * {@code super} for the searches they do not handle. Scores returned by a
+ * rerouted search are filtered by the request's similarity threshold with
+ * {@link #applyThreshold}.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public abstract class ForwardingVectorStore implements VectorStore, InitializingBean {
+
+    private final VectorStore delegate;
+
+    protected ForwardingVectorStore(VectorStore delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        // The delegate is not a bean itself, so its schema initialization runs from here
+        if (delegate instanceof InitializingBean initializingBean) {
+            initializingBean.afterPropertiesSet();
+        }
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        return delegate.similaritySearch(request);
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public <T> Optional<T> getNativeClient() {
+        return delegate.getNativeClient();
+    }
+
+    /**
+     * Drops the results scoring below the request's similarity threshold.
+     */
+    protected static List<Document> applyThreshold(List<Document> results, SearchRequest request) {
+        return results.stream()
+                .filter(document -> document.getScore() == null
+                        || document.getScore() >= request.getSimilarityThreshold())
+                .toList();
+    }
+}
@@ -0,0 +1,75 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.ai.document.Document;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Full-text search over the chunks in {@code vector_store}.
+ *
+ * <p>Finds chunks containing the words of the question, which catches exact
+ * matches such as part numbers, error codes and API names that vector search
+ * tends to rank poorly. Queries use {@code websearch_to_tsquery}, so any user
+ * input is a valid query, and are served by the GIN index on
+ * {@code to_tsvector(<config>, content)} created in {@code schema.sql}.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Component
+public class LexicalSearch {
+
+    private static final Pattern TEXT_SEARCH_CONFIG = Pattern.compile("[a-z_]+");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChunkRowMapper rowMapper;
+    private final String allDocumentsSql;
+    private final String singleDocumentSql;
+
+    public LexicalSearch(JdbcTemplate jdbcTemplate, JsonMapper jsonMapper, DocumentProperties documentProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rowMapper = new ChunkRowMapper(jsonMapper, "rank");
+
+        // The config is inlined rather than bound, so the expression matches the index definition
+        String config = documentProperties.getRetrieval().getTextSearchConfig();
+        if (!TEXT_SEARCH_CONFIG.matcher(config).matches()) {
+            throw new IllegalArgumentException("Invalid text search configuration: " + config);
+        }
+        String tsvector = "to_tsvector('" + config + "'::regconfig, coalesce(content, ''))";
+        String select = """
+            SELECT id, content, metadata, ts_rank_cd(%1$s, query) AS rank
+            FROM vector_store, websearch_to_tsquery('%2$s'::regconfig, ?) query
+            WHERE %1$s @@ query
+            """.formatted(tsvector, config);
+        this.allDocumentsSql = select + "ORDER BY rank DESC LIMIT ?";
+        this.singleDocumentSql = select + "AND document_id = ?::uuid ORDER BY rank DESC LIMIT ?";
+    }
+
+    /**
+     * Finds the chunks that best match the words of the question.
+     *
+     * @param question   The question text
+     * @param documentId Optional document id to scope the search to a single document
+     * @param limit      Maximum number of chunks to return
+     * @return Matching chunks, best match first, with their rank as score
+     */
+    public List<Document> search(String question, String documentId, int limit) {
+        List<Object> args = new ArrayList<>(3);
+        args.add(question);
+        boolean scoped = documentId != null && !documentId.isBlank();
+        if (scoped) {
+            args.add(documentId);
+        }
+        args.add(limit);
+
+        return jdbcTemplate.query(scoped ? singleDocumentSql : allDocumentsSql, rowMapper, args.toArray());
+    }
+}
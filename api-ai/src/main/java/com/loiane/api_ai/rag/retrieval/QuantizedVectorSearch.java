@@ -0,0 +1,99 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.embedding.PgVectorFormat;
+import com.loiane.api_ai.rag.embedding.QueryEmbeddingCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Vector search over a compact HNSW index with full-precision rescoring.
+ *
+ * <p>The compact index ({@code halfvec}, binary or Matryoshka, see {@link VectorSearchMode})
+ * returns {@code app.documents.retrieval.rescore-candidates} candidates, which are
+ * then ordered by the cosine distance of their full embeddings. The index is a
+ * fraction of the size of the full-precision one, and the rescoring recovers
+ * most of the recall lost to quantization or to the shorter vectors.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Component
+public class QuantizedVectorSearch {
+
+    private static final int MAX_EF_SEARCH = 1000;
+
+    private static final String SEARCH_SQL = """
+        SELECT id, content, metadata, 1 - (embedding <=> ?::vector) AS similarity
+        FROM (
+            SELECT id, content, metadata, embedding FROM vector_store
+            ORDER BY %s
+            LIMIT ?
+        ) candidates
+        ORDER BY embedding <=> ?::vector
+        LIMIT ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EmbeddingModel embeddingModel;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final DocumentProperties documentProperties;
+    private final MeterRegistry meterRegistry;
+    private final ChunkRowMapper rowMapper;
+    private final int dimensions;
+
+    public QuantizedVectorSearch(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 EmbeddingModel embeddingModel, QueryEmbeddingCache queryEmbeddingCache,
+                                 JsonMapper jsonMapper, DocumentProperties documentProperties,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${spring.ai.vectorstore.pgvector.dimensions:1536}") int dimensions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.embeddingModel = embeddingModel;
+        this.queryEmbeddingCache = queryEmbeddingCache;
+        this.documentProperties = documentProperties;
+        this.meterRegistry = meterRegistry;
+        this.rowMapper = new ChunkRowMapper(jsonMapper, "similarity");
+        this.dimensions = dimensions;
+    }
+
+    /**
+     * Finds the chunks most similar to the question across all documents.
+     *
+     * @param question The question text
+     * @param topK     Maximum number of chunks to return
+     * @return The most similar chunks, most similar first, with cosine similarity as score
+     */
+    public List<Document> search(String question, int topK) {
+        VectorSearchMode mode = documentProperties.getRetrieval().getVectorSearchMode();
+        if (mode == VectorSearchMode.FULL) {
+            throw new IllegalStateException("Quantized search is disabled (vector-search-mode=full)");
+        }
+        String embedding = PgVectorFormat.toLiteral(queryEmbeddingCache.get(question, embeddingModel::embed));
+        int candidates = Math.max(topK, documentProperties.getRetrieval().getRescoreCandidates());
+        String sql = SEARCH_SQL.formatted(
+                mode.candidateDistance(dimensions, documentProperties.getRetrieval().getMatryoshkaDimensions()));
+
+        meterRegistry.counter("rag.retrieval.plan", "plan", mode.name().toLowerCase(Locale.ROOT)).increment();
+        return transactionTemplate.execute(status -> {
+            // The HNSW scan returns at most ef_search rows (capped at 1000), so it must cover the candidates
+            jdbcTemplate.queryForObject("SELECT set_config('hnsw.ef_search', ?, true)", String.class,
+                    String.valueOf(Math.min(candidates, MAX_EF_SEARCH)));
+            return jdbcTemplate.query(sql, rowMapper, embedding, embedding, candidates, embedding, topK);
+        });
+    }
+}
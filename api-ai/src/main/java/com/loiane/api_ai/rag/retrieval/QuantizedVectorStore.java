@@ -0,0 +1,45 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.List;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+/**
+ * {@link VectorStore} that routes unfiltered searches to the {@link QuantizedVectorSearch}.
+ *
+ * <p>Used when {@code app.documents.retrieval.vector-search-mode} is {@code halfvec},
+ * {@code binary} or {@code matryoshka}. The {@link VectorIndexJob} is started with
+ * the store, and until the mode's index is ready unfiltered searches go to the
+ * delegate too. Filtered searches and every other operation go to the delegate.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public class QuantizedVectorStore extends ForwardingVectorStore {
+
+    private final QuantizedVectorSearch quantizedVectorSearch;
+    private final VectorIndexJob vectorIndexJob;
+
+    public QuantizedVectorStore(VectorStore delegate, QuantizedVectorSearch quantizedVectorSearch,
+                                VectorIndexJob vectorIndexJob) {
+        super(delegate);
+        this.quantizedVectorSearch = quantizedVectorSearch;
+        this.vectorIndexJob = vectorIndexJob;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        super.afterPropertiesSet();
+        vectorIndexJob.start();
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        if (request.getFilterExpression() != null || !vectorIndexJob.isReady()) {
+            return super.similaritySearch(request);
+        }
+        return applyThreshold(quantizedVectorSearch.search(request.getQuery(), request.getTopK()), request);
+    }
+}
@@ -0,0 +1,165 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Retrieves the document chunks relevant to a question.
+ *
+ * <p>Runs one top-K search per question, optionally scoped to one document,
+ * and returns the result as a {@link RetrievalContext}. Searches scoped to a
+ * document are planned by the vector store by document size (see
+ * {@link DocumentScopedVectorStore}). The question embedding itself is reused
+ * across requests (see {@code QueryEmbeddingCache}).
+ *
+ * <p>With {@code app.documents.retrieval.hybrid} enabled, a full-text
+ * {@link LexicalSearch} runs concurrently with the vector search, each fetching
+ * {@code candidates} chunks, and the two rankings are combined with
+ * {@link RankFusion reciprocal rank fusion} into the final top-K. If the
+ * full-text search fails, the vector results are used on their own.
+ *
+ * <p>With {@code app.documents.retrieval.rerank} enabled, {@code rerank-candidates}
+ * chunks are retrieved instead of the top-K, rescored by the {@link Reranker},
+ * and near-duplicate adjacent chunks are dropped ({@link ChunkDeduplicator})
+ * before the top-K are kept. Each stage is timed in
+ * {@code rag.retrieval.stage.duration}.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Component
+public class RagRetriever {
+
+    private static final Logger log = LoggerFactory.getLogger(RagRetriever.class);
+
+    private final VectorStore vectorStore;
+    private final LexicalSearch lexicalSearch;
+    private final Reranker reranker;
+    private final DocumentProperties documentProperties;
+    private final ExecutorService lexicalExecutor;
+    private final Timer vectorDuration;
+    private final Timer lexicalDuration;
+    private final Timer searchStageDuration;
+    private final Timer rerankStageDuration;
+    private final Timer dedupStageDuration;
+
+    public RagRetriever(VectorStore vectorStore, LexicalSearch lexicalSearch, Reranker reranker,
+                        DocumentProperties documentProperties, MeterRegistry meterRegistry) {
+        this.vectorStore = vectorStore;
+        this.lexicalSearch = lexicalSearch;
+        this.reranker = reranker;
+        this.documentProperties = documentProperties;
+        this.lexicalExecutor = Executors.newFixedThreadPool(
+                Math.max(1, documentProperties.getRetrieval().getLexicalWorkers()),
+                Thread.ofPlatform().name("rag-lexical-", 0).daemon(true).factory());
+        this.vectorDuration = Timer.builder("rag.retrieval.duration")
+                .tag("source", "vector")
+                .register(meterRegistry);
+        this.lexicalDuration = Timer.builder("rag.retrieval.duration")
+                .tag("source", "lexical")
+                .register(meterRegistry);
+        this.searchStageDuration = stageTimer("search", meterRegistry);
+        this.rerankStageDuration = stageTimer("rerank", meterRegistry);
+        this.dedupStageDuration = stageTimer("dedup", meterRegistry);
+    }
+
+    /**
+     * Retrieves the chunks most relevant to the question.
+     *
+     * @param question   The question to retrieve context for
+     * @param documentId Optional document id to scope retrieval to a single document
+     * @return The retrieval context for this question
+     */
+    public RetrievalContext retrieve(String question, String documentId) {
+        DocumentProperties.Retrieval settings = documentProperties.getRetrieval();
+        int topK = documentProperties.getTopK();
+
+        List<Document> documents;
+        if (settings.isRerank()) {
+            int candidates = Math.max(topK, settings.getRerankCandidates());
+            List<Document> retrieved = searchStageDuration.record(
+                    () -> search(question, documentId, candidates, settings));
+            List<Document> reranked = rerankStageDuration.record(() -> reranker.rerank(question, retrieved));
+            documents = dedupStageDuration.record(
+                    () -> ChunkDeduplicator.dedupe(reranked, settings.getDedupThreshold()));
+            documents = documents.subList(0, Math.min(topK, documents.size()));
+        } else {
+            documents = searchStageDuration.record(() -> search(question, documentId, topK, settings));
+        }
+
+        log.debug("Retrieved {} chunks for question (documentId: {})", documents.size(), documentId);
+        return new RetrievalContext(question, documentId, documents);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        lexicalExecutor.shutdownNow();
+    }
+
+    private List<Document> search(String question, String documentId, int limit,
+                                  DocumentProperties.Retrieval settings) {
+        if (!settings.isHybrid()) {
+            return vectorSearch(question, documentId, limit);
+        }
+        int candidates = Math.max(limit, settings.getCandidates());
+        CompletableFuture<List<Document>> lexical = CompletableFuture.supplyAsync(
+                () -> lexicalDuration.record(() -> lexicalSearch.search(question, documentId, candidates)),
+                lexicalExecutor);
+        List<Document> semantic = vectorSearch(question, documentId, candidates);
+        return RankFusion.fuse(List.of(semantic, awaitLexical(lexical)), settings.getRrfK(), limit);
+    }
+
+    private static Timer stageTimer(String stage, MeterRegistry meterRegistry) {
+        return Timer.builder("rag.retrieval.stage.duration")
+                .description("Time spent in each retrieval stage of a question")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private List<Document> vectorSearch(String question, String documentId, int topK) {
+        SearchRequest searchRequest = SearchRequest.builder()
+                .query(question)
+                .topK(topK)
+                .filterExpression(buildDocumentFilter(documentId))
+                .build();
+        return vectorDuration.record(() -> vectorStore.similaritySearch(searchRequest));
+    }
+
+    private static List<Document> awaitLexical(CompletableFuture<List<Document>> lexical) {
+        try {
+            return lexical.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof DataAccessException) {
+                log.warn("Full-text search failed, using vector search results only: {}", e.getCause().getMessage());
+                return List.of();
+            }
+            throw e;
+        }
+    }
+
+    private Filter.Expression buildDocumentFilter(String documentId) {
+        if (documentId == null || documentId.isBlank()) {
+            return null;
+        }
+        return new FilterExpressionBuilder().eq("document_id", documentId).build();
+    }
+}
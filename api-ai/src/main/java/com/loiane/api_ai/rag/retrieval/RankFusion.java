@@ -0,0 +1,52 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.ai.document.Document;
+
+/**
+ * Reciprocal rank fusion of several rankings of the same chunks.
+ *
+ * <p>Each chunk scores {@code 1 / (k + rank)} in every ranking it appears in
+ * (ranks start at 1), and the scores are summed. Only ranks are used, so
+ * rankings with incomparable scores, such as cosine similarity and full-text
+ * rank, can be combined without normalization.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public final class RankFusion {
+
+    private RankFusion() {
+    }
+
+    /**
+     * Fuses rankings into a single ranking.
+     *
+     * @param rankings The rankings to fuse, each best first
+     * @param k        The rank constant, typically 60
+     * @param limit    Maximum number of chunks to return
+     * @return The fused ranking with the fused score set on each chunk; when a
+     *         chunk appears in several rankings, the instance from the first one is kept
+     */
+    public static List<Document> fuse(List<List<Document>> rankings, int k, int limit) {
+        Map<String, Document> documents = new LinkedHashMap<>();
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (List<Document> ranking : rankings) {
+            for (int i = 0; i < ranking.size(); i++) {
+                Document document = ranking.get(i);
+                documents.putIfAbsent(document.getId(), document);
+                scores.merge(document.getId(), 1.0 / (k + i + 1), Double::sum);
+            }
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(entry -> documents.get(entry.getKey()).mutate().score(entry.getValue()).build())
+                .toList();
+    }
+}
@@ -0,0 +1,27 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.List;
+
+import org.springframework.ai.document.Document;
+
+/**
+ * Rescores the chunks retrieved for a question.
+ *
+ * <p>Retrieval over-fetches candidates, and the reranker orders them by a
+ * finer relevance score than the one the search itself can afford, so only
+ * the best of them reach the prompt.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public interface Reranker {
+
+    /**
+     * Orders the candidates by relevance to the question.
+     *
+     * @param question   The question text
+     * @param candidates The retrieved chunks, best first by retrieval
+     * @return The same chunks, most relevant first, with the reranker's score set
+     */
+    List<Document> rerank(String question, List<Document> candidates);
+}
@@ -0,0 +1,36 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.ai.document.Document;
+
+/**
+ * The chunks retrieved for a single question.
+ *
+ * <p>Created once per request by {@link RagRetriever} and shared by every step
+ * that needs the retrieved chunks (prompt context, source citations and
+ * relevancy evaluation), so the question is embedded and searched only once.
+ *
+ * @param question   The question the chunks were retrieved for
+ * @param documentId The document retrieval was scoped to, or {@code null} for all documents
+ * @param documents  The retrieved chunks, most similar first
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public record RetrievalContext(String question, String documentId, List<Document> documents) {
+
+    public RetrievalContext {
+        documents = documents == null ? List.of() : List.copyOf(documents);
+    }
+
+    /**
+     * Joins the retrieved chunk texts into the context block injected into the prompt.
+     */
+    public String contextText() {
+        return documents.stream()
+                .map(Document::getText)
+                .collect(Collectors.joining(System.lineSeparator()));
+    }
+}
@@ -0,0 +1,135 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Builds the HNSW expression index of the configured {@link VectorSearchMode}
+ * over the chunks already stored.
+ *
+ * <p>The index is derived from the full embeddings in {@code vector_store}, so
+ * switching modes, or changing {@code app.documents.retrieval.matryoshka-dimensions},
+ * re-indexes existing documents without re-embedding them. The build runs in the
+ * background with {@code CREATE INDEX CONCURRENTLY}, which keeps the table
+ * writable; an invalid index left behind by an interrupted build is dropped and
+ * rebuilt. Until the index is valid, {@link #isReady()} is {@code false} and
+ * searches use the full-precision index instead.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Component
+public class VectorIndexJob {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorIndexJob.class);
+
+    private static final String INDEX_VALID_SQL = """
+        SELECT i.indisvalid
+        FROM pg_index i
+        JOIN pg_class c ON c.oid = i.indexrelid
+        WHERE c.relname = ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DocumentProperties documentProperties;
+    private final MeterRegistry meterRegistry;
+    private final int dimensions;
+
+    private volatile boolean ready;
+
+    public VectorIndexJob(JdbcTemplate jdbcTemplate, DocumentProperties documentProperties,
+                          MeterRegistry meterRegistry,
+                          @Value("${spring.ai.vectorstore.pgvector.dimensions:1536}") int dimensions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.documentProperties = documentProperties;
+        this.meterRegistry = meterRegistry;
+        this.dimensions = dimensions;
+    }
+
+    /**
+     * Marks the index ready when it already exists, otherwise starts building it
+     * on a background thread.
+     *
+     * @throws IllegalStateException if the Matryoshka dimensions are not fewer than the embedding dimensions
+     */
+    public void start() {
+        VectorSearchMode mode = documentProperties.getRetrieval().getVectorSearchMode();
+        if (mode == VectorSearchMode.FULL) {
+            return;
+        }
+        int searchDimensions = searchDimensions(mode);
+        String indexName = mode.indexName(searchDimensions);
+        try {
+            if (Boolean.TRUE.equals(indexValid(indexName))) {
+                ready = true;
+                return;
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not check for index {}, searching the full-precision index: {}", indexName, e.getMessage());
+            return;
+        }
+        Thread.ofPlatform().name("rag-vector-index").daemon(true)
+                .start(() -> build(mode, searchDimensions));
+    }
+
+    /**
+     * @return Whether the index of the configured mode exists and is valid
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Creates the index of the mode, replacing an invalid one left by an earlier build.
+     */
+    void build(VectorSearchMode mode, int searchDimensions) {
+        String indexName = mode.indexName(searchDimensions);
+        log.info("Building index {} for vector search mode {}; searching the full-precision index until it is ready",
+                indexName, mode);
+        long startedAt = System.nanoTime();
+        try {
+            if (Boolean.FALSE.equals(indexValid(indexName))) {
+                jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + indexName);
+            }
+            jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + indexName
+                    + " ON vector_store USING HNSW (" + mode.indexedExpression(dimensions, searchDimensions) + ")");
+            long elapsed = System.nanoTime() - startedAt;
+            Timer.builder("rag.vector.index.build.duration")
+                    .tag("mode", mode.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            ready = true;
+            log.info("Index {} built in {} s", indexName, TimeUnit.NANOSECONDS.toSeconds(elapsed));
+        } catch (DataAccessException e) {
+            log.error("Could not build index {}, searching the full-precision index: {}", indexName, e.getMessage());
+        }
+    }
+
+    private int searchDimensions(VectorSearchMode mode) {
+        int searchDimensions = documentProperties.getRetrieval().getMatryoshkaDimensions();
+        if (mode == VectorSearchMode.MATRYOSHKA && (searchDimensions <= 0 || searchDimensions >= dimensions)) {
+            throw new IllegalStateException("app.documents.retrieval.matryoshka-dimensions must be between 1 and "
+                    + (dimensions - 1) + ", was " + searchDimensions);
+        }
+        return searchDimensions;
+    }
+
+    /**
+     * @return Whether the index is valid, or {@code null} when it does not exist
+     */
+    private Boolean indexValid(String indexName) {
+        return jdbcTemplate.query(INDEX_VALID_SQL, rs -> rs.next() ? rs.getBoolean(1) : null, indexName);
+    }
+}
@@ -0,0 +1,77 @@
+package com.loiane.api_ai.rag.retrieval;
+
+/**
+ * How unfiltered similarity searches use the embeddings in {@code vector_store}.
+ *
+ * <p>Embeddings are always stored at full precision and full length. The compact
+ * modes search an HNSW expression index over a smaller copy of each embedding,
+ * built by the {@link VectorIndexJob}, and rescore the candidates it returns
+ * with the full embeddings.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public enum VectorSearchMode {
+
+    /**
+     * Cosine distance on the full-precision {@code vector} HNSW index (4 bytes per dimension).
+     */
+    FULL(null, null, null),
+
+    /**
+     * Cosine distance on a {@code halfvec} HNSW index (2 bytes per dimension).
+     */
+    HALFVEC("embedding::halfvec(%1$d) <=> ?::halfvec(%1$d)",
+            "(embedding::halfvec(%1$d)) halfvec_cosine_ops",
+            "idx_vector_store_embedding_halfvec"),
+
+    /**
+     * Hamming distance on a binary-quantized {@code bit} HNSW index (1 bit per dimension).
+     */
+    BINARY("binary_quantize(embedding)::bit(%1$d) <~> binary_quantize(?::vector)::bit(%1$d)",
+            "(binary_quantize(embedding)::bit(%1$d)) bit_hamming_ops",
+            "idx_vector_store_embedding_binary"),
+
+    /**
+     * Cosine distance on the leading {@code matryoshka-dimensions} of each embedding.
+     * Only meaningful for embedding models trained so that a prefix of the
+     * embedding is itself an embedding, such as OpenAI's text-embedding-3 models.
+     */
+    MATRYOSHKA("subvector(embedding, 1, %2$d)::vector(%2$d) <=> subvector(?::vector, 1, %2$d)::vector(%2$d)",
+            "(subvector(embedding, 1, %2$d)::vector(%2$d)) vector_cosine_ops",
+            "idx_vector_store_embedding_matryoshka_%2$d");
+
+    private final String candidateDistance;
+    private final String indexedExpression;
+    private final String indexName;
+
+    VectorSearchMode(String candidateDistance, String indexedExpression, String indexName) {
+        this.candidateDistance = candidateDistance;
+        this.indexedExpression = indexedExpression;
+        this.indexName = indexName;
+    }
+
+    /**
+     * @param dimensions       The embedding dimensions
+     * @param searchDimensions The leading dimensions searched by {@link #MATRYOSHKA}
+     * @return The distance expression ordering candidates, matching the mode's index,
+     *         with one parameter for the query embedding
+     */
+    String candidateDistance(int dimensions, int searchDimensions) {
+        return candidateDistance.formatted(dimensions, searchDimensions);
+    }
+
+    /**
+     * @return The HNSW index column expression and operator class of the mode
+     */
+    String indexedExpression(int dimensions, int searchDimensions) {
+        return indexedExpression.formatted(dimensions, searchDimensions);
+    }
+
+    /**
+     * @return The name of the expression index the mode searches, or {@code null} for {@link #FULL}
+     */
+    String indexName(int searchDimensions) {
+        return indexName == null ? null : indexName.formatted(searchDimensions);
+    }
+}
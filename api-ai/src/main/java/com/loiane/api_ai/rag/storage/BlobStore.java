@@ -0,0 +1,78 @@
+package com.loiane.api_ai.rag.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Content-addressed store of uploaded files.
+ *
+ * <p>Files are keyed by the hex SHA-256 of their content, so identical uploads
+ * are stored once, and a key never points to different bytes. Writes are
+ * two-phase: {@link #stage} copies and hashes the upload into a private
+ * temporary file, and {@link #commit} publishes it under its key atomically,
+ * so a reader never sees a partially written file.
+ *
+ * <p>Which documents reference a file is tracked by {@link DocumentBlobs},
+ * not by the store.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public interface BlobStore {
+
+    /**
+     * An upload copied to temporary storage, not visible under its key yet.
+     *
+     * @param hash     Hex SHA-256 of the content
+     * @param size     Size in bytes
+     * @param tempFile The temporary copy
+     */
+    record StagedBlob(String hash, long size, Path tempFile) {
+    }
+
+    /**
+     * Copies and hashes content into temporary storage.
+     *
+     * @param content  The content, read to the end but not closed
+     * @param maxBytes Maximum size accepted
+     * @return The staged blob
+     * @throws IOException if the content cannot be read or written
+     * @throws com.loiane.api_ai.rag.exception.UploadTooLargeException if the content exceeds {@code maxBytes}
+     */
+    StagedBlob stage(InputStream content, long maxBytes) throws IOException;
+
+    /**
+     * Publishes a staged blob under its hash. If a blob with that hash already
+     * exists, the staged copy is discarded instead.
+     *
+     * @param blob The staged blob
+     * @throws IOException if the blob cannot be moved into place
+     */
+    void commit(StagedBlob blob) throws IOException;
+
+    /**
+     * Deletes a staged blob that will not be committed.
+     *
+     * @param blob The staged blob
+     */
+    void discard(StagedBlob blob);
+
+    /**
+     * Locates the file of a committed blob. Backends that do not keep files on
+     * this machine return a local copy.
+     *
+     * @param hash Hex SHA-256 of the content
+     * @return A readable path to the content
+     * @throws IllegalArgumentException if the hash is not a hex SHA-256
+     */
+    Path locate(String hash);
+
+    /**
+     * Deletes a committed blob, if it exists.
+     *
+     * @param hash Hex SHA-256 of the content
+     * @throws IOException if the blob cannot be deleted
+     */
+    void delete(String hash) throws IOException;
+}
@@ -0,0 +1,140 @@
+package com.loiane.api_ai.rag.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.loiane.api_ai.rag.DocumentRepository;
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.model.DocumentMetadata;
+import com.loiane.api_ai.rag.model.UploadResult;
+
+/**
+ * Files of documents, stored in the {@link BlobStore} and reference counted
+ * from the {@code documents} table.
+ *
+ * <p>A document references the blob named by its {@code content_hash}, and
+ * documents with the same content share one blob, which is deleted once the
+ * last of them is. Referencing a blob (committing it and saving the row) and
+ * releasing one (counting the rows left and deleting it) are serialized, so a
+ * blob is never deleted while an upload of the same content is taking it.
+ *
+ * <p>Documents uploaded before files were content-addressed have no hash, and
+ * their file is still read from, and deleted in, the upload directory by name.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+@Component
+public class DocumentBlobs {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentBlobs.class);
+
+    private final BlobStore blobStore;
+    private final DocumentRepository documentRepository;
+    private final DocumentProperties documentProperties;
+
+    public DocumentBlobs(BlobStore blobStore, DocumentRepository documentRepository,
+                         DocumentProperties documentProperties) {
+        this.blobStore = blobStore;
+        this.documentRepository = documentRepository;
+        this.documentProperties = documentProperties;
+    }
+
+    /**
+     * Copies and hashes an upload into temporary storage.
+     *
+     * @see BlobStore#stage
+     */
+    public BlobStore.StagedBlob stage(InputStream content, long maxBytes) throws IOException {
+        return blobStore.stage(content, maxBytes);
+    }
+
+    /**
+     * Discards a staged upload that will not be stored.
+     */
+    public void discard(BlobStore.StagedBlob blob) {
+        blobStore.discard(blob);
+    }
+
+    /**
+     * Stores a staged upload as a new document, unless a document with the
+     * same content exists, in which case the upload is discarded.
+     *
+     * @param blob     The staged upload
+     * @param document The document to save; its hash and size are taken from the blob
+     * @return The saved document, or the existing one with the same content
+     * @throws IOException if the blob cannot be committed
+     */
+    public synchronized UploadResult store(BlobStore.StagedBlob blob, DocumentMetadata document) throws IOException {
+        Optional<DocumentMetadata> existing = documentRepository.findByContentHash(blob.hash());
+        if (existing.isPresent()) {
+            blobStore.discard(blob);
+            return new UploadResult(existing.get(), true);
+        }
+        blobStore.commit(blob);
+        DocumentMetadata referencing = new DocumentMetadata(document.id(), document.filename(),
+                document.contentType(), blob.size(), document.uploadDate(), document.status(),
+                document.errorMessage(), blob.hash());
+        try {
+            return new UploadResult(documentRepository.save(referencing), false);
+        } catch (RuntimeException e) {
+            release(referencing);
+            throw e;
+        }
+    }
+
+    /**
+     * Points a document at a staged upload and releases its previous file.
+     *
+     * @param document    The document, as it is before the replacement
+     * @param blob        The staged upload
+     * @param filename    Filename of the upload
+     * @param contentType MIME type of the upload
+     * @throws IOException if the blob cannot be committed
+     */
+    public synchronized void replace(DocumentMetadata document, BlobStore.StagedBlob blob,
+                                     String filename, String contentType) throws IOException {
+        blobStore.commit(blob);
+        documentRepository.replaceFile(document.id(), filename, contentType, blob.size(), blob.hash());
+        release(document);
+    }
+
+    /**
+     * Releases the file of a document whose row was deleted or now references
+     * another file, deleting it if no other document references it.
+     *
+     * @param document The document, as it was when it referenced the file
+     */
+    public synchronized void release(DocumentMetadata document) {
+        try {
+            if (document.contentHash() == null) {
+                Files.deleteIfExists(locate(document));
+            } else if (documentRepository.countByContentHash(document.contentHash()) == 0) {
+                blobStore.delete(document.contentHash());
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete the file of document {}", document.id(), e);
+        }
+    }
+
+    /**
+     * Locates the file of a document.
+     *
+     * @param document The document
+     * @return A readable path to its file, which may not exist
+     */
+    public Path locate(DocumentMetadata document) {
+        if (document.contentHash() == null) {
+            return Paths.get(documentProperties.getUploadDir()).resolve(document.filename());
+        }
+        return blobStore.locate(document.contentHash());
+    }
+}
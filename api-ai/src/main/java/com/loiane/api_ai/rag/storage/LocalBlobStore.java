@@ -0,0 +1,126 @@
+package com.loiane.api_ai.rag.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.loiane.api_ai.rag.exception.UploadTooLargeException;
+
+/**
+ * {@link BlobStore} backed by a local directory.
+ *
+ * <p>A blob with hash {@code 3f9a...} is stored as {@code <root>/3f/9a/3f9a...},
+ * so no directory grows past 256 entries per level. Uploads are staged in
+ * {@code <root>/tmp}, on the same file system as the blobs, so committing
+ * one is a single atomic rename; a crash before the rename leaves only a
+ * temporary file behind, never a truncated blob.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public class LocalBlobStore implements BlobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalBlobStore.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern SHA_256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final Path tempDir;
+
+    public LocalBlobStore(Path root) {
+        this.root = root;
+        this.tempDir = root.resolve("tmp");
+    }
+
+    @Override
+    public StagedBlob stage(InputStream content, long maxBytes) throws IOException {
+        Files.createDirectories(tempDir);
+        Path tempFile = Files.createTempFile(tempDir, "upload-", ".part");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size = copy(new DigestInputStream(content, digest), tempFile, maxBytes);
+            return new StagedBlob(HexFormat.of().formatHex(digest.digest()), size, tempFile);
+        } catch (NoSuchAlgorithmException e) {
+            Files.deleteIfExists(tempFile);
+            throw new IllegalStateException("SHA-256 is not available", e);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    @Override
+    public void commit(StagedBlob blob) throws IOException {
+        Path target = locate(blob.hash());
+        if (Files.exists(target)) {
+            discard(blob);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(blob.tempFile(), target, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Stored blob: {}", target);
+        } catch (FileAlreadyExistsException _) {
+            // Committed concurrently; the content is the same
+            discard(blob);
+        }
+    }
+
+    @Override
+    public void discard(StagedBlob blob) {
+        try {
+            Files.deleteIfExists(blob.tempFile());
+        } catch (IOException e) {
+            log.warn("Failed to delete staged upload: {}", blob.tempFile(), e);
+        }
+    }
+
+    @Override
+    public Path locate(String hash) {
+        if (hash == null || !SHA_256_HEX.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Not a SHA-256 hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    @Override
+    public void delete(String hash) throws IOException {
+        if (Files.deleteIfExists(locate(hash))) {
+            log.debug("Deleted blob: {}", hash);
+        }
+    }
+
+    /**
+     * Copies a stream to a file, failing once more than {@code maxBytes} were read.
+     *
+     * @return The number of bytes copied
+     */
+    private static long copy(InputStream in, Path target, long maxBytes) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long size = 0;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                size += read;
+                if (size > maxBytes) {
+                    throw new UploadTooLargeException("Upload exceeds the maximum size of " + maxBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,86 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.lang.foreign.MemorySegment;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+/**
+ * Exact cosine similarity search over a row-major embedding matrix and its
+ * per-row L2 norms, both little-endian floats in {@link MemorySegment}s.
+ *
+ * <p>Rows are scored in blocks with {@link VectorKernels#dotBatch} and kept in a
+ * {@link TopKHeap}. Large matrices are split into contiguous partitions searched
+ * in parallel on the common fork-join pool, each into its own heap.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+final class FlatVectorSearch {
+
+    private static final int BLOCK_ROWS = 256;
+
+    private FlatVectorSearch() {
+    }
+
+    /**
+     * Finds the rows most similar to the query.
+     *
+     * @param query      The query embedding
+     * @param vectors    The embedding matrix
+     * @param norms      The L2 norm of each row
+     * @param count      Number of rows to search
+     * @param topK       Maximum number of rows to return
+     * @param threshold  Lowest similarity returned
+     * @param filter     Rows that may be returned, or {@code null} for all; called
+     *                   concurrently, and only for rows that would be kept
+     * @param partitions Number of partitions searched in parallel
+     * @return The best rows
+     */
+    static TopKHeap search(float[] query, MemorySegment vectors, MemorySegment norms, int count, int topK,
+                           double threshold, IntPredicate filter, int partitions) {
+        double queryNorm = VectorSnapshot.norm(query);
+        if (partitions <= 1 || count < 2 * BLOCK_ROWS) {
+            return searchRange(query, queryNorm, vectors, norms, 0, count, topK, threshold, filter);
+        }
+        return IntStream.range(0, partitions).parallel()
+                .mapToObj(p -> searchRange(query, queryNorm, vectors, norms,
+                        (int) ((long) count * p / partitions), (int) ((long) count * (p + 1) / partitions),
+                        topK, threshold, filter))
+                .reduce(TopKHeap::merge)
+                .orElseGet(() -> new TopKHeap(topK));
+    }
+
+    /**
+     * @return The partitions a store of this size is searched in
+     */
+    static int partitions(int count, DocumentProperties.LocalStore settings) {
+        if (count < settings.getParallelSearchMinChunks()) {
+            return 1;
+        }
+        return settings.getSearchParallelism() > 0
+                ? settings.getSearchParallelism()
+                : Runtime.getRuntime().availableProcessors();
+    }
+
+    private static TopKHeap searchRange(float[] query, double queryNorm, MemorySegment vectors, MemorySegment norms,
+                                        int from, int to, int topK, double threshold, IntPredicate filter) {
+        TopKHeap heap = new TopKHeap(topK);
+        float[] dots = new float[BLOCK_ROWS];
+        long rowBytes = (long) query.length * Float.BYTES;
+        for (int block = from; block < to; block += BLOCK_ROWS) {
+            int rows = Math.min(BLOCK_ROWS, to - block);
+            VectorKernels.dotBatch(query, vectors, block * rowBytes, rows, dots);
+            for (int i = 0; i < rows; i++) {
+                int row = block + i;
+                double norm = queryNorm * norms.getAtIndex(VectorSnapshot.FLOAT, row);
+                float score = norm == 0 ? 0 : (float) (dots[i] / norm);
+                if (score >= threshold && heap.accepts(score) && (filter == null || filter.test(row))) {
+                    heap.offer(row, score);
+                }
+            }
+        }
+        return heap;
+    }
+}
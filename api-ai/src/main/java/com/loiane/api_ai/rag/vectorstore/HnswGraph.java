@@ -0,0 +1,381 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical navigable small world graph over the rows of a {@link VectorMatrix},
+ * for approximate cosine similarity search (Malkov and Yashunin, 2016).
+ *
+ * <p>Each row is a node on layer 0 and, with exponentially decreasing
+ * probability, on higher layers. A search descends greedily from the entry
+ * point through the upper layers and then explores layer 0 keeping the
+ * {@code ef} best nodes. Neighbours are chosen with the diversity heuristic:
+ * a candidate is linked only if it is closer to the node than to every
+ * neighbour already chosen. Nodes have at most {@code m} neighbours per upper
+ * layer and {@code 2m} on layer 0.
+ *
+ * <p>Not thread-safe; {@link HnswVectorStore} allows concurrent searches or a
+ * single insert at a time.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+final class HnswGraph {
+
+    private static final int MAGIC = 0x52414748;
+    private static final int VERSION = 1;
+
+    private final VectorMatrix matrix;
+    private final int m;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    // links[node][layer] holds the neighbour count followed by the neighbours
+    private int[][][] links = new int[1024][][];
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    HnswGraph(VectorMatrix matrix, int m, int efConstruction) {
+        if (m < 2) {
+            throw new IllegalArgumentException("HNSW m must be at least 2, was " + m);
+        }
+        this.matrix = matrix;
+        this.m = m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Links the next row of the matrix into the graph.
+     *
+     * @param node The row, which must be {@link #size()}
+     */
+    void insert(int node) {
+        if (node != size) {
+            throw new IllegalArgumentException("Rows must be inserted in order, expected " + size + " was " + node);
+        }
+        if (size == links.length) {
+            links = Arrays.copyOf(links, size * 2);
+        }
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        links[node] = new int[level + 1][];
+        for (int layer = 0; layer <= level; layer++) {
+            links[node][layer] = new int[maxNeighbours(layer) + 1];
+        }
+        size++;
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        float[] vector = matrix.row(node);
+        double norm = matrix.norm(node);
+        int entry = entryPoint;
+        float entryScore = similarity(vector, norm, entry);
+        for (int layer = maxLevel; layer > level; layer--) {
+            int[] greedy = greedy(vector, norm, entry, entryScore, layer);
+            entry = greedy[0];
+            entryScore = Float.intBitsToFloat(greedy[1]);
+        }
+        for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+            TopKHeap nearest = searchLayer(vector, norm, entry, entryScore, efConstruction, layer, null);
+            int[] candidates = new int[nearest.size()];
+            float[] scores = new float[nearest.size()];
+            int found = nearest.drainBestFirst(candidates, scores);
+            int[] neighbours = selectNeighbours(candidates, scores, found, m);
+            System.arraycopy(neighbours, 0, links[node][layer], 1, neighbours.length);
+            links[node][layer][0] = neighbours.length;
+            for (int neighbour : neighbours) {
+                link(neighbour, node, layer);
+            }
+            entry = candidates[0];
+            entryScore = scores[0];
+        }
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * Finds approximately the nodes most similar to the query.
+     *
+     * @param query     The query embedding
+     * @param queryNorm The L2 norm of the query embedding
+     * @param ef        Size of the dynamic candidate list; larger is slower and more accurate
+     * @param results   Nodes that may be returned, or {@code null} for all; the others are
+     *                  still traversed
+     * @return Up to {@code ef} of the most similar accepted nodes
+     */
+    TopKHeap search(float[] query, double queryNorm, int ef, IntPredicate results) {
+        if (entryPoint < 0) {
+            return new TopKHeap(ef);
+        }
+        int entry = entryPoint;
+        float entryScore = similarity(query, queryNorm, entry);
+        for (int layer = maxLevel; layer > 0; layer--) {
+            int[] greedy = greedy(query, queryNorm, entry, entryScore, layer);
+            entry = greedy[0];
+            entryScore = Float.intBitsToFloat(greedy[1]);
+        }
+        return searchLayer(query, queryNorm, entry, entryScore, ef, 0, results);
+    }
+
+    /**
+     * Writes the graph; the matrix is written separately.
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(size);
+        out.writeInt(m);
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        for (int node = 0; node < size; node++) {
+            out.writeInt(links[node].length);
+            for (int[] layer : links[node]) {
+                out.writeInt(layer[0]);
+                for (int i = 1; i <= layer[0]; i++) {
+                    out.writeInt(layer[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a graph written by {@link #write} for the rows of the matrix.
+     *
+     * @throws IllegalArgumentException if the graph was built with another {@code m}
+     *                                  or for a different number of rows
+     */
+    static HnswGraph read(DataInputStream in, VectorMatrix matrix, int m, int efConstruction) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IllegalArgumentException("Not an HNSW graph file");
+        }
+        int size = in.readInt();
+        int storedM = in.readInt();
+        if (size != matrix.count() || storedM != m) {
+            throw new IllegalArgumentException("HNSW graph has " + size + " nodes and m=" + storedM
+                    + ", expected " + matrix.count() + " nodes and m=" + m);
+        }
+        HnswGraph graph = new HnswGraph(matrix, m, efConstruction);
+        graph.links = new int[Math.max(size, 1024)][][];
+        graph.size = size;
+        graph.entryPoint = in.readInt();
+        graph.maxLevel = in.readInt();
+        for (int node = 0; node < size; node++) {
+            int layers = in.readInt();
+            graph.links[node] = new int[layers][];
+            for (int layer = 0; layer < layers; layer++) {
+                int count = in.readInt();
+                int[] neighbours = new int[graph.maxNeighbours(layer) + 1];
+                neighbours[0] = count;
+                for (int i = 1; i <= count; i++) {
+                    neighbours[i] = in.readInt();
+                }
+                graph.links[node][layer] = neighbours;
+            }
+        }
+        return graph;
+    }
+
+    private int maxNeighbours(int layer) {
+        return layer == 0 ? 2 * m : m;
+    }
+
+    private float similarity(float[] query, double queryNorm, int node) {
+        double norms = queryNorm * matrix.norm(node);
+        return norms == 0 ? 0 : (float) (VectorKernels.dot(query, matrix.vectors(), matrix.offset(node)) / norms);
+    }
+
+    /**
+     * Moves to the most similar neighbour until none is more similar.
+     *
+     * @return The node and the float bits of its score
+     */
+    private int[] greedy(float[] query, double queryNorm, int entry, float entryScore, int layer) {
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = links[entry][layer];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                float score = similarity(query, queryNorm, neighbours[i]);
+                if (score > entryScore) {
+                    entry = neighbours[i];
+                    entryScore = score;
+                    improved = true;
+                }
+            }
+        }
+        return new int[]{entry, Float.floatToRawIntBits(entryScore)};
+    }
+
+    private TopKHeap searchLayer(float[] query, double queryNorm, int entry, float entryScore, int ef, int layer,
+                                 IntPredicate accept) {
+        TopKHeap nearest = new TopKHeap(ef);
+        CandidateQueue candidates = new CandidateQueue(ef);
+        long[] visited = new long[(size + 63) >>> 6];
+        visited[entry >>> 6] |= 1L << entry;
+        candidates.push(entry, entryScore);
+        if (accept == null || accept.test(entry)) {
+            nearest.offer(entry, entryScore);
+        }
+        while (candidates.size() > 0) {
+            float bestScore = candidates.peekScore();
+            if (nearest.size() == ef && !nearest.accepts(bestScore)) {
+                break;
+            }
+            int[] neighbours = links[candidates.pop()][layer];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int neighbour = neighbours[i];
+                if ((visited[neighbour >>> 6] & (1L << neighbour)) != 0) {
+                    continue;
+                }
+                visited[neighbour >>> 6] |= 1L << neighbour;
+                float score = similarity(query, queryNorm, neighbour);
+                if (nearest.size() < ef || nearest.accepts(score)) {
+                    candidates.push(neighbour, score);
+                    if (accept == null || accept.test(neighbour)) {
+                        nearest.offer(neighbour, score);
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Diversity heuristic: keeps a candidate only if it is more similar to the base
+     * node than to every candidate already kept, then fills up with the best rejected.
+     *
+     * @param candidates Candidates, most similar to the base node first
+     */
+    private int[] selectNeighbours(int[] candidates, float[] scores, int count, int max) {
+        int[] selected = new int[Math.min(count, max)];
+        boolean[] taken = new boolean[count];
+        int kept = 0;
+        for (int c = 0; c < count && kept < selected.length; c++) {
+            float[] vector = matrix.row(candidates[c]);
+            double norm = matrix.norm(candidates[c]);
+            boolean diverse = true;
+            for (int s = 0; s < kept && diverse; s++) {
+                diverse = similarity(vector, norm, selected[s]) < scores[c];
+            }
+            if (diverse) {
+                selected[kept++] = candidates[c];
+                taken[c] = true;
+            }
+        }
+        for (int c = 0; c < count && kept < selected.length; c++) {
+            if (!taken[c]) {
+                selected[kept++] = candidates[c];
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Adds a back link from {@code node} to {@code neighbour}, pruning the node's
+     * neighbours with the heuristic when it already has the maximum.
+     */
+    private void link(int node, int neighbour, int layer) {
+        int[] neighbours = links[node][layer];
+        int count = neighbours[0];
+        if (count < neighbours.length - 1) {
+            neighbours[++neighbours[0]] = neighbour;
+            return;
+        }
+        float[] vector = matrix.row(node);
+        double norm = matrix.norm(node);
+        TopKHeap ranked = new TopKHeap(count + 1);
+        for (int i = 1; i <= count; i++) {
+            ranked.offer(neighbours[i], similarity(vector, norm, neighbours[i]));
+        }
+        ranked.offer(neighbour, similarity(vector, norm, neighbour));
+        int[] candidates = new int[count + 1];
+        float[] scores = new float[count + 1];
+        int found = ranked.drainBestFirst(candidates, scores);
+        int[] selected = selectNeighbours(candidates, scores, found, count);
+        System.arraycopy(selected, 0, neighbours, 1, selected.length);
+        neighbours[0] = selected.length;
+    }
+
+    /**
+     * Max-heap of nodes by score over primitive arrays, growing as needed.
+     */
+    private static final class CandidateQueue {
+
+        private int[] nodes;
+        private float[] scores;
+        private int size;
+
+        CandidateQueue(int capacity) {
+            nodes = new int[Math.max(capacity, 16)];
+            scores = new float[nodes.length];
+        }
+
+        int size() {
+            return size;
+        }
+
+        float peekScore() {
+            return scores[0];
+        }
+
+        void push(int node, float score) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            int index = size++;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (scores[parent] >= score) {
+                    break;
+                }
+                nodes[index] = nodes[parent];
+                scores[index] = scores[parent];
+                index = parent;
+            }
+            nodes[index] = node;
+            scores[index] = score;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            int lastNode = nodes[--size];
+            float lastScore = scores[size];
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && scores[child + 1] > scores[child]) {
+                    child++;
+                }
+                if (scores[child] <= lastScore) {
+                    break;
+                }
+                nodes[index] = nodes[child];
+                scores[index] = scores[child];
+                index = child;
+            }
+            nodes[index] = lastNode;
+            scores[index] = lastScore;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.beans.factory.DisposableBean;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Mutable in-process {@link VectorStore} answering unfiltered searches from an
+ * {@link HnswGraph}, an approximate nearest neighbour index.
+ *
+ * <p>Documents are appended to a {@link VectorMatrix} and linked into the graph
+ * as they are added. Deleting or replacing a document only marks its row
+ * deleted: the row stays in the graph so searches can still route through it,
+ * but it is never returned. Deleted rows are dropped, and the graph rebuilt,
+ * when the store is saved. Searches with a filter expression are exact and use
+ * the {@link FlatVectorSearch} over the live rows.
+ *
+ * <p>Searches take a read lock and run concurrently; adds and deletes take the
+ * write lock, so there is a single writer. Embedding happens before the lock is
+ * taken.
+ *
+ * <p>The store is persisted as a {@link VectorSnapshot} plus a graph file, so a
+ * restart loads the graph instead of rebuilding it. A store opened with
+ * {@link #load}, or saved with {@link #save}, saves itself back to the same
+ * files on shutdown when it was modified since.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public class HnswVectorStore implements VectorStore, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(HnswVectorStore.class);
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+    };
+
+    // Texts per embedding request when adding documents
+    private static final int EMBEDDING_BATCH_SIZE = 64;
+
+    private final EmbeddingModel embeddingModel;
+    private final JsonMapper jsonMapper;
+    private final DocumentProperties.LocalStore settings;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private VectorMatrix matrix;
+    private HnswGraph graph;
+    private List<Document> documents = new ArrayList<>();
+    private BitSet deleted = new BitSet();
+    private final Map<String, Integer> rowsById = new HashMap<>();
+
+    private Path snapshotPath;
+    private Path graphPath;
+    private boolean modified;
+
+    public HnswVectorStore(EmbeddingModel embeddingModel, JsonMapper jsonMapper,
+                           DocumentProperties documentProperties) {
+        this.embeddingModel = embeddingModel;
+        this.jsonMapper = jsonMapper;
+        this.settings = documentProperties.getLocalStore();
+        this.matrix = new VectorMatrix(embeddingModel.dimensions(), settings.isOffHeap());
+        this.graph = newGraph(matrix);
+    }
+
+    /**
+     * Opens a store saved by {@link #save}, rebuilding and saving the graph when
+     * its file is missing, older than the snapshot or does not match it.
+     *
+     * @param snapshotPath The snapshot file
+     * @param graphPath    The graph file
+     * @return The store, which saves itself back to the same files on shutdown when modified
+     * @throws IOException if a file cannot be read, or the rebuilt graph cannot be written
+     */
+    public static HnswVectorStore load(Path snapshotPath, Path graphPath, EmbeddingModel embeddingModel,
+                                       JsonMapper jsonMapper, DocumentProperties documentProperties) throws IOException {
+        HnswVectorStore store = new HnswVectorStore(embeddingModel, jsonMapper, documentProperties);
+        try (VectorSnapshot snapshot = VectorSnapshot.open(snapshotPath)) {
+            if (snapshot.dimensions() != store.matrix.dimensions()) {
+                store.matrix.close();
+                store.matrix = new VectorMatrix(snapshot.dimensions(), store.settings.isOffHeap());
+            }
+            store.matrix.appendAll(snapshot.vectors(), snapshot.norms(), snapshot.count());
+            for (int row = 0; row < snapshot.count(); row++) {
+                Document document = Document.builder()
+                        .id(snapshot.id(row))
+                        .text(snapshot.text(row))
+                        .metadata(jsonMapper.readValue(snapshot.metadataJson(row), METADATA_TYPE))
+                        .build();
+                store.documents.add(document);
+                store.rowsById.put(document.getId(), row);
+            }
+        }
+
+        store.graph = store.readGraph(snapshotPath, graphPath);
+        if (store.graph == null) {
+            long startedAt = System.nanoTime();
+            store.graph = store.buildGraph(store.matrix);
+            log.info("Built HNSW graph of {} chunks in {} ms", store.matrix.count(),
+                    (System.nanoTime() - startedAt) / 1_000_000);
+            store.writeGraph(graphPath);
+        }
+        store.snapshotPath = snapshotPath;
+        store.graphPath = graphPath;
+        return store;
+    }
+
+    /**
+     * Embeds and stores the documents, replacing those with the same id.
+     */
+    @Override
+    public void add(List<Document> documents) {
+        List<float[]> embeddings = new ArrayList<>(documents.size());
+        for (int from = 0; from < documents.size(); from += EMBEDDING_BATCH_SIZE) {
+            List<String> texts = documents.subList(from, Math.min(from + EMBEDDING_BATCH_SIZE, documents.size()))
+                    .stream().map(Document::getText).toList();
+            embeddings.addAll(embeddingModel.embed(texts));
+        }
+        add(documents, embeddings);
+    }
+
+    /**
+     * Stores documents whose embeddings are already computed, replacing those with the same id.
+     *
+     * @param documents  The documents
+     * @param embeddings The embedding of each document, in the same order
+     */
+    public void add(List<Document> documents, List<float[]> embeddings) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                Integer previous = rowsById.get(document.getId());
+                if (previous != null) {
+                    deleted.set(previous);
+                }
+                int row = matrix.append(embeddings.get(i));
+                this.documents.add(Document.builder()
+                        .id(document.getId())
+                        .text(document.getText())
+                        .metadata(document.getMetadata())
+                        .build());
+                rowsById.put(document.getId(), row);
+                graph.insert(row);
+            }
+            modified |= !documents.isEmpty();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            for (String id : idList) {
+                Integer row = rowsById.remove(id);
+                if (row != null) {
+                    deleted.set(row);
+                    modified = true;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes the documents whose metadata matches, e.g. {@code document_id == 'abc'}
+     * for every chunk of an uploaded document.
+     */
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        Predicate<Map<String, Object>> matches = MetadataFilter.compile(filterExpression);
+        List<String> ids = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < documents.size(); row++) {
+                if (!deleted.get(row) && matches.test(documents.get(row).getMetadata())) {
+                    ids.add(documents.get(row).getId());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        delete(ids);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        if (request.getTopK() == 0) {
+            return List.of();
+        }
+        float[] query = embeddingModel.embed(request.getQuery());
+        Predicate<Map<String, Object>> matches = request.hasFilterExpression()
+                ? MetadataFilter.compile(request.getFilterExpression())
+                : null;
+
+        lock.readLock().lock();
+        try {
+            if (query.length != matrix.dimensions()) {
+                throw new IllegalArgumentException("Query embedding has " + query.length
+                        + " dimensions, the store " + matrix.dimensions());
+            }
+            IntPredicate live = row -> !deleted.get(row);
+            TopKHeap best;
+            if (matches != null) {
+                int count = matrix.count();
+                best = FlatVectorSearch.search(query, matrix.vectors(), matrix.norms(), count,
+                        request.getTopK(), request.getSimilarityThreshold(),
+                        row -> live.test(row) && matches.test(documents.get(row).getMetadata()),
+                        FlatVectorSearch.partitions(count, settings));
+            } else {
+                int ef = Math.max(settings.getHnswEfSearch(), request.getTopK());
+                best = graph.search(query, VectorSnapshot.norm(query), ef, deleted.isEmpty() ? null : live);
+            }
+            int[] rows = new int[best.size()];
+            float[] scores = new float[best.size()];
+            int found = best.drainBestFirst(rows, scores);
+            List<Document> results = new ArrayList<>(Math.min(found, request.getTopK()));
+            for (int i = 0; i < found && results.size() < request.getTopK(); i++) {
+                if (scores[i] >= request.getSimilarityThreshold()) {
+                    results.add(documents.get(rows[i]).mutate().score((double) scores[i]).build());
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of stored documents, excluding deleted ones
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the store to a snapshot file and a graph file, first dropping deleted
+     * rows and rebuilding the graph over the remaining ones. Later changes are
+     * saved to the same files on shutdown.
+     *
+     * @param snapshotPath The snapshot file
+     * @param graphPath    The graph file
+     * @throws IOException if a file cannot be written
+     */
+    public void save(Path snapshotPath, Path graphPath) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!deleted.isEmpty()) {
+                compact();
+            }
+            List<VectorSnapshot.Row> rows = new ArrayList<>(documents.size());
+            for (int row = 0; row < documents.size(); row++) {
+                Document document = documents.get(row);
+                rows.add(new VectorSnapshot.Row(document.getId(), document.getText(),
+                        jsonMapper.writeValueAsString(document.getMetadata()), matrix.row(row)));
+            }
+            VectorSnapshot.write(snapshotPath, rows, matrix.dimensions());
+            writeGraph(graphPath);
+            this.snapshotPath = snapshotPath;
+            this.graphPath = graphPath;
+            modified = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "HnswVectorStore";
+    }
+
+    @Override
+    public <T> Optional<T> getNativeClient() {
+        return Optional.empty();
+    }
+
+    /**
+     * Saves the store back to the files it was loaded from or last saved to when it was modified,
+     * then releases the embeddings.
+     */
+    @Override
+    public void destroy() {
+        lock.writeLock().lock();
+        try {
+            if (modified && snapshotPath != null) {
+                save(snapshotPath, graphPath);
+            }
+        } catch (IOException e) {
+            log.warn("Could not save vector store to {}", snapshotPath, e);
+        } finally {
+            matrix.close();
+            lock.writeLock().unlock();
+        }
+    }
+
+    private HnswGraph newGraph(VectorMatrix matrix) {
+        return new HnswGraph(matrix, settings.getHnswM(), settings.getHnswEfConstruction());
+    }
+
+    private HnswGraph buildGraph(VectorMatrix matrix) {
+        HnswGraph built = newGraph(matrix);
+        for (int row = 0; row < matrix.count(); row++) {
+            built.insert(row);
+        }
+        return built;
+    }
+
+    /**
+     * Moves the live rows into a new matrix and rebuilds the graph over them.
+     */
+    private void compact() {
+        VectorMatrix live = new VectorMatrix(matrix.dimensions(), settings.isOffHeap());
+        List<Document> liveDocuments = new ArrayList<>(rowsById.size());
+        rowsById.clear();
+        for (int row = deleted.nextClearBit(0); row < documents.size(); row = deleted.nextClearBit(row + 1)) {
+            Document document = documents.get(row);
+            rowsById.put(document.getId(), live.append(matrix.row(row)));
+            liveDocuments.add(document);
+        }
+        matrix.close();
+        matrix = live;
+        documents = liveDocuments;
+        deleted = new BitSet();
+        graph = buildGraph(matrix);
+    }
+
+    /**
+     * @return The saved graph, or {@code null} when it has to be rebuilt
+     */
+    private HnswGraph readGraph(Path snapshotPath, Path graphPath) throws IOException {
+        if (!Files.exists(graphPath)
+                || Files.getLastModifiedTime(graphPath).compareTo(Files.getLastModifiedTime(snapshotPath)) < 0) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(graphPath)))) {
+            return HnswGraph.read(in, matrix, settings.getHnswM(), settings.getHnswEfConstruction());
+        } catch (IllegalArgumentException e) {
+            log.info("Rebuilding HNSW graph: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeGraph(Path graphPath) throws IOException {
+        Path temporary = Files.createTempFile(graphPath.toAbsolutePath().getParent(),
+                graphPath.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            graph.write(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, graphPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,227 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.beans.factory.DisposableBean;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Mutable in-process {@link VectorStore} keeping embeddings in a contiguous
+ * {@link VectorMatrix}, on or off the heap ({@code app.documents.local-store.off-heap}).
+ *
+ * <p>Searches are exact and use the {@link FlatVectorSearch}. Adds and deletes
+ * take a write lock, searches a read lock, so any number of searches run
+ * concurrently with each other but not with a write. Embedding happens before
+ * the write lock is taken. A deleted row is replaced by the last row, keeping
+ * the matrix dense. The store can be written to a {@link VectorSnapshot}.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public class InMemoryVectorStore implements VectorStore, DisposableBean {
+
+    // Texts per embedding request when adding documents
+    private static final int EMBEDDING_BATCH_SIZE = 64;
+
+    private final EmbeddingModel embeddingModel;
+    private final JsonMapper jsonMapper;
+    private final DocumentProperties.LocalStore settings;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final VectorMatrix matrix;
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<String, Integer> rowsById = new HashMap<>();
+
+    public InMemoryVectorStore(EmbeddingModel embeddingModel, JsonMapper jsonMapper,
+                               DocumentProperties documentProperties) {
+        this.embeddingModel = embeddingModel;
+        this.jsonMapper = jsonMapper;
+        this.settings = documentProperties.getLocalStore();
+        this.matrix = new VectorMatrix(embeddingModel.dimensions(), settings.isOffHeap());
+    }
+
+    /**
+     * Embeds and stores the documents, replacing those with the same id.
+     */
+    @Override
+    public void add(List<Document> documents) {
+        List<float[]> embeddings = new ArrayList<>(documents.size());
+        for (int from = 0; from < documents.size(); from += EMBEDDING_BATCH_SIZE) {
+            List<String> texts = documents.subList(from, Math.min(from + EMBEDDING_BATCH_SIZE, documents.size()))
+                    .stream().map(Document::getText).toList();
+            embeddings.addAll(embeddingModel.embed(texts));
+        }
+        add(documents, embeddings);
+    }
+
+    /**
+     * Stores documents whose embeddings are already computed, replacing those with the same id.
+     *
+     * @param documents  The documents
+     * @param embeddings The embedding of each document, in the same order
+     */
+    public void add(List<Document> documents, List<float[]> embeddings) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                Document stored = Document.builder()
+                        .id(document.getId())
+                        .text(document.getText())
+                        .metadata(document.getMetadata())
+                        .build();
+                Integer row = rowsById.get(document.getId());
+                if (row != null) {
+                    matrix.set(row, embeddings.get(i));
+                    this.documents.set(row, stored);
+                } else {
+                    rowsById.put(document.getId(), matrix.append(embeddings.get(i)));
+                    this.documents.add(stored);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            for (String id : idList) {
+                Integer row = rowsById.remove(id);
+                if (row == null) {
+                    continue;
+                }
+                int last = matrix.count() - 1;
+                if (row != last) {
+                    Document moved = documents.get(last);
+                    matrix.move(last, row);
+                    documents.set(row, moved);
+                    rowsById.put(moved.getId(), row);
+                }
+                matrix.removeLast();
+                documents.removeLast();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        Predicate<Map<String, Object>> matches = MetadataFilter.compile(filterExpression);
+        List<String> ids;
+        lock.readLock().lock();
+        try {
+            ids = documents.stream().filter(document -> matches.test(document.getMetadata()))
+                    .map(Document::getId).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+        delete(ids);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        if (request.getTopK() == 0) {
+            return List.of();
+        }
+        float[] query = embeddingModel.embed(request.getQuery());
+        IntPredicate filter = null;
+        if (request.hasFilterExpression()) {
+            Predicate<Map<String, Object>> matches = MetadataFilter.compile(request.getFilterExpression());
+            filter = row -> matches.test(documents.get(row).getMetadata());
+        }
+
+        lock.readLock().lock();
+        try {
+            int count = matrix.count();
+            TopKHeap best = FlatVectorSearch.search(query, matrix.vectors(), matrix.norms(), count,
+                    request.getTopK(), request.getSimilarityThreshold(), filter,
+                    FlatVectorSearch.partitions(count, settings));
+            int[] rows = new int[best.size()];
+            float[] scores = new float[best.size()];
+            int found = best.drainBestFirst(rows, scores);
+            List<Document> results = new ArrayList<>(found);
+            for (int i = 0; i < found; i++) {
+                results.add(documents.get(rows[i]).mutate().score((double) scores[i]).build());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of stored documents
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return matrix.count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the store to a snapshot file, which {@link MappedVectorStore} can serve.
+     *
+     * @param path The snapshot file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        List<VectorSnapshot.Row> rows;
+        lock.readLock().lock();
+        try {
+            rows = new ArrayList<>(documents.size());
+            for (int row = 0; row < documents.size(); row++) {
+                Document document = documents.get(row);
+                rows.add(new VectorSnapshot.Row(document.getId(), document.getText(),
+                        jsonMapper.writeValueAsString(document.getMetadata()), matrix.row(row)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        VectorSnapshot.write(path, rows, matrix.dimensions());
+    }
+
+    @Override
+    public String getName() {
+        return "InMemoryVectorStore";
+    }
+
+    @Override
+    public <T> Optional<T> getNativeClient() {
+        return Optional.empty();
+    }
+
+    @Override
+    public void destroy() {
+        lock.writeLock().lock();
+        try {
+            matrix.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.beans.factory.DisposableBean;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Read-only {@link VectorStore} searching a memory-mapped {@link VectorSnapshot}.
+ *
+ * <p>Similarity is computed directly over the mapped embeddings by the
+ * {@link FlatVectorSearch}, and only the returned rows are decoded into
+ * {@link Document}s. Filter expressions use the same syntax as
+ * {@code SimpleVectorStore}; they need the metadata of each candidate row, so
+ * filtered searches are slower.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public class MappedVectorStore implements VectorStore, DisposableBean {
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+    };
+
+    private final VectorSnapshot snapshot;
+    private final EmbeddingModel embeddingModel;
+    private final JsonMapper jsonMapper;
+    private final DocumentProperties.LocalStore settings;
+
+    public MappedVectorStore(VectorSnapshot snapshot, EmbeddingModel embeddingModel, JsonMapper jsonMapper,
+                             DocumentProperties documentProperties) {
+        this.snapshot = snapshot;
+        this.embeddingModel = embeddingModel;
+        this.jsonMapper = jsonMapper;
+        this.settings = documentProperties.getLocalStore();
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        if (request.getTopK() == 0) {
+            return List.of();
+        }
+        float[] query = embeddingModel.embed(request.getQuery());
+        if (query.length != snapshot.dimensions()) {
+            throw new IllegalArgumentException("Query embedding has " + query.length
+                    + " dimensions, the snapshot " + snapshot.dimensions());
+        }
+        IntPredicate filter = null;
+        if (request.hasFilterExpression()) {
+            Predicate<Map<String, Object>> matches = MetadataFilter.compile(request.getFilterExpression());
+            filter = row -> matches.test(metadata(row));
+        }
+
+        TopKHeap best = FlatVectorSearch.search(query, snapshot.vectors(), snapshot.norms(), snapshot.count(),
+                request.getTopK(), request.getSimilarityThreshold(), filter,
+                FlatVectorSearch.partitions(snapshot.count(), settings));
+        int[] rows = new int[best.size()];
+        float[] scores = new float[best.size()];
+        int found = best.drainBestFirst(rows, scores);
+        List<Document> results = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            results.add(Document.builder()
+                    .id(snapshot.id(rows[i]))
+                    .text(snapshot.text(rows[i]))
+                    .metadata(metadata(rows[i]))
+                    .score((double) scores[i])
+                    .build());
+        }
+        return results;
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        throw new UnsupportedOperationException("The mapped vector store is a read-only snapshot");
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        throw new UnsupportedOperationException("The mapped vector store is a read-only snapshot");
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        throw new UnsupportedOperationException("The mapped vector store is a read-only snapshot");
+    }
+
+    @Override
+    public String getName() {
+        return "MappedVectorStore";
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> getNativeClient() {
+        return Optional.of((T) snapshot);
+    }
+
+    @Override
+    public void destroy() {
+        snapshot.close();
+    }
+
+    private Map<String, Object> metadata(int row) {
+        return jsonMapper.readValue(snapshot.metadataJson(row), METADATA_TYPE);
+    }
+}
@@ -0,0 +1,39 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+/**
+ * Evaluates vector store filter expressions against chunk metadata the same
+ * way {@code SimpleVectorStore} does, by converting them to SpEL.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+final class MetadataFilter {
+
+    private static final SimpleVectorStoreFilterExpressionConverter CONVERTER =
+            new SimpleVectorStoreFilterExpressionConverter();
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+
+    private MetadataFilter() {
+    }
+
+    /**
+     * @return A thread-safe predicate over chunk metadata
+     */
+    static Predicate<Map<String, Object>> compile(Filter.Expression filterExpression) {
+        Expression expression = PARSER.parseExpression(CONVERTER.convertExpression(filterExpression));
+        return metadata -> {
+            StandardEvaluationContext context = new StandardEvaluationContext();
+            context.setVariable("metadata", metadata);
+            return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+        };
+    }
+}
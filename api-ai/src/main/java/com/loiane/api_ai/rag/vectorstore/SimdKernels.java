@@ -0,0 +1,42 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementation of {@link VectorKernels}; only compiled by the
+ * {@code vector-api} Maven profile, and only loaded when the
+ * {@code jdk.incubator.vector} module is present.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+final class SimdKernels implements VectorKernels.DotProduct {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    SimdKernels() {
+    }
+
+    @Override
+    public float dot(float[] query, MemorySegment matrix, long offset) {
+        FloatVector sum = FloatVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(query.length);
+        int d = 0;
+        for (; d < bound; d += SPECIES.length()) {
+            FloatVector q = FloatVector.fromArray(SPECIES, query, d);
+            FloatVector row = FloatVector.fromMemorySegment(SPECIES, matrix, offset + (long) d * Float.BYTES,
+                    ByteOrder.LITTLE_ENDIAN);
+            sum = q.fma(row, sum);
+        }
+        float dot = sum.reduceLanes(VectorOperators.ADD);
+        for (; d < query.length; d++) {
+            dot += query[d] * matrix.get(VectorSnapshot.FLOAT, offset + (long) d * Float.BYTES);
+        }
+        return dot;
+    }
+}
@@ -0,0 +1,122 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+/**
+ * The {@code k} best scoring rows seen so far, in a binary min-heap over
+ * primitive arrays, so offering a candidate allocates nothing.
+ *
+ * <p>Not thread-safe; parallel searches fill one heap per partition and
+ * {@link #merge} them.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public final class TopKHeap {
+
+    private final int[] rows;
+    private final float[] scores;
+    private int size;
+
+    public TopKHeap(int k) {
+        this.rows = new int[k];
+        this.scores = new float[k];
+    }
+
+    /**
+     * @return Whether a candidate with this score would be kept
+     */
+    public boolean accepts(float score) {
+        return size < rows.length || (rows.length > 0 && score > scores[0]);
+    }
+
+    /**
+     * Keeps the row when it is among the {@code k} best so far.
+     */
+    public void offer(int row, float score) {
+        if (size < rows.length) {
+            rows[size] = row;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (accepts(score)) {
+            rows[0] = row;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Offers every row of another heap.
+     *
+     * @return This heap
+     */
+    public TopKHeap merge(TopKHeap other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.rows[i], other.scores[i]);
+        }
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Empties the heap into arrays ordered best first.
+     *
+     * @param rowsOut   Receives the rows, at least {@link #size()} long
+     * @param scoresOut Receives the scores, at least {@link #size()} long
+     * @return The number of rows written
+     */
+    public int drainBestFirst(int[] rowsOut, float[] scoresOut) {
+        int count = size;
+        for (int i = count - 1; i >= 0; i--) {
+            rowsOut[i] = rows[0];
+            scoresOut[i] = scores[0];
+            size--;
+            if (size > 0) {
+                rows[0] = rows[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+        }
+        return count;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= scores[index]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && scores[left] < scores[smallest]) {
+                smallest = left;
+            }
+            if (right < size && scores[right] < scores[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int row = rows[a];
+        rows[a] = rows[b];
+        rows[b] = row;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -0,0 +1,84 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Dot products between a query and the rows of a row-major float matrix in a
+ * {@link MemorySegment}, using the JDK Vector API when it is available.
+ *
+ * <p>The Vector API is an incubator module, so {@code SimdKernels} is only
+ * compiled by the {@code vector-api} Maven profile, and the JVM must be started
+ * with {@code --add-modules jdk.incubator.vector}. Without either, or with
+ * {@code -Drag.vector.simd=false}, a scalar loop is used instead.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public final class VectorKernels {
+
+    private static final DotProduct SIMD = loadSimdKernels();
+
+    private VectorKernels() {
+    }
+
+    /**
+     * Dot product of a query with a matrix row, implemented by {@code SimdKernels}.
+     */
+    interface DotProduct {
+
+        float dot(float[] query, MemorySegment matrix, long offset);
+    }
+
+    private static DotProduct loadSimdKernels() {
+        if ("false".equals(System.getProperty("rag.vector.simd"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            // Loaded by name: the class is absent unless built with the vector-api profile
+            return (DotProduct) Class.forName(VectorKernels.class.getPackageName() + ".SimdKernels")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return Whether the Vector API kernels are in use
+     */
+    public static boolean simd() {
+        return SIMD != null;
+    }
+
+    /**
+     * Dot products of the query with consecutive rows.
+     *
+     * @param query  The query, as long as a row
+     * @param matrix The little-endian matrix
+     * @param offset Byte offset of the first row
+     * @param rows   Number of rows
+     * @param out    Receives the dot product of row {@code i} at index {@code i}
+     */
+    public static void dotBatch(float[] query, MemorySegment matrix, long offset, int rows, float[] out) {
+        long rowBytes = (long) query.length * Float.BYTES;
+        for (int i = 0; i < rows; i++) {
+            out[i] = dot(query, matrix, offset + i * rowBytes);
+        }
+    }
+
+    /**
+     * Dot product of the query with the row at the given byte offset.
+     */
+    public static float dot(float[] query, MemorySegment matrix, long offset) {
+        return SIMD != null ? SIMD.dot(query, matrix, offset) : scalarDot(query, matrix, offset);
+    }
+
+    static float scalarDot(float[] query, MemorySegment matrix, long offset) {
+        float dot = 0;
+        for (int d = 0; d < query.length; d++) {
+            dot += query[d] * matrix.get(VectorSnapshot.FLOAT, offset + (long) d * Float.BYTES);
+        }
+        return dot;
+    }
+}
@@ -0,0 +1,165 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Growable row-major matrix of little-endian float embeddings with the L2 norm
+ * of each row, in contiguous memory on or off the Java heap.
+ *
+ * <p>Heap matrices are backed by {@code byte[]}, the only heap arrays the Vector
+ * API can load from a memory segment, and are limited to 2 GB. Off-heap matrices
+ * are allocated in a shared arena that is released when the matrix grows or is
+ * closed.
+ *
+ * <p>Not thread-safe; {@link InMemoryVectorStore} guards it with a read-write lock.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+final class VectorMatrix implements AutoCloseable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int dimensions;
+    private final boolean offHeap;
+    private final long rowBytes;
+
+    private Arena arena;
+    private MemorySegment vectors;
+    private MemorySegment norms;
+    private int capacity;
+    private int count;
+
+    VectorMatrix(int dimensions, boolean offHeap) {
+        this.dimensions = dimensions;
+        this.offHeap = offHeap;
+        this.rowBytes = (long) dimensions * Float.BYTES;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    int count() {
+        return count;
+    }
+
+    MemorySegment vectors() {
+        return vectors;
+    }
+
+    MemorySegment norms() {
+        return norms;
+    }
+
+    /**
+     * Appends a row.
+     *
+     * @return The index of the new row
+     */
+    int append(float[] embedding) {
+        if (count == capacity) {
+            allocate(capacity * 2);
+        }
+        set(count, embedding);
+        return count++;
+    }
+
+    /**
+     * Appends rows copied from another matrix with the same dimensions.
+     *
+     * @param vectors The source rows
+     * @param norms   The L2 norm of each source row
+     * @param rows    Number of rows to copy
+     */
+    void appendAll(MemorySegment vectors, MemorySegment norms, int rows) {
+        int needed = count + rows;
+        if (needed > capacity) {
+            allocate(Math.max(needed, capacity * 2));
+        }
+        MemorySegment.copy(vectors, 0, this.vectors, count * rowBytes, rows * rowBytes);
+        MemorySegment.copy(norms, 0, this.norms, (long) count * Float.BYTES, (long) rows * Float.BYTES);
+        count = needed;
+    }
+
+    /**
+     * Overwrites a row.
+     */
+    void set(int row, float[] embedding) {
+        if (embedding.length != dimensions) {
+            throw new IllegalArgumentException("Embedding has " + embedding.length
+                    + " dimensions, the store " + dimensions);
+        }
+        MemorySegment.copy(embedding, 0, vectors, VectorSnapshot.FLOAT, row * rowBytes, dimensions);
+        norms.setAtIndex(VectorSnapshot.FLOAT, row, (float) VectorSnapshot.norm(embedding));
+    }
+
+    /**
+     * Copies a row over another one.
+     */
+    void move(int from, int to) {
+        MemorySegment.copy(vectors, from * rowBytes, vectors, to * rowBytes, rowBytes);
+        norms.setAtIndex(VectorSnapshot.FLOAT, to, norms.getAtIndex(VectorSnapshot.FLOAT, from));
+    }
+
+    /**
+     * Drops the last row.
+     */
+    void removeLast() {
+        count--;
+    }
+
+    float norm(int row) {
+        return norms.getAtIndex(VectorSnapshot.FLOAT, row);
+    }
+
+    /**
+     * Byte offset of a row in {@link #vectors()}.
+     */
+    long offset(int row) {
+        return row * rowBytes;
+    }
+
+    float[] row(int row) {
+        float[] embedding = new float[dimensions];
+        MemorySegment.copy(vectors, VectorSnapshot.FLOAT, row * rowBytes, embedding, 0, dimensions);
+        return embedding;
+    }
+
+    @Override
+    public void close() {
+        if (arena != null) {
+            arena.close();
+        }
+    }
+
+    private void allocate(int newCapacity) {
+        long vectorBytes = newCapacity * rowBytes;
+        long normBytes = (long) newCapacity * Float.BYTES;
+        Arena newArena = null;
+        MemorySegment newVectors;
+        MemorySegment newNorms;
+        if (offHeap) {
+            newArena = Arena.ofShared();
+            newVectors = newArena.allocate(vectorBytes, 64);
+            newNorms = newArena.allocate(normBytes, 64);
+        } else {
+            if (vectorBytes > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Embeddings exceed 2 GB; set app.documents.local-store.off-heap=true");
+            }
+            newVectors = MemorySegment.ofArray(new byte[(int) vectorBytes]);
+            newNorms = MemorySegment.ofArray(new byte[(int) normBytes]);
+        }
+        if (vectors != null) {
+            MemorySegment.copy(vectors, 0, newVectors, 0, count * rowBytes);
+            MemorySegment.copy(norms, 0, newNorms, 0, (long) count * Float.BYTES);
+        }
+        close();
+        arena = newArena;
+        vectors = newVectors;
+        norms = newNorms;
+        capacity = newCapacity;
+    }
+}
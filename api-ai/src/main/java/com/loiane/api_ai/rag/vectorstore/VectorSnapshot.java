@@ -0,0 +1,288 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only vector store snapshot in a binary file, memory-mapped for searching.
+ *
+ * <p>File layout, little-endian:
+ * <pre>
+ * offset 0   int   magic "RAGV"
+ *        4   int   format version (1)
+ *        8   int   row count n
+ *        12  int   dimensions d
+ *        16  long  offset of the records section
+ *        64  float[n * d] embeddings, row-major
+ *            float[n]     L2 norm of each embedding
+ *            long[n + 1]  start of each record, relative to the records section
+ *            records      per row: id, text and metadata JSON, each an int byte length and UTF-8 bytes
+ * </pre>
+ *
+ * <p>Embeddings are read straight from the mapping, so opening a snapshot costs
+ * the same whatever its size and the matrix never lands on the heap. Text and
+ * metadata are decoded only for the rows a search returns.
+ *
+ * <p>Thread-safe for reads; {@link #close()} unmaps the file.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public final class VectorSnapshot implements AutoCloseable {
+
+    private static final int MAGIC = 0x52414756;
+    private static final int VERSION = 1;
+    private static final long HEADER_BYTES = 64;
+
+    static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    static final ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final int count;
+    private final int dimensions;
+    private final long normsOffset;
+    private final long recordTableOffset;
+    private final long recordsOffset;
+
+    private VectorSnapshot(Arena arena, MemorySegment segment) {
+        this.arena = arena;
+        this.segment = segment;
+        if (segment.byteSize() < HEADER_BYTES || segment.get(INT, 0) != MAGIC) {
+            throw new IllegalArgumentException("Not a vector snapshot file");
+        }
+        if (segment.get(INT, 4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported vector snapshot version " + segment.get(INT, 4));
+        }
+        this.count = segment.get(INT, 8);
+        this.dimensions = segment.get(INT, 12);
+        this.recordsOffset = segment.get(LONG, 16);
+        this.normsOffset = HEADER_BYTES + (long) count * dimensions * Float.BYTES;
+        this.recordTableOffset = align8(normsOffset + (long) count * Float.BYTES);
+        if (recordsOffset != recordTableOffset + (count + 1L) * Long.BYTES
+                || segment.byteSize() < recordsOffset
+                || segment.byteSize() < recordsOffset + segment.get(LONG, recordsOffset - Long.BYTES)) {
+            throw new IllegalArgumentException("Truncated vector snapshot file");
+        }
+    }
+
+    /**
+     * Memory-maps a snapshot file.
+     *
+     * @param path The snapshot file
+     * @return The mapped snapshot, to be closed when no longer searched
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid snapshot
+     */
+    public static VectorSnapshot open(Path path) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new VectorSnapshot(arena, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a snapshot file, replacing the previous one atomically.
+     *
+     * @param path       The snapshot file
+     * @param rows       The rows, each with its embedding
+     * @param dimensions Dimensions of every embedding
+     * @throws IOException              if the file cannot be written
+     * @throws IllegalArgumentException if an embedding does not have the given dimensions
+     */
+    public static void write(Path path, List<Row> rows, int dimensions) throws IOException {
+        int count = rows.size();
+        long normsOffset = HEADER_BYTES + (long) count * dimensions * Float.BYTES;
+        long recordTableOffset = align8(normsOffset + (long) count * Float.BYTES);
+        long recordsOffset = recordTableOffset + (count + 1L) * Long.BYTES;
+
+        List<byte[]> records = new ArrayList<>(count);
+        for (Row row : rows) {
+            if (row.embedding().length != dimensions) {
+                throw new IllegalArgumentException("Row " + row.id() + " has " + row.embedding().length
+                        + " dimensions, expected " + dimensions);
+            }
+            records.add(record(row));
+        }
+
+        Path temporary = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = buffer((int) HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(dimensions).putLong(recordsOffset);
+            writeFully(channel, header.clear());
+
+            ByteBuffer vector = buffer(dimensions * Float.BYTES);
+            for (Row row : rows) {
+                vector.clear().asFloatBuffer().put(row.embedding());
+                writeFully(channel, vector);
+            }
+
+            ByteBuffer norms = buffer((int) (recordTableOffset - normsOffset));
+            for (Row row : rows) {
+                norms.putFloat((float) norm(row.embedding()));
+            }
+            writeFully(channel, norms.clear());
+
+            ByteBuffer table = buffer((count + 1) * Long.BYTES);
+            long offset = 0;
+            for (byte[] record : records) {
+                table.putLong(offset);
+                offset += record.length;
+            }
+            writeFully(channel, table.putLong(offset).flip());
+
+            for (byte[] record : records) {
+                writeFully(channel, ByteBuffer.wrap(record));
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return Number of rows
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @return Dimensions of every embedding
+     */
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Cosine similarity between a query and a row's embedding.
+     *
+     * @param query     The query embedding
+     * @param queryNorm The L2 norm of the query embedding
+     * @param row       The row
+     * @return The cosine similarity, 0 when either embedding is all zeros
+     */
+    public double cosineSimilarity(float[] query, double queryNorm, int row) {
+        float dot = VectorKernels.dot(query, segment, HEADER_BYTES + (long) row * dimensions * Float.BYTES);
+        double norms = queryNorm * segment.get(FLOAT, normsOffset + (long) row * Float.BYTES);
+        return norms == 0 ? 0 : dot / norms;
+    }
+
+    /**
+     * @return The embedding matrix, row-major
+     */
+    MemorySegment vectors() {
+        return segment.asSlice(HEADER_BYTES, (long) count * dimensions * Float.BYTES);
+    }
+
+    /**
+     * @return The L2 norm of each row
+     */
+    MemorySegment norms() {
+        return segment.asSlice(normsOffset, (long) count * Float.BYTES);
+    }
+
+    public String id(int row) {
+        return field(row, 0);
+    }
+
+    public String text(int row) {
+        return field(row, 1);
+    }
+
+    /**
+     * @return The row's metadata as a JSON object
+     */
+    public String metadataJson(int row) {
+        return field(row, 2);
+    }
+
+    /**
+     * Unmaps the file; searches must have finished.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    static double norm(float[] vector) {
+        double sum = 0;
+        for (float value : vector) {
+            sum += value * value;
+        }
+        return Math.sqrt(sum);
+    }
+
+    /**
+     * Reads the {@code index}-th length-prefixed string of a row's record.
+     */
+    private String field(int row, int index) {
+        long offset = recordsOffset + segment.get(LONG, recordTableOffset + (long) row * Long.BYTES);
+        for (int i = 0; i < index; i++) {
+            offset += Integer.BYTES + segment.get(INT, offset);
+        }
+        int length = segment.get(INT, offset);
+        byte[] bytes = segment.asSlice(offset + Integer.BYTES, length).toArray(ValueLayout.JAVA_BYTE);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] record(Row row) {
+        byte[][] fields = {
+                row.id().getBytes(StandardCharsets.UTF_8),
+                row.text() == null ? new byte[0] : row.text().getBytes(StandardCharsets.UTF_8),
+                row.metadataJson().getBytes(StandardCharsets.UTF_8)
+        };
+        int size = 0;
+        for (byte[] field : fields) {
+            size += Integer.BYTES + field.length;
+        }
+        ByteBuffer record = buffer(size);
+        for (byte[] field : fields) {
+            record.putInt(field.length).put(field);
+        }
+        return record.array();
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static long align8(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    /**
+     * A row to write: a chunk and its embedding.
+     *
+     * @param id           The chunk id
+     * @param text         The chunk text
+     * @param metadataJson The chunk metadata as a JSON object
+     * @param embedding    The chunk embedding
+     */
+    public record Row(String id, String text, String metadataJson, float[] embedding) {
+    }
+}
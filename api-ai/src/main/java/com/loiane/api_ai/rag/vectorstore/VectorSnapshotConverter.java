@@ -0,0 +1,58 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Converts a {@code SimpleVectorStore} JSON file into a {@link VectorSnapshot}.
+ *
+ * <p>The JSON file maps each chunk id to an object with {@code id}, {@code text}
+ * (or {@code content} in files written by older Spring AI versions),
+ * {@code metadata} and {@code embedding}.
+ *
+ * @author Loiane Groner
+ * @since 1.0
+ */
+public final class VectorSnapshotConverter {
+
+    private VectorSnapshotConverter() {
+    }
+
+    /**
+     * Writes the chunks of a JSON vector store file to a snapshot file.
+     *
+     * @param json       The {@code SimpleVectorStore} JSON file
+     * @param snapshot   The snapshot file to write
+     * @param jsonMapper Mapper reading the JSON file
+     * @return Number of chunks converted
+     * @throws IOException              if a file cannot be read or written
+     * @throws IllegalArgumentException if the chunks have embeddings of different dimensions
+     */
+    public static int convert(Path json, Path snapshot, JsonMapper jsonMapper) throws IOException {
+        JsonNode root = jsonMapper.readTree(json.toFile());
+        List<VectorSnapshot.Row> rows = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> entry : root.properties()) {
+            JsonNode chunk = entry.getValue();
+            JsonNode embeddingNode = chunk.path("embedding");
+            float[] embedding = new float[embeddingNode.size()];
+            for (int d = 0; d < embedding.length; d++) {
+                embedding[d] = embeddingNode.get(d).floatValue();
+            }
+            JsonNode text = chunk.has("text") ? chunk.get("text") : chunk.path("content");
+            JsonNode metadata = chunk.path("metadata");
+            rows.add(new VectorSnapshot.Row(
+                    chunk.has("id") ? chunk.get("id").asString() : entry.getKey(),
+                    text.isNull() || text.isMissingNode() ? null : text.asString(),
+                    metadata.isObject() ? jsonMapper.writeValueAsString(metadata) : "{}",
+                    embedding));
+        }
+        VectorSnapshot.write(snapshot, rows, rows.isEmpty() ? 0 : rows.getFirst().embedding().length);
+        return rows.size();
+    }
+}
@@ -0,0 +1,28 @@
+-- Compact HNSW indexes for app.documents.retrieval.vector-search-mode=halfvec|binary|matryoshka.
+--
+-- Embeddings stay in vector_store.embedding at full precision and full length (used to rescore
+-- candidates), so existing rows need no migration: the expression indexes below cover them as they are.
+-- The application builds the index of the configured mode at startup (VectorIndexJob) and searches the
+-- full-precision index until it is ready; this script builds it ahead of time instead.
+-- Migrating an existing database:
+--   1. Create the index of the chosen mode (CONCURRENTLY keeps the table writable; run outside a transaction).
+--   2. Set app.documents.retrieval.vector-search-mode and restart the application.
+--   3. Optionally drop the full-precision index to reclaim its memory. Searches filtered by
+--      anything other than document_id would then scan the table.
+-- The dimensions (1536) must match spring.ai.vectorstore.pgvector.dimensions.
+
+-- halfvec: 2 bytes per dimension (requires pgvector 0.7.0+)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_vector_store_embedding_halfvec
+    ON vector_store USING HNSW ((embedding::halfvec(1536)) halfvec_cosine_ops);
+
+-- binary: 1 bit per dimension (requires pgvector 0.7.0+)
+-- CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_vector_store_embedding_binary
+--     ON vector_store USING HNSW ((binary_quantize(embedding)::bit(1536)) bit_hamming_ops);
+
+-- matryoshka: the leading 256 dimensions, 4 bytes each (requires pgvector 0.7.0+). The dimensions (256)
+-- must match app.documents.retrieval.matryoshka-dimensions and the index name ends with them.
+-- CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_vector_store_embedding_matryoshka_256
+--     ON vector_store USING HNSW ((subvector(embedding, 1, 256)::vector(256)) vector_cosine_ops);
+
+-- Step 3, once the quantized mode is in use (find the index name with \di vector_store*):
+-- DROP INDEX CONCURRENTLY IF EXISTS vector_store_embedding_idx;
@@ -6,7 +6,10 @@ CREATE TABLE IF NOT EXISTS vector_store (
     id uuid DEFAULT uuid_generate_v4() PRIMARY KEY,
     content text,
     metadata json,
-    embedding vector(1536)
+    embedding vector(1536),
+    document_id uuid GENERATED ALWAYS AS ((metadata->>'document_id')::uuid) STORED
 );
 
 CREATE INDEX ON vector_store USING HNSW (embedding vector_cosine_ops);
+
+-- Indexes and tables added since are created by schema.sql, which also runs on every startup
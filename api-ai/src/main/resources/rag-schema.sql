@@ -3,6 +3,7 @@
 -- Note: vector extension and vector_store table are created in pgvector.sql
 
 -- Drop existing tables if they exist (for clean re-initialization)
+DROP TABLE IF EXISTS ingestion_checkpoints;
 DROP TABLE IF EXISTS documents CASCADE;
 
 -- =============================================
@@ -17,6 +18,8 @@ CREATE TABLE documents (
     upload_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     status VARCHAR(20) NOT NULL DEFAULT 'PROCESSING',
     error_message TEXT,
+    content_hash CHAR(64),
+    chunk_count INT,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     
@@ -25,7 +28,10 @@ CREATE TABLE documents (
 
 -- Create indexes for efficient querying
 CREATE INDEX IF NOT EXISTS idx_documents_status ON documents(status);
-CREATE INDEX IF NOT EXISTS idx_documents_upload_date ON documents(upload_date DESC);
+
+-- Indexes and tables added since (content hash, upload date and id, ingestion checkpoints,
+-- embedding cache, bootstrap manifest, evaluations) are created by schema.sql, which also runs
+-- on every startup
 
 -- =============================================
 -- Helper Function: Update updated_at timestamp
@@ -22,6 +22,100 @@ CREATE INDEX IF NOT EXISTS spring_ai_chat_memory_conversation_id_timestamp_idx
 CREATE INDEX IF NOT EXISTS spring_ai_chat_memory_conversation_id_sequence_id_idx
     ON spring_ai_chat_memory(conversation_id, sequence_id);
 
+-- =============================================
+-- RAG schema additions
+-- pgvector.sql and rag-schema.sql only run when the database volume is created, while this
+-- script runs on every startup: everything added to the RAG schema since is created here,
+-- idempotently, so existing databases are migrated in place.
+-- =============================================
+
+-- Typed document id for document-scoped searches
+ALTER TABLE vector_store
+    ADD COLUMN IF NOT EXISTS document_id uuid GENERATED ALWAYS AS ((metadata->>'document_id')::uuid) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_vector_store_document_id ON vector_store (document_id);
+
+-- Full-text index for hybrid retrieval (app.documents.retrieval.text-search-config must match)
+CREATE INDEX IF NOT EXISTS idx_vector_store_content_fts
+    ON vector_store USING GIN (to_tsvector('english'::regconfig, coalesce(content, '')));
+
+-- Chunks embedded for a document update, moved into vector_store in one transaction once all are embedded
+CREATE TABLE IF NOT EXISTS vector_store_staging (
+    id uuid PRIMARY KEY,
+    content text,
+    metadata json,
+    embedding vector(1536),
+    document_id uuid GENERATED ALWAYS AS ((metadata->>'document_id')::uuid) STORED
+);
+
+CREATE INDEX IF NOT EXISTS idx_vector_store_staging_document_id ON vector_store_staging (document_id);
+
+-- SHA-256 of the uploaded file, which is also its storage key: finds the existing document for an
+-- identical upload, and counts the documents still sharing a file before it is deleted.
+-- Documents uploaded before this column existed keep a NULL hash and are read from the upload directory.
+ALTER TABLE documents ADD COLUMN IF NOT EXISTS content_hash CHAR(64);
+
+CREATE INDEX IF NOT EXISTS idx_documents_content_hash ON documents(content_hash);
+
+-- Keyset pagination of the document list (ORDER BY upload_date DESC, id DESC) reads this index in
+-- order, ties included, instead of sorting; it also serves the upload date filters, which makes the
+-- single-column index on upload_date redundant
+CREATE INDEX IF NOT EXISTS idx_documents_upload_date_id ON documents(upload_date DESC, id DESC);
+
+DROP INDEX IF EXISTS idx_documents_upload_date;
+
+-- Number of chunks stored when the document became READY: 0 for a PDF without text, which is
+-- then not mistaken for a document that lost its vectors. NULL for documents ingested before.
+ALTER TABLE documents ADD COLUMN IF NOT EXISTS chunk_count INT;
+
+-- Number of leading chunks of a document already stored in vector_store, so a
+-- failed or interrupted ingestion resumes instead of starting from page one
+CREATE TABLE IF NOT EXISTS ingestion_checkpoints (
+    document_id UUID PRIMARY KEY REFERENCES documents(id) ON DELETE CASCADE,
+    chunks_committed INT NOT NULL,
+    last_page INT,
+    chunking VARCHAR(50) NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Embeddings keyed by the SHA-256 of the normalized chunk text, per model and
+-- dimensions, so unchanged chunks are never embedded twice
+CREATE TABLE IF NOT EXISTS embedding_cache (
+    content_hash CHAR(64) NOT NULL,
+    model VARCHAR(100) NOT NULL,
+    dimensions INT NOT NULL,
+    embedding vector NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (content_hash, model, dimensions)
+);
+
+-- Bundled sources (the reference PDF of the "rag" profile) whose chunks are all
+-- stored in vector_store, by content hash, so startup looks the source up
+-- instead of counting vector_store rows
+CREATE TABLE IF NOT EXISTS bootstrap_manifest (
+    source VARCHAR(255) PRIMARY KEY,
+    content_hash CHAR(64) NOT NULL,
+    chunks INT NOT NULL,
+    indexed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Relevancy evaluation results of sampled (or explicitly requested) answers
+CREATE TABLE IF NOT EXISTS rag_evaluations (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    question TEXT NOT NULL,
+    document_id VARCHAR(36),
+    answer TEXT NOT NULL,
+    passed BOOLEAN NOT NULL,
+    feedback TEXT,
+    mode VARCHAR(10) NOT NULL,
+    evaluated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT chk_evaluation_mode CHECK (mode IN ('SYNC', 'SAMPLED'))
+);
+
+CREATE INDEX IF NOT EXISTS idx_rag_evaluations_evaluated_at ON rag_evaluations(evaluated_at DESC);
+
 CREATE TABLE IF NOT EXISTS flight_reservations (
     reservation_id VARCHAR(255) PRIMARY KEY,
     flight_number VARCHAR(20) NOT NULL,
@@ -2,6 +2,9 @@ package com.loiane.api_ai.rag;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -22,7 +25,9 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.postgresql.PostgreSQLContainer;
 
 import com.loiane.api_ai.rag.model.DocumentMetadata;
+import com.loiane.api_ai.rag.model.DocumentPage;
 import com.loiane.api_ai.rag.model.DocumentStatus;
+import com.loiane.api_ai.rag.model.DocumentSummary;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
@@ -61,6 +66,9 @@ class DocumentRepositoryTest {
     @Autowired
     private DocumentRepository repository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private DocumentMetadata newDocument(String id, DocumentStatus status) {
         return new DocumentMetadata(
                 id,
@@ -119,14 +127,33 @@ class DocumentRepositoryTest {
                 id, "renamed.pdf", "application/pdf", 2048L,
                 LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS), DocumentStatus.READY));
 
-        assertThat(repository.findAll()).hasSize(1);
+        assertThat(repository.count()).isEqualTo(1);
         DocumentMetadata updated = repository.findById(id).orElseThrow();
         assertThat(updated.filename()).isEqualTo("renamed.pdf");
         assertThat(updated.status()).isEqualTo(DocumentStatus.READY);
     }
 
     @Test
-    void findAll_ordersDocumentsByUploadDateDescending() {
+    void findByContentHash_returnsTheDocumentSavedWithThatHashUnlessItFailed() {
+        String id = UUID.randomUUID().toString();
+        String hash = "a".repeat(64);
+        repository.save(withHash(newDocument(id, DocumentStatus.READY), hash));
+        repository.save(withHash(newDocument(UUID.randomUUID().toString(), DocumentStatus.ERROR), "b".repeat(64)));
+        repository.save(newDocument(UUID.randomUUID().toString(), DocumentStatus.READY));
+
+        assertThat(repository.findByContentHash(hash)).map(DocumentMetadata::id).contains(id);
+        assertThat(repository.findById(id)).map(DocumentMetadata::contentHash).contains(hash);
+        assertThat(repository.findByContentHash("b".repeat(64))).isEmpty();
+        assertThat(repository.countByContentHash("b".repeat(64))).isEqualTo(1);
+    }
+
+    private static DocumentMetadata withHash(DocumentMetadata document, String contentHash) {
+        return new DocumentMetadata(document.id(), document.filename(), document.contentType(), document.fileSize(),
+                document.uploadDate(), document.status(), document.errorMessage(), contentHash);
+    }
+
+    @Test
+    void findPage_ordersDocumentsByUploadDateDescending() {
         String olderId = UUID.randomUUID().toString();
         String newerId = UUID.randomUUID().toString();
         repository.save(new DocumentMetadata(olderId, "older.pdf", "application/pdf", 1L,
@@ -134,11 +161,53 @@ class DocumentRepositoryTest {
         repository.save(new DocumentMetadata(newerId, "newer.pdf", "application/pdf", 1L,
                 LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS), DocumentStatus.READY));
 
-        assertThat(repository.findAll())
-                .extracting(DocumentMetadata::id)
+        assertThat(repository.findPage(null, null, null, 10))
+                .extracting(DocumentSummary::id)
                 .containsExactly(newerId, olderId);
     }
 
+    @Test
+    void findPage_walksEveryDocumentOnceNewestFirstIncludingSameInstantUploads() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < 5; i++) {
+            // Two documents per upload date, so pages must break ties by id
+            repository.save(new DocumentMetadata(UUID.randomUUID().toString(), "doc-" + i + ".pdf",
+                    "application/pdf", 1L, now.minusMinutes(i / 2), DocumentStatus.READY));
+        }
+
+        List<DocumentSummary> seen = new ArrayList<>();
+        DocumentPage.Cursor cursor = null;
+        do {
+            List<DocumentSummary> page = repository.findPage(null, null, cursor, 2);
+            seen.addAll(page);
+            cursor = page.size() == 2 ? DocumentPage.Cursor.after(page.getLast()) : null;
+        } while (cursor != null);
+
+        assertThat(seen).extracting(DocumentSummary::id)
+                .doesNotHaveDuplicates()
+                .containsExactlyElementsOf(repository.findPage(null, null, null, 10).stream()
+                        .map(DocumentSummary::id).toList());
+        assertThat(seen).hasSize(5).isSortedAccordingTo(
+                Comparator.comparing(DocumentSummary::uploadDate).reversed());
+    }
+
+    @Test
+    void findPage_filtersByStatusAndLiteralFilenamePrefix() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        String match = UUID.randomUUID().toString();
+        repository.save(new DocumentMetadata(match, "q1_report.pdf", "application/pdf", 1L, now,
+                DocumentStatus.READY));
+        repository.save(new DocumentMetadata(UUID.randomUUID().toString(), "q1-report.pdf", "application/pdf", 1L,
+                now, DocumentStatus.READY));
+        repository.save(new DocumentMetadata(UUID.randomUUID().toString(), "q1_summary.pdf", "application/pdf", 1L,
+                now, DocumentStatus.ERROR));
+
+        assertThat(repository.findPage(DocumentStatus.READY, "q1_", null, 10))
+                .extracting(DocumentSummary::id).containsExactly(match);
+        assertThat(repository.countUpTo(null, "q1_", 10)).isEqualTo(2);
+        assertThat(repository.countUpTo(null, null, 2)).isEqualTo(2);
+    }
+
     @Test
     void deleteById_removesTheDocument() {
         String id = UUID.randomUUID().toString();
@@ -165,6 +234,32 @@ class DocumentRepositoryTest {
         assertThat(repository.findById(id).orElseThrow().status()).isEqualTo(DocumentStatus.READY);
     }
 
+    @Test
+    void markReady_recordsTheChunkCountAndClearsThePreviousError() {
+        String id = UUID.randomUUID().toString();
+        repository.save(newDocument(id, DocumentStatus.PROCESSING));
+        repository.updateStatusWithError(id, DocumentStatus.PROCESSING, "earlier failure");
+
+        repository.markReady(id, 0);
+
+        DocumentMetadata document = repository.findById(id).orElseThrow();
+        assertThat(document.status()).isEqualTo(DocumentStatus.READY);
+        assertThat(document.errorMessage()).isNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT chunk_count FROM documents WHERE id = ?::uuid",
+                Integer.class, id)).isZero();
+    }
+
+    @Test
+    void claimForProcessing_succeedsOnlyForTheFirstOfTwoClaims() {
+        String id = UUID.randomUUID().toString();
+        repository.save(newDocument(id, DocumentStatus.READY));
+
+        assertThat(repository.claimForProcessing(id)).isTrue();
+        assertThat(repository.claimForProcessing(id)).isFalse();
+        assertThat(repository.findById(id).orElseThrow().status()).isEqualTo(DocumentStatus.PROCESSING);
+        assertThat(repository.claimForProcessing(UUID.randomUUID().toString())).isFalse();
+    }
+
     @Test
     void updateStatusWithError_setsBothStatusAndErrorMessage() {
         String id = UUID.randomUUID().toString();
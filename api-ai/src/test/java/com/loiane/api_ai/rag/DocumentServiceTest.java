@@ -1,28 +1,48 @@
 package com.loiane.api_ai.rag;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.ai.vectorstore.VectorStore;
-import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
 
 import com.loiane.api_ai.rag.config.DocumentProperties;
 import com.loiane.api_ai.rag.exception.DocumentNotFoundException;
+import com.loiane.api_ai.rag.exception.DocumentNotResumableException;
+import com.loiane.api_ai.rag.exception.DocumentNotUpdatableException;
 import com.loiane.api_ai.rag.exception.DocumentProcessingException;
+import com.loiane.api_ai.rag.exception.IngestionQueueFullException;
+import com.loiane.api_ai.rag.exception.UploadTooLargeException;
+import com.loiane.api_ai.rag.ingestion.DocumentIngestionService;
+import com.loiane.api_ai.rag.maintenance.DocumentDeletionService;
 import com.loiane.api_ai.rag.model.DocumentMetadata;
+import com.loiane.api_ai.rag.model.DocumentPage;
 import com.loiane.api_ai.rag.model.DocumentStatus;
+import com.loiane.api_ai.rag.model.DocumentSummary;
+import com.loiane.api_ai.rag.model.UploadResult;
+import com.loiane.api_ai.rag.storage.DocumentBlobs;
+import com.loiane.api_ai.rag.storage.LocalBlobStore;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -33,13 +53,40 @@ class DocumentServiceTest {
     private DocumentRepository documentRepository;
 
     @Mock
-    private VectorStore vectorStore;
+    private DocumentDeletionService deletionService;
 
+    @Mock
+    private DocumentIngestionService ingestionService;
+
+    @TempDir
+    Path uploadDir;
+
+    private DocumentProperties documentProperties;
+    private LocalBlobStore blobStore;
     private DocumentService documentService;
 
     @BeforeEach
     void setUp() {
-        documentService = new DocumentService(documentRepository, vectorStore, new DocumentProperties());
+        documentProperties = new DocumentProperties();
+        documentProperties.setUploadDir(uploadDir.toString());
+        blobStore = new LocalBlobStore(uploadDir.resolve("blobs"));
+        DocumentBlobs documentBlobs = new DocumentBlobs(blobStore, documentRepository, documentProperties);
+        documentService = new DocumentService(documentRepository, documentBlobs, deletionService,
+                documentProperties, ingestionService);
+    }
+
+    private static final String PDF_HASH = "315d429b7714cedb6ad04ac31240145257692630457f3c88253c5beceac76027";
+
+    private MockMultipartFile pdfUpload() {
+        return new MockMultipartFile("file", "manual.pdf", "application/pdf", new byte[]{'%', 'P', 'D', 'F'});
+    }
+
+    private void stubSaveAssigningId(String id) {
+        when(documentRepository.save(any(DocumentMetadata.class))).thenAnswer(invocation -> {
+            DocumentMetadata document = invocation.getArgument(0);
+            return new DocumentMetadata(id, document.filename(), document.contentType(), document.fileSize(),
+                    document.uploadDate(), document.status(), document.errorMessage(), document.contentHash());
+        });
     }
 
     private DocumentMetadata existingDocument(String id) {
@@ -49,49 +96,247 @@ class DocumentServiceTest {
     }
 
     @Test
-    void deleteDocument_deletesVectorsScopedToTheDocumentId() {
-        String documentId = "doc-123";
-        when(documentRepository.findById(documentId)).thenReturn(Optional.of(existingDocument(documentId)));
+    void processDocument_queuesTheDocumentUnderItsContentHash() throws Exception {
+        stubSaveAssigningId("doc-123");
 
-        documentService.deleteDocument(documentId);
+        UploadResult result = documentService.processDocument(pdfUpload());
+
+        DocumentMetadata queued = result.document();
+        assertThat(result.duplicate()).isFalse();
+        assertThat(queued.id()).isEqualTo("doc-123");
+        assertThat(queued.status()).isEqualTo(DocumentStatus.PROCESSING);
+        assertThat(queued.contentHash()).isEqualTo(PDF_HASH);
+        verify(ingestionService).submit(queued, blobStore.locate(PDF_HASH));
+        verify(documentRepository, never()).updateStatus(any(), any());
+        assertThat(blobStore.locate(PDF_HASH)).exists();
+    }
+
+    @Test
+    void processDocument_storesUploadsWithTheSameNameSeparately() throws Exception {
+        stubSaveAssigningId("doc-123");
+
+        documentService.processDocument(pdfUpload());
+        documentService.processDocument(new MockMultipartFile("file", "manual.pdf", "application/pdf",
+                new byte[]{'%', 'P', 'D', 'F', '-', '2'}));
+
+        assertThat(blobStore.locate(PDF_HASH)).hasContent("%PDF");
+        verify(documentRepository, times(2)).save(any(DocumentMetadata.class));
+        verify(ingestionService, times(2)).submit(any(DocumentMetadata.class), any(Path.class));
+    }
+
+    @Test
+    void processDocument_whenQueueIsFull_marksTheDocumentAsErrorAndKeepsTheFileToResume() {
+        stubSaveAssigningId("doc-123");
+        doThrow(new IngestionQueueFullException("Ingestion queue is full"))
+                .when(ingestionService).submit(any(DocumentMetadata.class), any(Path.class));
+
+        assertThatThrownBy(() -> documentService.processDocument(pdfUpload()))
+                .isInstanceOf(IngestionQueueFullException.class);
+
+        verify(documentRepository).updateStatusWithError(eq("doc-123"), eq(DocumentStatus.ERROR), any());
+        assertThat(blobStore.locate(PDF_HASH)).exists();
+    }
+
+    private static InputStream pdfBody() {
+        return new ByteArrayInputStream(new byte[]{'%', 'P', 'D', 'F'});
+    }
+
+    @Test
+    void processDocumentStream_storesTheFileWithItsHashAndQueuesIt() throws Exception {
+        stubSaveAssigningId("doc-123");
+
+        UploadResult result = documentService.processDocumentStream(pdfBody(), "../manual.pdf", "application/pdf");
+
+        assertThat(result.duplicate()).isFalse();
+        assertThat(result.document().filename()).isEqualTo("manual.pdf");
+        assertThat(result.document().fileSize()).isEqualTo(4L);
+        assertThat(result.document().status()).isEqualTo(DocumentStatus.PROCESSING);
+        verify(ingestionService).submit(result.document(), blobStore.locate(PDF_HASH));
+        try (var staged = Files.list(uploadDir.resolve("blobs").resolve("tmp"))) {
+            assertThat(staged).isEmpty();
+        }
+    }
+
+    @Test
+    void processDocumentStream_ofAKnownFile_returnsTheExistingDocumentWithoutQueuing() throws Exception {
+        DocumentMetadata existing = existingDocument("doc-1");
+        when(documentRepository.findByContentHash(PDF_HASH)).thenReturn(Optional.of(existing));
+
+        UploadResult result = documentService.processDocumentStream(pdfBody(), "copy.pdf", "application/pdf");
+
+        assertThat(result).isEqualTo(new UploadResult(existing, true));
+        verify(ingestionService, never()).submit(any(DocumentMetadata.class), any(Path.class));
+        assertThat(blobStore.locate(PDF_HASH)).doesNotExist();
+        try (var staged = Files.list(uploadDir.resolve("blobs").resolve("tmp"))) {
+            assertThat(staged).isEmpty();
+        }
+    }
+
+    @Test
+    void processDocumentStream_overTheSizeLimit_throwsAndLeavesNoFile() throws Exception {
+        documentProperties.getIngestion().setMaxStreamedUploadSize(DataSize.ofBytes(3));
+
+        assertThatThrownBy(() -> documentService.processDocumentStream(pdfBody(), "manual.pdf", "application/pdf"))
+                .isInstanceOf(UploadTooLargeException.class);
+
+        verify(documentRepository, never()).save(any(DocumentMetadata.class));
+        try (var staged = Files.list(uploadDir.resolve("blobs").resolve("tmp"))) {
+            assertThat(staged).isEmpty();
+        }
+    }
+
+    private DocumentMetadata failedDocument(String id) {
+        return new DocumentMetadata(
+                id, "manual.pdf", "application/pdf", 4L,
+                LocalDateTime.now(), DocumentStatus.ERROR, "Processing failed: provider unavailable");
+    }
+
+    @Test
+    void resumeDocument_requeuesAFailedDocumentAsProcessing() throws Exception {
+        Files.write(uploadDir.resolve("manual.pdf"), new byte[]{'%', 'P', 'D', 'F'});
+        when(documentRepository.findById("doc-123")).thenReturn(Optional.of(failedDocument("doc-123")));
+
+        DocumentMetadata resumed = documentService.resumeDocument("doc-123");
+
+        assertThat(resumed.status()).isEqualTo(DocumentStatus.PROCESSING);
+        verify(documentRepository).updateStatusWithError("doc-123", DocumentStatus.PROCESSING, null);
+        verify(ingestionService).submit(resumed, uploadDir.resolve("manual.pdf"));
+    }
+
+    @Test
+    void resumeDocument_rejectsDocumentsThatDidNotFail() {
+        when(documentRepository.findById("doc-123")).thenReturn(Optional.of(existingDocument("doc-123")));
+
+        assertThatThrownBy(() -> documentService.resumeDocument("doc-123"))
+                .isInstanceOf(DocumentNotResumableException.class);
+        verify(ingestionService, never()).submit(any(), any());
+    }
+
+    @Test
+    void resumeDocument_rejectsDocumentsWhoseFileIsGone() {
+        when(documentRepository.findById("doc-123")).thenReturn(Optional.of(failedDocument("doc-123")));
+
+        assertThatThrownBy(() -> documentService.resumeDocument("doc-123"))
+                .isInstanceOf(DocumentNotResumableException.class);
+        verify(ingestionService, never()).submit(any(), any());
+    }
+
+    @Test
+    void updateDocument_replacesTheFileAndQueuesAnIncrementalUpdate() throws Exception {
+        when(documentRepository.findById("doc-123")).thenReturn(Optional.of(existingDocument("doc-123")));
+        when(documentRepository.claimForProcessing("doc-123")).thenReturn(true);
+        Files.writeString(uploadDir.resolve("SpringAIReference.pdf"), "%PDF");
+
+        DocumentMetadata queued = documentService.updateDocument("doc-123", pdfUpload());
+
+        assertThat(queued.status()).isEqualTo(DocumentStatus.PROCESSING);
+        assertThat(queued.filename()).isEqualTo("manual.pdf");
+        assertThat(queued.contentHash()).isEqualTo(PDF_HASH);
+        verify(documentRepository).replaceFile("doc-123", "manual.pdf", "application/pdf", 4L, PDF_HASH);
+        verify(ingestionService).submitUpdate(queued, blobStore.locate(PDF_HASH));
+        assertThat(blobStore.locate(PDF_HASH)).exists();
+        assertThat(uploadDir.resolve("SpringAIReference.pdf")).doesNotExist();
+    }
+
+    @Test
+    void updateDocument_whileTheDocumentIsProcessing_throwsNotUpdatable() {
+        DocumentMetadata processing = new DocumentMetadata("doc-123", "SpringAIReference.pdf", "application/pdf",
+                331_609L, LocalDateTime.now(), DocumentStatus.PROCESSING);
+        when(documentRepository.findById("doc-123")).thenReturn(Optional.of(processing));
+        when(documentRepository.claimForProcessing("doc-123")).thenReturn(false);
 
-        ArgumentCaptor<Filter.Expression> filterCaptor = ArgumentCaptor.forClass(Filter.Expression.class);
-        verify(vectorStore).delete(filterCaptor.capture());
-        assertThat(filterCaptor.getValue().toString()).contains("document_id").contains(documentId);
+        assertThatThrownBy(() -> documentService.updateDocument("doc-123", pdfUpload()))
+                .isInstanceOf(DocumentNotUpdatableException.class);
+        verify(ingestionService, never()).submitUpdate(any(), any());
     }
 
     @Test
-    void deleteDocument_alsoDeletesTheMetadataRow() {
+    void updateDocument_whenAConcurrentUpdateClaimedTheDocumentFirst_leavesItsFileAlone() {
+        // Read as READY, but another update marked it PROCESSING before this one could
+        when(documentRepository.findById("doc-123")).thenReturn(Optional.of(existingDocument("doc-123")));
+        when(documentRepository.claimForProcessing("doc-123")).thenReturn(false);
+
+        assertThatThrownBy(() -> documentService.updateDocument("doc-123", pdfUpload()))
+                .isInstanceOf(DocumentNotUpdatableException.class);
+        verify(documentRepository, never()).replaceFile(any(), any(), any(), anyLong(), any());
+        verify(ingestionService, never()).submitUpdate(any(), any());
+        assertThat(blobStore.locate(PDF_HASH)).doesNotExist();
+    }
+
+    private static DocumentSummary summary(String id, LocalDateTime uploadDate) {
+        return new DocumentSummary(id, id + ".pdf", "application/pdf", 4L, uploadDate, DocumentStatus.READY);
+    }
+
+    @Test
+    void listDocuments_returnsACursorToTheNextPageWhenThereIsOne() {
+        LocalDateTime now = LocalDateTime.now();
+        DocumentSummary first = summary("0d4e3f7a-2b1c-4d5e-8f90-000000000001", now);
+        DocumentSummary second = summary("0d4e3f7a-2b1c-4d5e-8f90-000000000002", now.minusMinutes(1));
+        when(documentRepository.findPage(DocumentStatus.READY, "man", null, 2))
+                .thenReturn(List.of(first, second));
+        when(documentRepository.countUpTo(DocumentStatus.READY, "man", 10_001)).thenReturn(2L);
+
+        DocumentPage page = documentService.listDocuments(DocumentStatus.READY, "man", null, 1);
+
+        assertThat(page.documents()).containsExactly(first);
+        assertThat(page.total()).isEqualTo(2);
+        assertThat(page.totalExact()).isTrue();
+        assertThat(DocumentPage.Cursor.decode(page.nextCursor())).isEqualTo(DocumentPage.Cursor.after(first));
+    }
+
+    @Test
+    void listDocuments_estimatesTheTotalOfALargeTableAndCapsThePageSize() {
+        documentProperties.getListing().setExactCountLimit(100);
+        DocumentPage.Cursor cursor = new DocumentPage.Cursor(LocalDateTime.now(),
+                "0d4e3f7a-2b1c-4d5e-8f90-000000000001");
+        when(documentRepository.findPage(null, null, cursor, 201)).thenReturn(List.of());
+        when(documentRepository.countUpTo(null, null, 101)).thenReturn(101L);
+        when(documentRepository.estimateCount()).thenReturn(48_000L);
+
+        DocumentPage page = documentService.listDocuments(null, null, cursor.encode(), 5_000);
+
+        assertThat(page.documents()).isEmpty();
+        assertThat(page.nextCursor()).isNull();
+        assertThat(page.total()).isEqualTo(48_000);
+        assertThat(page.totalExact()).isFalse();
+    }
+
+    @Test
+    void listDocuments_rejectsAMalformedCursor() {
+        assertThatThrownBy(() -> documentService.listDocuments(null, null, "not-a-cursor", null))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(documentRepository, never()).findPage(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void deleteDocument_deletesTheDocumentThroughTheDeletionService() {
         String documentId = "doc-123";
-        when(documentRepository.findById(documentId)).thenReturn(Optional.of(existingDocument(documentId)));
+        DocumentMetadata document = existingDocument(documentId);
+        when(documentRepository.findById(documentId)).thenReturn(Optional.of(document));
 
         documentService.deleteDocument(documentId);
 
-        verify(documentRepository).deleteById(documentId);
+        verify(deletionService).delete(List.of(document));
     }
 
     @Test
-    void deleteDocument_whenDocumentDoesNotExist_throwsWithoutTouchingTheVectorStore() {
+    void deleteDocument_whenDocumentDoesNotExist_throwsWithoutDeletingAnything() {
         String documentId = "missing-doc";
         when(documentRepository.findById(documentId)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> documentService.deleteDocument(documentId))
                 .isInstanceOf(DocumentNotFoundException.class);
 
-        verify(vectorStore, never()).delete(any(Filter.Expression.class));
-        verify(documentRepository, never()).deleteById(any());
+        verify(deletionService, never()).delete(any());
     }
 
     @Test
-    void deleteDocument_whenVectorStoreDeleteFails_propagatesAsDocumentProcessingException() {
+    void deleteDocument_whenTheDeleteFails_propagatesAsDocumentProcessingException() {
         String documentId = "doc-123";
         when(documentRepository.findById(documentId)).thenReturn(Optional.of(existingDocument(documentId)));
-        doThrow(new RuntimeException("pgvector unavailable"))
-                .when(vectorStore).delete(any(Filter.Expression.class));
+        doThrow(new RuntimeException("pgvector unavailable")).when(deletionService).delete(any());
 
         assertThatThrownBy(() -> documentService.deleteDocument(documentId))
                 .isInstanceOf(DocumentProcessingException.class);
-
-        verify(documentRepository, never()).deleteById(any());
     }
 }
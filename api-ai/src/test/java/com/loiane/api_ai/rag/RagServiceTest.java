@@ -1,8 +1,8 @@
 package com.loiane.api_ai.rag;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,32 +11,38 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.client.advisor.api.Advisor;
-import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
-import org.springframework.ai.chat.evaluation.RelevancyEvaluator;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.evaluation.EvaluationRequest;
-import org.springframework.ai.evaluation.EvaluationResponse;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 
+import com.loiane.api_ai.rag.cache.SemanticAnswerCache;
 import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.evaluation.RelevancyEvaluationService;
+import com.loiane.api_ai.rag.ingestion.ParallelPdfExtractor;
+import com.loiane.api_ai.rag.model.DocumentMetadata;
+import com.loiane.api_ai.rag.model.DocumentStatus;
 import com.loiane.api_ai.rag.model.RagResponse;
 import com.loiane.api_ai.rag.model.RagStreamEvent;
+import com.loiane.api_ai.rag.model.Source;
+import com.loiane.api_ai.rag.retrieval.ContextAssembler;
+import com.loiane.api_ai.rag.retrieval.LexicalReranker;
+import com.loiane.api_ai.rag.retrieval.LexicalSearch;
+import com.loiane.api_ai.rag.retrieval.RagRetriever;
 
-import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
-
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -45,8 +51,14 @@ import static org.mockito.Mockito.when;
  * <p>Exercises the RAG pipeline against mocked {@link ChatClient} and
  * {@link VectorStore} collaborators, verifying:
  * <ul>
- *   <li>Retrieval is scoped to a single document via the advisor filter expression
+ *   <li>Streamed answers emit their sources first, and retract them once the
+ *       answer is detected to be the refusal sentence</li>
+ *   <li>Retrieval is scoped to a single document via the search filter expression
  *       when a documentId is supplied, and unscoped otherwise</li>
+ *   <li>A single vector search feeds both the prompt context and the sources</li>
+ *   <li>Relevancy is evaluated in the background unless the caller opts in to a
+ *       synchronous result</li>
+ *   <li>Cached answers are returned (or replayed as a stream) without calling the model</li>
  *   <li>The refusal sentence produced by the grounded prompt suppresses source
  *       citations, for both the synchronous and streaming pipelines</li>
  *   <li>Errors from the chat client are converted into a friendly error response
@@ -67,39 +79,50 @@ class RagServiceTest {
     private DocumentProperties documentProperties;
 
     @Mock
-    private RelevancyEvaluator relevancyEvaluator;
+    private LexicalSearch lexicalSearch;
+
+    @Mock
+    private RelevancyEvaluationService evaluationService;
 
-    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Mock
+    private SemanticAnswerCache answerCache;
 
     private ChatClient.ChatClientRequestSpec requestSpec;
     private ChatClient.CallResponseSpec callResponseSpec;
     private ChatClient.StreamResponseSpec streamResponseSpec;
 
+    private SimpleMeterRegistry meterRegistry;
     private RagService ragService;
 
-    @SuppressWarnings("unchecked")
     @BeforeEach
     void setUp() {
+        DocumentProperties.Retrieval vectorOnly = new DocumentProperties.Retrieval();
+        vectorOnly.setHybrid(false);
+        vectorOnly.setRerank(false);
         lenient().when(documentProperties.getTopK()).thenReturn(5);
-        lenient().when(relevancyEvaluator.evaluate(any(EvaluationRequest.class)))
-                .thenReturn(new EvaluationResponse(true, "", Map.of()));
+        lenient().when(documentProperties.getRetrieval()).thenReturn(vectorOnly);
+        lenient().when(documentProperties.getContext()).thenReturn(new DocumentProperties.Context());
+        lenient().when(answerCache.lookup(anyString(), any()))
+                .thenReturn(new SemanticAnswerCache.Lookup("*", new float[]{1f}, 0L, null));
 
         ChatClient chatClient = mock(ChatClient.class);
         requestSpec = mock(ChatClient.ChatClientRequestSpec.class);
         callResponseSpec = mock(ChatClient.CallResponseSpec.class);
         streamResponseSpec = mock(ChatClient.StreamResponseSpec.class);
 
-        when(chatClient.prompt()).thenReturn(requestSpec);
-        when(requestSpec.user(anyString())).thenReturn(requestSpec);
-        lenient().when(requestSpec.advisors(any(Consumer.class))).thenReturn(requestSpec);
+        lenient().when(chatClient.prompt()).thenReturn(requestSpec);
+        lenient().when(requestSpec.user(anyString())).thenReturn(requestSpec);
         lenient().when(requestSpec.call()).thenReturn(callResponseSpec);
         lenient().when(requestSpec.stream()).thenReturn(streamResponseSpec);
 
         ChatClient.Builder chatClientBuilder = mock(ChatClient.Builder.class);
-        when(chatClientBuilder.defaultAdvisors(any(Advisor.class))).thenReturn(chatClientBuilder);
         when(chatClientBuilder.build()).thenReturn(chatClient);
 
-        ragService = new RagService(chatClientBuilder, vectorStore, documentProperties, relevancyEvaluator, meterRegistry);
+        RagRetriever ragRetriever = new RagRetriever(vectorStore, lexicalSearch, new LexicalReranker(0.5),
+                documentProperties, new SimpleMeterRegistry());
+        meterRegistry = new SimpleMeterRegistry();
+        ragService = new RagService(chatClientBuilder, ragRetriever,
+                new ContextAssembler(documentProperties, meterRegistry), answerCache, evaluationService, meterRegistry);
     }
 
     private Document documentChunk(String documentId, String filename, String content) {
@@ -109,52 +132,35 @@ class RagServiceTest {
                 .build();
     }
 
-    /**
-     * Captures the {@code Consumer<AdvisorSpec>} passed to {@code requestSpec.advisors(...)}
-     * and invokes it against a fresh mock, returning that mock so the {@code param(...)}
-     * call it received can be verified.
-     */
-    @SuppressWarnings("unchecked")
-    private ChatClient.AdvisorSpec captureAppliedAdvisorSpec() {
-        ArgumentCaptor<Consumer<ChatClient.AdvisorSpec>> advisorCaptor = ArgumentCaptor.forClass(Consumer.class);
-        verify(requestSpec).advisors(advisorCaptor.capture());
-
-        ChatClient.AdvisorSpec advisorSpec = mock(ChatClient.AdvisorSpec.class);
-        advisorCaptor.getValue().accept(advisorSpec);
-        return advisorSpec;
+    private SearchRequest captureSearchRequest() {
+        ArgumentCaptor<SearchRequest> searchCaptor = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(vectorStore).similaritySearch(searchCaptor.capture());
+        return searchCaptor.getValue();
     }
 
     @Test
-    void askQuestion_withDocumentId_scopesAdvisorFilterToThatDocument() {
+    void askQuestion_withDocumentId_scopesRetrievalToThatDocument() {
         when(callResponseSpec.content()).thenReturn("Spring AI simplifies building AI applications.");
         when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of());
 
         ragService.askQuestion("What is Spring AI?", "doc-123");
 
-        ChatClient.AdvisorSpec advisorSpec = captureAppliedAdvisorSpec();
-        verify(advisorSpec).param(QuestionAnswerAdvisor.FILTER_EXPRESSION, "document_id == 'doc-123'");
-
-        ArgumentCaptor<SearchRequest> searchCaptor = ArgumentCaptor.forClass(SearchRequest.class);
-        verify(vectorStore).similaritySearch(searchCaptor.capture());
-        assertThat(searchCaptor.getValue().getFilterExpression()).isNotNull();
+        SearchRequest searchRequest = captureSearchRequest();
+        assertThat(searchRequest.getFilterExpression()).isNotNull();
+        assertThat(searchRequest.getFilterExpression().toString()).contains("document_id", "doc-123");
+        assertThat(searchRequest.getTopK()).isEqualTo(5);
     }
 
-    @SuppressWarnings("unchecked")
     @Test
-    void askQuestion_withoutDocumentId_doesNotScopeAdvisor() {
+    void askQuestion_withoutDocumentId_doesNotScopeRetrieval() {
         when(callResponseSpec.content()).thenReturn("A general answer.");
         when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of());
 
         ragService.askQuestion("What is the weather?", null);
 
-        verify(requestSpec, never()).advisors(any(Consumer.class));
-
-        ArgumentCaptor<SearchRequest> searchCaptor = ArgumentCaptor.forClass(SearchRequest.class);
-        verify(vectorStore).similaritySearch(searchCaptor.capture());
-        assertThat(searchCaptor.getValue().getFilterExpression()).isNull();
+        assertThat(captureSearchRequest().getFilterExpression()).isNull();
     }
 
-    @SuppressWarnings("unchecked")
     @Test
     void askQuestion_withBlankDocumentId_treatsItAsUnscoped() {
         when(callResponseSpec.content()).thenReturn("A general answer.");
@@ -162,7 +168,23 @@ class RagServiceTest {
 
         ragService.askQuestion("What is the weather?", "   ");
 
-        verify(requestSpec, never()).advisors(any(Consumer.class));
+        assertThat(captureSearchRequest().getFilterExpression()).isNull();
+    }
+
+    @Test
+    void askQuestion_searchesOnceAndInjectsTheRetrievedChunksIntoThePrompt() {
+        when(callResponseSpec.content()).thenReturn("Spring AI provides portable AI APIs.");
+        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(
+                documentChunk("doc-123", "SpringAIReference.pdf", "Spring AI is a project...")
+        ));
+
+        RagResponse response = ragService.askQuestion("What is Spring AI?", "doc-123");
+
+        verify(vectorStore, times(1)).similaritySearch(any(SearchRequest.class));
+        ArgumentCaptor<String> promptCaptor = ArgumentCaptor.forClass(String.class);
+        verify(requestSpec).user(promptCaptor.capture());
+        assertThat(promptCaptor.getValue()).contains("What is Spring AI?", "Spring AI is a project...");
+        assertThat(response.sources()).hasSize(1);
     }
 
     @Test
@@ -173,7 +195,7 @@ class RagServiceTest {
 
         assertThat(response.answer()).isEqualTo(REFUSAL_MESSAGE);
         assertThat(response.sources()).isEmpty();
-        verify(vectorStore, never()).similaritySearch(any(SearchRequest.class));
+        verifyNoInteractions(evaluationService);
     }
 
     @Test
@@ -190,6 +212,66 @@ class RagServiceTest {
         assertThat(response.sources().getFirst().filename()).isEqualTo("SpringAIReference.pdf");
     }
 
+    @Test
+    void askQuestion_citesTheUploadedFilenameOfADocumentStoredUnderItsContentHash() {
+        DocumentMetadata uploaded = new DocumentMetadata("doc-123", "SpringAIReference.pdf", "application/pdf",
+                1_024L, LocalDateTime.now(), DocumentStatus.READY, null, "e3b0c442".repeat(8));
+        when(callResponseSpec.content()).thenReturn("Spring AI provides portable AI APIs.");
+        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(Document.builder()
+                .text("Spring AI is a project...")
+                .metadata(ParallelPdfExtractor.chunkMetadata(uploaded))
+                .build()));
+
+        RagResponse response = ragService.askQuestion("What is Spring AI?", "doc-123");
+
+        assertThat(response.sources()).extracting(Source::filename).containsExactly("SpringAIReference.pdf");
+    }
+
+    @Test
+    void askQuestion_byDefault_submitsRelevancyEvaluationWithoutWaitingForIt() {
+        when(callResponseSpec.content()).thenReturn("Spring AI provides portable AI APIs.");
+
+        RagResponse response = ragService.askQuestion("What is Spring AI?", "doc-123");
+
+        assertThat(response.relevant()).isNull();
+        verify(evaluationService).submit(eq("What is Spring AI?"), eq("doc-123"), any(), eq(response.answer()));
+        verify(evaluationService, never()).evaluate(anyString(), any(), any(), anyString());
+    }
+
+    @Test
+    void askQuestion_whenEvaluationIsRequested_returnsTheRelevancyResult() {
+        when(callResponseSpec.content()).thenReturn("Spring AI provides portable AI APIs.");
+        when(evaluationService.evaluate(anyString(), any(), any(), anyString())).thenReturn(false);
+
+        RagResponse response = ragService.askQuestion("What is Spring AI?", "doc-123", true);
+
+        assertThat(response.relevant()).isFalse();
+        verify(evaluationService, never()).submit(anyString(), any(), any(), anyString());
+    }
+
+    @Test
+    void askQuestion_whenAnswerIsCached_returnsItWithoutRetrievalOrModelCall() {
+        RagResponse cached = new RagResponse("Cached answer.", List.of(), true);
+        when(answerCache.lookup("What is Spring AI?", "doc-123"))
+                .thenReturn(new SemanticAnswerCache.Lookup("doc-123", new float[]{1f}, 0L, cached));
+
+        RagResponse response = ragService.askQuestion("What is Spring AI?", "doc-123");
+
+        assertThat(response).isSameAs(cached);
+        verify(vectorStore, never()).similaritySearch(any(SearchRequest.class));
+        verify(requestSpec, never()).call();
+        verifyNoInteractions(evaluationService);
+    }
+
+    @Test
+    void askQuestion_onCacheMiss_storesTheGeneratedResponse() {
+        when(callResponseSpec.content()).thenReturn("Spring AI provides portable AI APIs.");
+
+        RagResponse response = ragService.askQuestion("What is Spring AI?", "doc-123");
+
+        verify(answerCache).put(any(SemanticAnswerCache.Lookup.class), eq(response));
+    }
+
     @Test
     void askQuestion_whenChatClientThrows_returnsFriendlyErrorResponse() {
         when(requestSpec.call()).thenThrow(new RuntimeException("upstream failure"));
@@ -232,7 +314,7 @@ class RagServiceTest {
     }
 
     @Test
-    void askQuestionStream_emitsAnswerDeltasFollowedByTerminalSourcesEvent() {
+    void askQuestionStream_emitsSourcesFirstThenAnswerDeltas() {
         when(streamResponseSpec.content()).thenReturn(Flux.just("Spring ", "AI ", "is great."));
         when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(
                 documentChunk("doc-123", "SpringAIReference.pdf", "Spring AI is a project...")
@@ -241,19 +323,36 @@ class RagServiceTest {
         Flux<RagStreamEvent> stream = ragService.askQuestionStream("What is Spring AI?", "doc-123");
 
         StepVerifier.create(stream)
-                .expectNext(RagStreamEvent.answer("Spring "))
-                .expectNext(RagStreamEvent.answer("AI "))
-                .expectNext(RagStreamEvent.answer("is great."))
                 .assertNext(event -> {
                     assertThat(event.type()).isEqualTo("sources");
                     assertThat(event.sources()).hasSize(1);
                     assertThat(event.sources().getFirst().filename()).isEqualTo("SpringAIReference.pdf");
                 })
+                .expectNext(RagStreamEvent.answer("Spring "))
+                .expectNext(RagStreamEvent.answer("AI "))
+                .expectNext(RagStreamEvent.answer("is great."))
+                .verifyComplete();
+
+        verify(answerCache).put(any(), eq(new RagResponse("Spring AI is great.", List.of(
+                new Source("Spring AI is a project...", "SpringAIReference.pdf",
+                        Map.of("document_id", "doc-123", "snippet", "Spring AI is a project..."))))));
+    }
+
+    @Test
+    void askQuestionStream_recordsTimeToFirstTokenAndInterTokenLatency() {
+        when(streamResponseSpec.content()).thenReturn(Flux.just("Spring ", "AI ", "is great."));
+        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of());
+
+        StepVerifier.create(ragService.askQuestionStream("What is Spring AI?", null))
+                .expectNextCount(4)
                 .verifyComplete();
+
+        assertThat(meterRegistry.get("rag.stream.first.token.latency").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("rag.stream.inter.token.latency").timer().count()).isEqualTo(2);
     }
 
     @Test
-    void askQuestionStream_scopesAdvisorFilterToDocument_sameAsSyncPath() {
+    void askQuestionStream_scopesRetrievalToDocument_sameAsSyncPath() {
         when(streamResponseSpec.content()).thenReturn(Flux.just("answer"));
         when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of());
 
@@ -261,24 +360,58 @@ class RagServiceTest {
                 .expectNextCount(2)
                 .verifyComplete();
 
-        ChatClient.AdvisorSpec advisorSpec = captureAppliedAdvisorSpec();
-        verify(advisorSpec).param(QuestionAnswerAdvisor.FILTER_EXPRESSION, "document_id == 'doc-999'");
+        assertThat(captureSearchRequest().getFilterExpression().toString()).contains("doc-999");
     }
 
     @Test
-    void askQuestionStream_whenAnswerIsRefusal_terminalSourcesEventIsEmpty() {
-        when(streamResponseSpec.content()).thenReturn(Flux.just(REFUSAL_MESSAGE));
+    void askQuestionStream_whenAnswerIsRefusal_retractsTheSourcesAsSoonAsItIsDetected() {
+        String half = REFUSAL_MESSAGE.substring(0, 40);
+        when(streamResponseSpec.content()).thenReturn(Flux.just("\"" + half, REFUSAL_MESSAGE.substring(40), "\""));
+        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(
+                documentChunk("doc-123", "SpringAIReference.pdf", "Spring AI is a project...")
+        ));
 
         Flux<RagStreamEvent> stream = ragService.askQuestionStream("What is the capital of France?", "doc-123");
 
         StepVerifier.create(stream)
-                .expectNext(RagStreamEvent.answer(REFUSAL_MESSAGE))
-                .assertNext(event -> {
-                    assertThat(event.type()).isEqualTo("sources");
-                    assertThat(event.sources()).isEmpty();
-                })
+                .assertNext(event -> assertThat(event.sources()).hasSize(1))
+                .expectNext(RagStreamEvent.answer("\"" + half))
+                .expectNext(RagStreamEvent.answer(REFUSAL_MESSAGE.substring(40)))
+                .expectNext(RagStreamEvent.sources(List.of()))
+                .expectNext(RagStreamEvent.answer("\""))
+                .verifyComplete();
+
+        verify(vectorStore, times(1)).similaritySearch(any(SearchRequest.class));
+        verify(answerCache).put(any(), eq(new RagResponse(REFUSAL_MESSAGE, List.of())));
+        verifyNoInteractions(evaluationService);
+    }
+
+    @Test
+    void askQuestionStream_whenAnswerOnlyStartsLikeTheRefusal_keepsTheSources() {
+        when(streamResponseSpec.content()).thenReturn(Flux.just("I'm sorry", ", but the manual says 42."));
+        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(
+                documentChunk("doc-123", "SpringAIReference.pdf", "Spring AI is a project...")
+        ));
+
+        StepVerifier.create(ragService.askQuestionStream("question", "doc-123"))
+                .assertNext(event -> assertThat(event.sources()).hasSize(1))
+                .expectNext(RagStreamEvent.answer("I'm sorry"))
+                .expectNext(RagStreamEvent.answer(", but the manual says 42."))
+                .verifyComplete();
+    }
+
+    @Test
+    void askQuestionStream_whenAnswerIsCached_replaysItWithoutCallingTheModel() {
+        RagResponse cached = new RagResponse("Cached answer.", List.of(), true);
+        when(answerCache.lookup("question", null))
+                .thenReturn(new SemanticAnswerCache.Lookup("*", new float[]{1f}, 0L, cached));
+
+        StepVerifier.create(ragService.askQuestionStream("question", null))
+                .expectNext(RagStreamEvent.sources(List.of()))
+                .expectNext(RagStreamEvent.answer("Cached answer."))
                 .verifyComplete();
 
+        verify(requestSpec, never()).stream();
         verify(vectorStore, never()).similaritySearch(any(SearchRequest.class));
     }
 
@@ -290,6 +423,7 @@ class RagServiceTest {
         Flux<RagStreamEvent> stream = ragService.askQuestionStream("question", null);
 
         StepVerifier.create(stream)
+                .expectNext(RagStreamEvent.sources(List.of()))
                 .assertNext(event -> assertThat(event.content())
                         .isEqualTo("Sorry, I encountered an error while processing your question. Please try again."))
                 .assertNext(event -> {
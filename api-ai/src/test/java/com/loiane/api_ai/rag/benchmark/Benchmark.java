@@ -0,0 +1,21 @@
+package com.loiane.api_ai.rag.benchmark;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.Tag;
+
+/**
+ * Marks a test class as a benchmark. Benchmarks print their measurements rather
+ * than assert on them, and are excluded from {@code ./mvnw test}. Run them with:
+ * <pre>
+ * ./mvnw test -Pbenchmark -Dtest=InMemoryVectorStoreBenchmarkTest
+ * </pre>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Tag("benchmark")
+public @interface Benchmark {
+}
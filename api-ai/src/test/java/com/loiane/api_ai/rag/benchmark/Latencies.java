@@ -0,0 +1,58 @@
+package com.loiane.api_ai.rag.benchmark;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Latencies of the operations timed by a benchmark, with their percentiles and
+ * the throughput since this recorder was created.
+ */
+public final class Latencies {
+
+    private final long[] nanos;
+    private final long createdAt = System.nanoTime();
+    private int count;
+
+    /**
+     * @param operations Number of operations that will be timed
+     */
+    public Latencies(int operations) {
+        this.nanos = new long[operations];
+    }
+
+    /**
+     * Runs an operation and records how long it took.
+     *
+     * @return The result of the operation
+     */
+    public <T> T time(Supplier<T> operation) {
+        long startedAt = System.nanoTime();
+        T result = operation.get();
+        nanos[count++] = System.nanoTime() - startedAt;
+        return result;
+    }
+
+    /**
+     * @param percentile Between 0 and 1, e.g. 0.99
+     * @return The latency at the percentile, in milliseconds
+     */
+    public double percentileMillis(double percentile) {
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        return sorted[Math.min(count - 1, (int) (count * percentile))] / 1e6;
+    }
+
+    /**
+     * @return The mean latency, in milliseconds
+     */
+    public double meanMillis() {
+        return Arrays.stream(nanos, 0, count).average().orElse(0) / 1e6;
+    }
+
+    /**
+     * @return Operations per second, from the creation of this recorder until now
+     */
+    public double perSecond() {
+        return count / ((System.nanoTime() - createdAt) / 1e9);
+    }
+}
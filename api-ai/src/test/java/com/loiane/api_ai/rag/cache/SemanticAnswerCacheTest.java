@@ -0,0 +1,130 @@
+package com.loiane.api_ai.rag.cache;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.util.unit.DataSize;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.embedding.QueryEmbeddingCache;
+import com.loiane.api_ai.rag.event.CorpusChangedEvent;
+import com.loiane.api_ai.rag.event.DocumentChangedEvent;
+import com.loiane.api_ai.rag.model.RagResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class SemanticAnswerCacheTest {
+
+    private static final Map<String, float[]> EMBEDDINGS = Map.of(
+            "What is Spring AI?", new float[]{1f, 0f, 0f},
+            "What's Spring AI?", new float[]{0.99f, 0.05f, 0f},
+            "How do I configure pgvector?", new float[]{0f, 1f, 0f},
+            "What is Angular?", new float[]{0f, 0f, 1f});
+
+    @Mock
+    private EmbeddingModel embeddingModel;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DocumentProperties documentProperties;
+
+    @BeforeEach
+    void setUp() {
+        documentProperties = new DocumentProperties();
+        lenient().when(embeddingModel.embed(anyString()))
+                .thenAnswer(invocation -> EMBEDDINGS.get(invocation.<String>getArgument(0)));
+    }
+
+    private SemanticAnswerCache newCache() {
+        return new SemanticAnswerCache(embeddingModel, new QueryEmbeddingCache(documentProperties, meterRegistry),
+                documentProperties, meterRegistry);
+    }
+
+    private static RagResponse response(String answer) {
+        return new RagResponse(answer, List.of(), true);
+    }
+
+    @Test
+    void lookup_returnsTheAnswerOfASemanticallyEquivalentQuestionInTheSameScope() {
+        SemanticAnswerCache cache = newCache();
+        cache.put(cache.lookup("What is Spring AI?", "doc-1"), response("A framework."));
+
+        SemanticAnswerCache.Lookup lookup = cache.lookup("What's Spring AI?", "doc-1");
+
+        assertThat(lookup.hit()).isTrue();
+        assertThat(lookup.cached().answer()).isEqualTo("A framework.");
+    }
+
+    @Test
+    void lookup_missesForADifferentQuestionOrADifferentDocument() {
+        SemanticAnswerCache cache = newCache();
+        cache.put(cache.lookup("What is Spring AI?", "doc-1"), response("A framework."));
+
+        assertThat(cache.lookup("How do I configure pgvector?", "doc-1").hit()).isFalse();
+        assertThat(cache.lookup("What is Spring AI?", "doc-2").hit()).isFalse();
+        assertThat(cache.lookup("What is Spring AI?", null).hit()).isFalse();
+    }
+
+    @Test
+    void onDocumentChanged_dropsAnswersForThatDocumentAndUnscopedAnswers() {
+        SemanticAnswerCache cache = newCache();
+        cache.put(cache.lookup("What is Spring AI?", "doc-1"), response("From doc 1."));
+        cache.put(cache.lookup("What is Spring AI?", "doc-2"), response("From doc 2."));
+        cache.put(cache.lookup("What is Spring AI?", null), response("From all documents."));
+
+        cache.onDocumentChanged(new DocumentChangedEvent("doc-1"));
+
+        assertThat(cache.lookup("What is Spring AI?", "doc-1").hit()).isFalse();
+        assertThat(cache.lookup("What is Spring AI?", null).hit()).isFalse();
+        assertThat(cache.lookup("What is Spring AI?", "doc-2").hit()).isTrue();
+    }
+
+    @Test
+    void onCorpusChanged_dropsOnlyUnscopedAnswers() {
+        SemanticAnswerCache cache = newCache();
+        cache.put(cache.lookup("What is Spring AI?", "doc-1"), response("From doc 1."));
+        cache.put(cache.lookup("What is Spring AI?", null), response("From all documents."));
+
+        cache.onCorpusChanged(new CorpusChangedEvent("pgvector:reference.pdf"));
+
+        assertThat(cache.lookup("What is Spring AI?", null).hit()).isFalse();
+        assertThat(cache.lookup("What is Spring AI?", "doc-1").hit()).isTrue();
+    }
+
+    @Test
+    void put_discardsAnAnswerGeneratedWhileADocumentChanged() {
+        SemanticAnswerCache cache = newCache();
+        SemanticAnswerCache.Lookup lookup = cache.lookup("What is Spring AI?", "doc-1");
+
+        cache.onDocumentChanged(new DocumentChangedEvent("doc-2"));
+        cache.put(lookup, response("Possibly stale."));
+
+        assertThat(cache.lookup("What is Spring AI?", "doc-1").hit()).isFalse();
+    }
+
+    @Test
+    void put_evictsTheLeastRecentlyUsedAnswersWhenOverTheMemoryBudget() {
+        documentProperties.getAnswerCache().setMaxMemory(DataSize.ofBytes(1200));
+        SemanticAnswerCache cache = newCache();
+
+        cache.put(cache.lookup("What is Spring AI?", "doc-1"), response("A".repeat(100)));
+        cache.put(cache.lookup("How do I configure pgvector?", "doc-1"), response("B".repeat(100)));
+        cache.lookup("What is Spring AI?", "doc-1");
+        cache.put(cache.lookup("What is Angular?", "doc-1"), response("C".repeat(100)));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.lookup("What is Spring AI?", "doc-1").hit()).isTrue();
+        assertThat(cache.lookup("How do I configure pgvector?", "doc-1").hit()).isFalse();
+    }
+}
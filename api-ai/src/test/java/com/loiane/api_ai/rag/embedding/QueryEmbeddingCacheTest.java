@@ -0,0 +1,80 @@
+package com.loiane.api_ai.rag.embedding;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QueryEmbeddingCacheTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Clock clock = mock(Clock.class);
+    private final AtomicInteger embedCalls = new AtomicInteger();
+    private final Function<String, float[]> embedder = question -> {
+        embedCalls.incrementAndGet();
+        return new float[]{question.length()};
+    };
+
+    private DocumentProperties documentProperties;
+
+    @BeforeEach
+    void setUp() {
+        documentProperties = new DocumentProperties();
+        documentProperties.getEmbedding().setQueryCacheTtl(Duration.ofMinutes(5));
+        when(clock.millis()).thenReturn(0L);
+    }
+
+    private QueryEmbeddingCache newCache() {
+        return new QueryEmbeddingCache(documentProperties, meterRegistry, clock);
+    }
+
+    @Test
+    void get_reusesTheEmbeddingOfARepeatedQuestion() {
+        QueryEmbeddingCache cache = newCache();
+
+        cache.get("What is Spring AI?", embedder);
+        cache.get("  What is   Spring AI? ", embedder);
+
+        assertThat(embedCalls).hasValue(1);
+        assertThat(meterRegistry.get("rag.embedding.query.cache").tag("result", "hit").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void get_recomputesTheEmbeddingOnceTheEntryHasExpired() {
+        QueryEmbeddingCache cache = newCache();
+
+        cache.get("What is Spring AI?", embedder);
+        when(clock.millis()).thenReturn(Duration.ofMinutes(6).toMillis());
+        cache.get("What is Spring AI?", embedder);
+
+        assertThat(embedCalls).hasValue(2);
+    }
+
+    @Test
+    void get_evictsTheLeastRecentlyUsedQuestionWhenFull() {
+        documentProperties.getEmbedding().setQueryCacheMaxEntries(2);
+        QueryEmbeddingCache cache = newCache();
+
+        cache.get("first", embedder);
+        cache.get("second", embedder);
+        cache.get("first", embedder);
+        cache.get("third", embedder);
+        cache.get("first", embedder);
+        cache.get("second", embedder);
+
+        assertThat(embedCalls).hasValue(4);
+    }
+}
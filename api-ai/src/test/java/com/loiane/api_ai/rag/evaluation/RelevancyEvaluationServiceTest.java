@@ -0,0 +1,123 @@
+package com.loiane.api_ai.rag.evaluation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.evaluation.RelevancyEvaluator;
+import org.springframework.ai.evaluation.EvaluationRequest;
+import org.springframework.ai.evaluation.EvaluationResponse;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RelevancyEvaluationServiceTest {
+
+    @Mock
+    private RelevancyEvaluator relevancyEvaluator;
+
+    @Mock
+    private EvaluationRepository evaluationRepository;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DocumentProperties documentProperties;
+    private RelevancyEvaluationService evaluationService;
+
+    @BeforeEach
+    void setUp() {
+        documentProperties = new DocumentProperties();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (evaluationService != null) {
+            evaluationService.shutdown();
+        }
+    }
+
+    private RelevancyEvaluationService newService() {
+        evaluationService = new RelevancyEvaluationService(relevancyEvaluator, evaluationRepository,
+                documentProperties, meterRegistry);
+        return evaluationService;
+    }
+
+    @Test
+    void evaluate_runsOnTheCallerThreadAndPersistsTheResult() {
+        when(relevancyEvaluator.evaluate(any(EvaluationRequest.class)))
+                .thenReturn(new EvaluationResponse(true, "", Map.of()));
+
+        boolean relevant = newService().evaluate("question", "doc-1", List.of(), "answer");
+
+        assertThat(relevant).isTrue();
+        verify(evaluationRepository).save("question", "doc-1", "answer", true, "", EvaluationMode.SYNC);
+        assertThat(meterRegistry.get("rag.evaluation.result").tag("result", "pass").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void submit_whenSampled_evaluatesInTheBackground() {
+        documentProperties.getEvaluation().setSamplingRate(1.0);
+        when(relevancyEvaluator.evaluate(any(EvaluationRequest.class)))
+                .thenReturn(new EvaluationResponse(false, "off topic", Map.of()));
+
+        newService().submit("question", null, List.of(), "answer");
+
+        verify(evaluationRepository, timeout(2000))
+                .save("question", null, "answer", false, "off topic", EvaluationMode.SAMPLED);
+    }
+
+    @Test
+    void submit_whenSamplingIsDisabled_neverEvaluates() {
+        documentProperties.getEvaluation().setSamplingRate(0.0);
+
+        newService().submit("question", null, List.of(), "answer");
+
+        verify(relevancyEvaluator, never()).evaluate(any(EvaluationRequest.class));
+    }
+
+    @Test
+    void submit_whenTheQueueIsFull_dropsTheEvaluation() throws Exception {
+        documentProperties.getEvaluation().setSamplingRate(1.0);
+        documentProperties.getEvaluation().setWorkers(1);
+        documentProperties.getEvaluation().setQueueCapacity(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(relevancyEvaluator.evaluate(any(EvaluationRequest.class))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return new EvaluationResponse(true, "", Map.of());
+        });
+        RelevancyEvaluationService service = newService();
+
+        service.submit("busy", null, List.of(), "answer");
+        started.await();
+        service.submit("queued", null, List.of(), "answer");
+        service.submit("dropped", null, List.of(), "answer");
+        release.countDown();
+
+        assertThat(meterRegistry.get("rag.evaluation.dropped").counter().count()).isEqualTo(1);
+        verify(evaluationRepository, timeout(2000))
+                .save(eq("queued"), any(), anyString(), anyBoolean(), any(), eq(EvaluationMode.SAMPLED));
+        verify(evaluationRepository, never())
+                .save(eq("dropped"), any(), anyString(), anyBoolean(), any(), any());
+    }
+}
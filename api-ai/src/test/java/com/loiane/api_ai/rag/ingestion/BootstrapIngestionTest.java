@@ -0,0 +1,151 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.event.CorpusChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BootstrapIngestionTest {
+
+    @Mock
+    private ParallelPdfExtractor pdfExtractor;
+
+    @Mock
+    private VectorStore vectorStore;
+
+    @Mock
+    private BootstrapManifest manifest;
+
+    @Mock
+    private BootstrapManifest localManifest;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final Resource pdf = new ByteArrayResource(new byte[]{1, 2, 3}) {
+        @Override
+        public String getFilename() {
+            return "reference.pdf";
+        }
+    };
+
+    private BootstrapIngestion bootstrapIngestion;
+
+    @BeforeEach
+    void setUp() {
+        DocumentProperties documentProperties = new DocumentProperties();
+        documentProperties.getIngestion().setBootstrapBatchSize(2);
+        bootstrapIngestion = new BootstrapIngestion(pdfExtractor, documentProperties, eventPublisher,
+                new SimpleMeterRegistry());
+    }
+
+    private Status awaitStatusOtherThan(Status status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        Health health = bootstrapIngestion.health();
+        while (health.getStatus().equals(status) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            health = bootstrapIngestion.health();
+        }
+        return health.getStatus();
+    }
+
+    private static Document page(int number) {
+        return Document.builder().text("Page " + number + " of the reference manual.")
+                .metadata(Map.of("file_name", "reference.pdf", "page_number", number)).build();
+    }
+
+    @Test
+    void start_indexesInBatchesInTheBackgroundAndRecordsTheSource() throws InterruptedException {
+        when(manifest.isIndexed(eq("reference.pdf"), anyString())).thenReturn(false);
+        when(pdfExtractor.readAll(pdf)).thenReturn(List.of(page(1), page(2), page(3)));
+        bootstrapIngestion.submit("pgvector", pdf, vectorStore, manifest);
+
+        assertThat(bootstrapIngestion.health().getStatus()).isEqualTo(BootstrapIngestion.WARMING);
+
+        bootstrapIngestion.start();
+
+        assertThat(awaitStatusOtherThan(BootstrapIngestion.WARMING)).isEqualTo(Status.UP);
+        verify(vectorStore).delete(any(Filter.Expression.class));
+        verify(vectorStore, times(2)).add(anyList());
+        verify(eventPublisher, times(2)).publishEvent(new CorpusChangedEvent("pgvector:reference.pdf"));
+        verify(manifest).markIndexed(eq("reference.pdf"), anyString(), eq(3));
+    }
+
+    @Test
+    void start_skipsASourceTheManifestListsWithTheSameContent() throws InterruptedException {
+        when(manifest.isIndexed(eq("reference.pdf"), anyString())).thenReturn(true);
+        bootstrapIngestion.submit("pgvector", pdf, vectorStore, manifest);
+
+        bootstrapIngestion.start();
+
+        assertThat(awaitStatusOtherThan(BootstrapIngestion.WARMING)).isEqualTo(Status.UP);
+        verify(vectorStore, never()).add(anyList());
+    }
+
+    @Test
+    void start_reportsDownWhenIndexingFails() throws InterruptedException {
+        when(manifest.isIndexed(eq("reference.pdf"), anyString())).thenReturn(false);
+        when(pdfExtractor.readAll(pdf)).thenThrow(new IllegalStateException("corrupt PDF"));
+        bootstrapIngestion.submit("pgvector", pdf, vectorStore, manifest);
+
+        bootstrapIngestion.start();
+
+        assertThat(awaitStatusOtherThan(BootstrapIngestion.WARMING)).isEqualTo(Status.DOWN);
+        verify(manifest, never()).markIndexed(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void health_reportsEachStoreIndexingTheSamePdfSeparately() throws InterruptedException {
+        when(manifest.isIndexed(eq("reference.pdf"), anyString())).thenReturn(false);
+        when(pdfExtractor.readAll(pdf)).thenThrow(new IllegalStateException("corrupt PDF"));
+        when(localManifest.isIndexed(eq("reference.pdf"), anyString())).thenReturn(true);
+        bootstrapIngestion.submit("pgvector", pdf, vectorStore, manifest);
+        bootstrapIngestion.submit("local", pdf, vectorStore, localManifest);
+
+        bootstrapIngestion.start();
+
+        // The sources are indexed one after the other: wait for the second one
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!isReady(bootstrapIngestion.health().getDetails().get("local:reference.pdf"))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Health health = bootstrapIngestion.health();
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(((BootstrapIngestion.Progress) health.getDetails().get("pgvector:reference.pdf")).state())
+                .isEqualTo("FAILED");
+    }
+
+    private static boolean isReady(Object progress) {
+        return ((BootstrapIngestion.Progress) progress).state().equals("READY");
+    }
+}
@@ -0,0 +1,83 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class CheckpointTrackerTest {
+
+    private static final String DOCUMENT_ID = "7a1c2a3e-0000-4000-8000-000000000001";
+    private static final String CHUNKING = "800/50/350";
+
+    @Mock
+    private IngestionCheckpointRepository checkpointRepository;
+
+    private static List<Document> chunks(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new Document("chunk " + i, Map.of(PagePdfDocumentReader.METADATA_START_PAGE_NUMBER, i + 1)))
+                .toList();
+    }
+
+    private static List<Document> drain(CheckpointTracker tracker, List<Document> chunks) {
+        List<Document> pending = new ArrayList<>();
+        tracker.pending(chunks.iterator()).forEachRemaining(pending::add);
+        return pending;
+    }
+
+    @Test
+    void chunkIdsAreDeterministicPerDocumentAndPosition() {
+        CheckpointTracker first = new CheckpointTracker(DOCUMENT_ID, 0, CHUNKING, checkpointRepository);
+        CheckpointTracker second = new CheckpointTracker(DOCUMENT_ID, 0, CHUNKING, checkpointRepository);
+
+        List<String> firstIds = drain(first, chunks(3)).stream().map(Document::getId).toList();
+        List<String> secondIds = drain(second, chunks(3)).stream().map(Document::getId).toList();
+
+        assertThat(firstIds).isEqualTo(secondIds).doesNotHaveDuplicates();
+        assertThat(CheckpointTracker.chunkId("another-document", 0)).isNotEqualTo(firstIds.getFirst());
+    }
+
+    @Test
+    void pendingSkipsChunksBeforeTheCheckpoint() {
+        CheckpointTracker tracker = new CheckpointTracker(DOCUMENT_ID, 3, CHUNKING, checkpointRepository);
+
+        List<Document> pending = drain(tracker, chunks(5));
+
+        assertThat(pending).extracting(Document::getText).containsExactly("chunk 3", "chunk 4");
+        assertThat(pending.getFirst().getMetadata()).containsEntry(CheckpointTracker.CHUNK_INDEX, 3);
+        assertThat(pending.getFirst().getId()).isEqualTo(CheckpointTracker.chunkId(DOCUMENT_ID, 3));
+    }
+
+    @Test
+    void checkpointOnlyAdvancesOverTheContiguousStoredPrefix() {
+        CheckpointTracker tracker = new CheckpointTracker(DOCUMENT_ID, 0, CHUNKING, checkpointRepository);
+        List<Document> pending = drain(tracker, chunks(6));
+
+        tracker.onBatchStored(pending.subList(2, 4));
+        assertThat(tracker.committed()).isZero();
+        verify(checkpointRepository, never()).save(DOCUMENT_ID,
+                new IngestionCheckpointRepository.Checkpoint(4, 4, CHUNKING));
+
+        tracker.onBatchStored(pending.subList(0, 2));
+        assertThat(tracker.committed()).isEqualTo(4);
+        verify(checkpointRepository).save(DOCUMENT_ID, new IngestionCheckpointRepository.Checkpoint(4, 4, CHUNKING));
+
+        tracker.onBatchStored(pending.subList(4, 6));
+        assertThat(tracker.committed()).isEqualTo(6);
+        verify(checkpointRepository).save(DOCUMENT_ID, new IngestionCheckpointRepository.Checkpoint(6, 6, CHUNKING));
+        verifyNoMoreInteractions(checkpointRepository);
+    }
+}
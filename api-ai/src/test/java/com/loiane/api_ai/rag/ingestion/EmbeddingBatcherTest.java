@@ -0,0 +1,171 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.embedding.EmbeddingCache;
+import com.loiane.api_ai.rag.exception.DocumentProcessingException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmbeddingBatcherTest {
+
+    @Mock
+    private EmbeddingModel embeddingModel;
+
+    @Mock
+    private EmbeddingCache embeddingCache;
+
+    @Mock
+    private PgVectorBatchWriter batchWriter;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DocumentProperties documentProperties;
+    private EmbeddingBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        documentProperties = new DocumentProperties();
+        documentProperties.getEmbedding().setConcurrency(1);
+        documentProperties.getEmbedding().setMaxChunksPerBatch(2);
+        documentProperties.getEmbedding().setRetryBackoff(Duration.ZERO);
+
+        // Cache misses by default: every chunk is sent to the model
+        lenient().when(embeddingCache.lookup(anyList()))
+                .thenAnswer(invocation -> Arrays.asList(new float[invocation.<List<?>>getArgument(0).size()][]));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+    }
+
+    private EmbeddingBatcher newBatcher() {
+        batcher = new EmbeddingBatcher(embeddingModel, embeddingCache, batchWriter, documentProperties, meterRegistry);
+        return batcher;
+    }
+
+    private List<Document> chunks(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new Document("Chunk number " + i + " of the Spring AI reference manual."))
+                .toList();
+    }
+
+    private static EmbeddingResponse embeddingResponse(int count) {
+        return new EmbeddingResponse(IntStream.range(0, count)
+                .mapToObj(i -> new Embedding(new float[]{1f, 0f}, i))
+                .toList());
+    }
+
+    private void stubEmbeddings() {
+        when(embeddingModel.call(any(EmbeddingRequest.class))).thenAnswer(invocation ->
+                embeddingResponse(invocation.<EmbeddingRequest>getArgument(0).getInstructions().size()));
+    }
+
+    @Test
+    void embedAndStore_packsChunksUpToTheChunkLimitAndWritesEachBatch() {
+        stubEmbeddings();
+
+        int stored = newBatcher().embedAndStore("doc-1", chunks(5));
+
+        assertThat(stored).isEqualTo(5);
+        verify(embeddingModel, times(3)).call(any(EmbeddingRequest.class));
+        verify(batchWriter, times(3)).write(anyList(), anyList());
+        assertThat(meterRegistry.get("rag.embedding.chunks").counter().count()).isEqualTo(5);
+        assertThat(meterRegistry.get("rag.embedding.batch.size").summary().max()).isEqualTo(2);
+    }
+
+    @Test
+    void embedAndStore_startsANewBatchWhenTheTokenBudgetWouldBeExceeded() {
+        documentProperties.getEmbedding().setMaxChunksPerBatch(100);
+        documentProperties.getEmbedding().setMaxTokensPerBatch(1);
+        stubEmbeddings();
+
+        newBatcher().embedAndStore("doc-1", chunks(3));
+
+        verify(embeddingModel, times(3)).call(any(EmbeddingRequest.class));
+    }
+
+    @Test
+    void embedAndStore_retriesOnlyTheFailedBatch() {
+        when(embeddingModel.call(any(EmbeddingRequest.class)))
+                .thenReturn(embeddingResponse(2))
+                .thenThrow(new RuntimeException("rate limited"))
+                .thenReturn(embeddingResponse(2));
+
+        newBatcher().embedAndStore("doc-1", chunks(4));
+
+        verify(embeddingModel, times(3)).call(any(EmbeddingRequest.class));
+        verify(batchWriter, times(2)).write(anyList(), anyList());
+        assertThat(meterRegistry.get("rag.embedding.batch.retries").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void embedAndStore_whenABatchKeepsFailing_throwsDocumentProcessingException() {
+        when(embeddingModel.call(any(EmbeddingRequest.class))).thenThrow(new RuntimeException("provider down"));
+
+        assertThatThrownBy(() -> newBatcher().embedAndStore("doc-1", chunks(2)))
+                .isInstanceOf(DocumentProcessingException.class)
+                .hasRootCauseMessage("provider down");
+
+        verify(embeddingModel, times(3)).call(any(EmbeddingRequest.class));
+    }
+
+    @Test
+    void embedAndStore_whenABatchKeepsFailing_stopsConsumingChunks() {
+        when(embeddingModel.call(any(EmbeddingRequest.class))).thenThrow(new RuntimeException("provider down"));
+        AtomicInteger consumed = new AtomicInteger();
+        Iterable<Document> chunks = () -> chunks(20).stream().peek(_ -> consumed.incrementAndGet()).iterator();
+
+        assertThatThrownBy(() -> newBatcher().embedAndStore("doc-1", chunks))
+                .isInstanceOf(DocumentProcessingException.class);
+
+        // Only the attempts of the first batch: the next one is never embedded nor written
+        verify(embeddingModel, times(3)).call(any(EmbeddingRequest.class));
+        verify(batchWriter, never()).write(anyList(), anyList());
+        assertThat(consumed.get()).isLessThanOrEqualTo(6);
+    }
+
+    @Test
+    void embedAndStore_whenEveryChunkIsCached_writesWithoutCallingTheModel() {
+        when(embeddingCache.lookup(anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(0).stream()
+                .map(text -> new float[]{0.5f, 0.5f})
+                .toList());
+
+        newBatcher().embedAndStore("doc-1", chunks(4));
+
+        verify(embeddingModel, never()).call(any(EmbeddingRequest.class));
+        verify(batchWriter, times(2)).write(anyList(), anyList());
+        assertThat(meterRegistry.get("rag.embedding.cache.saved").tag("unit", "inputs").counter().count()).isEqualTo(4);
+    }
+}
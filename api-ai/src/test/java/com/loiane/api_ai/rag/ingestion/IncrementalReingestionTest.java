@@ -0,0 +1,169 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.exception.DocumentProcessingException;
+import com.loiane.api_ai.rag.model.DocumentUpdateReport;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IncrementalReingestionTest {
+
+    private static final String DOCUMENT_ID = "0d4e3f7a-2b1c-4d5e-8f90-123456789abc";
+    private static final int CHUNK_SIZE = 64;
+
+    @Mock
+    private ParallelPdfExtractor pdfExtractor;
+
+    @Mock
+    private EmbeddingBatcher embeddingBatcher;
+
+    @Mock
+    private StagedChunkRepository stagedChunkRepository;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    private IncrementalReingestion reingestion;
+
+    @BeforeEach
+    void setUp() {
+        DocumentProperties documentProperties = new DocumentProperties();
+        documentProperties.setChunkSize(CHUNK_SIZE);
+        documentProperties.setChunkOverlap(0);
+        documentProperties.setMinChunkSize(0);
+        reingestion = new IncrementalReingestion(pdfExtractor, embeddingBatcher, stagedChunkRepository,
+                documentProperties, jsonMapper, new SimpleMeterRegistry());
+    }
+
+    private static List<Document> pages(String... texts) {
+        List<Document> pages = new ArrayList<>();
+        for (int i = 0; i < texts.length; i++) {
+            pages.add(new Document(texts[i], Map.of(
+                    PagePdfDocumentReader.METADATA_START_PAGE_NUMBER, i + 1,
+                    "document_id", DOCUMENT_ID)));
+        }
+        return pages;
+    }
+
+    private static String words(String prefix, int count) {
+        return IntStream.range(0, count).mapToObj(i -> prefix + i).collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Stores the chunks of the given pages as a first ingestion would.
+     */
+    private List<StagedChunkRepository.StoredChunk> storedChunks(List<Document> pages) {
+        List<StagedChunkRepository.StoredChunk> stored = new ArrayList<>();
+        StreamingTokenChunker chunker = new StreamingTokenChunker(pages.iterator(), CHUNK_SIZE, 0, 0);
+        for (int index = 0; chunker.hasNext(); index++) {
+            Document chunk = chunker.next();
+            Map<String, Object> metadata = new HashMap<>(chunk.getMetadata());
+            metadata.put(CheckpointTracker.CHUNK_INDEX, index);
+            stored.add(new StagedChunkRepository.StoredChunk(CheckpointTracker.chunkId(DOCUMENT_ID, index),
+                    sha256(chunk.getText()), jsonMapper.writeValueAsString(metadata)));
+        }
+        return stored;
+    }
+
+    private static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void stubEmbeddingCountingChunks() {
+        when(embeddingBatcher.embedAndStage(eq(DOCUMENT_ID), any())).thenAnswer(invocation -> {
+            int count = 0;
+            for (Document ignored : invocation.<Iterable<Document>>getArgument(1)) {
+                count++;
+            }
+            return count;
+        });
+    }
+
+    @Test
+    void reingest_embedsOnlyTheChunksOfTheChangedPage() {
+        List<StagedChunkRepository.StoredChunk> stored = storedChunks(
+                pages(words("alpha", 300), words("beta", 300)));
+        when(stagedChunkRepository.findChunks(DOCUMENT_ID)).thenReturn(stored);
+        stubEmbeddingCountingChunks();
+
+        DocumentUpdateReport report = reingestion.reingest(DOCUMENT_ID,
+                pages(words("alpha", 300), words("gamma", 300)).iterator());
+
+        assertThat(report.chunksReused()).isPositive();
+        assertThat(report.chunksEmbedded()).isPositive();
+        assertThat(report.chunksReused() + report.chunksDeleted()).isEqualTo(stored.size());
+        assertThat(reingestion.findReport(DOCUMENT_ID)).contains(report);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> removed = ArgumentCaptor.forClass(List.class);
+        verify(stagedChunkRepository).publish(eq(DOCUMENT_ID), removed.capture(), anyMap());
+        assertThat(removed.getValue()).hasSize(report.chunksDeleted())
+                .doesNotContain(stored.getFirst().id());
+    }
+
+    @Test
+    void reingest_ofAnUnchangedDocumentEmbedsAndDeletesNothing() {
+        List<Document> pages = pages(words("alpha", 300), words("beta", 300));
+        List<StagedChunkRepository.StoredChunk> stored = storedChunks(pages);
+        when(stagedChunkRepository.findChunks(DOCUMENT_ID)).thenReturn(stored);
+        stubEmbeddingCountingChunks();
+
+        DocumentUpdateReport report = reingestion.reingest(DOCUMENT_ID, pages.iterator());
+
+        assertThat(report.chunksReused()).isEqualTo(stored.size());
+        assertThat(report.chunksEmbedded()).isZero();
+        assertThat(report.chunksDeleted()).isZero();
+        verify(stagedChunkRepository).publish(DOCUMENT_ID, List.of(), Map.of());
+    }
+
+    @Test
+    void reingest_whenEmbeddingFails_discardsTheStagedChunksAndKeepsTheCurrentVersion() {
+        when(stagedChunkRepository.findChunks(DOCUMENT_ID)).thenReturn(List.of());
+        when(embeddingBatcher.embedAndStage(eq(DOCUMENT_ID), any()))
+                .thenThrow(new DocumentProcessingException("provider unavailable"));
+
+        assertThatThrownBy(() -> reingestion.reingest(DOCUMENT_ID, pages(words("alpha", 300)).iterator()))
+                .isInstanceOf(DocumentProcessingException.class);
+
+        verify(stagedChunkRepository, times(2)).clearStaged(DOCUMENT_ID);
+        verify(stagedChunkRepository, never()).publish(any(), anyList(), anyMap());
+        assertThat(reingestion.findReport(DOCUMENT_ID)).isEmpty();
+    }
+}
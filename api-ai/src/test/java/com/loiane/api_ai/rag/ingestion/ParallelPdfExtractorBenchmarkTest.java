@@ -0,0 +1,66 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import com.loiane.api_ai.rag.benchmark.Benchmark;
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Timed benchmark of {@link ParallelPdfExtractor} over {@code docs/SpringAIReference.pdf},
+ * reporting pages/sec for an increasing number of extraction threads.
+ *
+ * <p>Excluded from {@code ./mvnw test}. Run with:
+ * <pre>
+ * ./mvnw test -Pbenchmark -Dtest=ParallelPdfExtractorBenchmarkTest
+ * </pre>
+ */
+@Benchmark
+class ParallelPdfExtractorBenchmarkTest {
+
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Test
+    void pagesPerSecondByParallelism() throws Exception {
+        Path file = new ClassPathResource("docs/SpringAIReference.pdf").getFile().toPath();
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%-12s %10s %12s%n", "parallelism", "pages", "pages/sec");
+        for (int parallelism = 1; parallelism <= cores; parallelism *= 2) {
+            DocumentProperties documentProperties = new DocumentProperties();
+            documentProperties.getIngestion().setPdfParallelism(parallelism);
+            ParallelPdfExtractor extractor = new ParallelPdfExtractor(documentProperties, new SimpleMeterRegistry());
+            try {
+                for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                    extractAll(extractor, file);
+                }
+                long pages = 0;
+                long startedAt = System.nanoTime();
+                for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                    pages += extractAll(extractor, file);
+                }
+                double seconds = (System.nanoTime() - startedAt) / 1e9;
+                System.out.printf("%-12d %10d %12.1f%n", parallelism, pages / MEASURED_ROUNDS, pages / seconds);
+            } finally {
+                extractor.shutdown();
+            }
+        }
+    }
+
+    private static int extractAll(ParallelPdfExtractor extractor, Path file) {
+        try (ParallelPdfExtractor.Pages pages = extractor.extract(file, file.getFileName().toString(), Map.of())) {
+            int count = 0;
+            while (pages.hasNext()) {
+                pages.next();
+                count++;
+            }
+            return count;
+        }
+    }
+}
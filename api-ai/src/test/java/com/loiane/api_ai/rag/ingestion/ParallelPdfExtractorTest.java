@@ -0,0 +1,121 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.ExtractedTextFormatter;
+import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
+import org.springframework.ai.reader.pdf.config.PdfDocumentReaderConfig;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.model.DocumentMetadata;
+import com.loiane.api_ai.rag.model.DocumentStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelPdfExtractorTest {
+
+    private final Resource pdf = new ClassPathResource("docs/SpringAIReference.pdf");
+    private ParallelPdfExtractor extractor;
+
+    @AfterEach
+    void tearDown() {
+        if (extractor != null) {
+            extractor.shutdown();
+        }
+    }
+
+    private ParallelPdfExtractor newExtractor(int parallelism, int pagesPerRange, int maxBufferedPages) {
+        DocumentProperties documentProperties = new DocumentProperties();
+        documentProperties.getIngestion().setPdfParallelism(parallelism);
+        documentProperties.getIngestion().setPdfPagesPerRange(pagesPerRange);
+        documentProperties.getIngestion().setPdfMaxBufferedPages(maxBufferedPages);
+        extractor = new ParallelPdfExtractor(documentProperties, new SimpleMeterRegistry());
+        return extractor;
+    }
+
+    private static List<Document> readSequentially(Resource resource) {
+        return new PagePdfDocumentReader(resource, PdfDocumentReaderConfig.builder()
+                .withPageTopMargin(0)
+                .withPageExtractedTextFormatter(ExtractedTextFormatter.builder()
+                        .withNumberOfTopTextLinesToDelete(0)
+                        .build())
+                .withPagesPerDocument(1)
+                .build()).read();
+    }
+
+    private static List<Object> pageNumbers(List<Document> pages) {
+        return pages.stream()
+                .map(page -> page.getMetadata().get(PagePdfDocumentReader.METADATA_START_PAGE_NUMBER))
+                .toList();
+    }
+
+    @Test
+    void readAll_returnsTheSamePagesAsThePagePdfDocumentReaderInPageOrder() {
+        List<Document> parallel = newExtractor(4, 2, 8).readAll(pdf);
+        List<Document> sequential = readSequentially(pdf);
+
+        assertThat(pageNumbers(parallel)).isEqualTo(pageNumbers(sequential));
+        assertThat(parallel).allSatisfy(page -> {
+            assertThat(page.getText()).isNotBlank();
+            assertThat(page.getMetadata()).containsEntry(PagePdfDocumentReader.METADATA_FILE_NAME,
+                    "SpringAIReference.pdf");
+        });
+    }
+
+    @Test
+    void extract_addsTheGivenMetadataToEveryPage() throws Exception {
+        Path file = pdf.getFile().toPath();
+
+        List<Document> pages = new ArrayList<>();
+        try (ParallelPdfExtractor.Pages iterator = newExtractor(2, 3, 6)
+                .extract(file, "manual.pdf", Map.of("document_id", "doc-1"))) {
+            iterator.forEachRemaining(pages::add);
+            assertThat(iterator.pageCount()).isGreaterThanOrEqualTo(pages.size());
+        }
+
+        assertThat(pages).isNotEmpty();
+        assertThat(pages).allSatisfy(page -> assertThat(page.getMetadata()).containsEntry("document_id", "doc-1"));
+    }
+
+    @Test
+    void extract_namesThePagesOfADocumentAfterItsUploadedFilenameRatherThanItsBlob(@TempDir Path blobs)
+            throws Exception {
+        Path blob = Files.copy(pdf.getFile().toPath(), blobs.resolve("e3b0c442".repeat(8)));
+        DocumentMetadata document = new DocumentMetadata("doc-1", "manual.pdf", "application/pdf",
+                Files.size(blob), LocalDateTime.now(), DocumentStatus.PROCESSING);
+
+        List<Document> pages = new ArrayList<>();
+        try (ParallelPdfExtractor.Pages iterator = newExtractor(2, 2, 4).extract(document, blob)) {
+            iterator.forEachRemaining(pages::add);
+        }
+
+        assertThat(pages).isNotEmpty().allSatisfy(page -> assertThat(page.getMetadata())
+                .containsEntry("document_id", "doc-1")
+                .containsEntry("filename", "manual.pdf")
+                .containsEntry(PagePdfDocumentReader.METADATA_FILE_NAME, "manual.pdf"));
+    }
+
+    @Test
+    void extract_canBeClosedBeforeEveryPageIsRead() throws Exception {
+        Path file = pdf.getFile().toPath();
+
+        try (ParallelPdfExtractor.Pages iterator = newExtractor(1, 1, 1).extract(file, "manual.pdf", Map.of())) {
+            assertThat(iterator.hasNext()).isTrue();
+            assertThat(iterator.next().getMetadata())
+                    .containsEntry(PagePdfDocumentReader.METADATA_START_PAGE_NUMBER, 1);
+        }
+    }
+}
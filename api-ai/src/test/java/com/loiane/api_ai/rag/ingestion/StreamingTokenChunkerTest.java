@@ -0,0 +1,92 @@
+package com.loiane.api_ai.rag.ingestion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingTokenChunkerTest {
+
+    private static Document page(int pageNumber, String text) {
+        return new Document(text, Map.of(
+                PagePdfDocumentReader.METADATA_START_PAGE_NUMBER, pageNumber,
+                "document_id", "doc-1"));
+    }
+
+    /** Words "w0 w1 w2 ..." without punctuation, so chunks are cut purely by token count. */
+    private static String words(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> "w" + i).collect(Collectors.joining(" "));
+    }
+
+    private static List<Document> chunk(List<Document> pages, int chunkSize, int overlap, int minChunkChars) {
+        List<Document> chunks = new ArrayList<>();
+        new StreamingTokenChunker(pages.iterator(), chunkSize, overlap, minChunkChars).forEachRemaining(chunks::add);
+        return chunks;
+    }
+
+    @Test
+    void shortPagesAreCombinedIntoOneChunk() {
+        List<Document> chunks = chunk(List.of(page(1, "Alpha beta."), page(2, "Gamma delta.")), 100, 10, 0);
+
+        assertThat(chunks).hasSize(1);
+        assertThat(chunks.getFirst().getText()).contains("Alpha beta.").contains("Gamma delta.");
+        assertThat(chunks.getFirst().getMetadata())
+                .containsEntry(PagePdfDocumentReader.METADATA_START_PAGE_NUMBER, 1)
+                .containsEntry(PagePdfDocumentReader.METADATA_END_PAGE_NUMBER, 2)
+                .containsEntry("document_id", "doc-1");
+    }
+
+    @Test
+    void consecutiveChunksOverlapAcrossPageBoundaries() {
+        List<Document> pages = List.of(page(1, words(0, 150)), page(2, words(150, 300)));
+
+        List<Document> chunks = chunk(pages, 100, 20, 0);
+
+        assertThat(chunks).hasSizeGreaterThan(2);
+        for (int i = 1; i < chunks.size(); i++) {
+            // the overlap may start mid-word, so compare against word suffixes
+            List<String> previous = List.of(chunks.get(i - 1).getText().split("\\s+"));
+            String firstWordOfNext = chunks.get(i).getText().split("\\s+")[0];
+            assertThat(previous).anyMatch(word -> word.endsWith(firstWordOfNext));
+        }
+        assertThat(chunks).anySatisfy(chunk -> assertThat(chunk.getMetadata())
+                .containsEntry(PagePdfDocumentReader.METADATA_START_PAGE_NUMBER, 1)
+                .containsEntry(PagePdfDocumentReader.METADATA_END_PAGE_NUMBER, 2));
+    }
+
+    @Test
+    void everyWordEndsUpInAChunk() {
+        List<Document> pages = List.of(page(1, words(0, 400)), page(2, words(400, 420)), page(3, words(420, 900)));
+
+        List<Document> chunks = chunk(pages, 64, 8, 0);
+
+        String allText = chunks.stream().map(Document::getText).collect(Collectors.joining(" "));
+        List<String> seen = List.of(allText.split("\\s+"));
+        assertThat(seen).containsAll(List.of(words(0, 900).split(" ")));
+        assertThat(chunks.getLast().getMetadata())
+                .containsEntry(PagePdfDocumentReader.METADATA_START_PAGE_NUMBER, 3);
+    }
+
+    @Test
+    void chunksAreCutAtTheLastSentenceBoundary() {
+        String text = "First sentence is here. " + words(0, 30) + ". " + words(30, 200);
+
+        List<Document> chunks = chunk(List.of(page(1, text)), 60, 0, 20);
+
+        assertThat(chunks.getFirst().getText()).endsWith(".");
+        assertThat(chunks.getFirst().getMetadata())
+                .doesNotContainKey(PagePdfDocumentReader.METADATA_END_PAGE_NUMBER);
+    }
+
+    @Test
+    void blankPagesProduceNoChunks() {
+        assertThat(chunk(List.of(page(1, "   "), page(2, "")), 100, 10, 0)).isEmpty();
+    }
+}
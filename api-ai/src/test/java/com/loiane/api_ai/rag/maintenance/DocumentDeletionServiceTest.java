@@ -0,0 +1,183 @@
+package com.loiane.api_ai.rag.maintenance;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.loiane.api_ai.rag.DocumentRepository;
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.event.DocumentChangedEvent;
+import com.loiane.api_ai.rag.model.BulkDeleteRequest;
+import com.loiane.api_ai.rag.model.DeletionJob;
+import com.loiane.api_ai.rag.model.DocumentMetadata;
+import com.loiane.api_ai.rag.model.DocumentStatus;
+import com.loiane.api_ai.rag.storage.DocumentBlobs;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentDeletionServiceTest {
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    @Mock
+    private VectorMaintenanceRepository vectorMaintenanceRepository;
+
+    @Mock
+    private DocumentBlobs documentBlobs;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private DocumentDeletionService deletionService;
+
+    @BeforeEach
+    void setUp() {
+        DocumentProperties documentProperties = new DocumentProperties();
+        documentProperties.getMaintenance().setDeleteBatchSize(500);
+        deletionService = new DocumentDeletionService(documentRepository, vectorMaintenanceRepository,
+                documentBlobs, documentProperties, new SimpleMeterRegistry(), eventPublisher);
+    }
+
+    @AfterEach
+    void tearDown() {
+        deletionService.shutdown();
+    }
+
+    private static DocumentMetadata document(String id) {
+        return new DocumentMetadata(id, id + ".pdf", "application/pdf", 1_024L,
+                LocalDateTime.now(), DocumentStatus.READY);
+    }
+
+    private DeletionJob awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        DeletionJob job = deletionService.findJob(jobId).orElseThrow();
+        while (job.finishedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            job = deletionService.findJob(jobId).orElseThrow();
+        }
+        return job;
+    }
+
+    @Test
+    void delete_removesVectorsInBatchesThenMetadataFilesAndCachedAnswers() {
+        DocumentMetadata first = document("doc-1");
+        DocumentMetadata second = document("doc-2");
+        when(vectorMaintenanceRepository.deleteByDocumentIds(List.of("doc-1", "doc-2"), 500)).thenReturn(42L);
+
+        long vectors = deletionService.delete(List.of(first, second));
+
+        assertThat(vectors).isEqualTo(42);
+        InOrder inOrder = inOrder(documentRepository, documentBlobs);
+        inOrder.verify(documentRepository).deleteByIds(List.of("doc-1", "doc-2"));
+        inOrder.verify(documentBlobs).release(first);
+        inOrder.verify(documentBlobs).release(second);
+        verify(eventPublisher).publishEvent(new DocumentChangedEvent("doc-1"));
+        verify(eventPublisher).publishEvent(new DocumentChangedEvent("doc-2"));
+    }
+
+    @Test
+    void delete_whenTheVectorDeleteFails_keepsTheMetadataRow() {
+        when(vectorMaintenanceRepository.deleteByDocumentIds(anyList(), anyInt()))
+                .thenThrow(new IllegalStateException("pgvector unavailable"));
+
+        assertThatThrownBy(() -> deletionService.delete(List.of(document("doc-1"))))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(documentRepository, never()).deleteByIds(anyList());
+        verify(documentBlobs, never()).release(any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void submit_deletesTheMatchingDocumentsInTheBackground() throws InterruptedException {
+        BulkDeleteRequest request = new BulkDeleteRequest(null, DocumentStatus.ERROR, null);
+        when(documentRepository.findForDeletion(null, DocumentStatus.ERROR, null))
+                .thenReturn(List.of(document("doc-1"), document("doc-2")));
+        when(vectorMaintenanceRepository.deleteByDocumentIds(List.of("doc-1", "doc-2"), 500)).thenReturn(7L);
+
+        DeletionJob queued = deletionService.submit(request);
+        DeletionJob finished = awaitFinished(queued.id());
+
+        assertThat(queued.documents()).isEqualTo(2);
+        assertThat(finished.status()).isEqualTo(DeletionJob.Status.COMPLETED);
+        assertThat(finished.documentsDeleted()).isEqualTo(2);
+        assertThat(finished.vectorsDeleted()).isEqualTo(7);
+    }
+
+    @Test
+    void submit_reportsAFailedJob() throws InterruptedException {
+        when(documentRepository.findForDeletion(List.of("doc-1"), null, null)).thenReturn(List.of(document("doc-1")));
+        when(vectorMaintenanceRepository.deleteByDocumentIds(anyList(), anyInt()))
+                .thenThrow(new IllegalStateException("pgvector unavailable"));
+
+        DeletionJob queued = deletionService.submit(new BulkDeleteRequest(List.of("doc-1"), null, null));
+        DeletionJob finished = awaitFinished(queued.id());
+
+        assertThat(finished.status()).isEqualTo(DeletionJob.Status.FAILED);
+        assertThat(finished.errorMessage()).isEqualTo("pgvector unavailable");
+    }
+
+    @Test
+    void findJob_keepsAJobThatIsStillRunningWhileNewerJobsAreSubmitted() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(documentRepository.findForDeletion(List.of("doc-1"), null, null)).thenReturn(List.of(document("doc-1")));
+        when(documentRepository.findForDeletion(null, DocumentStatus.ERROR, null)).thenReturn(List.of());
+        when(vectorMaintenanceRepository.deleteByDocumentIds(List.of("doc-1"), 500)).thenAnswer(_ -> {
+            release.await();
+            return 1L;
+        });
+        DeletionJob running = deletionService.submit(new BulkDeleteRequest(List.of("doc-1"), null, null));
+
+        for (int i = 0; i < 150; i++) {
+            deletionService.submit(new BulkDeleteRequest(null, DocumentStatus.ERROR, null));
+        }
+
+        assertThat(deletionService.findJob(running.id())).isPresent();
+        release.countDown();
+        assertThat(awaitFinished(running.id()).status()).isEqualTo(DeletionJob.Status.COMPLETED);
+    }
+
+    @Test
+    void findJob_evictsTheOldestFinishedJobs() throws InterruptedException {
+        DeletionJob oldest = deletionService.submit(new BulkDeleteRequest(null, DocumentStatus.ERROR, null));
+        awaitFinished(oldest.id());
+
+        DeletionJob latest = null;
+        for (int i = 0; i < 100; i++) {
+            latest = deletionService.submit(new BulkDeleteRequest(null, DocumentStatus.ERROR, null));
+            awaitFinished(latest.id());
+        }
+
+        assertThat(deletionService.findJob(oldest.id())).isEmpty();
+        assertThat(deletionService.findJob(latest.id())).isPresent();
+    }
+
+    @Test
+    void submit_rejectsARequestWithoutCriteria() {
+        assertThatThrownBy(() -> deletionService.submit(new BulkDeleteRequest(List.of(), null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verify(documentRepository, never()).findForDeletion(any(), any(), any());
+    }
+}
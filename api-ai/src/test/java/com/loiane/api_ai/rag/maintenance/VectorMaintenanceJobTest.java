@@ -0,0 +1,76 @@
+package com.loiane.api_ai.rag.maintenance;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.loiane.api_ai.rag.DocumentRepository;
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.model.DocumentStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VectorMaintenanceJobTest {
+
+    @Mock
+    private VectorMaintenanceRepository vectorMaintenanceRepository;
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private VectorMaintenanceJob maintenanceJob;
+
+    @BeforeEach
+    void setUp() {
+        DocumentProperties documentProperties = new DocumentProperties();
+        documentProperties.getMaintenance().setDeleteBatchSize(500);
+        documentProperties.getMaintenance().setReindexMinDeletedRows(1_000);
+        meterRegistry = new SimpleMeterRegistry();
+        maintenanceJob = new VectorMaintenanceJob(vectorMaintenanceRepository, documentRepository,
+                documentProperties, meterRegistry);
+    }
+
+    @Test
+    void run_deletesOrphanedVectorsAndFlagsDocumentsWithoutVectors() {
+        when(vectorMaintenanceRepository.totalBytes()).thenReturn(10_000L, 4_000L);
+        when(vectorMaintenanceRepository.findOrphanedDocumentIds()).thenReturn(List.of("gone-1"));
+        when(vectorMaintenanceRepository.deleteByDocumentIds(List.of("gone-1"), 500)).thenReturn(12L);
+        when(vectorMaintenanceRepository.findReadyDocumentsWithoutVectors()).thenReturn(List.of("empty-1"));
+        when(vectorMaintenanceRepository.deletedRows()).thenReturn(12L);
+
+        VectorMaintenanceJob.MaintenanceReport report = maintenanceJob.run();
+
+        assertThat(report).isEqualTo(new VectorMaintenanceJob.MaintenanceReport(12, 0, 1, false, 6_000));
+        verify(documentRepository).updateStatusWithError("empty-1", DocumentStatus.ERROR,
+                VectorMaintenanceJob.MISSING_VECTORS_MESSAGE);
+        verify(vectorMaintenanceRepository).vacuum();
+        verify(vectorMaintenanceRepository, never()).reindex();
+        assertThat(meterRegistry.counter("rag.maintenance.vectors.deleted", "reason", "orphan").count())
+                .isEqualTo(12);
+        assertThat(meterRegistry.counter("rag.maintenance.bytes.reclaimed").count()).isEqualTo(6_000);
+    }
+
+    @Test
+    void run_reindexesOnlyOnceEnoughRowsWereDeletedSinceTheLastRebuild() {
+        when(vectorMaintenanceRepository.totalBytes()).thenReturn(10_000L);
+        when(vectorMaintenanceRepository.findOrphanedDocumentIds()).thenReturn(List.of());
+        when(vectorMaintenanceRepository.findReadyDocumentsWithoutVectors()).thenReturn(List.of());
+        when(vectorMaintenanceRepository.deletedRows()).thenReturn(1_500L, 2_000L);
+
+        assertThat(maintenanceJob.run().reindexed()).isTrue();
+        assertThat(maintenanceJob.run().reindexed()).isFalse();
+
+        verify(vectorMaintenanceRepository).reindex();
+    }
+}
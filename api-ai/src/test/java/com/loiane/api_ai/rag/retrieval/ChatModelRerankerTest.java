@@ -0,0 +1,87 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.document.Document;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ChatModelRerankerTest {
+
+    @Mock
+    private ChatClient.Builder chatClientBuilder;
+
+    @Mock
+    private ChatClient chatClient;
+
+    @Mock
+    private ChatClient.ChatClientRequestSpec requestSpec;
+
+    @Mock
+    private ChatClient.CallResponseSpec callResponseSpec;
+
+    private ChatModelReranker reranker;
+
+    @BeforeEach
+    void setUp() {
+        when(chatClientBuilder.build()).thenReturn(chatClient);
+        reranker = new ChatModelReranker(chatClientBuilder);
+    }
+
+    private void replyWith(String reply) {
+        when(chatClient.prompt()).thenReturn(requestSpec);
+        when(requestSpec.user(anyString())).thenReturn(requestSpec);
+        when(requestSpec.call()).thenReturn(callResponseSpec);
+        when(callResponseSpec.content()).thenReturn(reply);
+    }
+
+    private static List<Document> candidates() {
+        return List.of(
+                Document.builder().id("a").text("The installer copies files.").build(),
+                Document.builder().id("b").text("ERR-4012 means the license expired.").build(),
+                Document.builder().id("c").text("Restart the service.").build());
+    }
+
+    @Test
+    void rerank_ordersCandidatesByTheModelScores() {
+        replyWith("1: 2\n2: 9.5\n3: 4");
+
+        List<Document> reranked = reranker.rerank("What does ERR-4012 mean?", candidates());
+
+        assertThat(reranked).extracting(Document::getId).containsExactly("b", "c", "a");
+        assertThat(reranked.getFirst().getScore()).isEqualTo(9.5);
+    }
+
+    @Test
+    void rerank_scoresPassagesTheModelSkippedAsZero() {
+        replyWith("[3]: 7");
+
+        assertThat(reranker.rerank("question", candidates()))
+                .extracting(Document::getId).containsExactly("c", "a", "b");
+    }
+
+    @Test
+    void rerank_whenTheReplyHasNoScores_keepsTheRetrievalOrder() {
+        replyWith("All passages look relevant.");
+
+        assertThat(reranker.rerank("question", candidates()))
+                .extracting(Document::getId).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    void rerank_whenTheModelCallFails_keepsTheRetrievalOrder() {
+        when(chatClient.prompt()).thenThrow(new IllegalStateException("rate limited"));
+
+        assertThat(reranker.rerank("question", candidates()))
+                .extracting(Document::getId).containsExactly("a", "b", "c");
+    }
+}
@@ -0,0 +1,104 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContextAssemblerTest {
+
+    private DocumentProperties documentProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private ContextAssembler contextAssembler;
+
+    @BeforeEach
+    void setUp() {
+        documentProperties = new DocumentProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        contextAssembler = new ContextAssembler(documentProperties, meterRegistry);
+    }
+
+    private static Document chunk(String id, String text, int page, int chunkIndex) {
+        return Document.builder().id(id).text(text)
+                .metadata(Map.of("document_id", "doc-1", "page_number", page, "chunk_index", chunkIndex))
+                .build();
+    }
+
+    private static String sentences(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append("Sentence number ").append(i).append(" describes the device. ");
+        }
+        return text.toString().strip();
+    }
+
+    private RetrievalContext assemble(Document... documents) {
+        return contextAssembler.assemble(new RetrievalContext("question", null, List.of(documents)));
+    }
+
+    @Test
+    void assemble_keepsChunksThatFitTheBudgetUnchanged() {
+        RetrievalContext context = assemble(chunk("a", "First chunk.", 1, 0), chunk("b", "Second chunk.", 7, 5));
+
+        assertThat(context.documents()).extracting(Document::getText).containsExactly("First chunk.", "Second chunk.");
+    }
+
+    @Test
+    void assemble_truncatesTheChunkThatCrossesTheBudgetAtASentenceEnd() {
+        documentProperties.getContext().setMaxTokens(100);
+        documentProperties.getContext().setMinChunkTokens(10);
+
+        RetrievalContext context = assemble(chunk("a", sentences(5), 1, 0), chunk("b", sentences(40), 9, 8));
+
+        assertThat(context.documents()).extracting(Document::getId).containsExactly("a", "b");
+        String truncated = context.documents().get(1).getText();
+        assertThat(truncated).endsWith("describes the device.");
+        assertThat(sentences(40)).startsWith(truncated);
+        assertThat(truncated.length()).isLessThan(sentences(40).length());
+    }
+
+    @Test
+    void assemble_leavesOutChunksWhenTooLittleBudgetRemains() {
+        documentProperties.getContext().setMaxTokens(60);
+        documentProperties.getContext().setMinChunkTokens(30);
+
+        RetrievalContext context = assemble(
+                chunk("a", sentences(5), 1, 0), chunk("b", sentences(40), 9, 8), chunk("c", "Short.", 12, 11));
+
+        assertThat(context.documents()).extracting(Document::getId).containsExactly("a");
+    }
+
+    @Test
+    void assemble_mergesConsecutiveChunksOfTheSamePageWithoutRepeatingTheOverlap() {
+        String overlap = "the reset button is behind the cover";
+        Document second = chunk("b", "Press and hold it. Then " + overlap, 4, 3);
+        Document first = chunk("a", overlap + " for five seconds.", 4, 4);
+        Document otherPage = chunk("c", "The warranty lasts two years.", 5, 5);
+
+        RetrievalContext context = assemble(first, otherPage, second);
+
+        assertThat(context.documents()).extracting(Document::getId).containsExactly("a", "c");
+        assertThat(context.documents().getFirst().getText())
+                .isEqualTo("Press and hold it. Then " + overlap + " for five seconds.");
+        assertThat(context.documents().getFirst().getMetadata()).containsEntry("chunk_index", 3);
+    }
+
+    @Test
+    void recordPrompt_recordsThePromptTokenCount() {
+        int tokens = contextAssembler.recordPrompt("How do I reset the router?");
+
+        DistributionSummary summary = meterRegistry.get("rag.prompt.tokens").summary();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(tokens);
+        assertThat(tokens).isPositive();
+    }
+}
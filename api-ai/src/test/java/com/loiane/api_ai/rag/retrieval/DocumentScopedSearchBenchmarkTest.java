@@ -0,0 +1,181 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import com.loiane.api_ai.rag.benchmark.Benchmark;
+import com.loiane.api_ai.rag.benchmark.Latencies;
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.embedding.QueryEmbeddingCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Latency benchmark of searches scoped to one document, comparing the JSON
+ * metadata post-filter of {@link PgVectorStore} with the planned
+ * {@link DocumentScopedVectorStore}, on random vectors in a pgvector container.
+ *
+ * <p>The corpus has {@value #DOCUMENTS} small documents plus a few large ones,
+ * so both the exact and the HNSW plan are exercised. Besides p50/p99 latency,
+ * the benchmark reports how many of the requested K chunks each mode returns:
+ * post-filtering the global index often returns fewer than K for a small document.
+ *
+ * <p>Excluded from {@code ./mvnw test}, requires Docker. Run with:
+ * <pre>
+ * ./mvnw test -Pbenchmark -Dtest=DocumentScopedSearchBenchmarkTest
+ * </pre>
+ */
+@Benchmark
+class DocumentScopedSearchBenchmarkTest {
+
+    private static final int DIMENSIONS = 384;
+    private static final int DOCUMENTS = 10_000;
+    private static final int CHUNKS_PER_DOCUMENT = 5;
+    private static final int LARGE_DOCUMENTS = 2;
+    private static final int CHUNKS_PER_LARGE_DOCUMENT = 8_000;
+    private static final int QUERIES = 500;
+    private static final int TOP_K = 5;
+
+    @Test
+    void filteredSearchLatencyByMode() {
+        try (PostgreSQLContainer postgres = new PostgreSQLContainer(
+                DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"))) {
+            postgres.start();
+            DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                    postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            RandomEmbeddingModel embeddingModel = new RandomEmbeddingModel();
+
+            PgVectorStore pgVectorStore = PgVectorStore.builder(jdbcTemplate, embeddingModel)
+                    .dimensions(DIMENSIONS)
+                    .initializeSchema(true)
+                    .build();
+            pgVectorStore.afterPropertiesSet();
+            jdbcTemplate.execute("""
+                    ALTER TABLE vector_store ADD COLUMN IF NOT EXISTS document_id uuid
+                        GENERATED ALWAYS AS ((metadata->>'document_id')::uuid) STORED
+                    """);
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_vector_store_document_id ON vector_store (document_id)");
+
+            List<String> documentIds = new ArrayList<>();
+            List<Document> batch = new ArrayList<>();
+            for (int d = 0; d < DOCUMENTS + LARGE_DOCUMENTS; d++) {
+                String documentId = UUID.randomUUID().toString();
+                documentIds.add(documentId);
+                int chunks = d < DOCUMENTS ? CHUNKS_PER_DOCUMENT : CHUNKS_PER_LARGE_DOCUMENT;
+                for (int c = 0; c < chunks; c++) {
+                    batch.add(new Document("chunk " + d + "/" + c, Map.of("document_id", documentId)));
+                    if (batch.size() == 1_000) {
+                        pgVectorStore.add(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            pgVectorStore.add(batch);
+            jdbcTemplate.execute("ANALYZE vector_store");
+
+            DocumentProperties documentProperties = new DocumentProperties();
+            DocumentScopedSearch documentScopedSearch = new DocumentScopedSearch(jdbcTemplate,
+                    new DataSourceTransactionManager(dataSource), embeddingModel,
+                    new QueryEmbeddingCache(documentProperties, new SimpleMeterRegistry()),
+                    JsonMapper.builder().build(), documentProperties, new SimpleMeterRegistry());
+            VectorStore scopedVectorStore = new DocumentScopedVectorStore(pgVectorStore, documentScopedSearch);
+
+            Random random = new Random(42);
+            List<String> queryDocuments = new ArrayList<>();
+            for (int q = 0; q < QUERIES; q++) {
+                // One query in ten targets a large document, which takes the HNSW plan
+                queryDocuments.add(q % 10 == 0
+                        ? documentIds.get(DOCUMENTS + random.nextInt(LARGE_DOCUMENTS))
+                        : documentIds.get(random.nextInt(DOCUMENTS)));
+            }
+
+            System.out.printf("%-10s %12s %12s %16s%n", "mode", "p50 ms", "p99 ms", "mean results");
+            for (Map.Entry<String, VectorStore> mode : List.of(
+                    Map.entry("filter", (VectorStore) pgVectorStore),
+                    Map.entry("planned", scopedVectorStore))) {
+                run(mode.getValue(), queryDocuments.subList(0, 50)); // warm-up
+                Result result = run(mode.getValue(), queryDocuments);
+                System.out.printf("%-10s %12.2f %12.2f %16.2f%n",
+                        mode.getKey(), result.p50Millis(), result.p99Millis(), result.meanResults());
+            }
+        }
+    }
+
+    private record Result(double p50Millis, double p99Millis, double meanResults) {
+    }
+
+    private static Result run(VectorStore vectorStore, List<String> queryDocuments) {
+        long results = 0;
+        Latencies latencies = new Latencies(queryDocuments.size());
+        for (int q = 0; q < queryDocuments.size(); q++) {
+            SearchRequest request = SearchRequest.builder()
+                    .query("question " + q)
+                    .topK(TOP_K)
+                    .filterExpression(new FilterExpressionBuilder().eq("document_id", queryDocuments.get(q)).build())
+                    .build();
+            results += latencies.time(() -> vectorStore.similaritySearch(request)).size();
+        }
+        return new Result(latencies.percentileMillis(0.5), latencies.percentileMillis(0.99),
+                (double) results / queryDocuments.size());
+    }
+
+    /**
+     * Embeds text as a unit vector drawn from a generator seeded by the text.
+     */
+    private static final class RandomEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (int i = 0; i < request.getInstructions().size(); i++) {
+                embeddings.add(new Embedding(embedText(request.getInstructions().get(i)), i));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embedText(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+
+        private static float[] embedText(String text) {
+            Random random = new Random(text.hashCode());
+            float[] vector = new float[DIMENSIONS];
+            double norm = 0;
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] = (float) random.nextGaussian();
+                norm += vector[i] * vector[i];
+            }
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] = (float) (vector[i] / Math.sqrt(norm));
+            }
+            return vector;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentScopedVectorStoreTest {
+
+    private static final String DOCUMENT_ID = "4b8f3c1e-2d7a-4f6b-9c0e-1a2b3c4d5e6f";
+
+    @Mock
+    private VectorStore delegate;
+
+    @Mock
+    private DocumentScopedSearch documentScopedSearch;
+
+    private DocumentScopedVectorStore vectorStore;
+
+    @BeforeEach
+    void setUp() {
+        vectorStore = new DocumentScopedVectorStore(delegate, documentScopedSearch);
+    }
+
+    private static Document chunk(String id, double score) {
+        return Document.builder().id(id).text(id).score(score).build();
+    }
+
+    @Test
+    void searchFilteredToOneDocument_usesTheDocumentScopedSearch() {
+        when(documentScopedSearch.search("question", DOCUMENT_ID, 5)).thenReturn(List.of(chunk("a", 0.9)));
+
+        List<Document> results = vectorStore.similaritySearch(SearchRequest.builder()
+                .query("question")
+                .topK(5)
+                .filterExpression(new FilterExpressionBuilder().eq("document_id", DOCUMENT_ID).build())
+                .build());
+
+        assertThat(results).extracting(Document::getId).containsExactly("a");
+        verify(delegate, never()).similaritySearch(any(SearchRequest.class));
+    }
+
+    @Test
+    void searchFilteredToOneDocument_appliesTheSimilarityThreshold() {
+        when(documentScopedSearch.search("question", DOCUMENT_ID, 5))
+                .thenReturn(List.of(chunk("close", 0.8), chunk("far", 0.2)));
+
+        List<Document> results = vectorStore.similaritySearch(SearchRequest.builder()
+                .query("question")
+                .topK(5)
+                .similarityThreshold(0.5)
+                .filterExpression(new FilterExpressionBuilder().eq("document_id", DOCUMENT_ID).build())
+                .build());
+
+        assertThat(results).extracting(Document::getId).containsExactly("close");
+    }
+
+    @Test
+    void unfilteredAndOtherFilteredSearches_goToTheDelegate() {
+        SearchRequest unfiltered = SearchRequest.builder().query("question").build();
+        SearchRequest otherFilter = SearchRequest.builder()
+                .query("question")
+                .filterExpression(new FilterExpressionBuilder().eq("filename", "manual.pdf").build())
+                .build();
+
+        vectorStore.similaritySearch(unfiltered);
+        vectorStore.similaritySearch(otherFilter);
+
+        verify(delegate).similaritySearch(unfiltered);
+        verify(delegate).similaritySearch(otherFilter);
+        verify(documentScopedSearch, never()).search(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void writesAndDeletesGoToTheDelegate() {
+        List<Document> documents = List.of(chunk("a", 1.0));
+
+        vectorStore.add(documents);
+        vectorStore.delete(List.of("a"));
+
+        verify(delegate).add(documents);
+        verify(delegate).delete(List.of("a"));
+        verifyNoInteractions(documentScopedSearch);
+    }
+}
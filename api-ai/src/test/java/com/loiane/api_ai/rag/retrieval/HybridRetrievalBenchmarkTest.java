@@ -0,0 +1,185 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import com.loiane.api_ai.rag.benchmark.Benchmark;
+import com.loiane.api_ai.rag.benchmark.Latencies;
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Latency and recall benchmark of hybrid (full-text + vector) retrieval, with
+ * and without lexical reranking of 50 candidates, against vector-only
+ * retrieval, on a synthetic corpus in a pgvector container.
+ *
+ * <p>Every chunk mentions one unique error code among shared filler text, and
+ * each query asks about one code, so the chunk containing it is the single
+ * relevant result. Embeddings come from a hashing bag-of-words model, which
+ * like real embedding models barely distinguishes {@code ERR-10423} from
+ * {@code ERR-10432}; the benchmark reports recall@K and latency per mode.
+ *
+ * <p>Excluded from {@code ./mvnw test}, requires Docker. Run with:
+ * <pre>
+ * ./mvnw test -Pbenchmark -Dtest=HybridRetrievalBenchmarkTest
+ * </pre>
+ */
+@Benchmark
+class HybridRetrievalBenchmarkTest {
+
+    private static final int DIMENSIONS = 1536;
+    private static final int CHUNKS = 5_000;
+    private static final int QUERIES = 200;
+    private static final int TOP_K = 5;
+    private static final String[] FILLER = ("the service returned an unexpected error while processing the request "
+            + "check the configuration of the client and retry the operation after the timeout expires").split(" ");
+
+    @Test
+    void recallAndLatencyByRetrievalMode() {
+        try (PostgreSQLContainer postgres = new PostgreSQLContainer(
+                DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"))) {
+            postgres.start();
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                    postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+
+            PgVectorStore vectorStore = PgVectorStore.builder(jdbcTemplate, new HashingEmbeddingModel())
+                    .dimensions(DIMENSIONS)
+                    .initializeSchema(true)
+                    .build();
+            vectorStore.afterPropertiesSet();
+            jdbcTemplate.execute("""
+                    CREATE INDEX IF NOT EXISTS idx_vector_store_content_fts
+                        ON vector_store USING GIN (to_tsvector('english'::regconfig, coalesce(content, '')))
+                    """);
+
+            Random random = new Random(42);
+            List<Document> chunks = IntStream.range(0, CHUNKS)
+                    .mapToObj(i -> new Document(chunkText(random, i), Map.of("document_id", "benchmark")))
+                    .toList();
+            for (int from = 0; from < CHUNKS; from += 500) {
+                vectorStore.add(chunks.subList(from, Math.min(CHUNKS, from + 500)));
+            }
+            jdbcTemplate.execute("ANALYZE vector_store");
+
+            List<Integer> queries = random.ints(QUERIES, 0, CHUNKS).boxed().toList();
+            System.out.printf("%-8s %10s %12s %12s%n", "mode", "recall@" + TOP_K, "mean ms", "p95 ms");
+            for (String mode : List.of("vector", "hybrid", "rerank")) {
+                DocumentProperties documentProperties = new DocumentProperties();
+                documentProperties.setTopK(TOP_K);
+                documentProperties.getRetrieval().setHybrid(!mode.equals("vector"));
+                documentProperties.getRetrieval().setRerank(mode.equals("rerank"));
+                RagRetriever retriever = new RagRetriever(vectorStore,
+                        new LexicalSearch(jdbcTemplate, JsonMapper.builder().build(), documentProperties),
+                        new LexicalReranker(documentProperties.getRetrieval().getRerankLexicalWeight()),
+                        documentProperties, new SimpleMeterRegistry());
+                try {
+                    run(retriever, chunks, queries.subList(0, 20)); // warm-up
+                    Result result = run(retriever, chunks, queries);
+                    System.out.printf("%-8s %10.2f %12.2f %12.2f%n",
+                            mode, result.recall(), result.meanMillis(), result.p95Millis());
+                } finally {
+                    retriever.shutdown();
+                }
+            }
+        }
+    }
+
+    private record Result(double recall, double meanMillis, double p95Millis) {
+    }
+
+    private static Result run(RagRetriever retriever, List<Document> chunks, List<Integer> queries) {
+        int found = 0;
+        Latencies latencies = new Latencies(queries.size());
+        for (int target : queries) {
+            String question = "What does error " + code(target) + " mean?";
+            RetrievalContext context = latencies.time(() -> retriever.retrieve(question, null));
+            String expectedId = chunks.get(target).getId();
+            if (context.documents().stream().anyMatch(document -> document.getId().equals(expectedId))) {
+                found++;
+            }
+        }
+        return new Result((double) found / queries.size(), latencies.meanMillis(), latencies.percentileMillis(0.95));
+    }
+
+    private static String code(int i) {
+        return "ERR-" + (10_000 + i);
+    }
+
+    private static String chunkText(Random random, int i) {
+        StringBuilder text = new StringBuilder();
+        for (int w = 0; w < 60; w++) {
+            text.append(FILLER[random.nextInt(FILLER.length)]).append(' ');
+            if (w == 30) {
+                text.append(code(i)).append(' ');
+            }
+        }
+        return text.toString().trim();
+    }
+
+    /**
+     * Embeds text as a normalized histogram of hashed words and character trigrams.
+     */
+    private static final class HashingEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (int i = 0; i < request.getInstructions().size(); i++) {
+                embeddings.add(new Embedding(embedText(request.getInstructions().get(i)), i));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embedText(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+
+        private static float[] embedText(String text) {
+            float[] vector = new float[DIMENSIONS];
+            for (String word : text.toLowerCase().split("\\W+")) {
+                add(vector, word);
+                for (int i = 0; i + 3 <= word.length(); i++) {
+                    add(vector, "#" + word.substring(i, i + 3));
+                }
+            }
+            double norm = 0;
+            for (float value : vector) {
+                norm += value * value;
+            }
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = (float) (vector[i] / Math.sqrt(norm));
+            }
+            return vector;
+        }
+
+        private static void add(float[] vector, String feature) {
+            int hash = Arrays.hashCode(feature.getBytes(StandardCharsets.UTF_8));
+            vector[Math.floorMod(hash, DIMENSIONS)] += 1f;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import com.loiane.api_ai.rag.benchmark.Benchmark;
+import com.loiane.api_ai.rag.benchmark.Latencies;
+
+/**
+ * Offline recall and latency of the two-phase Matryoshka search: a coarse search
+ * on the leading dimensions of each embedding, then rescoring of the candidates
+ * with the full embeddings, against exact search on the full embeddings.
+ *
+ * <p>Runs in memory with a local stand-in for text-embedding-3-small: each word
+ * maps to a fixed random vector whose variance decays along the dimensions, so
+ * a prefix of the embedding carries most of its information, as it does for a
+ * Matryoshka-trained model. The corpus is synthetic text drawn from topics, and
+ * each question reuses words of one chunk. The numbers compare prefix lengths
+ * with each other; they do not predict the recall of the real model.
+ *
+ * <p>Excluded from {@code ./mvnw test}, needs no external services. Run with:
+ * <pre>
+ * ./mvnw test -Pbenchmark -Dtest=MatryoshkaSearchBenchmarkTest
+ * </pre>
+ */
+@Benchmark
+class MatryoshkaSearchBenchmarkTest {
+
+    private static final int DIMENSIONS = 1536;
+    private static final int[] SEARCH_DIMENSIONS = {64, 128, 256, 512};
+    private static final int CHUNKS = 20_000;
+    private static final int TOPICS = 200;
+    private static final int WORDS_PER_TOPIC = 50;
+    private static final int VOCABULARY = 5_000;
+    private static final int QUERIES = 200;
+    private static final int TOP_K = 10;
+    private static final int CANDIDATES = 100;
+
+    @Test
+    void recallAndLatencyBySearchDimensions() {
+        Random random = new Random(42);
+        EmbeddingModel embeddingModel = new StandInEmbeddingModel();
+
+        List<String> texts = new ArrayList<>(CHUNKS);
+        for (int i = 0; i < CHUNKS; i++) {
+            texts.add(chunkText(random));
+        }
+        float[][] embeddings = embeddingModel.embed(texts).toArray(float[][]::new);
+
+        float[][] queries = new float[QUERIES][];
+        List<Set<Integer>> expected = new ArrayList<>();
+        for (int q = 0; q < QUERIES; q++) {
+            queries[q] = embeddingModel.embed(questionText(texts.get(random.nextInt(CHUNKS)), random));
+            expected.add(new HashSet<>(topK(queries[q], embeddings, null, DIMENSIONS, TOP_K)));
+        }
+
+        System.out.printf("%-10s %12s %12s %12s %14s%n",
+                "dims", "p50 ms", "p95 ms", "recall@" + TOP_K, "no rescoring");
+        Latencies exact = new Latencies(QUERIES);
+        for (float[] query : queries) {
+            exact.time(() -> topK(query, embeddings, null, DIMENSIONS, TOP_K));
+        }
+        print("full", exact, 1.0, 1.0);
+
+        for (int searchDimensions : SEARCH_DIMENSIONS) {
+            int found = 0;
+            int foundWithoutRescoring = 0;
+            Latencies latencies = new Latencies(QUERIES);
+            for (int q = 0; q < QUERIES; q++) {
+                float[] query = queries[q];
+                TwoPhase search = latencies.time(() -> {
+                    List<Integer> candidates = topK(query, embeddings, null, searchDimensions, CANDIDATES);
+                    return new TwoPhase(candidates, topK(query, embeddings, candidates, DIMENSIONS, TOP_K));
+                });
+                List<Integer> candidates = search.candidates();
+                List<Integer> results = search.results();
+                found += (int) results.stream().filter(expected.get(q)::contains).count();
+                foundWithoutRescoring += (int) candidates.subList(0, TOP_K).stream()
+                        .filter(expected.get(q)::contains).count();
+            }
+            print(String.valueOf(searchDimensions), latencies,
+                    (double) found / (QUERIES * TOP_K), (double) foundWithoutRescoring / (QUERIES * TOP_K));
+        }
+    }
+
+    private record TwoPhase(List<Integer> candidates, List<Integer> results) {
+    }
+
+    private static void print(String label, Latencies latencies, double recall, double recallWithoutRescoring) {
+        System.out.printf("%-10s %12.2f %12.2f %12.3f %14.3f%n", label,
+                latencies.percentileMillis(0.5), latencies.percentileMillis(0.95), recall, recallWithoutRescoring);
+    }
+
+    /**
+     * Indexes of the {@code k} embeddings with the highest cosine similarity to the
+     * query over their leading {@code dimensions}, most similar first.
+     *
+     * @param candidates Indexes to consider, or {@code null} for all embeddings
+     */
+    private static List<Integer> topK(float[] query, float[][] embeddings, List<Integer> candidates,
+                                      int dimensions, int k) {
+        double queryNorm = norm(query, dimensions);
+        PriorityQueue<double[]> heap = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(a[0], b[0]));
+        int count = candidates == null ? embeddings.length : candidates.size();
+        for (int c = 0; c < count; c++) {
+            int i = candidates == null ? c : candidates.get(c);
+            double dot = 0;
+            for (int d = 0; d < dimensions; d++) {
+                dot += query[d] * embeddings[i][d];
+            }
+            heap.add(new double[]{dot / (queryNorm * norm(embeddings[i], dimensions)), i});
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        List<Integer> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.addFirst((int) heap.poll()[1]);
+        }
+        return result;
+    }
+
+    private static double norm(float[] vector, int dimensions) {
+        double sum = 0;
+        for (int d = 0; d < dimensions; d++) {
+            sum += vector[d] * vector[d];
+        }
+        return Math.sqrt(sum);
+    }
+
+    /**
+     * 40 words: 30 from one topic, 10 from the whole vocabulary.
+     */
+    private static String chunkText(Random random) {
+        int topic = random.nextInt(TOPICS);
+        StringBuilder text = new StringBuilder();
+        for (int w = 0; w < 40; w++) {
+            int word = w < 30
+                    ? topic * WORDS_PER_TOPIC + random.nextInt(WORDS_PER_TOPIC)
+                    : random.nextInt(VOCABULARY) + TOPICS * WORDS_PER_TOPIC;
+            text.append('w').append(word).append(' ');
+        }
+        return text.toString().strip();
+    }
+
+    /**
+     * Eight words of the chunk and two unrelated ones.
+     */
+    private static String questionText(String chunk, Random random) {
+        String[] words = chunk.split(" ");
+        StringBuilder text = new StringBuilder();
+        for (int w = 0; w < 8; w++) {
+            text.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        for (int w = 0; w < 2; w++) {
+            text.append('w').append(random.nextInt(VOCABULARY) + TOPICS * WORDS_PER_TOPIC).append(' ');
+        }
+        return text.toString().strip();
+    }
+
+    /**
+     * Sums fixed per-word random vectors whose standard deviation at dimension
+     * {@code d} is {@code 1 / sqrt(1 + d / 32)}, then normalizes the sum.
+     */
+    private static final class StandInEmbeddingModel implements EmbeddingModel {
+
+        private final Map<String, float[]> wordVectors = new HashMap<>();
+        private final double[] scales = new double[DIMENSIONS];
+
+        StandInEmbeddingModel() {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                scales[d] = 1 / Math.sqrt(1 + d / 32.0);
+            }
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> results = new ArrayList<>();
+            for (int i = 0; i < request.getInstructions().size(); i++) {
+                results.add(new Embedding(embedText(request.getInstructions().get(i)), i));
+            }
+            return new EmbeddingResponse(results);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embedText(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+
+        private float[] embedText(String text) {
+            float[] embedding = new float[DIMENSIONS];
+            for (String word : text.split(" ")) {
+                float[] vector = wordVectors.computeIfAbsent(word, this::wordVector);
+                for (int d = 0; d < DIMENSIONS; d++) {
+                    embedding[d] += vector[d];
+                }
+            }
+            double norm = norm(embedding, DIMENSIONS);
+            for (int d = 0; d < DIMENSIONS; d++) {
+                embedding[d] = (float) (embedding[d] / norm);
+            }
+            return embedding;
+        }
+
+        private float[] wordVector(String word) {
+            Random random = new Random(word.hashCode());
+            float[] vector = new float[DIMENSIONS];
+            for (int d = 0; d < DIMENSIONS; d++) {
+                vector[d] = (float) (random.nextGaussian() * scales[d]);
+            }
+            return vector;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import com.loiane.api_ai.rag.benchmark.Benchmark;
+import com.loiane.api_ai.rag.benchmark.Latencies;
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.embedding.PgVectorFormat;
+import com.loiane.api_ai.rag.embedding.QueryEmbeddingCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Index size, build time, query latency and recall@K of the full-precision
+ * HNSW index against the halfvec, binary-quantized and Matryoshka indexes with
+ * full-precision rescoring, on clustered random embeddings in a pgvector container.
+ *
+ * <p>Random embeddings spread information evenly over all dimensions, so the
+ * Matryoshka row here is a lower bound; see {@link MatryoshkaSearchBenchmarkTest}
+ * for embeddings shaped like those of a Matryoshka-trained model.
+ *
+ * <p>Recall is measured against exact nearest neighbours computed in memory.
+ * Every mode scans {@value #CANDIDATES} index candidates.
+ *
+ * <p>Excluded from {@code ./mvnw test}, requires Docker. Run with:
+ * <pre>
+ * ./mvnw test -Pbenchmark -Dtest=QuantizedVectorSearchBenchmarkTest
+ * </pre>
+ */
+@Benchmark
+class QuantizedVectorSearchBenchmarkTest {
+
+    private static final int DIMENSIONS = 1536;
+    private static final int CHUNKS = 20_000;
+    private static final int CLUSTERS = 200;
+    private static final int QUERIES = 200;
+    private static final int TOP_K = 10;
+    private static final int CANDIDATES = 100;
+
+    private static final int MATRYOSHKA_DIMENSIONS = 256;
+
+    @Test
+    void sizeLatencyAndRecallBySearchMode() {
+        try (PostgreSQLContainer postgres = new PostgreSQLContainer(
+                DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"))) {
+            postgres.start();
+            SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                    postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword(), true);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS vector");
+            jdbcTemplate.execute("""
+                    CREATE TABLE vector_store (
+                        id uuid PRIMARY KEY,
+                        content text,
+                        metadata json,
+                        embedding vector(%d)
+                    )""".formatted(DIMENSIONS));
+            jdbcTemplate.execute("SET maintenance_work_mem = '1GB'");
+
+            Random random = new Random(42);
+            float[][] centroids = new float[CLUSTERS][];
+            for (int c = 0; c < CLUSTERS; c++) {
+                centroids[c] = normalize(gaussian(random, 1.0));
+            }
+            List<String> ids = new ArrayList<>(CHUNKS);
+            float[][] embeddings = new float[CHUNKS][];
+            List<Object[]> batch = new ArrayList<>(1_000);
+            for (int i = 0; i < CHUNKS; i++) {
+                embeddings[i] = perturb(centroids[random.nextInt(CLUSTERS)], random, 0.05);
+                ids.add(UUID.randomUUID().toString());
+                batch.add(new Object[]{ids.get(i), "chunk " + i, PgVectorFormat.toLiteral(embeddings[i])});
+                if (batch.size() == 1_000 || i == CHUNKS - 1) {
+                    jdbcTemplate.batchUpdate("INSERT INTO vector_store (id, content, metadata, embedding) "
+                            + "VALUES (?::uuid, ?, '{}', ?::vector)", batch);
+                    batch.clear();
+                }
+            }
+            jdbcTemplate.execute("ANALYZE vector_store");
+
+            Map<String, float[]> queries = new HashMap<>();
+            List<Set<String>> expected = new ArrayList<>();
+            for (int q = 0; q < QUERIES; q++) {
+                float[] query = perturb(embeddings[random.nextInt(CHUNKS)], random, 0.05);
+                queries.put("q" + q, query);
+                expected.add(exactTopK(query, embeddings, ids));
+            }
+
+            DocumentProperties documentProperties = new DocumentProperties();
+            documentProperties.getRetrieval().setRescoreCandidates(CANDIDATES);
+            documentProperties.getRetrieval().setMatryoshkaDimensions(MATRYOSHKA_DIMENSIONS);
+            QuantizedVectorSearch quantizedSearch = new QuantizedVectorSearch(jdbcTemplate,
+                    new DataSourceTransactionManager(dataSource), new LookupEmbeddingModel(queries),
+                    new QueryEmbeddingCache(documentProperties, new SimpleMeterRegistry()),
+                    JsonMapper.builder().build(), documentProperties, new SimpleMeterRegistry(), DIMENSIONS);
+
+            System.out.printf("%-8s %10s %10s %10s %10s %10s%n",
+                    "mode", "index MB", "build s", "p50 ms", "p95 ms", "recall@" + TOP_K);
+            for (VectorSearchMode mode : VectorSearchMode.values()) {
+                jdbcTemplate.execute("DROP INDEX IF EXISTS idx_benchmark");
+                long buildStartedAt = System.nanoTime();
+                jdbcTemplate.execute("CREATE INDEX idx_benchmark ON vector_store USING HNSW (" + (mode == VectorSearchMode.FULL
+                        ? "embedding vector_cosine_ops"
+                        : mode.indexedExpression(DIMENSIONS, MATRYOSHKA_DIMENSIONS)) + ")");
+                double buildSeconds = (System.nanoTime() - buildStartedAt) / 1e9;
+                Long indexBytes = jdbcTemplate.queryForObject(
+                        "SELECT pg_relation_size('idx_benchmark')", Long.class);
+
+                documentProperties.getRetrieval().setVectorSearchMode(mode);
+                jdbcTemplate.execute("SET hnsw.ef_search = " + CANDIDATES);
+                Latencies latencies = new Latencies(QUERIES);
+                int found = 0;
+                for (int q = 0; q < QUERIES; q++) {
+                    String query = "q" + q;
+                    List<String> results = latencies.time(() -> mode == VectorSearchMode.FULL
+                            ? jdbcTemplate.queryForList(
+                                    "SELECT id::text FROM vector_store ORDER BY embedding <=> ?::vector LIMIT ?",
+                                    String.class, PgVectorFormat.toLiteral(queries.get(query)), TOP_K)
+                            : quantizedSearch.search(query, TOP_K).stream().map(Document::getId).toList());
+                    found += (int) results.stream().filter(expected.get(q)::contains).count();
+                }
+                System.out.printf("%-8s %10.1f %10.1f %10.2f %10.2f %10.3f%n",
+                        mode, indexBytes / 1048576.0, buildSeconds,
+                        latencies.percentileMillis(0.5), latencies.percentileMillis(0.95),
+                        (double) found / (QUERIES * TOP_K));
+            }
+        }
+    }
+
+    private static Set<String> exactTopK(float[] query, float[][] embeddings, List<String> ids) {
+        Integer[] order = new Integer[embeddings.length];
+        double[] similarity = new double[embeddings.length];
+        for (int i = 0; i < embeddings.length; i++) {
+            order[i] = i;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                similarity[i] += query[d] * embeddings[i][d];
+            }
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(similarity[b], similarity[a]));
+        Set<String> topK = new HashSet<>();
+        for (int i = 0; i < TOP_K; i++) {
+            topK.add(ids.get(order[i]));
+        }
+        return topK;
+    }
+
+    private static float[] gaussian(Random random, double scale) {
+        float[] vector = new float[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            vector[d] = (float) (random.nextGaussian() * scale);
+        }
+        return vector;
+    }
+
+    private static float[] perturb(float[] vector, Random random, double scale) {
+        float[] noise = gaussian(random, scale);
+        for (int d = 0; d < DIMENSIONS; d++) {
+            noise[d] += vector[d];
+        }
+        return normalize(noise);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        for (int d = 0; d < vector.length; d++) {
+            vector[d] = (float) (vector[d] / Math.sqrt(norm));
+        }
+        return vector;
+    }
+
+    /**
+     * Returns the embedding registered for each query text.
+     */
+    private record LookupEmbeddingModel(Map<String, float[]> embeddings) implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> results = new ArrayList<>();
+            for (int i = 0; i < request.getInstructions().size(); i++) {
+                results.add(new Embedding(embeddings.get(request.getInstructions().get(i)), i));
+            }
+            return new EmbeddingResponse(results);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embeddings.get(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QuantizedVectorStoreTest {
+
+    @Mock
+    private VectorStore delegate;
+
+    @Mock
+    private QuantizedVectorSearch quantizedVectorSearch;
+
+    @Mock
+    private VectorIndexJob vectorIndexJob;
+
+    private QuantizedVectorStore vectorStore;
+
+    @BeforeEach
+    void setUp() {
+        vectorStore = new QuantizedVectorStore(delegate, quantizedVectorSearch, vectorIndexJob);
+    }
+
+    private static Document chunk(String id, double score) {
+        return Document.builder().id(id).text(id).score(score).build();
+    }
+
+    @Test
+    void unfilteredSearch_usesTheQuantizedSearchAndAppliesTheThreshold() {
+        when(vectorIndexJob.isReady()).thenReturn(true);
+        when(quantizedVectorSearch.search("question", 4)).thenReturn(List.of(chunk("close", 0.9), chunk("far", 0.1)));
+
+        List<Document> results = vectorStore.similaritySearch(
+                SearchRequest.builder().query("question").topK(4).similarityThreshold(0.5).build());
+
+        assertThat(results).extracting(Document::getId).containsExactly("close");
+        verify(delegate, never()).similaritySearch(any(SearchRequest.class));
+    }
+
+    @Test
+    void filteredSearch_goesToTheDelegate() {
+        SearchRequest request = SearchRequest.builder()
+                .query("question")
+                .filterExpression(new FilterExpressionBuilder().eq("document_id", "doc-1").build())
+                .build();
+
+        vectorStore.similaritySearch(request);
+
+        verify(delegate).similaritySearch(request);
+        verify(quantizedVectorSearch, never()).search(anyString(), anyInt());
+    }
+
+    @Test
+    void unfilteredSearch_goesToTheDelegateUntilTheIndexIsReady() {
+        SearchRequest request = SearchRequest.builder().query("question").build();
+        when(vectorIndexJob.isReady()).thenReturn(false);
+
+        vectorStore.similaritySearch(request);
+
+        verify(delegate).similaritySearch(request);
+        verify(quantizedVectorSearch, never()).search(anyString(), anyInt());
+    }
+
+    @Test
+    void afterPropertiesSet_startsTheIndexJob() throws Exception {
+        vectorStore.afterPropertiesSet();
+
+        verify(vectorIndexJob).start();
+    }
+}
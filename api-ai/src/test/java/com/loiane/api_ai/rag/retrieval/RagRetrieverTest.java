@@ -0,0 +1,183 @@
+package com.loiane.api_ai.rag.retrieval;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RagRetrieverTest {
+
+    @Mock
+    private VectorStore vectorStore;
+
+    @Mock
+    private LexicalSearch lexicalSearch;
+
+    private DocumentProperties documentProperties;
+    private RagRetriever ragRetriever;
+
+    @BeforeEach
+    void setUp() {
+        documentProperties = new DocumentProperties();
+        documentProperties.setTopK(3);
+        documentProperties.getRetrieval().setCandidates(10);
+        documentProperties.getRetrieval().setRerank(false);
+        ragRetriever = new RagRetriever(vectorStore, lexicalSearch, new LexicalReranker(0.5), documentProperties,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ragRetriever.shutdown();
+    }
+
+    private static Document chunk(String id) {
+        return Document.builder().id(id).text("content of " + id).build();
+    }
+
+    private static Document chunk(String id, String text, int chunkIndex) {
+        return Document.builder().id(id).text(text)
+                .metadata(Map.of("document_id", "doc-1", "chunk_index", chunkIndex))
+                .build();
+    }
+
+    private static List<String> ids(RetrievalContext context) {
+        return context.documents().stream().map(Document::getId).toList();
+    }
+
+    @Test
+    void hybridRetrieval_fusesVectorAndFullTextRankings() {
+        when(vectorStore.similaritySearch(any(SearchRequest.class)))
+                .thenReturn(List.of(chunk("a"), chunk("b"), chunk("c"), chunk("d")));
+        when(lexicalSearch.search("ERR-4012", null, 10))
+                .thenReturn(List.of(chunk("x"), chunk("c"), chunk("d")));
+
+        RetrievalContext context = ragRetriever.retrieve("ERR-4012", null);
+
+        // c and d appear in both rankings, x is the best full-text match
+        assertThat(ids(context)).containsExactly("c", "d", "a");
+        ArgumentCaptor<SearchRequest> searchRequest = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(vectorStore).similaritySearch(searchRequest.capture());
+        assertThat(searchRequest.getValue().getTopK()).isEqualTo(10);
+    }
+
+    @Test
+    void hybridRetrieval_passesTheDocumentScopeToTheFullTextSearch() {
+        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of());
+        when(lexicalSearch.search(eq("question"), eq("doc-123"), eq(10))).thenReturn(List.of(chunk("a")));
+
+        assertThat(ids(ragRetriever.retrieve("question", "doc-123"))).containsExactly("a");
+    }
+
+    @Test
+    void hybridRetrieval_whenFullTextSearchFails_usesVectorResultsOnly() {
+        when(vectorStore.similaritySearch(any(SearchRequest.class)))
+                .thenReturn(List.of(chunk("a"), chunk("b"), chunk("c"), chunk("d")));
+        when(lexicalSearch.search("question", null, 10))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        assertThat(ids(ragRetriever.retrieve("question", null))).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    void vectorOnlyRetrieval_skipsFullTextSearch() {
+        documentProperties.getRetrieval().setHybrid(false);
+        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(chunk("a")));
+
+        assertThat(ids(ragRetriever.retrieve("question", null))).containsExactly("a");
+
+        ArgumentCaptor<SearchRequest> searchRequest = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(vectorStore).similaritySearch(searchRequest.capture());
+        assertThat(searchRequest.getValue().getTopK()).isEqualTo(3);
+        verifyNoInteractions(lexicalSearch);
+    }
+
+    @Test
+    void rankFusion_scoresChunksBySummedReciprocalRanks() {
+        List<Document> fused = RankFusion.fuse(List.of(
+                List.of(chunk("a"), chunk("b")),
+                List.of(chunk("b"), chunk("c"))), 60, 10);
+
+        assertThat(fused).extracting(Document::getId).containsExactly("b", "a", "c");
+        assertThat(fused.getFirst().getScore()).isEqualTo(1.0 / 62 + 1.0 / 61);
+    }
+
+    @Test
+    void rerankedRetrieval_overFetchesCandidatesAndKeepsTheTopKAfterReranking() {
+        documentProperties.getRetrieval().setHybrid(false);
+        documentProperties.getRetrieval().setRerank(true);
+        documentProperties.getRetrieval().setRerankCandidates(6);
+        documentProperties.setTopK(2);
+        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(
+                chunk("a", "The installer copies files to the program directory.", 0),
+                chunk("b", "Restart the service after changing the configuration.", 4),
+                chunk("c", "Error ERR-4012 means the license key has expired.", 9)));
+
+        RetrievalContext context = ragRetriever.retrieve("Which license key error is ERR-4012?", null);
+
+        assertThat(ids(context)).containsExactly("c", "a");
+        ArgumentCaptor<SearchRequest> searchRequest = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(vectorStore).similaritySearch(searchRequest.capture());
+        assertThat(searchRequest.getValue().getTopK()).isEqualTo(6);
+    }
+
+    @Test
+    void rerankedRetrieval_dropsNearDuplicateAdjacentChunks() {
+        documentProperties.getRetrieval().setHybrid(false);
+        documentProperties.getRetrieval().setRerank(true);
+        String text = "Open the settings page and select the network tab to change the proxy address";
+        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(
+                chunk("a", text, 3),
+                chunk("b", text + " then save", 4),
+                chunk("c", "Proxy authentication uses the credentials of the current user", 7)));
+
+        RetrievalContext context = ragRetriever.retrieve("How do I change the proxy?", null);
+
+        assertThat(ids(context)).containsExactly("a", "c");
+    }
+
+    @Test
+    void chunkDeduplicator_keepsSimilarChunksThatAreNotAdjacent() {
+        String text = "Open the settings page and select the network tab to change the proxy address";
+
+        List<Document> deduped = ChunkDeduplicator.dedupe(List.of(
+                chunk("a", text, 3),
+                chunk("b", text + " then save", 12)), 0.5);
+
+        assertThat(deduped).extracting(Document::getId).containsExactly("a", "b");
+    }
+
+    @Test
+    void lexicalReranker_weighsRareQuestionTermsHigher() {
+        List<Document> reranked = new LexicalReranker(1.0).rerank("acme router reset", List.of(
+                chunk("a", "The acme router ships with a power adapter.", 0),
+                chunk("b", "To reset the acme router hold the button.", 5)));
+
+        // a covers two of the three question terms, but both appear in every candidate
+        assertThat(reranked).extracting(Document::getId).containsExactly("b", "a");
+        assertThat(reranked.get(0).getScore()).isEqualTo(1.0);
+        assertThat(reranked.get(1).getScore()).isLessThan(0.5);
+    }
+}
@@ -0,0 +1,109 @@
+package com.loiane.api_ai.rag.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.loiane.api_ai.rag.DocumentRepository;
+import com.loiane.api_ai.rag.config.DocumentProperties;
+import com.loiane.api_ai.rag.model.DocumentMetadata;
+import com.loiane.api_ai.rag.model.DocumentStatus;
+import com.loiane.api_ai.rag.model.UploadResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentBlobsTest {
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    @TempDir
+    Path uploadDir;
+
+    private LocalBlobStore blobStore;
+    private DocumentBlobs documentBlobs;
+
+    @BeforeEach
+    void setUp() {
+        DocumentProperties documentProperties = new DocumentProperties();
+        documentProperties.setUploadDir(uploadDir.toString());
+        blobStore = new LocalBlobStore(uploadDir.resolve("blobs"));
+        documentBlobs = new DocumentBlobs(blobStore, documentRepository, documentProperties);
+    }
+
+    private BlobStore.StagedBlob stage(String content) throws IOException {
+        return documentBlobs.stage(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), 1_024);
+    }
+
+    private static DocumentMetadata document(String id, String contentHash) {
+        return new DocumentMetadata(id, "manual.pdf", "application/pdf", 4L, LocalDateTime.now(),
+                DocumentStatus.READY, null, contentHash);
+    }
+
+    @Test
+    void stage_storesTheBlobInShardedDirectoriesOnlyOnceCommitted() throws IOException {
+        BlobStore.StagedBlob blob = stage("%PDF");
+        Path target = blobStore.locate(blob.hash());
+
+        assertThat(target).doesNotExist();
+        assertThat(target.getParent().getFileName().toString()).isEqualTo(blob.hash().substring(2, 4));
+
+        blobStore.commit(blob);
+
+        assertThat(target).hasContent("%PDF");
+        assertThat(blob.tempFile()).doesNotExist();
+    }
+
+    @Test
+    void store_ofContentAlreadyReferenced_returnsTheExistingDocumentAndDiscardsTheUpload() throws IOException {
+        BlobStore.StagedBlob blob = stage("%PDF");
+        DocumentMetadata existing = document("doc-1", blob.hash());
+        when(documentRepository.findByContentHash(blob.hash())).thenReturn(Optional.of(existing));
+
+        UploadResult result = documentBlobs.store(blob, document(null, null));
+
+        assertThat(result).isEqualTo(new UploadResult(existing, true));
+        assertThat(blob.tempFile()).doesNotExist();
+        verify(documentRepository, never()).save(any());
+    }
+
+    @Test
+    void release_deletesTheBlobOnlyOnceNoDocumentReferencesIt() throws IOException {
+        BlobStore.StagedBlob blob = stage("%PDF");
+        blobStore.commit(blob);
+        DocumentMetadata document = document("doc-1", blob.hash());
+        when(documentRepository.countByContentHash(blob.hash())).thenReturn(1L, 0L);
+
+        documentBlobs.release(document);
+        assertThat(blobStore.locate(blob.hash())).exists();
+
+        documentBlobs.release(document);
+        assertThat(blobStore.locate(blob.hash())).doesNotExist();
+    }
+
+    @Test
+    void locate_readsDocumentsWithoutAHashFromTheUploadDirectory() throws IOException {
+        Files.writeString(uploadDir.resolve("manual.pdf"), "%PDF");
+
+        assertThat(documentBlobs.locate(document("doc-1", null))).isEqualTo(uploadDir.resolve("manual.pdf"));
+        assertThatThrownBy(() -> blobStore.locate("../../etc/passwd"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
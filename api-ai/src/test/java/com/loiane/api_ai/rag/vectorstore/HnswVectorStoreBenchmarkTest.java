@@ -0,0 +1,172 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import com.loiane.api_ai.rag.benchmark.Benchmark;
+import com.loiane.api_ai.rag.benchmark.Latencies;
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Recall@10 and throughput of the {@link HnswVectorStore} at several
+ * {@code hnsw-ef-search} values against exact search in the
+ * {@link InMemoryVectorStore}, plus the time to build the graph and to load it
+ * back from disk instead of rebuilding it.
+ *
+ * <p>Embeddings are random ({@code -Drag.benchmark.size}, 100k by default, of
+ * {@code -Drag.benchmark.dimensions}, 384 by default). Random vectors have no
+ * clusters, so recall on real embeddings is usually higher at the same
+ * {@code ef}.
+ *
+ * <p>Excluded from {@code ./mvnw test}. Run with:
+ * <pre>
+ * ./mvnw test -Pbenchmark -Dtest=HnswVectorStoreBenchmarkTest
+ * </pre>
+ */
+@Benchmark
+class HnswVectorStoreBenchmarkTest {
+
+    private static final int SIZE = Integer.getInteger("rag.benchmark.size", 100_000);
+    private static final int DIMENSIONS = Integer.getInteger("rag.benchmark.dimensions", 384);
+    private static final int[] EF_SEARCH = {16, 32, 64, 128, 256};
+    private static final int WARMUP_QUERIES = 50;
+    private static final int QUERIES = 500;
+    private static final int TOP_K = 10;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void recallAndThroughputByEfSearch() throws IOException {
+        Random random = new Random(42);
+        float[][] embeddings = new float[SIZE][];
+        List<Document> documents = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            embeddings[i] = randomVector(random);
+            documents.add(Document.builder().id("c" + i).text("c" + i).metadata(Map.of("page_number", i)).build());
+        }
+        float[][] queries = new float[WARMUP_QUERIES + QUERIES][];
+        for (int q = 0; q < queries.length; q++) {
+            queries[q] = randomVector(random);
+        }
+        EmbeddingModel embeddingModel = new LookupEmbeddingModel(embeddings, queries);
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        DocumentProperties documentProperties = new DocumentProperties();
+
+        InMemoryVectorStore exactStore = new InMemoryVectorStore(embeddingModel, jsonMapper, documentProperties);
+        exactStore.add(documents, Arrays.asList(embeddings));
+        List<Set<String>> exact = new ArrayList<>(QUERIES);
+        for (int q = 0; q < QUERIES; q++) {
+            exact.add(ids(exactStore, WARMUP_QUERIES + q));
+        }
+
+        HnswVectorStore hnswStore = new HnswVectorStore(embeddingModel, jsonMapper, documentProperties);
+        long startedAt = System.nanoTime();
+        hnswStore.add(documents, Arrays.asList(embeddings));
+        double buildSeconds = (System.nanoTime() - startedAt) / 1e9;
+
+        Path snapshot = directory.resolve("vectorStore.bin");
+        Path graph = directory.resolve("vectorStore.hnsw");
+        hnswStore.save(snapshot, graph);
+        hnswStore.destroy();
+        startedAt = System.nanoTime();
+        hnswStore = HnswVectorStore.load(snapshot, graph, embeddingModel, jsonMapper, documentProperties);
+        double loadMs = (System.nanoTime() - startedAt) / 1e6;
+
+        System.out.printf("%d chunks x %d dimensions, m=%d, efConstruction=%d%n", SIZE, DIMENSIONS,
+                documentProperties.getLocalStore().getHnswM(), documentProperties.getLocalStore().getHnswEfConstruction());
+        System.out.printf("graph build %.1f s, load with saved graph %.0f ms, graph file %.1f MB%n",
+                buildSeconds, loadMs, Files.size(graph) / 1048576.0);
+        System.out.printf("%-14s %12s %12s %12s%n", "index", "recall@10", "p50 ms", "QPS");
+        measure("flat (exact)", exactStore, exact);
+        for (int ef : EF_SEARCH) {
+            documentProperties.getLocalStore().setHnswEfSearch(ef);
+            measure("hnsw ef=" + ef, hnswStore, exact);
+        }
+        hnswStore.destroy();
+        exactStore.destroy();
+    }
+
+    private static void measure(String index, VectorStore vectorStore, List<Set<String>> exact) {
+        for (int q = 0; q < WARMUP_QUERIES; q++) {
+            ids(vectorStore, q);
+        }
+        Latencies latencies = new Latencies(QUERIES);
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            int query = WARMUP_QUERIES + q;
+            Set<String> ids = latencies.time(() -> ids(vectorStore, query));
+            ids.retainAll(exact.get(q));
+            found += ids.size();
+        }
+        System.out.printf("%-14s %12.3f %12.3f %12.1f%n", index, found / (double) (QUERIES * TOP_K),
+                latencies.percentileMillis(0.5), latencies.perSecond());
+    }
+
+    private static Set<String> ids(VectorStore vectorStore, int query) {
+        Set<String> ids = new HashSet<>();
+        for (Document document : vectorStore.similaritySearch(SearchRequest.builder()
+                .query("q" + query).topK(TOP_K).build())) {
+            ids.add(document.getId());
+        }
+        return ids;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    /**
+     * Embeds "c{i}" as the i-th chunk embedding and "q{i}" as the i-th query.
+     */
+    private record LookupEmbeddingModel(float[][] chunks, float[][] queries) implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> results = new ArrayList<>();
+            for (int i = 0; i < request.getInstructions().size(); i++) {
+                results.add(new Embedding(lookup(request.getInstructions().get(i)), i));
+            }
+            return new EmbeddingResponse(results);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return lookup(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+
+        private float[] lookup(String text) {
+            int index = Integer.parseInt(text.substring(1));
+            return text.charAt(0) == 'q' ? queries[index] : chunks[index];
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HnswVectorStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    @Mock
+    private EmbeddingModel embeddingModel;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final DocumentProperties documentProperties = new DocumentProperties();
+
+    private HnswVectorStore vectorStore;
+
+    @BeforeEach
+    void setUp() {
+        when(embeddingModel.dimensions()).thenReturn(3);
+        vectorStore = new HnswVectorStore(embeddingModel, jsonMapper, documentProperties);
+        vectorStore.add(List.of(chunk("a", "doc-1"), chunk("b", "doc-1"), chunk("c", "doc-2")), List.of(
+                new float[]{1, 0, 0}, new float[]{0.8f, 0.6f, 0}, new float[]{0, 0, 1}));
+    }
+
+    @AfterEach
+    void tearDown() {
+        vectorStore.destroy();
+    }
+
+    private static Document chunk(String id, String documentId) {
+        return Document.builder().id(id).text("Text of " + id).metadata(Map.of("document_id", documentId)).build();
+    }
+
+    private List<Document> search(HnswVectorStore store, SearchRequest.Builder request) {
+        when(embeddingModel.embed("question")).thenReturn(new float[]{1, 0, 0});
+        return store.similaritySearch(request.query("question").build());
+    }
+
+    @Test
+    void delete_hidesDeletedAndReplacedDocumentsAndDeletesByDocumentId() {
+        vectorStore.add(List.of(chunk("b", "doc-1")), List.<float[]>of(new float[]{0.6f, 0, 0.8f}));
+        vectorStore.delete(List.of("a"));
+
+        assertThat(vectorStore.size()).isEqualTo(2);
+        assertThat(search(vectorStore, SearchRequest.builder().topK(3)))
+                .extracting(Document::getId).containsExactly("b", "c");
+
+        vectorStore.delete(new FilterExpressionBuilder().eq("document_id", "doc-2").build());
+
+        assertThat(search(vectorStore, SearchRequest.builder().topK(3))).extracting(Document::getId).containsExactly("b");
+    }
+
+    @Test
+    void similaritySearch_searchesLiveRowsExactlyWithAFilterExpression() {
+        vectorStore.delete(List.of("a"));
+
+        List<Document> results = search(vectorStore,
+                SearchRequest.builder().topK(3).filterExpression("document_id == 'doc-1'"));
+
+        assertThat(results).extracting(Document::getId).containsExactly("b");
+    }
+
+    @Test
+    void save_dropsDeletedRowsAndLoadReadsTheSavedGraph() throws IOException {
+        Path snapshot = directory.resolve("vectorStore.bin");
+        Path graph = directory.resolve("vectorStore.hnsw");
+        vectorStore.delete(List.of("c"));
+        vectorStore.save(snapshot, graph);
+        FileTime graphSavedAt = Files.getLastModifiedTime(graph);
+
+        HnswVectorStore loaded = HnswVectorStore.load(snapshot, graph, embeddingModel, jsonMapper, documentProperties);
+        try {
+            assertThat(loaded.size()).isEqualTo(2);
+            assertThat(Files.getLastModifiedTime(graph)).isEqualTo(graphSavedAt);
+            List<Document> results = search(loaded, SearchRequest.builder().topK(3));
+            assertThat(results).extracting(Document::getId).containsExactly("a", "b");
+            assertThat(results.getFirst().getText()).isEqualTo("Text of a");
+            assertThat(results.getFirst().getMetadata()).containsEntry("document_id", "doc-1");
+        } finally {
+            loaded.destroy();
+        }
+    }
+
+    @Test
+    void similaritySearch_findsMostOfTheExactNearestNeighbours() {
+        when(embeddingModel.dimensions()).thenReturn(16);
+        HnswVectorStore store = new HnswVectorStore(embeddingModel, jsonMapper, documentProperties);
+        Random random = new Random(11);
+        float[][] embeddings = new float[3_000][];
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < embeddings.length; i++) {
+            embeddings[i] = randomVector(random, 16);
+            documents.add(chunk("x" + i, "doc-" + (i % 10)));
+        }
+        store.add(documents, List.of(embeddings));
+
+        int found = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector(random, 16);
+            when(embeddingModel.embed("q" + q)).thenReturn(query);
+            List<String> exact = IntStream.range(0, embeddings.length).boxed()
+                    .sorted(Comparator.comparingDouble(i -> -cosine(query, embeddings[i])))
+                    .limit(10).map(i -> "x" + i).toList();
+            found += (int) store.similaritySearch(SearchRequest.builder().query("q" + q).topK(10).build()).stream()
+                    .map(Document::getId).filter(exact::contains).count();
+        }
+        store.destroy();
+
+        assertThat(found / (double) (queries * 10)).isGreaterThanOrEqualTo(0.9);
+    }
+
+    private static float[] randomVector(Random random, int dimensions) {
+        float[] vector = new float[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        for (int d = 0; d < a.length; d++) {
+            dot += a[d] * b[d];
+        }
+        return dot / (VectorSnapshot.norm(a) * VectorSnapshot.norm(b));
+    }
+}
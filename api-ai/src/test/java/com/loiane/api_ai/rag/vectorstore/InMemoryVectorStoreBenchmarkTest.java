@@ -0,0 +1,139 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import com.loiane.api_ai.rag.benchmark.Benchmark;
+import com.loiane.api_ai.rag.benchmark.Latencies;
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Search latency of {@code SimpleVectorStore} against the {@link InMemoryVectorStore},
+ * searched on one thread and in parallel partitions, at 10k, 100k and 1M random
+ * embeddings ({@code -Drag.benchmark.dimensions}, 384 by default).
+ *
+ * <p>{@code SimpleVectorStore} is only measured up to 100k embeddings, and the
+ * 1M store is kept off-heap. Each configuration is warmed up before it is timed.
+ * The kernels are those of the JVM running the test: compare with a run using
+ * {@code -Drag.vector.simd=false} for the scalar fallback.
+ *
+ * <p>Excluded from {@code ./mvnw test}. Run with (1M embeddings need about 4 GB of memory):
+ * <pre>
+ * ./mvnw test -Pbenchmark -Dtest=InMemoryVectorStoreBenchmarkTest
+ * </pre>
+ */
+@Benchmark
+class InMemoryVectorStoreBenchmarkTest {
+
+    private static final int DIMENSIONS = Integer.getInteger("rag.benchmark.dimensions", 384);
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final int SIMPLE_STORE_MAX_SIZE = 100_000;
+    private static final int WARMUP_QUERIES = 20;
+    private static final int QUERIES = 100;
+    private static final int TOP_K = 5;
+
+    @Test
+    void searchLatencyByStoreAndSize() {
+        Random random = new Random(42);
+        float[][] queries = new float[WARMUP_QUERIES + QUERIES][];
+        for (int q = 0; q < queries.length; q++) {
+            queries[q] = randomVector(random);
+        }
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+
+        System.out.printf("Vector API kernels: %s, %d dimensions, %d processors%n",
+                VectorKernels.simd(), DIMENSIONS, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-10s %-22s %12s %12s %12s%n", "size", "store", "p50 ms", "p99 ms", "QPS");
+        for (int size : SIZES) {
+            float[][] embeddings = new float[size][];
+            List<Document> documents = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                embeddings[i] = randomVector(random);
+                documents.add(Document.builder().id("c" + i).text("c" + i).metadata(Map.of("page_number", i)).build());
+            }
+            EmbeddingModel embeddingModel = new LookupEmbeddingModel(embeddings, queries);
+
+            if (size <= SIMPLE_STORE_MAX_SIZE) {
+                SimpleVectorStore simpleVectorStore = SimpleVectorStore.builder(embeddingModel).build();
+                simpleVectorStore.add(documents);
+                measure(size, "SimpleVectorStore", simpleVectorStore);
+            }
+
+            DocumentProperties documentProperties = new DocumentProperties();
+            documentProperties.getLocalStore().setOffHeap(size > SIMPLE_STORE_MAX_SIZE);
+            InMemoryVectorStore vectorStore = new InMemoryVectorStore(embeddingModel, jsonMapper, documentProperties);
+            vectorStore.add(documents, Arrays.asList(embeddings));
+            documentProperties.getLocalStore().setParallelSearchMinChunks(Integer.MAX_VALUE);
+            measure(size, "InMemory (1 thread)", vectorStore);
+            documentProperties.getLocalStore().setParallelSearchMinChunks(0);
+            measure(size, "InMemory (partitions)", vectorStore);
+            vectorStore.destroy();
+        }
+    }
+
+    private static void measure(int size, String store, VectorStore vectorStore) {
+        for (int q = 0; q < WARMUP_QUERIES; q++) {
+            vectorStore.similaritySearch(SearchRequest.builder().query("q" + q).topK(TOP_K).build());
+        }
+        Latencies latencies = new Latencies(QUERIES);
+        for (int q = 0; q < QUERIES; q++) {
+            SearchRequest request = SearchRequest.builder().query("q" + (WARMUP_QUERIES + q)).topK(TOP_K).build();
+            latencies.time(() -> vectorStore.similaritySearch(request));
+        }
+        System.out.printf("%-10d %-22s %12.2f %12.2f %12.1f%n", size, store,
+                latencies.percentileMillis(0.5), latencies.percentileMillis(0.99), latencies.perSecond());
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    /**
+     * Embeds "c{i}" as the i-th chunk embedding and "q{i}" as the i-th query.
+     */
+    private record LookupEmbeddingModel(float[][] chunks, float[][] queries) implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> results = new ArrayList<>();
+            for (int i = 0; i < request.getInstructions().size(); i++) {
+                results.add(new Embedding(lookup(request.getInstructions().get(i)), i));
+            }
+            return new EmbeddingResponse(results);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return lookup(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+
+        private float[] lookup(String text) {
+            int index = Integer.parseInt(text.substring(1));
+            return text.charAt(0) == 'q' ? queries[index] : chunks[index];
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryVectorStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    @Mock
+    private EmbeddingModel embeddingModel;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final DocumentProperties documentProperties = new DocumentProperties();
+
+    private InMemoryVectorStore vectorStore;
+
+    @BeforeEach
+    void setUp() {
+        when(embeddingModel.dimensions()).thenReturn(3);
+        vectorStore = new InMemoryVectorStore(embeddingModel, jsonMapper, documentProperties);
+        vectorStore.add(List.of(chunk("a", "doc-1"), chunk("b", "doc-1"), chunk("c", "doc-2")), List.of(
+                new float[]{1, 0, 0}, new float[]{0.8f, 0.6f, 0}, new float[]{0, 0, 1}));
+    }
+
+    @AfterEach
+    void tearDown() {
+        vectorStore.destroy();
+    }
+
+    private static Document chunk(String id, String documentId) {
+        return Document.builder().id(id).text("Text of " + id).metadata(Map.of("document_id", documentId)).build();
+    }
+
+    private List<Document> search(int topK) {
+        when(embeddingModel.embed("question")).thenReturn(new float[]{1, 0, 0});
+        return vectorStore.similaritySearch(SearchRequest.builder().query("question").topK(topK).build());
+    }
+
+    @Test
+    void similaritySearch_returnsTheMostSimilarDocumentsWithScores() {
+        List<Document> results = search(2);
+
+        assertThat(results).extracting(Document::getId).containsExactly("a", "b");
+        assertThat(results.get(1).getScore()).isCloseTo(0.8, within(1e-6));
+        assertThat(results.getFirst().getMetadata()).containsEntry("document_id", "doc-1");
+    }
+
+    @Test
+    void add_replacesADocumentWithTheSameId() {
+        vectorStore.add(List.of(chunk("a", "doc-1")), List.<float[]>of(new float[]{0, 1, 0}));
+
+        assertThat(vectorStore.size()).isEqualTo(3);
+        assertThat(search(1)).extracting(Document::getId).containsExactly("b");
+    }
+
+    @Test
+    void delete_movesTheLastRowIntoTheGapAndDeletesByFilter() {
+        vectorStore.delete(List.of("a"));
+
+        assertThat(search(3)).extracting(Document::getId).containsExactly("b", "c");
+
+        vectorStore.delete(new FilterExpressionBuilder().eq("document_id", "doc-2").build());
+
+        assertThat(search(3)).extracting(Document::getId).containsExactly("b");
+    }
+
+    @Test
+    void save_writesASnapshotTheMappedStoreServes() throws IOException {
+        Path snapshot = directory.resolve("vectorStore.bin");
+        vectorStore.save(snapshot);
+
+        MappedVectorStore mappedVectorStore = new MappedVectorStore(VectorSnapshot.open(snapshot), embeddingModel,
+                jsonMapper, documentProperties);
+        try {
+            when(embeddingModel.embed("question")).thenReturn(new float[]{1, 0, 0});
+            List<Document> results = mappedVectorStore.similaritySearch(
+                    SearchRequest.builder().query("question").topK(3).build());
+
+            assertThat(results).extracting(Document::getId).containsExactly("a", "b", "c");
+            assertThat(results.getFirst().getText()).isEqualTo("Text of a");
+        } finally {
+            mappedVectorStore.destroy();
+        }
+    }
+
+    @Test
+    void parallelSearch_matchesTheSingleThreadedResult() {
+        Random random = new Random(7);
+        float[][] embeddings = new float[5_000][3];
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < embeddings.length; i++) {
+            embeddings[i] = new float[]{random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat()};
+            documents.add(chunk("x" + i, "doc-3"));
+        }
+        vectorStore.add(documents, List.of(embeddings));
+        List<Document> sequential = search(10);
+
+        documentProperties.getLocalStore().setParallelSearchMinChunks(0);
+        documentProperties.getLocalStore().setSearchParallelism(4);
+        List<Document> parallel = search(10);
+
+        assertThat(parallel).extracting(Document::getId)
+                .containsExactlyElementsOf(sequential.stream().map(Document::getId).toList());
+    }
+
+    @Test
+    void kernels_matchTheScalarDotProductForAnyLength() {
+        Random random = new Random(3);
+        for (int dimensions : new int[]{1, 7, 16, 33, 1536}) {
+            float[] query = new float[dimensions];
+            float[] row = new float[dimensions];
+            for (int d = 0; d < dimensions; d++) {
+                query[d] = random.nextFloat();
+                row[d] = random.nextFloat();
+            }
+            VectorMatrix matrix = new VectorMatrix(dimensions, true);
+            matrix.append(row);
+            MemorySegment vectors = matrix.vectors();
+
+            assertThat(VectorKernels.dot(query, vectors, 0))
+                    .isCloseTo(VectorKernels.scalarDot(query, vectors, 0), within(1e-3f));
+            matrix.close();
+        }
+    }
+}
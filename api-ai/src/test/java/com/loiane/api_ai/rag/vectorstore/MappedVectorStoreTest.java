@@ -0,0 +1,114 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MappedVectorStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    @Mock
+    private EmbeddingModel embeddingModel;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    private MappedVectorStore vectorStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path snapshot = directory.resolve("vectorStore.bin");
+        VectorSnapshot.write(snapshot, List.of(
+                new VectorSnapshot.Row("a", "Reset the router.", "{\"page_number\":1}", new float[]{1, 0, 0}),
+                new VectorSnapshot.Row("b", "Update the firmware.", "{\"page_number\":2}", new float[]{0.8f, 0.6f, 0}),
+                new VectorSnapshot.Row("c", "Warranty terms.", "{\"page_number\":3}", new float[]{0, 0, 1})), 3);
+        vectorStore = new MappedVectorStore(VectorSnapshot.open(snapshot), embeddingModel, jsonMapper,
+                new DocumentProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        vectorStore.destroy();
+    }
+
+    @Test
+    void similaritySearch_returnsTheMostSimilarRowsWithTheirTextAndMetadata() {
+        when(embeddingModel.embed("question")).thenReturn(new float[]{2, 0, 0});
+
+        List<Document> results = vectorStore.similaritySearch(
+                SearchRequest.builder().query("question").topK(2).build());
+
+        assertThat(results).extracting(Document::getId).containsExactly("a", "b");
+        assertThat(results.getFirst().getText()).isEqualTo("Reset the router.");
+        assertThat(results.getFirst().getMetadata()).containsEntry("page_number", 1);
+        assertThat(results.getFirst().getScore()).isCloseTo(1.0, within(1e-6));
+        assertThat(results.get(1).getScore()).isCloseTo(0.8, within(1e-6));
+    }
+
+    @Test
+    void similaritySearch_appliesTheThresholdAndTheFilterExpression() {
+        when(embeddingModel.embed("question")).thenReturn(new float[]{1, 0, 0});
+
+        List<Document> aboveThreshold = vectorStore.similaritySearch(
+                SearchRequest.builder().query("question").topK(3).similarityThreshold(0.9).build());
+        List<Document> filtered = vectorStore.similaritySearch(
+                SearchRequest.builder().query("question").topK(3).filterExpression("page_number >= 2").build());
+
+        assertThat(aboveThreshold).extracting(Document::getId).containsExactly("a");
+        assertThat(filtered).extracting(Document::getId).containsExactly("b", "c");
+    }
+
+    @Test
+    void convert_readsASimpleVectorStoreJsonFile() throws IOException {
+        Path json = directory.resolve("vectorStore.json");
+        Files.writeString(json, jsonMapper.writeValueAsString(Map.of(
+                "x", Map.of("id", "x", "text", "Chunk text.", "metadata", Map.of("source", "manual.pdf"),
+                        "embedding", List.of(0.5, 0.25)))));
+        Path snapshotFile = directory.resolve("converted.bin");
+
+        int chunks = VectorSnapshotConverter.convert(json, snapshotFile, jsonMapper);
+
+        assertThat(chunks).isEqualTo(1);
+        try (VectorSnapshot snapshot = VectorSnapshot.open(snapshotFile)) {
+            assertThat(snapshot.count()).isEqualTo(1);
+            assertThat(snapshot.dimensions()).isEqualTo(2);
+            assertThat(snapshot.id(0)).isEqualTo("x");
+            assertThat(snapshot.text(0)).isEqualTo("Chunk text.");
+            assertThat(jsonMapper.readTree(snapshot.metadataJson(0)).path("source").asString()).isEqualTo("manual.pdf");
+            assertThat(snapshot.cosineSimilarity(new float[]{0.5f, 0.25f}, VectorSnapshot.norm(new float[]{0.5f, 0.25f}), 0))
+                    .isCloseTo(1.0, within(1e-6));
+        }
+    }
+
+    @Test
+    void open_rejectsFilesThatAreNotSnapshots() throws IOException {
+        Path file = directory.resolve("vectorStore.json");
+        Files.writeString(file, "{}".repeat(40));
+
+        assertThatThrownBy(() -> VectorSnapshot.open(file)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
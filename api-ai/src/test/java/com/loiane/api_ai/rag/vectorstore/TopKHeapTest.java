@@ -0,0 +1,42 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopKHeapTest {
+
+    @Test
+    void keepsTheBestScoresAndDrainsThemBestFirst() {
+        TopKHeap heap = new TopKHeap(3);
+        float[] scores = {0.1f, 0.9f, 0.5f, 0.7f, 0.3f, 0.95f};
+        for (int row = 0; row < scores.length; row++) {
+            heap.offer(row, scores[row]);
+        }
+
+        int[] rows = new int[3];
+        float[] best = new float[3];
+        int found = heap.drainBestFirst(rows, best);
+
+        assertThat(found).isEqualTo(3);
+        assertThat(rows).containsExactly(5, 1, 3);
+        assertThat(best).containsExactly(0.95f, 0.9f, 0.7f);
+        assertThat(heap.size()).isZero();
+    }
+
+    @Test
+    void merge_keepsTheBestOfBothHeaps() {
+        TopKHeap left = new TopKHeap(2);
+        left.offer(0, 0.2f);
+        left.offer(1, 0.8f);
+        TopKHeap right = new TopKHeap(2);
+        right.offer(2, 0.6f);
+        right.offer(3, 0.1f);
+
+        int[] rows = new int[2];
+        left.merge(right).drainBestFirst(rows, new float[2]);
+
+        assertThat(rows).containsExactly(1, 2);
+        assertThat(new TopKHeap(2).accepts(0f)).isTrue();
+    }
+}
@@ -0,0 +1,142 @@
+package com.loiane.api_ai.rag.vectorstore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import com.loiane.api_ai.rag.benchmark.Benchmark;
+import com.loiane.api_ai.rag.benchmark.Latencies;
+import com.loiane.api_ai.rag.config.DocumentProperties;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Startup time, retained heap and search latency of a {@code SimpleVectorStore}
+ * loaded from its JSON file against a {@link MappedVectorStore} over the binary
+ * snapshot converted from the same file.
+ *
+ * <p>Heap figures are the used heap after a full GC, before and after loading,
+ * so they are approximate. Run each store in a fresh JVM for cold-start numbers.
+ *
+ * <p>Excluded from {@code ./mvnw test}. Run with:
+ * <pre>
+ * ./mvnw test -Pbenchmark -Dtest=VectorSnapshotBenchmarkTest
+ * </pre>
+ */
+@Benchmark
+class VectorSnapshotBenchmarkTest {
+
+    private static final int DIMENSIONS = 1536;
+    private static final int CHUNKS = 20_000;
+    private static final int QUERIES = 100;
+    private static final int TOP_K = 5;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void startupAndSearchBySnapshotFormat() throws IOException {
+        Random random = new Random(42);
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        Path json = directory.resolve("vectorStore.json");
+        Map<String, Object> chunks = new LinkedHashMap<>();
+        for (int i = 0; i < CHUNKS; i++) {
+            String id = UUID.randomUUID().toString();
+            chunks.put(id, Map.of("id", id, "text", "Chunk " + i + " of the reference manual.",
+                    "metadata", Map.of("page_number", i / 10), "embedding", randomVector(random)));
+        }
+        jsonMapper.writeValue(json.toFile(), chunks);
+        chunks.clear();
+        EmbeddingModel embeddingModel = new RandomEmbeddingModel(random);
+
+        long heapBefore = usedHeap();
+        long startedAt = System.nanoTime();
+        SimpleVectorStore simpleVectorStore = SimpleVectorStore.builder(embeddingModel).build();
+        simpleVectorStore.load(json.toFile());
+        double jsonLoadMs = (System.nanoTime() - startedAt) / 1e6;
+        long jsonHeap = usedHeap() - heapBefore;
+        double jsonSearchMs = medianSearchMs(simpleVectorStore);
+        simpleVectorStore = null;
+
+        Path snapshot = directory.resolve("vectorStore.bin");
+        startedAt = System.nanoTime();
+        VectorSnapshotConverter.convert(json, snapshot, jsonMapper);
+        double convertMs = (System.nanoTime() - startedAt) / 1e6;
+
+        heapBefore = usedHeap();
+        startedAt = System.nanoTime();
+        MappedVectorStore mappedVectorStore = new MappedVectorStore(VectorSnapshot.open(snapshot), embeddingModel,
+                jsonMapper, new DocumentProperties());
+        double mappedLoadMs = (System.nanoTime() - startedAt) / 1e6;
+        long mappedHeap = usedHeap() - heapBefore;
+        double mappedSearchMs = medianSearchMs(mappedVectorStore);
+        mappedVectorStore.destroy();
+
+        System.out.printf("%d chunks x %d dimensions; JSON %.1f MB, snapshot %.1f MB, one-off conversion %.0f ms%n",
+                CHUNKS, DIMENSIONS, Files.size(json) / 1048576.0, Files.size(snapshot) / 1048576.0, convertMs);
+        System.out.printf("%-10s %12s %12s %14s%n", "format", "load ms", "heap MB", "search p50 ms");
+        System.out.printf("%-10s %12.1f %12.1f %14.2f%n", "json", jsonLoadMs, jsonHeap / 1048576.0, jsonSearchMs);
+        System.out.printf("%-10s %12.1f %12.1f %14.2f%n", "mapped", mappedLoadMs, mappedHeap / 1048576.0, mappedSearchMs);
+    }
+
+    private static double medianSearchMs(VectorStore vectorStore) {
+        Latencies latencies = new Latencies(QUERIES);
+        for (int q = 0; q < QUERIES; q++) {
+            SearchRequest request = SearchRequest.builder().query("q" + q).topK(TOP_K).build();
+            latencies.time(() -> vectorStore.similaritySearch(request));
+        }
+        return latencies.percentileMillis(0.5);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    /**
+     * Embeds every text as a random vector.
+     */
+    private record RandomEmbeddingModel(Random random) implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            return new EmbeddingResponse(request.getInstructions().stream()
+                    .map(_ -> new Embedding(randomVector(random), 0))
+                    .toList());
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return randomVector(random);
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+    }
+}
@@ -12,6 +12,8 @@ CREATE TABLE documents (
     upload_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     status VARCHAR(20) NOT NULL DEFAULT 'PROCESSING',
     error_message TEXT,
+    content_hash CHAR(64),
+    chunk_count INT,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
 
@@ -19,4 +21,5 @@ CREATE TABLE documents (
 );
 
 CREATE INDEX IF NOT EXISTS idx_documents_status ON documents(status);
-CREATE INDEX IF NOT EXISTS idx_documents_upload_date ON documents(upload_date DESC);
+CREATE INDEX IF NOT EXISTS idx_documents_upload_date_id ON documents(upload_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_documents_content_hash ON documents(content_hash);